@@ -44,6 +44,7 @@ import org.eclipse.lsp4xml.services.extensions.CompletionSettings;
 import org.eclipse.lsp4xml.settings.AllXMLSettings;
 import org.eclipse.lsp4xml.settings.InitializationOptionsSettings;
 import org.eclipse.lsp4xml.settings.LogsSettings;
+import org.eclipse.lsp4xml.settings.XMLDocumentCacheSettings;
 import org.eclipse.lsp4xml.settings.XMLGeneralClientSettings;
 import org.eclipse.lsp4xml.settings.XMLExperimentalCapabilities;
 import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
@@ -81,6 +82,9 @@ public class XMLLanguageServer
 		LOGGER.info("Initializing LSP4XML server " + getVersion());
 		this.parentProcessId = params.getProcessId();
 
+		// Release the caches when the heap is under pressure
+		xmlTextDocumentService.startMemoryGovernor();
+
 		// Update XML language service extensions with InitializeParams
 		xmlLanguageService.initializeParams(params);
 
@@ -144,6 +148,23 @@ public class XMLLanguageServer
 						&& experimental.getIncrementalSupport().getEnabled() != null
 						&& experimental.getIncrementalSupport().getEnabled().booleanValue();
 				xmlTextDocumentService.setIncrementalSupport(incrementalSupport);
+				boolean speculativeParse = experimental.getSpeculativeParse() != null
+						&& experimental.getSpeculativeParse().getEnabled() != null
+						&& experimental.getSpeculativeParse().getEnabled().booleanValue();
+				xmlTextDocumentService.setSpeculativeParse(speculativeParse);
+				boolean incrementalParse = experimental.getIncrementalParse() != null
+						&& experimental.getIncrementalParse().getEnabled() != null
+						&& experimental.getIncrementalParse().getEnabled().booleanValue();
+				xmlTextDocumentService.setIncrementalParse(incrementalParse);
+				xmlTextDocumentService.updateCompactDOMSettings(experimental.getCompactDOM());
+				xmlTextDocumentService.updateParallelParseSettings(experimental.getParallelParse());
+				xmlTextDocumentService.updateLargeFileSettings(experimental.getLargeFile());
+			}
+
+			// Cache of the parsed DOM documents
+			XMLDocumentCacheSettings documentCacheSettings = xmlClientSettings.getDocumentCache();
+			if (documentCacheSettings != null) {
+				xmlTextDocumentService.updateDocumentCacheSettings(documentCacheSettings);
 			}
 		}
 		ContentModelSettings cmSettings = ContentModelSettings.getContentModelXMLSettings(initializationOptionsSettings);
@@ -158,6 +179,7 @@ public class XMLLanguageServer
 
 	@Override
 	public CompletableFuture<Object> shutdown() {
+		xmlTextDocumentService.stopMemoryGovernor();
 		return computeAsync(cc -> new Object());
 	}
 
@@ -168,6 +190,7 @@ public class XMLLanguageServer
 
 	@Override
 	public void exit(int exitCode) {
+		xmlTextDocumentService.stopMemoryGovernor();
 		delayer.shutdown();
 		System.exit(exitCode);
 	}
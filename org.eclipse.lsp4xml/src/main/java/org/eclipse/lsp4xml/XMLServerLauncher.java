@@ -20,9 +20,8 @@ import java.util.function.Function;
 
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
-import org.eclipse.lsp4j.launch.LSPLauncher;
-import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4xml.commons.ParentProcessWatcher;
+import org.eclipse.lsp4xml.customservice.XMLLanguageClientAPI;
 
 public class XMLServerLauncher {
 
@@ -63,7 +62,7 @@ public class XMLServerLauncher {
 		} else {
 			wrapper = new ParentProcessWatcher(server);
 		}
-		Launcher<LanguageClient> launcher = LSPLauncher.createServerLauncher(server, in, out,
+		Launcher<XMLLanguageClientAPI> launcher = Launcher.createIoLauncher(server, XMLLanguageClientAPI.class, in, out,
 				Executors.newCachedThreadPool(), wrapper);
 		server.setClient(launcher.getRemoteProxy());
 		return launcher.startListening();
@@ -21,7 +21,7 @@ import java.util.concurrent.Executors;
 
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
-import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.lsp4xml.customservice.XMLLanguageClientAPI;
 
 public class XMLServerSocketLauncher {
 
@@ -51,8 +51,8 @@ public class XMLServerSocketLauncher {
 			final OutputStream out = Channels.newOutputStream(socketChannel);
 			final ExecutorService executorService = Executors.newCachedThreadPool();
 			XMLLanguageServer languageServer = new XMLLanguageServer();
-			final Launcher<LanguageClient> launcher = Launcher.createIoLauncher(languageServer, LanguageClient.class,
-					in, out, executorService, (MessageConsumer it) -> {
+			final Launcher<XMLLanguageClientAPI> launcher = Launcher.createIoLauncher(languageServer,
+					XMLLanguageClientAPI.class, in, out, executorService, (MessageConsumer it) -> {
 						return it;
 					});
 			languageServer.setClient(launcher.getRemoteProxy());
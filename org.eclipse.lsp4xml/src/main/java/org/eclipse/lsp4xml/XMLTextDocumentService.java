@@ -16,13 +16,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import org.eclipse.lsp4j.ClientCapabilities;
@@ -61,10 +67,14 @@ import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.TextDocumentService;
 import org.eclipse.lsp4xml.commons.LanguageModelCache;
+import org.eclipse.lsp4xml.commons.MemoryGovernor;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.commons.TextDocuments;
+import org.eclipse.lsp4xml.customservice.LargeFileModeParams;
+import org.eclipse.lsp4xml.customservice.XMLLanguageClientAPI;
 import org.eclipse.lsp4xml.dom.DOMDocument;
 import org.eclipse.lsp4xml.dom.DOMParser;
 import org.eclipse.lsp4xml.extensions.contentmodel.settings.XMLValidationSettings;
@@ -72,7 +82,11 @@ import org.eclipse.lsp4xml.services.XMLLanguageService;
 import org.eclipse.lsp4xml.services.extensions.CompletionSettings;
 import org.eclipse.lsp4xml.services.extensions.save.AbstractSaveContext;
 import org.eclipse.lsp4xml.settings.SharedSettings;
+import org.eclipse.lsp4xml.settings.XMLCompactDOMCapabilities;
+import org.eclipse.lsp4xml.settings.XMLDocumentCacheSettings;
 import org.eclipse.lsp4xml.settings.XMLFormattingOptions;
+import org.eclipse.lsp4xml.settings.XMLLargeFileCapabilities;
+import org.eclipse.lsp4xml.settings.XMLParallelParseCapabilities;
 
 /**
  * XML text document service.
@@ -87,7 +101,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 	class BasicCancelChecker implements CancelChecker {
 
-		private boolean canceled;
+		private volatile boolean canceled;
 
 		@Override
 		public void checkCanceled() {
@@ -100,6 +114,10 @@ public class XMLTextDocumentService implements TextDocumentService {
 			this.canceled = canceled;
 		}
 
+		public boolean isCanceled() {
+			return canceled;
+		}
+
 	}
 
 	/**
@@ -121,7 +139,9 @@ public class XMLTextDocumentService implements TextDocumentService {
 
 		@Override
 		public void collectDocumentToValidate(Predicate<DOMDocument> validateDocumentPredicate) {
-			documents.all().stream().forEach(document -> {
+			// the dormant documents are not decompressed and parsed again, they are
+			// validated on their next change
+			documents.all(false).stream().forEach(document -> {
 				DOMDocument xmlDocument = getXMLDocument(document);
 				if (!documentsToValidate.contains(document) && validateDocumentPredicate.test(xmlDocument)) {
 					documentsToValidate.add(document);
@@ -139,19 +159,77 @@ public class XMLTextDocumentService implements TextDocumentService {
 		}
 	}
 
+	private static final Logger LOGGER = Logger.getLogger(XMLTextDocumentService.class.getName());
+
+	private static final int DEFAULT_MAX_DOCUMENTS = 10;
+
+	private static final long DEFAULT_DOCUMENTS_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+	private static final int DEFAULT_DOCUMENT_IDLE_TIMEOUT = 30;
+
+	// Minimum number of characters of a document which is compacted
+	private static final int DEFAULT_COMPACT_DOM_THRESHOLD = 4 * 1024 * 1024;
+
+	// Minimum number of characters of a document which is parsed in parallel
+	private static final int DEFAULT_PARALLEL_PARSE_THRESHOLD = 16 * 1024 * 1024;
+
+	// Minimum number of characters of a document which is processed in the large
+	// file mode
+	private static final int DEFAULT_LARGE_FILE_THRESHOLD = 10 * 1024 * 1024;
+
+	// Minimum number of nodes of a document which is processed in the large file
+	// mode
+	private static final int DEFAULT_LARGE_FILE_NODE_COUNT_THRESHOLD = 1_000_000;
+
+	// Depth of the deepest symbols of a document which is processed in the large
+	// file mode
+	private static final int DEFAULT_LARGE_FILE_SYMBOLS_MAX_DEPTH = 3;
+
+	// Estimated size in bytes of a DOM node
+	private static final int NODE_WEIGHT = 100;
+
+	// Time after which a DOM document which is not used can be released when the
+	// heap is under pressure
+	private static final long COLD_DOCUMENT_TIME = 10 * 1000;
+
 	final ScheduledExecutorService delayer = Executors.newScheduledThreadPool(2);
+	// the speculative parses run in their own thread, so a long parse of a large
+	// file doesn't delay the maintenance tasks of the delayer (cache cleanup,
+	// memory governor)
+	private final ThreadPoolExecutor speculativeParser = createSpeculativeParser();
 	private ScheduledFuture<?> future;
 	private BasicCancelChecker monitor;
 	private boolean codeActionLiteralSupport;
 	private boolean hierarchicalDocumentSymbolSupport;
+	private boolean speculativeParse;
+	private boolean incrementalParse;
+	private int compactDOMThreshold = -1;
+	private int parallelParseThreshold = -1;
+	private int largeFileThreshold = -1;
+	private int largeFileNodeCountThreshold = -1;
+	private int largeFileSymbolsMaxDepth = -1;
+	// uri -> true if the last parsed version of the document is a large file
+	private final Map<String, Boolean> largeFiles = new ConcurrentHashMap<>();
+	private int documentIdleTimeout = DEFAULT_DOCUMENT_IDLE_TIMEOUT;
+	private final Map<String, BasicCancelChecker> speculativeParses;
+	private final MemoryGovernor memoryGovernor;
 	
 	public XMLTextDocumentService(XMLLanguageServer xmlLanguageServer) {
 		this.xmlLanguageServer = xmlLanguageServer;
 		this.documents = new TextDocuments();
-		DOMParser parser = DOMParser.getInstance();
-		this.xmlDocuments = new LanguageModelCache<DOMDocument>(10, 60, documents, document -> {
-			return parser.parse(document, getXMLLanguageService().getResolverExtensionManager());
-		});
+		this.xmlDocuments = new LanguageModelCache<DOMDocument>(DEFAULT_MAX_DOCUMENTS, 60,
+				DEFAULT_DOCUMENTS_MEMORY_BUDGET, documents, this::parse, XMLTextDocumentService::getWeight);
+		this.speculativeParses = new ConcurrentHashMap<>();
+		delayer.scheduleWithFixedDelay(xmlDocuments::cleanUp, xmlDocuments.getCleanupIntervalTimeInSec(),
+				xmlDocuments.getCleanupIntervalTimeInSec(), TimeUnit.SECONDS);
+		delayer.scheduleWithFixedDelay(this::compressIdleDocuments, 1, 1, TimeUnit.MINUTES);
+
+		// Release the caches when the heap is under pressure (the governor is started
+		// when the server is initialized)
+		this.memoryGovernor = new MemoryGovernor();
+		memoryGovernor.register("cold DOM documents", MemoryGovernor.COLD_DOCUMENTS_PRIORITY,
+				() -> xmlDocuments.evictIdleModels(COLD_DOCUMENT_TIME));
+		memoryGovernor.register("line indexes", MemoryGovernor.LINE_INDEXES_PRIORITY, documents::releaseLineTrackers);
 
 		this.sharedSettings = new SharedSettings();
 	}
@@ -177,6 +255,111 @@ public class XMLTextDocumentService implements TextDocumentService {
 		return xmlDocuments.get(document);
 	}
 
+	private DOMDocument parse(TextDocument document, CancelChecker monitor) {
+		DOMParser parser = DOMParser.getInstance();
+		DOMDocument xmlDocument;
+		// reuse the DOM document of the previous version
+		DOMDocument previous = incrementalParse ? xmlDocuments.getCachedLanguageModel(document.getUri()) : null;
+		if (previous != null) {
+			xmlDocument = parser.parseIncremental(previous, document,
+					getXMLLanguageService().getResolverExtensionManager(), monitor);
+		} else if (parallelParseThreshold >= 0 && document.getTextSequence().length() >= parallelParseThreshold) {
+			// split the large document in chunks parsed in parallel
+			xmlDocument = parser.parseParallel(document, getXMLLanguageService().getResolverExtensionManager(),
+					monitor);
+		} else {
+			xmlDocument = parser.parse(document, getXMLLanguageService().getResolverExtensionManager(), monitor);
+		}
+		if (compactDOMThreshold >= 0 && document.getTextSequence().length() >= compactDOMThreshold) {
+			// store the nodes of the large document in a compact node table
+			xmlDocument.compact();
+		}
+		if (largeFileThreshold >= 0) {
+			// the node count is computed once per parse and cached by the DOM document
+			boolean largeFile = document.getTextSequence().length() >= largeFileThreshold
+					|| xmlDocument.getNodeCount() >= largeFileNodeCountThreshold;
+			String uri = document.getUri();
+			Boolean previousLargeFile = largeFiles.put(uri, largeFile);
+			if (getDocument(uri) == null) {
+				// the document has been closed during the parse (didClose can have removed
+				// its mode before the put)
+				largeFiles.remove(uri);
+			} else if (previousLargeFile == null ? largeFile : previousLargeFile.booleanValue() != largeFile) {
+				notifyLargeFileMode(uri, largeFile);
+			}
+		}
+		return xmlDocument;
+	}
+
+	private void notifyLargeFileMode(String uri, boolean largeFile) {
+		LanguageClient client = getLanguageClient();
+		if (client instanceof XMLLanguageClientAPI) {
+			((XMLLanguageClientAPI) client).largeFileMode(new LargeFileModeParams(uri, largeFile));
+		}
+	}
+
+	/**
+	 * Returns true if the given document is processed in the large file mode and
+	 * false otherwise.
+	 * 
+	 * <p>
+	 * A document is a large file when it has at least 'threshold' characters or
+	 * when its last parsed version has at least 'nodeCountThreshold' nodes.
+	 * </p>
+	 * 
+	 * @param document the text document.
+	 * @return true if the given document is processed in the large file mode and
+	 *         false otherwise.
+	 */
+	public boolean isLargeFile(TextDocument document) {
+		if (largeFileThreshold < 0 || document == null) {
+			return false;
+		}
+		return document.getTextSequence().length() >= largeFileThreshold
+				|| Boolean.TRUE.equals(largeFiles.get(document.getUri()));
+	}
+
+	/**
+	 * Returns the memory governor which releases the caches when the heap is under
+	 * pressure.
+	 * 
+	 * @return the memory governor.
+	 */
+	public MemoryGovernor getMemoryGovernor() {
+		return memoryGovernor;
+	}
+
+	/**
+	 * Register the memory governor in the XML language service (to release the
+	 * caches of the extensions too) and start to watch the heap.
+	 */
+	public void startMemoryGovernor() {
+		getXMLLanguageService().registerComponent(memoryGovernor);
+		memoryGovernor.start(delayer);
+	}
+
+	/**
+	 * Stop to watch the heap.
+	 */
+	public void stopMemoryGovernor() {
+		memoryGovernor.stop();
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the given parsed DOM document.
+	 * 
+	 * @param document    the text document.
+	 * @param xmlDocument the parsed DOM document.
+	 * @return the estimated size in bytes of the given parsed DOM document.
+	 */
+	private static int getWeight(TextDocument document, DOMDocument xmlDocument) {
+		// the nodes of a compact document are not created to be counted
+		long compactSize = xmlDocument.getCompactSize();
+		long weight = 2L * document.getTextSequence().length() + (compactSize != -1 ? compactSize
+				: (long) NODE_WEIGHT * xmlDocument.getNodeCount());
+		return (int) Math.min(Integer.MAX_VALUE, weight);
+	}
+
 	@Override
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
 		return computeAsync((monitor) -> {
@@ -184,11 +367,24 @@ public class XMLTextDocumentService implements TextDocumentService {
 			TextDocument document = getDocument(uri);
 			DOMDocument xmlDocument = getXMLDocument(document);
 			CompletionList list = getXMLLanguageService().doComplete(xmlDocument, params.getPosition(),
-					sharedSettings);
+					getCompletionSharedSettings(document));
 			return Either.forRight(list);
 		});
 	}
 
+	private SharedSettings getCompletionSharedSettings(TextDocument document) {
+		if (!isLargeFile(document)) {
+			return sharedSettings;
+		}
+		// the documentation of the grammar is not loaded for the completion items of
+		// a large file
+		CompletionSettings completionSettings = new CompletionSettings(
+				sharedSettings.completionSettings.isAutoCloseTags());
+		completionSettings.setCapabilities(sharedSettings.completionSettings.getCompletionCapabilities());
+		completionSettings.setGrammarDocumentation(false);
+		return sharedSettings.withCompletionSettings(completionSettings);
+	}
+
 	@Override
 	public CompletableFuture<Hover> hover(TextDocumentPositionParams params) {
 		return computeAsync((monitor) -> {
@@ -219,8 +415,9 @@ public class XMLTextDocumentService implements TextDocumentService {
 		return computeAsync((monitor) -> {
 			TextDocument document = getDocument(params.getTextDocument().getUri());
 			DOMDocument xmlDocument = getXMLDocument(document);
+			int maxDepth = isLargeFile(document) ? largeFileSymbolsMaxDepth : -1;
 			if (hierarchicalDocumentSymbolSupport) {
-				return getXMLLanguageService().findDocumentSymbols(xmlDocument) //
+				return getXMLLanguageService().findDocumentSymbols(xmlDocument, maxDepth) //
 						.stream() //
 						.map(s -> {
 							Either<SymbolInformation, DocumentSymbol> e = Either.forRight(s);
@@ -228,7 +425,7 @@ public class XMLTextDocumentService implements TextDocumentService {
 						}) //
 						.collect(Collectors.toList());
 			}
-			return getXMLLanguageService().findSymbolInformations(xmlDocument) //
+			return getXMLLanguageService().findSymbolInformations(xmlDocument, maxDepth) //
 					.stream() //
 					.map(s -> {
 						Either<SymbolInformation, DocumentSymbol> e = Either.forLeft(s);
@@ -270,7 +467,10 @@ public class XMLTextDocumentService implements TextDocumentService {
 	@Override
 	public void didOpen(DidOpenTextDocumentParams params) {
 		documents.onDidOpenTextDocument(params);
-		triggerValidation(params.getTextDocument().getUri(), params.getTextDocument().getVersion());
+		if (!isLargeFile(getDocument(params.getTextDocument().getUri()))) {
+			// the node count of the parsed document can make it a large file
+			triggerValidation(params.getTextDocument().getUri(), params.getTextDocument().getVersion(), false);
+		}
 	}
 
 	@Override
@@ -279,18 +479,27 @@ public class XMLTextDocumentService implements TextDocumentService {
 	 */
 	public void didChange(DidChangeTextDocumentParams params) {
 		documents.onDidChangeTextDocument(params);
-		triggerValidation(params.getTextDocument().getUri(), params.getTextDocument().getVersion());
+		if (speculativeParse) {
+			triggerParse(params.getTextDocument().getUri());
+		}
+		if (!isLargeFile(getDocument(params.getTextDocument().getUri()))) {
+			// a large file is validated on save only
+			triggerValidation(params.getTextDocument().getUri(), params.getTextDocument().getVersion(), false);
+		}
 	}
 
 	@Override
 	public void didClose(DidCloseTextDocumentParams params) {
 		documents.onDidCloseTextDocument(params);
+		cancelParse(params.getTextDocument().getUri());
 		xmlDocuments.onDocumentRemoved(params.getTextDocument().getUri());
+		largeFiles.remove(params.getTextDocument().getUri());
 		TextDocumentIdentifier document = params.getTextDocument();
 		String uri = document.getUri();
-		xmlLanguageServer.getLanguageClient()
-				.publishDiagnostics(new PublishDiagnosticsParams(uri, new ArrayList<Diagnostic>()));
-
+		LanguageClient client = getLanguageClient();
+		if (client != null) {
+			client.publishDiagnostics(new PublishDiagnosticsParams(uri, new ArrayList<Diagnostic>()));
+		}
 	}
 
 	@Override
@@ -357,8 +566,14 @@ public class XMLTextDocumentService implements TextDocumentService {
 	public void didSave(DidSaveTextDocumentParams params) {
 		computeAsync((monitor) -> {
 			// A document was saved, collect documents to revalidate
-			SaveContext context = new SaveContext(params.getTextDocument().getUri());
+			String uri = params.getTextDocument().getUri();
+			SaveContext context = new SaveContext(uri);
 			doSave(context);
+			TextDocument document = getDocument(uri);
+			if (isLargeFile(document)) {
+				// a large file is validated on save only
+				triggerValidation(uri, document.getVersion());
+			}
 			return null;
 		});
 	}
@@ -383,19 +598,83 @@ public class XMLTextDocumentService implements TextDocumentService {
 		context.triggerValidationIfNeeded();
 	}
 
+	/**
+	 * Parse in background the current version of the given document to have a
+	 * parsed DOM document in the cache when the next request (completion, hover,
+	 * etc) will need it. The background parse of the previous version is
+	 * canceled.
+	 * 
+	 * @param uri the document URI.
+	 */
+	private void triggerParse(String uri) {
+		TextDocument document = getDocument(uri);
+		if (document == null) {
+			return;
+		}
+		BasicCancelChecker monitor = new BasicCancelChecker();
+		BasicCancelChecker previousMonitor = speculativeParses.put(uri, monitor);
+		if (previousMonitor != null) {
+			previousMonitor.setCanceled(true);
+		}
+		speculativeParser.execute(() -> {
+			if (monitor.isCanceled()) {
+				// a newer version of the document has been queued
+				return;
+			}
+			try {
+				xmlDocuments.get(document, monitor);
+			} catch (CancellationException e) {
+				// a newer version of the document is parsed
+			} finally {
+				speculativeParses.remove(uri, monitor);
+			}
+		});
+	}
+
+	private static ThreadPoolExecutor createSpeculativeParser() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "XML speculative parse");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private void cancelParse(String uri) {
+		BasicCancelChecker monitor = speculativeParses.remove(uri);
+		if (monitor != null) {
+			monitor.setCanceled(true);
+		}
+	}
+
 	private void triggerValidationFor(Collection<TextDocument> documents) {
 		if (!documents.isEmpty()) {
 			xmlLanguageServer.schedule(() -> {
 				documents.forEach(document -> {
 					String uri = document.getUri();
 					int version = document.getVersion();
-					doTriggerValidation(uri, version, monitor);
+					doTriggerValidation(uri, version, true, monitor);
 				});
 			}, 500, TimeUnit.MILLISECONDS);
 		}
 	}
 
 	private void triggerValidation(String uri, int version) {
+		triggerValidation(uri, version, true);
+	}
+
+	/**
+	 * Validates the given version of the given document after a delay.
+	 * 
+	 * @param uri               the document URI.
+	 * @param version           the document version.
+	 * @param validateLargeFile true if the document is validated when it is
+	 *                          processed in the large file mode (ex: on save) and
+	 *                          false otherwise.
+	 */
+	private void triggerValidation(String uri, int version, boolean validateLargeFile) {
 		if (future != null && !future.isCancelled()) {
 			future.cancel(true);
 		}
@@ -403,25 +682,40 @@ public class XMLTextDocumentService implements TextDocumentService {
 			monitor.setCanceled(true);
 		}
 		monitor = new BasicCancelChecker();
-		triggerValidation(uri, version, monitor);
+		triggerValidation(uri, version, validateLargeFile, monitor);
 	}
 
-	private void triggerValidation(String uri, int version, CancelChecker monitor) {
+	private void triggerValidation(String uri, int version, boolean validateLargeFile, CancelChecker monitor) {
 		future = xmlLanguageServer.schedule(() -> {
-			doTriggerValidation(uri, version, monitor);
+			doTriggerValidation(uri, version, validateLargeFile, monitor);
 		}, 500, TimeUnit.MILLISECONDS);
 	}
 
-	private void doTriggerValidation(String uri, int version, CancelChecker monitor) {
+	private void doTriggerValidation(String uri, int version, boolean validateLargeFile, CancelChecker monitor) {
 		TextDocument currDocument = getDocument(uri);
 		if (currDocument != null && currDocument.getVersion() == version) {
 			DOMDocument xmlDocument = getXMLDocument(currDocument);
+			if (!validateLargeFile && isLargeFile(currDocument)) {
+				// the parse has found that the document has too many nodes: it is
+				// validated on save only
+				return;
+			}
 			getXMLLanguageService().publishDiagnostics(xmlDocument,
 					params -> xmlLanguageServer.getLanguageClient().publishDiagnostics(params),
 					(u, v) -> triggerValidation(u, v), monitor, sharedSettings.validationSettings);
 		}
 	}
 
+	/**
+	 * Returns the language client of the server and null if the service has no
+	 * server or if the server is not connected to a client.
+	 * 
+	 * @return the language client of the server and null otherwise.
+	 */
+	private LanguageClient getLanguageClient() {
+		return xmlLanguageServer != null ? xmlLanguageServer.getLanguageClient() : null;
+	}
+
 	private XMLLanguageService getXMLLanguageService() {
 		return xmlLanguageServer.getXMLLanguageService();
 	}
@@ -442,6 +736,204 @@ public class XMLTextDocumentService implements TextDocumentService {
 		this.documents.setIncremental(incrementalSupport);
 	}
 
+	/**
+	 * Set true if documents must be parsed in background as soon as they change
+	 * and false otherwise.
+	 * 
+	 * @param speculativeParse true if documents must be parsed in background as
+	 *                         soon as they change and false otherwise.
+	 */
+	public void setSpeculativeParse(boolean speculativeParse) {
+		this.speculativeParse = speculativeParse;
+	}
+
+	public boolean isSpeculativeParse() {
+		return speculativeParse;
+	}
+
+	/**
+	 * Set true if a changed document must be parsed by reusing the DOM document
+	 * of its previous version and false otherwise.
+	 * 
+	 * @param incrementalParse true if a changed document must be parsed by
+	 *                         reusing the DOM document of its previous version
+	 *                         and false otherwise.
+	 */
+	public void setIncrementalParse(boolean incrementalParse) {
+		this.incrementalParse = incrementalParse;
+	}
+
+	public boolean isIncrementalParse() {
+		return incrementalParse;
+	}
+
+	/**
+	 * Update the compact DOM settings: when enabled, the nodes of a parsed
+	 * document which has at least 'threshold' characters are stored in a compact
+	 * node table.
+	 * 
+	 * @param compactDOM the compact DOM settings and null otherwise.
+	 */
+	public void updateCompactDOMSettings(XMLCompactDOMCapabilities compactDOM) {
+		boolean enabled = compactDOM != null && compactDOM.getEnabled() != null
+				&& compactDOM.getEnabled().booleanValue();
+		if (!enabled) {
+			compactDOMThreshold = -1;
+		} else {
+			compactDOMThreshold = compactDOM.getThreshold() != null ? Math.max(0, compactDOM.getThreshold())
+					: DEFAULT_COMPACT_DOM_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Returns the minimum number of characters of a document which is compacted
+	 * and -1 if the documents are not compacted.
+	 * 
+	 * @return the minimum number of characters of a document which is compacted
+	 *         and -1 if the documents are not compacted.
+	 */
+	public int getCompactDOMThreshold() {
+		return compactDOMThreshold;
+	}
+
+	/**
+	 * Update the parallel parse settings: when enabled, a document which has at
+	 * least 'threshold' characters is parsed in parallel.
+	 * 
+	 * @param parallelParse the parallel parse settings and null otherwise.
+	 */
+	public void updateParallelParseSettings(XMLParallelParseCapabilities parallelParse) {
+		boolean enabled = parallelParse != null && parallelParse.getEnabled() != null
+				&& parallelParse.getEnabled().booleanValue();
+		if (!enabled) {
+			parallelParseThreshold = -1;
+		} else {
+			parallelParseThreshold = parallelParse.getThreshold() != null ? Math.max(0, parallelParse.getThreshold())
+					: DEFAULT_PARALLEL_PARSE_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Returns the minimum number of characters of a document which is parsed in
+	 * parallel and -1 if the documents are not parsed in parallel.
+	 * 
+	 * @return the minimum number of characters of a document which is parsed in
+	 *         parallel and -1 if the documents are not parsed in parallel.
+	 */
+	public int getParallelParseThreshold() {
+		return parallelParseThreshold;
+	}
+
+	/**
+	 * Update the large file settings: when enabled, a document which has at least
+	 * 'threshold' characters or at least 'nodeCountThreshold' nodes is validated
+	 * on save only, its symbols are limited to 'symbolsMaxDepth' and its
+	 * completion items don't have the documentation of the grammar.
+	 * 
+	 * @param largeFile the large file settings and null otherwise.
+	 */
+	public void updateLargeFileSettings(XMLLargeFileCapabilities largeFile) {
+		boolean enabled = largeFile != null && largeFile.getEnabled() != null && largeFile.getEnabled().booleanValue();
+		if (!enabled) {
+			largeFileThreshold = -1;
+			largeFileNodeCountThreshold = -1;
+			largeFileSymbolsMaxDepth = -1;
+			largeFiles.clear();
+		} else {
+			largeFileThreshold = largeFile.getThreshold() != null ? Math.max(0, largeFile.getThreshold())
+					: DEFAULT_LARGE_FILE_THRESHOLD;
+			largeFileNodeCountThreshold = largeFile.getNodeCountThreshold() != null
+					? Math.max(0, largeFile.getNodeCountThreshold())
+					: DEFAULT_LARGE_FILE_NODE_COUNT_THRESHOLD;
+			largeFileSymbolsMaxDepth = largeFile.getSymbolsMaxDepth() != null
+					? Math.max(0, largeFile.getSymbolsMaxDepth())
+					: DEFAULT_LARGE_FILE_SYMBOLS_MAX_DEPTH;
+		}
+	}
+
+	/**
+	 * Returns the minimum number of characters of a document which is processed in
+	 * the large file mode and -1 if the large file mode is disabled.
+	 * 
+	 * @return the minimum number of characters of a document which is processed
+	 *         in the large file mode and -1 if the large file mode is disabled.
+	 */
+	public int getLargeFileThreshold() {
+		return largeFileThreshold;
+	}
+
+	/**
+	 * Returns the minimum number of nodes of a document which is processed in the
+	 * large file mode and -1 if the large file mode is disabled.
+	 * 
+	 * @return the minimum number of nodes of a document which is processed in the
+	 *         large file mode and -1 if the large file mode is disabled.
+	 */
+	public int getLargeFileNodeCountThreshold() {
+		return largeFileNodeCountThreshold;
+	}
+
+	/**
+	 * Returns the depth of the deepest symbols of a document which is processed in
+	 * the large file mode and -1 if the large file mode is disabled.
+	 * 
+	 * @return the depth of the deepest symbols of a document which is processed in
+	 *         the large file mode and -1 if the large file mode is disabled.
+	 */
+	public int getLargeFileSymbolsMaxDepth() {
+		return largeFileSymbolsMaxDepth;
+	}
+
+	/**
+	 * Update the limits of the cache of the parsed DOM documents.
+	 * 
+	 * @param documentCacheSettings the document cache settings.
+	 */
+	public void updateDocumentCacheSettings(XMLDocumentCacheSettings documentCacheSettings) {
+		int maxEntries = documentCacheSettings.getMaxEntries() != null ? documentCacheSettings.getMaxEntries()
+				: DEFAULT_MAX_DOCUMENTS;
+		long memoryBudget = documentCacheSettings.getMemoryBudget() != null
+				? documentCacheSettings.getMemoryBudget() * 1024L * 1024L
+				: DEFAULT_DOCUMENTS_MEMORY_BUDGET;
+		xmlDocuments.setLimits(maxEntries, memoryBudget);
+		documentIdleTimeout = documentCacheSettings.getIdleTimeout() != null ? documentCacheSettings.getIdleTimeout()
+				: DEFAULT_DOCUMENT_IDLE_TIMEOUT;
+	}
+
+	/**
+	 * Compress the open documents which are not accessed since the idle timeout
+	 * and drop their parsed DOM document.
+	 */
+	private void compressIdleDocuments() {
+		if (documentIdleTimeout <= 0) {
+			return;
+		}
+		try {
+			compressIdleDocuments(TimeUnit.MINUTES.toMillis(documentIdleTimeout));
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error while compressing idle documents", e);
+		}
+	}
+
+	/**
+	 * Compress the open documents which are not accessed since the given time and
+	 * drop their parsed DOM document.
+	 * 
+	 * @param idleTimeInMillis the idle time in milliseconds.
+	 */
+	void compressIdleDocuments(long idleTimeInMillis) {
+		documents.compressIdleDocuments(idleTimeInMillis).forEach(xmlDocuments::onDocumentRemoved);
+	}
+
+	/**
+	 * Returns the cache of the parsed DOM documents.
+	 * 
+	 * @return the cache of the parsed DOM documents.
+	 */
+	public LanguageModelCache<DOMDocument> getXMLDocumentCache() {
+		return xmlDocuments;
+	}
+
 	public XMLValidationSettings getValidationSettings() {
 		
 		return sharedSettings.validationSettings;
@@ -0,0 +1,127 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.eclipse.lsp4xml.utils.StringUtils;
+
+/**
+ * {@link Reader} which reads an immutable {@link CharSequence} (the text of a
+ * {@link TextDocument}) without copying it.
+ *
+ * <p>
+ * Characters are copied by blocks with <code>getChars</code> when the
+ * sequence is a {@link String}, a {@link Rope} or a {@link StringBuilder}, so
+ * Xerces reads the text of a document with the same cost than reading a
+ * {@link java.io.StringReader} but without creating a flat {@link String} or a
+ * byte array of the document.
+ * </p>
+ *
+ */
+public final class CharSequenceReader extends Reader {
+
+	private CharSequence text;
+	private final int end;
+	private int position;
+	private int mark;
+
+	public CharSequenceReader(CharSequence text) {
+		this(text, 0, text.length());
+	}
+
+	/**
+	 * Reader of the region [start, end[ of the given text.
+	 *
+	 * @param text  the text.
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 */
+	public CharSequenceReader(CharSequence text, int start, int end) {
+		if (start < 0 || end > text.length() || start > end) {
+			throw new IndexOutOfBoundsException("Bad region [" + start + ", " + end + "] for length " + text.length());
+		}
+		this.text = text;
+		this.position = start;
+		this.mark = start;
+		this.end = end;
+	}
+
+	@Override
+	public int read() throws IOException {
+		ensureOpen();
+		return position < end ? text.charAt(position++) : -1;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		if (off < 0 || len < 0 || off + len > cbuf.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (position >= end) {
+			return -1;
+		}
+		int count = Math.min(len, end - position);
+		StringUtils.getChars(text, position, position + count, cbuf, off);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		ensureOpen();
+		if (n <= 0) {
+			return 0;
+		}
+		int count = (int) Math.min(n, end - position);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		ensureOpen();
+		return true;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public void mark(int readAheadLimit) throws IOException {
+		ensureOpen();
+		mark = position;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		ensureOpen();
+		position = mark;
+	}
+
+	@Override
+	public void close() {
+		text = null;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (text == null) {
+			throw new IOException("Reader closed");
+		}
+	}
+}
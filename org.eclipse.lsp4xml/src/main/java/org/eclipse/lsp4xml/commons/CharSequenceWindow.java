@@ -0,0 +1,82 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+/**
+ * Reusable {@link CharSequence} view of the region [start, end[ of an
+ * immutable text.
+ *
+ * <p>
+ * The window doesn't copy the characters of the text: it can be moved with
+ * {@link #setRegion(CharSequence, int, int)} to view another region, so a
+ * consumer which reads only some characters of a region (ex: a regular
+ * expression) doesn't create a {@link String} for each region.
+ * </p>
+ *
+ */
+public final class CharSequenceWindow implements CharSequence {
+
+	private CharSequence text;
+	private int start;
+	private int end;
+
+	public CharSequenceWindow() {
+		this("", 0, 0);
+	}
+
+	public CharSequenceWindow(CharSequence text, int start, int end) {
+		setRegion(text, start, end);
+	}
+
+	/**
+	 * Moves the window to the region [start, end[ of the given text.
+	 *
+	 * @param text  the text.
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @return this window.
+	 */
+	public CharSequenceWindow setRegion(CharSequence text, int start, int end) {
+		if (start < 0 || start > end || end > text.length()) {
+			throw new IndexOutOfBoundsException("[" + start + ", " + end + "[ is not in the text");
+		}
+		this.text = text;
+		this.start = start;
+		this.end = end;
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= end - start) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + (end - start));
+		}
+		return text.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || start > end || end > this.end - this.start) {
+			throw new IndexOutOfBoundsException("[" + start + ", " + end + "[ is not in the window");
+		}
+		return text.subSequence(this.start + start, this.start + end);
+	}
+
+	@Override
+	public String toString() {
+		return text.subSequence(start, end).toString();
+	}
+}
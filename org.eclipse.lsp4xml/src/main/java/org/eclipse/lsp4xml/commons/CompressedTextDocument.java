@@ -0,0 +1,97 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.lsp4j.TextDocumentItem;
+
+/**
+ * Compressed form of a {@link TextDocument} used to keep a dormant document
+ * (a document which is not accessed since a long time) in memory. Only the
+ * compressed text is kept, the line index, the rope, etc are created again
+ * when the document is decompressed.
+ *
+ */
+class CompressedTextDocument {
+
+	private final String uri;
+	private final String languageId;
+	private final int version;
+	private final int length;
+	private final byte[] compressedText;
+
+	private CompressedTextDocument(TextDocument document, byte[] compressedText) {
+		this.uri = document.getUri();
+		this.languageId = document.getLanguageId();
+		this.version = document.getVersion();
+		this.length = document.getTextSequence().length();
+		this.compressedText = compressedText;
+	}
+
+	/**
+	 * Returns the compressed form of the given document.
+	 *
+	 * @param document the document to compress.
+	 * @return the compressed form of the given document.
+	 */
+	public static CompressedTextDocument compress(TextDocument document) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(new DeflaterOutputStream(out), StandardCharsets.UTF_8)) {
+			writer.append(document.getTextSequence());
+		} catch (IOException e) {
+			// Should never occurs with a ByteArrayOutputStream
+			throw new UncheckedIOException(e);
+		}
+		return new CompressedTextDocument(document, out.toByteArray());
+	}
+
+	/**
+	 * Returns a new text document with the decompressed text.
+	 *
+	 * @param factory the text document factory.
+	 * @return a new text document with the decompressed text.
+	 */
+	public TextDocument decompress(ITextDocumentFactory factory) {
+		StringBuilder text = new StringBuilder(length);
+		try (Reader reader = new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(compressedText)),
+				StandardCharsets.UTF_8)) {
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				text.append(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			// Should never occurs with a ByteArrayInputStream
+			throw new UncheckedIOException(e);
+		}
+		return factory.createDocument(new TextDocumentItem(uri, languageId, version, text.toString()));
+	}
+
+	/**
+	 * Returns the size in bytes of the compressed text.
+	 *
+	 * @return the size in bytes of the compressed text.
+	 */
+	public int getCompressedSize() {
+		return compressedText.length;
+	}
+}
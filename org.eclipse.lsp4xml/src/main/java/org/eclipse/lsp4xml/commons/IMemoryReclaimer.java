@@ -0,0 +1,27 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+/**
+ * Memory reclaimer called by the {@link MemoryGovernor} when the heap is under
+ * pressure.
+ *
+ */
+@FunctionalInterface
+public interface IMemoryReclaimer {
+
+	/**
+	 * Release the cached data which can be computed again.
+	 *
+	 * @return the number of released items.
+	 */
+	int reclaim();
+}
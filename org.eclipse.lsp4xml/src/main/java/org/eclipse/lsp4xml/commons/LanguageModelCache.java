@@ -10,83 +10,405 @@
  */
 package org.eclipse.lsp4xml.commons;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Language model cache.
- * 
+ *
+ * <p>
+ * The cache keeps at most <code>maxEntries</code> language models and, when a
+ * memory budget is set, the sum of the weights of the cached models (computed
+ * with the weigher from the text document and the language model) stays below
+ * this budget. A model heavier than the budget weighs the budget, so the last
+ * parsed model is always kept (alone) even for a very large document. The
+ * least recently used models are evicted first and models
+ * which are not accessed since <code>cleanupIntervalTimeInSec</code> are
+ * evicted by {@link #cleanUp()}.
+ * </p>
+ *
+ * <p>
+ * Documents are parsed in parallel: a parse only blocks the requests for the
+ * same version of the same document, which wait for this parse instead of
+ * parsing it again. When a parse is canceled, the waiting requests parse the
+ * document themselves. A parse which finishes after the removal of its
+ * document (see {@link #onDocumentRemoved(String)}) doesn't cache its language
+ * model.
+ * </p>
+ *
  * @see https://github.com/Microsoft/vscode/blob/master/extensions/json-language-features/server/src/languageModelCache.ts
  *
  * @param <T>
  */
 public class LanguageModelCache<T> {
 
-	private final Map<String, LanguageModeInfo> languageModels;
-	private final Function<TextDocument, T> parse;
+	private static final Logger LOGGER = Logger.getLogger(LanguageModelCache.class.getName());
+
+	private volatile Cache<String, LanguageModeInfo> languageModels;
+	private final BiFunction<TextDocument, CancelChecker, T> parse;
+	private final ToIntBiFunction<TextDocument, T> weigher;
 	private final ITextDocumentFactory documentFactory;
+	private final int cleanupIntervalTimeInSec;
+	private int maxEntries;
+	private long maxWeight;
+
+	// the parses in progress
+	private final ConcurrentMap<ParseKey, CompletableFuture<T>> parsing;
+	// the parses in progress of the removed documents
+	private final Set<ParseKey> removedParses;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	// eviction count of the previous caches replaced by setLimits
+	private long previousEvictionCount;
 
 	class LanguageModeInfo {
 
 		public final int version;
 		public final String languageId;
-		public long cTime;
-		public T languageModel;
+		public final T languageModel;
+		public final int weight;
+		public volatile long lastAccessTime;
 
-		public LanguageModeInfo(T languageModel, int version, String languageId, long cTime) {
+		public LanguageModeInfo(T languageModel, int version, String languageId, int weight) {
 			this.languageModel = languageModel;
 			this.version = version;
 			this.languageId = languageId;
-			this.cTime = cTime;
+			this.weight = weight;
+			this.lastAccessTime = System.currentTimeMillis();
+		}
+	}
+
+	private static class ParseKey {
+
+		private final String uri;
+		private final int version;
+		private final String languageId;
+
+		public ParseKey(String uri, int version, String languageId) {
+			this.uri = uri;
+			this.version = version;
+			this.languageId = languageId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(uri, version, languageId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ParseKey)) {
+				return false;
+			}
+			ParseKey other = (ParseKey) obj;
+			return version == other.version && Objects.equals(uri, other.uri)
+					&& Objects.equals(languageId, other.languageId);
 		}
 	}
 
 	public LanguageModelCache(int maxEntries, int cleanupIntervalTimeInSec, ITextDocumentFactory documentFactory,
 			Function<TextDocument, T> parse) {
-		this.languageModels = new HashMap<>();
+		this(maxEntries, cleanupIntervalTimeInSec, 0, documentFactory,
+				(document, cancelChecker) -> parse.apply(document),
+				(document, languageModel) -> document.getTextSequence().length());
+	}
+
+	/**
+	 * Language model cache constructor.
+	 *
+	 * @param maxEntries               the max number of cached language models.
+	 * @param cleanupIntervalTimeInSec the time after which a language model which
+	 *                                 is not accessed is evicted (0 to disable
+	 *                                 it).
+	 * @param maxWeight                the memory budget of the cache (0 to
+	 *                                 disable it).
+	 * @param documentFactory          the text document factory.
+	 * @param parse                    the function which parses a text document
+	 *                                 and which checks the given cancel checker
+	 *                                 (which can be null).
+	 * @param weigher                  the function which computes the weight of a
+	 *                                 language model.
+	 */
+	public LanguageModelCache(int maxEntries, int cleanupIntervalTimeInSec, long maxWeight,
+			ITextDocumentFactory documentFactory, BiFunction<TextDocument, CancelChecker, T> parse,
+			ToIntBiFunction<TextDocument, T> weigher) {
 		this.parse = parse;
+		this.weigher = weigher;
 		this.documentFactory = documentFactory;
+		this.cleanupIntervalTimeInSec = cleanupIntervalTimeInSec;
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.languageModels = createCache(maxEntries, maxWeight);
+		this.parsing = new ConcurrentHashMap<>();
+		this.removedParses = ConcurrentHashMap.newKeySet();
+	}
+
+	private Cache<String, LanguageModeInfo> createCache(int maxEntries, long maxWeight) {
+		// a single segment is used to apply the limits on the whole cache and not per
+		// segment.
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().concurrencyLevel(1).recordStats();
+		if (cleanupIntervalTimeInSec > 0) {
+			builder.expireAfterAccess(cleanupIntervalTimeInSec, TimeUnit.SECONDS);
+		}
+		if (maxWeight > 0) {
+			// each language model weighs at least maxWeight / maxEntries to honor
+			// maxEntries too, and at most maxWeight because the cache evicts at once an
+			// entry heavier than the budget of its segment.
+			long minWeight = maxEntries > 0 ? maxWeight / maxEntries : 0;
+			long maxEntryWeight = Math.min(Integer.MAX_VALUE, maxWeight);
+			return builder.maximumWeight(maxWeight) //
+					.weigher((String uri, LanguageModeInfo info) -> (int) Math.min(maxEntryWeight,
+							Math.max(info.weight, minWeight))) //
+					.build();
+		}
+		if (maxEntries > 0) {
+			builder.maximumSize(maxEntries);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Update the limits of the cache. The cached language models are kept as long
+	 * as they fit the new limits.
+	 *
+	 * @param maxEntries the max number of cached language models.
+	 * @param maxWeight  the memory budget of the cache (0 to disable it).
+	 */
+	public synchronized void setLimits(int maxEntries, long maxWeight) {
+		if (this.maxEntries == maxEntries && this.maxWeight == maxWeight) {
+			return;
+		}
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		Cache<String, LanguageModeInfo> oldLanguageModels = languageModels;
+		Cache<String, LanguageModeInfo> newLanguageModels = createCache(maxEntries, maxWeight);
+		newLanguageModels.putAll(oldLanguageModels.asMap());
+		languageModels = newLanguageModels;
+		previousEvictionCount += oldLanguageModels.stats().evictionCount();
 	}
 
 	public T get(TextDocumentItem document) {
+		return get(document, null);
+	}
+
+	/**
+	 * Returns the language model of the given document and parse it if needed.
+	 *
+	 * @param document      the text document.
+	 * @param cancelChecker the cancel checker used to cancel the parse and null
+	 *                      otherwise.
+	 * @return the language model of the given document.
+	 * @throws CancellationException when the parse is canceled.
+	 */
+	public T get(TextDocumentItem document, CancelChecker cancelChecker) {
 		int version = document.getVersion();
 		String languageId = document.getLanguageId();
 		String uri = document.getUri();
 		T languageModel = getLanguageModel(version, languageId, uri);
 		if (languageModel != null) {
+			hitCount.increment();
 			return languageModel;
 		}
-		return parseAndGet(document, version, languageId, uri);
+		return parseAndGet(document, version, languageId, uri, cancelChecker);
 	}
 
 	private T getLanguageModel(int version, String languageId, String uri) {
-		LanguageModeInfo languageModelInfo = languageModels.get(uri);
+		LanguageModeInfo languageModelInfo = languageModels.getIfPresent(uri);
 		if (languageModelInfo != null && languageModelInfo.version == version
 				&& Objects.equals(languageId, languageModelInfo.languageId)) {
-			languageModelInfo.cTime = System.currentTimeMillis();
+			languageModelInfo.lastAccessTime = System.currentTimeMillis();
 			return languageModelInfo.languageModel;
 		}
 		return null;
 	}
 
-	private synchronized T parseAndGet(TextDocumentItem document, int version, String languageId, String uri) {
-		T languageModel = getLanguageModel(version, languageId, uri);
-		if (languageModel != null) {
+	/**
+	 * Returns the cached language model of the given uri whatever its version and
+	 * null otherwise.
+	 *
+	 * @param uri the document uri.
+	 * @return the cached language model of the given uri whatever its version and
+	 *         null otherwise.
+	 */
+	public T getCachedLanguageModel(String uri) {
+		LanguageModeInfo languageModelInfo = languageModels.getIfPresent(uri);
+		return languageModelInfo != null ? languageModelInfo.languageModel : null;
+	}
+
+	private T parseAndGet(TextDocumentItem document, int version, String languageId, String uri,
+			CancelChecker cancelChecker) {
+		ParseKey key = new ParseKey(uri, version, languageId);
+		CompletableFuture<T> future = new CompletableFuture<>();
+		CompletableFuture<T> inProgress;
+		while ((inProgress = parsing.putIfAbsent(key, future)) != null) {
+			// the same version of the document is being parsed by an other thread, wait
+			// for the result of this parse.
+			try {
+				T languageModel = waitFor(inProgress);
+				hitCount.increment();
+				return languageModel;
+			} catch (CancellationException e) {
+				// the other parse has been canceled, retry
+				if (cancelChecker != null) {
+					cancelChecker.checkCanceled();
+				}
+				parsing.remove(key, inProgress);
+			}
+		}
+		try {
+			// the parse could be finished between the first check and the registration of
+			// the future.
+			T languageModel = getLanguageModel(version, languageId, uri);
+			if (languageModel != null) {
+				hitCount.increment();
+			} else {
+				missCount.increment();
+				TextDocument textDocument = document instanceof TextDocument ? (TextDocument) document
+						: documentFactory.createDocument(document);
+				languageModel = parse.apply(textDocument, cancelChecker);
+				int weight = weigher.applyAsInt(textDocument, languageModel);
+				LanguageModeInfo info = new LanguageModeInfo(languageModel, version, languageId, weight);
+				// don't replace a newer version parsed in parallel
+				languageModels.asMap().merge(uri, info,
+						(oldInfo, newInfo) -> oldInfo.version > newInfo.version ? oldInfo : newInfo);
+				if (removedParses.contains(key)) {
+					// the document has been removed during the parse
+					languageModels.asMap().remove(uri, info);
+				}
+			}
+			future.complete(languageModel);
 			return languageModel;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			parsing.remove(key, future);
+			removedParses.remove(key);
+		}
+	}
+
+	private static <T> T waitFor(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
 		}
-		TextDocument textDocument = document instanceof TextDocument ? (TextDocument) document
-				: documentFactory.createDocument(document);
-		languageModel = parse.apply(textDocument);
-		languageModels.put(uri, new LanguageModeInfo(languageModel, version, languageId, System.currentTimeMillis()));
-		return languageModel;
 	}
 
 	public void onDocumentRemoved(String uri) {
-		languageModels.remove(uri);
+		// the parses in progress of the document must not cache their language model
+		for (ParseKey key : parsing.keySet()) {
+			if (key.uri.equals(uri)) {
+				removedParses.add(key);
+			}
+		}
+		languageModels.invalidate(uri);
+	}
+
+	/**
+	 * Evict the language models which are not accessed since the cleanup interval.
+	 */
+	public void cleanUp() {
+		languageModels.cleanUp();
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.fine("Language model cache: " + size() + " entries, " + getHitCount() + " hits, " + getMissCount()
+					+ " misses, " + getEvictionCount() + " evictions");
+		}
+	}
+
+	/**
+	 * Evict the language models which are not accessed since the given time.
+	 * 
+	 * @param idleTimeInMillis the idle time in milliseconds.
+	 * @return the number of evicted language models.
+	 */
+	public int evictIdleModels(long idleTimeInMillis) {
+		long limit = System.currentTimeMillis() - idleTimeInMillis;
+		int evicted = 0;
+		for (Map.Entry<String, LanguageModeInfo> entry : languageModels.asMap().entrySet()) {
+			LanguageModeInfo info = entry.getValue();
+			if (info.lastAccessTime <= limit && languageModels.asMap().remove(entry.getKey(), info)) {
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Returns the cleanup interval in seconds.
+	 *
+	 * @return the cleanup interval in seconds.
+	 */
+	public int getCleanupIntervalTimeInSec() {
+		return cleanupIntervalTimeInSec;
+	}
+
+	/**
+	 * Returns the number of cached language models.
+	 *
+	 * @return the number of cached language models.
+	 */
+	public long size() {
+		return languageModels.size();
+	}
+
+	/**
+	 * Returns the number of times a cached language model was returned.
+	 *
+	 * @return the number of times a cached language model was returned.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * Returns the number of times a language model was parsed because it was not
+	 * cached or outdated.
+	 *
+	 * @return the number of times a language model was parsed.
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * Returns the number of language models evicted because of the limits of the
+	 * cache or the cleanup interval.
+	 *
+	 * @return the number of evicted language models.
+	 */
+	public synchronized long getEvictionCount() {
+		return previousEvictionCount + languageModels.stats().evictionCount();
 	}
 
 }
@@ -11,8 +11,7 @@
  *******************************************************************************/
 package org.eclipse.lsp4xml.commons;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import org.eclipse.lsp4j.Position;
 
@@ -29,7 +28,14 @@ import org.eclipse.lsp4j.Position;
  * <li>"a\nb" -> [0,2], [2,1]
  * <li>"a\nbc\n" -> [0,2], [2,3], [5,0]
  * </ul>
- * This class must be subclassed.
+ * The lines are stored in primitive arrays (line start offsets and line
+ * delimiters) which can be updated in place with
+ * {@link #replace(CharSequence, int, int, int)} when the text is modified: only
+ * the lines touched by the change are rescanned and the start offsets of the
+ * following lines are shifted. A line tracker shared by several snapshots of a
+ * document is never modified:
+ * {@link #copyAndReplace(CharSequence, int, int, int)} creates the line tracker
+ * of the changed text in one pass.
  *
  * @since 3.2
  */
@@ -40,8 +46,18 @@ class ListLineTracker /* implements ILineTracker */ {
 	/** A predefined delimiter information which is always reused as return value */
 	private DelimiterInfo fDelimiterInfo = new DelimiterInfo();
 
-	/** The line information */
-	private final List<Line> fLines = new ArrayList<>();
+	/** Index of the "no delimiter" kind stored in {@link #fDelimiters} */
+	private static final byte NO_DELIMITER = -1;
+
+	/** The start offset of each line */
+	private int[] fLineStarts = new int[16];
+	/**
+	 * The delimiter of each line stored as index of {@link #DELIMITERS} (or
+	 * {@link #NO_DELIMITER} for the last line)
+	 */
+	private byte[] fDelimiters = new byte[16];
+	/** The number of lines, an empty text has one line */
+	private int fLineCount = 1;
 	/** The length of the tracked text */
 	private int fTextLength;
 
@@ -60,6 +76,7 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * Creates a new line tracker.
 	 */
 	protected ListLineTracker() {
+		fDelimiters[0] = NO_DELIMITER;
 	}
 
 	/**
@@ -69,55 +86,105 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * @return the line of the offset
 	 */
 	private int findLine(int offset) {
-
-		if (fLines.size() == 0)
-			return -1;
-
 		int left = 0;
-		int right = fLines.size() - 1;
-		int mid = 0;
-		Line line = null;
-
+		int right = fLineCount - 1;
 		while (left < right) {
-
-			mid = (left + right) / 2;
-
-			line = fLines.get(mid);
-			if (offset < line.offset) {
-				if (left == mid)
-					right = left;
-				else
-					right = mid - 1;
-			} else if (offset > line.offset) {
-				if (right == mid)
-					left = right;
-				else
-					left = mid + 1;
-			} else if (offset == line.offset) {
-				left = right = mid;
+			int mid = (left + right + 1) >>> 1;
+			if (fLineStarts[mid] <= offset) {
+				left = mid;
+			} else {
+				right = mid - 1;
 			}
 		}
-
-		line = fLines.get(left);
-		if (line.offset > offset)
-			--left;
 		return left;
 	}
 
+	/**
+	 * Returns the number of lines which have content or a delimiter. A last empty
+	 * line (which follows a delimiter at the end of the text) is not counted.
+	 *
+	 * @return the number of lines which have content or a delimiter.
+	 */
+	private int getNumberOfFilledLines() {
+		return fLineStarts[fLineCount - 1] == fTextLength ? fLineCount - 1 : fLineCount;
+	}
+
+	/**
+	 * Returns the end offset of the given line without its delimiter.
+	 *
+	 * @param line the line
+	 * @return the end offset of the given line without its delimiter.
+	 */
+	private int getLineEnd(int line) {
+		if (line == fLineCount - 1) {
+			return fTextLength;
+		}
+		return fLineStarts[line + 1] - DELIMITERS[fDelimiters[line]].length();
+	}
+
+	private void checkLine(int line) throws BadLocationException {
+		if (line < 0 || line > getNumberOfFilledLines())
+			throw new BadLocationException("The line value, {" + line + "}, is out of bounds.");
+	}
+
 	public final Position getPositionAt(int offset) throws BadLocationException {
 		int lineNumber = getLineNumberOfOffset(offset);
-		int lines = fLines.size();
-		int character = 0;
-		if (lines > 0) {
-			if (lineNumber == lines) {
-				Line l = fLines.get(lineNumber - 1);
-				character = offset - l.offset - l.length;
+		return new Position(lineNumber, offset - fLineStarts[lineNumber]);
+	}
+
+	/**
+	 * Returns the positions of the given offsets. The offsets should be sorted: in
+	 * this case the line index is visited once for all the offsets. An offset
+	 * which is lower than the previous one is searched with a binary search.
+	 *
+	 * @param offsets the offsets (sorted).
+	 * @return the positions of the given offsets.
+	 * @throws BadLocationException if an offset is out of bounds.
+	 */
+	public final Position[] getPositionsAt(int[] offsets) throws BadLocationException {
+		Position[] positions = new Position[offsets.length];
+		int line = 0;
+		int previousOffset = 0;
+		for (int i = 0; i < offsets.length; i++) {
+			int offset = offsets[i];
+			if (offset < 0) {
+				throw new BadLocationException("Negative offset : " + offset); //$NON-NLS-1$
+			} else if (offset > fTextLength) {
+				throw new BadLocationException("Offset > length: " + offset + " > " + fTextLength); //$NON-NLS-1$//$NON-NLS-2$
+			}
+			line = offset >= previousOffset ? findLineFrom(line, offset) : findLine(offset);
+			positions[i] = new Position(line, offset - fLineStarts[line]);
+			previousOffset = offset;
+		}
+		return positions;
+	}
+
+	/**
+	 * Search the line of the given offset from the given line (which starts before
+	 * the offset) with an exponential search, so that close offsets are found with
+	 * few comparisons.
+	 *
+	 * @param fromLine the line to start with
+	 * @param offset   the offset whose line should be found
+	 * @return the line of the offset
+	 */
+	private int findLineFrom(int fromLine, int offset) {
+		int step = 1;
+		int left = fromLine;
+		while (left + step < fLineCount && fLineStarts[left + step] <= offset) {
+			left += step;
+			step <<= 1;
+		}
+		int right = Math.min(left + step, fLineCount) - 1;
+		while (left < right) {
+			int mid = (left + right + 1) >>> 1;
+			if (fLineStarts[mid] <= offset) {
+				left = mid;
 			} else {
-				Line l = fLines.get(lineNumber);
-				character = offset - l.offset;
+				right = mid - 1;
 			}
 		}
-		return new Position(lineNumber, character);
+		return left;
 	}
 
 	private final int getLineNumberOfOffset(int position) throws BadLocationException {
@@ -126,42 +193,21 @@ class ListLineTracker /* implements ILineTracker */ {
 		} else if (position > fTextLength) {
 			throw new BadLocationException("Offset > length: " + position + " > " + fTextLength); //$NON-NLS-1$//$NON-NLS-2$
 		}
-
-		if (position == fTextLength) {
-
-			int lastLine = fLines.size() - 1;
-			if (lastLine < 0)
-				return 0;
-
-			Line l = fLines.get(lastLine);
-			return (l.delimiter != null ? lastLine + 1 : lastLine);
-		}
-
 		return findLine(position);
 	}
 
 	public int getOffsetAt(Position position) throws BadLocationException {
 		int line = position.getLine();
-		int lines = fLines.size();
-
-		if (line < 0 || line > lines)
-			throw new BadLocationException("The line value, {" + line + "}, is out of bounds.");
+		checkLine(line);
 
 		int lineOffset = -1;
 		int lineLength = -1;
-		if (lines == 0) {
-			lineOffset = 0;
+		if (line == fLineCount) {
+			lineOffset = fTextLength;
 			lineLength = 0;
 		} else {
-			if (line == lines) {
-				Line l = fLines.get(line - 1);
-				lineOffset = l.offset + l.length;
-				lineLength = 0;
-			} else {
-				Line l = fLines.get(line);
-				lineOffset = l.offset;
-				lineLength = l.delimiter != null ? l.length - l.delimiter.length() : l.length;
-			}
+			lineOffset = fLineStarts[line];
+			lineLength = getLineEnd(line) - lineOffset;
 		}
 		int character = position.getCharacter();
 		int offset = lineOffset + character;
@@ -173,89 +219,37 @@ class ListLineTracker /* implements ILineTracker */ {
 	}
 
 	public final Line getLineInformation(int line) throws BadLocationException {
-		int lines = fLines.size();
-
-		if (line < 0 || line > lines)
-			throw new BadLocationException("The line value, {" + line + "}, is out of bounds.");
-
-		if (lines == 0)
-			return new Line(0, 0);
+		checkLine(line);
 
-		if (line == lines) {
-			Line l = fLines.get(line - 1);
-			return new Line(l.offset + l.length, 0);
+		if (line == fLineCount) {
+			return new Line(fTextLength, 0);
 		}
-
-		Line l = fLines.get(line);
-		return (l.delimiter != null ? new Line(l.offset, l.length - l.delimiter.length()) : l);
+		int offset = fLineStarts[line];
+		return new Line(offset, getLineEnd(line) - offset);
 	}
 
 	// @Override
 	public final int getLineOffset(int line) throws BadLocationException {
-		int lines = fLines.size();
+		checkLine(line);
 
-		if (line < 0 || line > lines)
-			throw new BadLocationException("The line value, {" + line + "}, is out of bounds.");
-
-		if (lines == 0)
-			return 0;
-
-		if (line == lines) {
-			Line l = fLines.get(line - 1);
-			if (l.delimiter != null)
-				return l.offset + l.length;
+		if (line == fLineCount) {
 			throw new BadLocationException();
 		}
-
-		Line l = fLines.get(line);
-		return l.offset;
+		return fLineStarts[line];
 	}
 
 	// @Override
 	public final int getNumberOfLines() {
-		int lines = fLines.size();
-
-		if (lines == 0)
-			return 1;
-
-		Line l = fLines.get(lines - 1);
-		return (l.delimiter != null ? lines + 1 : lines);
+		return fLineCount;
 	}
 
-	/*
-	 * @Override public final int getNumberOfLines(int position, int length) throws
-	 * BadLocationException {
-	 * 
-	 * if (position < 0 || position + length > fTextLength) throw new
-	 * BadLocationException();
-	 * 
-	 * if (length == 0) // optimization return 1;
-	 * 
-	 * return getNumberOfLines(getLineNumberOfOffset(position), position, length); }
-	 */
-
-	/*
-	 * @Override public final int computeNumberOfLines(String text) { int count= 0;
-	 * int start= 0; DelimiterInfo delimiterInfo= nextDelimiterInfo(text, start);
-	 * while (delimiterInfo != null && delimiterInfo.delimiterIndex > -1) { ++count;
-	 * start= delimiterInfo.delimiterIndex + delimiterInfo.delimiterLength;
-	 * delimiterInfo= nextDelimiterInfo(text, start); } return count; }
-	 */
-
 	public final String getLineDelimiter(int line) throws BadLocationException {
-		int lines = fLines.size();
+		checkLine(line);
 
-		if (line < 0 || line > lines)
-			throw new BadLocationException("The line value, {" + line + "}, is out of bounds.");
-
-		if (lines == 0)
-			return null;
-
-		if (line == lines)
+		if (line >= fLineCount - 1) {
 			return null;
-
-		Line l = fLines.get(line);
-		return l.delimiter;
+		}
+		return DELIMITERS[fDelimiters[line]];
 	}
 
 	/**
@@ -266,7 +260,7 @@ class ListLineTracker /* implements ILineTracker */ {
 	 * @param offset the offset in the given text
 	 * @return the information of the first found delimiter or <code>null</code>
 	 */
-	protected DelimiterInfo nextDelimiterInfo(String text, int offset) {
+	protected DelimiterInfo nextDelimiterInfo(CharSequence text, int offset) {
 		char ch;
 		int length = text.length();
 		for (int i = offset; i < length; i++) {
@@ -302,68 +296,146 @@ class ListLineTracker /* implements ILineTracker */ {
 	}
 
 	/**
-	 * Creates the line structure for the given text. Newly created lines are
-	 * inserted into the line structure starting at the given position. Returns the
-	 * number of newly created lines.
-	 *
-	 * @param text           the text for which to create a line structure
-	 * @param insertPosition the position at which the newly created lines are
-	 *                       inserted into the tracker's line structure
-	 * @param offset         the offset of all newly created lines
-	 * @return the number of newly created lines
+	 * Returns the index in {@link #DELIMITERS} of the given delimiter info.
 	 */
-	private int createLines(String text, int insertPosition, int offset) {
-
-		int count = 0;
-		int start = 0;
-		DelimiterInfo delimiterInfo = nextDelimiterInfo(text, 0);
-
-		while (delimiterInfo != null && delimiterInfo.delimiterIndex > -1) {
-
-			int index = delimiterInfo.delimiterIndex + (delimiterInfo.delimiterLength - 1);
-
-			if (insertPosition + count >= fLines.size())
-				fLines.add(new Line(offset + start, offset + index, delimiterInfo.delimiter));
-			else
-				fLines.add(insertPosition + count, new Line(offset + start, offset + index, delimiterInfo.delimiter));
-
-			++count;
-			start = index + 1;
-			delimiterInfo = nextDelimiterInfo(text, start);
+	private static byte getDelimiterIndex(DelimiterInfo delimiterInfo) {
+		if (delimiterInfo.delimiterLength == 2) {
+			return 2;
 		}
+		return delimiterInfo.delimiter == DELIMITERS[0] ? (byte) 0 : (byte) 1;
+	}
 
-		if (start < text.length()) {
-			if (insertPosition + count < fLines.size()) {
-				// there is a line below the current
-				Line l = fLines.get(insertPosition + count);
-				int delta = text.length() - start;
-				l.offset -= delta;
-				l.length += delta;
-			} else {
-				fLines.add(new Line(offset + start, offset + text.length() - 1, null));
-				++count;
-			}
+	/**
+	 * Ensures that the line arrays can store the given number of lines.
+	 */
+	private void ensureCapacity(int lineCount) {
+		if (lineCount > fLineStarts.length) {
+			int newCapacity = Math.max(lineCount, fLineStarts.length + (fLineStarts.length >> 1));
+			int[] lineStarts = new int[newCapacity];
+			System.arraycopy(fLineStarts, 0, lineStarts, 0, fLineCount);
+			fLineStarts = lineStarts;
+			byte[] delimiters = new byte[newCapacity];
+			System.arraycopy(fDelimiters, 0, delimiters, 0, fLineCount);
+			fDelimiters = delimiters;
 		}
-
-		return count;
 	}
 
 	// @Override
-	public final void set(String text) {
-		fLines.clear();
-		if (text != null) {
-			fTextLength = text.length();
-			createLines(text, 0, 0);
+	public final void set(CharSequence text) {
+		fLineCount = 1;
+		fLineStarts[0] = 0;
+		fDelimiters[0] = NO_DELIMITER;
+		fTextLength = text != null ? text.length() : 0;
+		if (text == null) {
+			return;
+		}
+		DelimiterInfo delimiterInfo = nextDelimiterInfo(text, 0);
+		while (delimiterInfo != null) {
+			ensureCapacity(fLineCount + 1);
+			fDelimiters[fLineCount - 1] = getDelimiterIndex(delimiterInfo);
+			fLineStarts[fLineCount] = delimiterInfo.delimiterIndex + delimiterInfo.delimiterLength;
+			fDelimiters[fLineCount] = NO_DELIMITER;
+			fLineCount++;
+			delimiterInfo = nextDelimiterInfo(text, fLineStarts[fLineCount - 1]);
 		}
 	}
 
 	/**
-	 * Returns the internal data structure, a {@link List} of {@link Line}s. Used
-	 * only by {@link TreeLineTracker#TreeLineTracker(ListLineTracker)}.
+	 * Updates the line structure after the region [offset, offset +
+	 * removedLength[ has been replaced with a text of the given inserted length.
+	 * Only the lines touched by the change are rescanned, the following lines are
+	 * shifted.
+	 *
+	 * @param text           the whole text after the change
+	 * @param offset         the offset of the change
+	 * @param removedLength  the length of the removed text
+	 * @param insertedLength the length of the inserted text
+	 */
+	public final void replace(CharSequence text, int offset, int removedLength, int insertedLength) {
+		replace(text, offset, removedLength, insertedLength, this);
+	}
+
+	/**
+	 * Returns a new line tracker with the line structure of the text where the
+	 * region [offset, offset + removedLength[ has been replaced with a text of the
+	 * given inserted length. This line tracker is not modified.
 	 *
-	 * @return the internal list of lines.
+	 * @param text           the whole text after the change
+	 * @param offset         the offset of the change
+	 * @param removedLength  the length of the removed text
+	 * @param insertedLength the length of the inserted text
+	 * @return a new line tracker with the line structure of the changed text.
+	 */
+	public final ListLineTracker copyAndReplace(CharSequence text, int offset, int removedLength,
+			int insertedLength) {
+		ListLineTracker tracker = new ListLineTracker();
+		replace(text, offset, removedLength, insertedLength, tracker);
+		return tracker;
+	}
+
+	/**
+	 * Stores in the given target tracker (which can be this tracker) the line
+	 * structure of this tracker after the given change.
 	 */
-	final List<Line> getLines() {
-		return fLines;
+	private void replace(CharSequence text, int offset, int removedLength, int insertedLength,
+			ListLineTracker target) {
+		int oldEnd = offset + removedLength;
+		int newEnd = offset + insertedLength;
+		int delta = insertedLength - removedLength;
+
+		// A '\r' just before the change can be merged with an inserted '\n', so the
+		// rescan starts at the line which contains the character before the change.
+		int firstLine = offset > 0 ? findLine(offset - 1) : 0;
+		// Every line which starts after the removed region is preceded by an
+		// unchanged character, so it's still a line start (shifted with delta).
+		int lastLine = findLine(oldEnd) + 1;
+
+		// Rescan the new text from the start of the first line until the start of the
+		// first unchanged line.
+		int[] newStarts = new int[4];
+		byte[] newDelimiters = new byte[5];
+		int newCount = 0;
+		byte lastDelimiter = NO_DELIMITER;
+		DelimiterInfo delimiterInfo = nextDelimiterInfo(text, fLineStarts[firstLine]);
+		while (delimiterInfo != null) {
+			int lineStart = delimiterInfo.delimiterIndex + delimiterInfo.delimiterLength;
+			if (lineStart > newEnd) {
+				// here lineStart is the start of the first unchanged line.
+				lastDelimiter = getDelimiterIndex(delimiterInfo);
+				break;
+			}
+			if (newCount == newStarts.length) {
+				newStarts = Arrays.copyOf(newStarts, newCount * 2);
+				newDelimiters = Arrays.copyOf(newDelimiters, newCount * 2 + 1);
+			}
+			newDelimiters[newCount] = getDelimiterIndex(delimiterInfo);
+			newStarts[newCount++] = lineStart;
+			delimiterInfo = nextDelimiterInfo(text, lineStart);
+		}
+		newDelimiters[newCount] = lastDelimiter;
+
+		// Move and shift the unchanged lines
+		int tailCount = fLineCount - lastLine;
+		int newLineCount = firstLine + 1 + newCount + tailCount;
+		int tailStart = firstLine + 1 + newCount;
+		if (target == this) {
+			ensureCapacity(newLineCount);
+		} else {
+			// copy the unchanged lines before the change
+			target.fLineStarts = new int[newLineCount];
+			target.fDelimiters = new byte[newLineCount];
+			System.arraycopy(fLineStarts, 0, target.fLineStarts, 0, firstLine + 1);
+			System.arraycopy(fDelimiters, 0, target.fDelimiters, 0, firstLine);
+		}
+		System.arraycopy(fLineStarts, lastLine, target.fLineStarts, tailStart, tailCount);
+		System.arraycopy(fDelimiters, lastLine, target.fDelimiters, tailStart, tailCount);
+		for (int i = tailStart; i < newLineCount; i++) {
+			target.fLineStarts[i] += delta;
+		}
+		// Copy the rescanned lines
+		System.arraycopy(newStarts, 0, target.fLineStarts, firstLine + 1, newCount);
+		System.arraycopy(newDelimiters, 0, target.fDelimiters, firstLine, newCount + 1);
+		target.fLineCount = newLineCount;
+		target.fTextLength = fTextLength + delta;
 	}
 }
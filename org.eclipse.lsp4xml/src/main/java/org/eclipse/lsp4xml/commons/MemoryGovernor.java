@@ -0,0 +1,442 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Memory governor which watches the heap usage and releases cached data when
+ * the heap is under pressure.
+ *
+ * <p>
+ * The governor sets a collection usage threshold on the heap memory pools (see
+ * {@link MemoryPoolMXBean#setCollectionUsageThreshold(long)}), so it is
+ * notified when the heap used after a garbage collection exceeds the
+ * threshold. Each time the heap stays above the threshold, the next registered
+ * {@link IMemoryReclaimer} (in priority order) is called: the cheapest data to
+ * compute again (cold DOM documents for instance) is released first. When all
+ * reclaimers have been called, they are all called again on each notification.
+ * </p>
+ *
+ * <p>
+ * As the notifications are only sent when the heap is above the threshold, the
+ * heap usage is checked periodically while it is under pressure: the pressure
+ * level is reset when the heap goes back below the threshold.
+ * </p>
+ *
+ */
+public class MemoryGovernor {
+
+	private static final Logger LOGGER = Logger.getLogger(MemoryGovernor.class.getName());
+
+	/**
+	 * Default ratio of the max heap above which the heap is under pressure.
+	 */
+	public static final double DEFAULT_THRESHOLD_RATIO = 0.8;
+
+	/**
+	 * Priority of the reclaimer of the DOM documents which are not used.
+	 */
+	public static final int COLD_DOCUMENTS_PRIORITY = 10;
+
+	/**
+	 * Priority of the reclaimer of the content models (XML Schema, DTD) which are
+	 * not used.
+	 */
+	public static final int CONTENT_MODELS_PRIORITY = 20;
+
+	/**
+	 * Priority of the reclaimer of the line indexes of the text documents.
+	 */
+	public static final int LINE_INDEXES_PRIORITY = 30;
+
+	/**
+	 * Default delay in milliseconds between two checks of the heap usage while
+	 * the heap is under pressure.
+	 */
+	private static final long DEFAULT_RECOVERY_CHECK_DELAY = 10 * 1000;
+
+	private static final long MB = 1024 * 1024;
+
+	private static class Reclaimer {
+
+		final String name;
+		final int priority;
+		final IMemoryReclaimer reclaimer;
+		long reclaimedCount;
+
+		Reclaimer(String name, int priority, IMemoryReclaimer reclaimer) {
+			this.name = name;
+			this.priority = priority;
+			this.reclaimer = reclaimer;
+		}
+	}
+
+	/**
+	 * Memory state of the governor.
+	 */
+	public static class MemoryState {
+
+		private final long usedMemory;
+		private final long threshold;
+		private final long maxMemory;
+		private final int pressureLevel;
+		private final Map<String, Long> reclaimedCounts;
+
+		MemoryState(long usedMemory, long threshold, long maxMemory, int pressureLevel,
+				Map<String, Long> reclaimedCounts) {
+			this.usedMemory = usedMemory;
+			this.threshold = threshold;
+			this.maxMemory = maxMemory;
+			this.pressureLevel = pressureLevel;
+			this.reclaimedCounts = reclaimedCounts;
+		}
+
+		/**
+		 * Returns the used heap in bytes (after the last garbage collection when it is
+		 * available).
+		 *
+		 * @return the used heap in bytes.
+		 */
+		public long getUsedMemory() {
+			return usedMemory;
+		}
+
+		/**
+		 * Returns the threshold in bytes above which the heap is under pressure.
+		 *
+		 * @return the threshold in bytes.
+		 */
+		public long getThreshold() {
+			return threshold;
+		}
+
+		/**
+		 * Returns the max heap in bytes.
+		 *
+		 * @return the max heap in bytes.
+		 */
+		public long getMaxMemory() {
+			return maxMemory;
+		}
+
+		/**
+		 * Returns true if the heap is above the threshold and false otherwise.
+		 *
+		 * @return true if the heap is above the threshold and false otherwise.
+		 */
+		public boolean isUnderPressure() {
+			return usedMemory >= threshold;
+		}
+
+		/**
+		 * Returns the number of reclaimers called since the heap is under pressure.
+		 *
+		 * @return the number of reclaimers called since the heap is under pressure.
+		 */
+		public int getPressureLevel() {
+			return pressureLevel;
+		}
+
+		/**
+		 * Returns the number of released items by reclaimer name since the start.
+		 *
+		 * @return the number of released items by reclaimer name since the start.
+		 */
+		public Map<String, Long> getReclaimedCounts() {
+			return reclaimedCounts;
+		}
+
+		@Override
+		public String toString() {
+			return "used: " + usedMemory / MB + "MB, threshold: " + threshold / MB + "MB, max: " + maxMemory / MB
+					+ "MB, pressure level: " + pressureLevel + ", reclaimed: " + reclaimedCounts;
+		}
+	}
+
+	private final List<Reclaimer> reclaimers;
+	private final List<MemoryPoolMXBean> pools;
+	private final double thresholdRatio;
+	private final long threshold;
+	private final long maxMemory;
+	private final LongSupplier usedMemory;
+
+	private ScheduledExecutorService executor;
+	private NotificationListener listener;
+	private ScheduledFuture<?> recoveryCheck;
+	private long recoveryCheckDelay = DEFAULT_RECOVERY_CHECK_DELAY;
+	private int pressureLevel;
+
+	public MemoryGovernor() {
+		this(DEFAULT_THRESHOLD_RATIO);
+	}
+
+	/**
+	 * Memory governor constructor.
+	 *
+	 * @param thresholdRatio the ratio of the max heap above which the heap is
+	 *                       under pressure.
+	 */
+	public MemoryGovernor(double thresholdRatio) {
+		this.reclaimers = new ArrayList<>();
+		this.thresholdRatio = thresholdRatio;
+		this.pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			// only the tenured pools support both usage thresholds
+			if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+					&& pool.isCollectionUsageThresholdSupported() && pool.getUsage().getMax() > 0) {
+				pools.add(pool);
+			}
+		}
+		long max = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			max += pool.getUsage().getMax();
+		}
+		if (max == 0) {
+			// no pool with threshold, use the whole heap
+			max = Runtime.getRuntime().maxMemory();
+		}
+		this.maxMemory = max;
+		this.threshold = (long) (max * thresholdRatio);
+		this.usedMemory = this::getUsedMemory;
+	}
+
+	/**
+	 * Memory governor constructor used by tests.
+	 *
+	 * @param threshold  the threshold in bytes above which the heap is under
+	 *                   pressure.
+	 * @param maxMemory  the max heap in bytes.
+	 * @param usedMemory the supplier of the used heap in bytes.
+	 */
+	MemoryGovernor(long threshold, long maxMemory, LongSupplier usedMemory) {
+		this.reclaimers = new ArrayList<>();
+		this.pools = Collections.emptyList();
+		this.thresholdRatio = (double) threshold / maxMemory;
+		this.threshold = threshold;
+		this.maxMemory = maxMemory;
+		this.usedMemory = usedMemory;
+	}
+
+	/**
+	 * Register a reclaimer. Reclaimers with the lowest priority are called first.
+	 *
+	 * @param name      the name of the released items (used in logs and in the
+	 *                  memory state).
+	 * @param priority  the priority.
+	 * @param reclaimer the reclaimer.
+	 */
+	public synchronized void register(String name, int priority, IMemoryReclaimer reclaimer) {
+		int index = 0;
+		while (index < reclaimers.size() && reclaimers.get(index).priority <= priority) {
+			index++;
+		}
+		reclaimers.add(index, new Reclaimer(name, priority, reclaimer));
+	}
+
+	public synchronized void unregister(IMemoryReclaimer reclaimer) {
+		reclaimers.removeIf(r -> r.reclaimer == reclaimer);
+	}
+
+	/**
+	 * Set the delay in milliseconds between two checks of the heap usage while
+	 * the heap is under pressure.
+	 *
+	 * @param recoveryCheckDelay the delay in milliseconds.
+	 */
+	synchronized void setRecoveryCheckDelay(long recoveryCheckDelay) {
+		this.recoveryCheckDelay = recoveryCheckDelay;
+	}
+
+	/**
+	 * Start to watch the heap: the reclaimers are called with the given executor
+	 * when the heap is above the threshold after a garbage collection.
+	 *
+	 * @param executor the executor used to release memory and to check the heap
+	 *                 usage while it is under pressure.
+	 */
+	public synchronized void start(ScheduledExecutorService executor) {
+		if (this.executor != null) {
+			return;
+		}
+		this.executor = executor;
+		if (pools.isEmpty()) {
+			return;
+		}
+		for (MemoryPoolMXBean pool : pools) {
+			pool.setCollectionUsageThreshold((long) (pool.getUsage().getMax() * thresholdRatio));
+		}
+		listener = (notification, handback) -> {
+			if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+				onThresholdExceeded();
+			}
+		};
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+	}
+
+	/**
+	 * Stop to watch the heap: the notification listener and the thresholds of the
+	 * heap memory pools are removed.
+	 */
+	public synchronized void stop() {
+		if (executor == null) {
+			return;
+		}
+		if (recoveryCheck != null) {
+			recoveryCheck.cancel(false);
+			recoveryCheck = null;
+		}
+		executor = null;
+		if (listener == null) {
+			return;
+		}
+		try {
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+		} catch (ListenerNotFoundException e) {
+			// the listener is already removed
+		}
+		listener = null;
+		for (MemoryPoolMXBean pool : pools) {
+			// a threshold of 0 disables the collection usage threshold
+			pool.setCollectionUsageThreshold(0);
+		}
+	}
+
+	/**
+	 * Returns true if the governor watches the heap and false otherwise.
+	 *
+	 * @return true if the governor watches the heap and false otherwise.
+	 */
+	public synchronized boolean isStarted() {
+		return executor != null;
+	}
+
+	/**
+	 * Called when the heap is above the threshold after a garbage collection.
+	 */
+	synchronized void onThresholdExceeded() {
+		if (executor != null) {
+			executor.execute(this::checkMemory);
+		}
+	}
+
+	/**
+	 * Check the heap usage and call the next reclaimer if the heap is under
+	 * pressure.
+	 */
+	public synchronized void checkMemory() {
+		long used = usedMemory.getAsLong();
+		if (used < threshold) {
+			resetPressureLevel(used);
+			return;
+		}
+		if (reclaimers.isEmpty()) {
+			return;
+		}
+		if (pressureLevel < reclaimers.size()) {
+			reclaim(reclaimers.get(pressureLevel), used);
+		} else {
+			// the pressure is still here after all reclaimers, call all of them again
+			for (Reclaimer reclaimer : reclaimers) {
+				reclaim(reclaimer, used);
+			}
+		}
+		pressureLevel++;
+		scheduleRecoveryCheck();
+	}
+
+	/**
+	 * Check periodically the heap usage while it is under pressure, because no
+	 * notification is sent when it goes back below the threshold.
+	 */
+	private void scheduleRecoveryCheck() {
+		if (executor == null || recoveryCheck != null) {
+			return;
+		}
+		recoveryCheck = executor.schedule(this::checkRecovery, recoveryCheckDelay, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void checkRecovery() {
+		recoveryCheck = null;
+		long used = usedMemory.getAsLong();
+		if (used < threshold) {
+			resetPressureLevel(used);
+		} else if (pressureLevel > 0) {
+			// the reclaimers are called by the next notification
+			scheduleRecoveryCheck();
+		}
+	}
+
+	private void resetPressureLevel(long used) {
+		if (pressureLevel > 0) {
+			LOGGER.info("Memory usage " + used / MB + "MB is back below the threshold " + threshold / MB + "MB");
+			pressureLevel = 0;
+		}
+	}
+
+	private void reclaim(Reclaimer reclaimer, long used) {
+		try {
+			int count = reclaimer.reclaimer.reclaim();
+			reclaimer.reclaimedCount += count;
+			LOGGER.info("Memory usage " + used / MB + "MB is above the threshold " + threshold / MB + "MB: released "
+					+ count + " " + reclaimer.name);
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.SEVERE, "Error while releasing " + reclaimer.name, e);
+		}
+	}
+
+	/**
+	 * Returns the current memory state.
+	 *
+	 * @return the current memory state.
+	 */
+	public synchronized MemoryState getState() {
+		Map<String, Long> reclaimedCounts = new LinkedHashMap<>();
+		for (Reclaimer reclaimer : reclaimers) {
+			reclaimedCounts.merge(reclaimer.name, reclaimer.reclaimedCount, Long::sum);
+		}
+		return new MemoryState(usedMemory.getAsLong(), threshold, maxMemory, pressureLevel,
+				Collections.unmodifiableMap(reclaimedCounts));
+	}
+
+	private long getUsedMemory() {
+		if (pools.isEmpty()) {
+			Runtime runtime = Runtime.getRuntime();
+			return runtime.totalMemory() - runtime.freeMemory();
+		}
+		long used = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			// the usage after the last garbage collection gives the memory really used
+			MemoryUsage usage = pool.getCollectionUsage();
+			used += usage != null ? usage.getUsed() : pool.getUsage().getUsed();
+		}
+		return used;
+	}
+}
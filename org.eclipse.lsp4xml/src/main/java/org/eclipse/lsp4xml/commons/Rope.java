@@ -0,0 +1,333 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+/**
+ * Immutable rope used to store the content of a {@link TextDocument} in
+ * incremental mode.
+ *
+ * <p>
+ * The text is stored in small leaves which are the leaves of an AVL balanced
+ * tree. A replace creates a new rope which shares all untouched leaves with
+ * the previous one, so applying a
+ * {@link org.eclipse.lsp4j.TextDocumentContentChangeEvent} costs O(log n)
+ * instead of copying the whole document.
+ * </p>
+ *
+ * <p>
+ * A rope is a {@link CharSequence}, so the scanner, the parser and the
+ * validators can read it without creating a flat {@link String}. Sequential
+ * access with {@link #charAt(int)} is optimized by caching the last visited
+ * leaf.
+ * </p>
+ *
+ */
+public final class Rope implements CharSequence {
+
+	/**
+	 * Max size of a leaf.
+	 */
+	static final int MAX_LEAF_LENGTH = 1024;
+
+	private static final Rope EMPTY = new Rope(new Leaf(""));
+
+	private final Node root;
+
+	// Cache of the last visited leaf used to speed up sequential charAt access.
+	private volatile LeafCursor cursor;
+
+	// Cache of the flat text.
+	private volatile String text;
+
+	private Rope(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns a rope which contains the given text.
+	 *
+	 * @param text the text.
+	 * @return a rope which contains the given text.
+	 */
+	public static Rope of(CharSequence text) {
+		if (text == null || text.length() == 0) {
+			return EMPTY;
+		}
+		if (text instanceof Rope) {
+			return (Rope) text;
+		}
+		return new Rope(build(text, 0, text.length()));
+	}
+
+	/**
+	 * Returns a new rope where the region [start, end[ is replaced with the given
+	 * text.
+	 *
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @param text  the text to insert.
+	 * @return a new rope where the region [start, end[ is replaced with the given
+	 *         text.
+	 */
+	public Rope replace(int start, int end, CharSequence text) {
+		int length = length();
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("Bad replace region [" + start + ", " + end + "] for length " + length);
+		}
+		Node left = split(root, start, true);
+		Node right = split(root, end, false);
+		if (text != null && text.length() > 0) {
+			left = join(left, build(text, 0, text.length()));
+		}
+		return new Rope(join(left, right));
+	}
+
+	@Override
+	public int length() {
+		return root.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= root.length) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + root.length);
+		}
+		LeafCursor current = cursor;
+		if (current != null && index >= current.start && index < current.start + current.leaf.length) {
+			return current.leaf.chars.charAt(index - current.start);
+		}
+		Node node = root;
+		int start = 0;
+		while (node instanceof Concat) {
+			Concat concat = (Concat) node;
+			if (index < start + concat.left.length) {
+				node = concat.left;
+			} else {
+				start += concat.left.length;
+				node = concat.right;
+			}
+		}
+		Leaf leaf = (Leaf) node;
+		cursor = new LeafCursor(leaf, start);
+		return leaf.chars.charAt(index - start);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length() || start > end) {
+			throw new IndexOutOfBoundsException("Bad region [" + start + ", " + end + "] for length " + length());
+		}
+		String text = this.text;
+		if (text != null) {
+			return text.substring(start, end);
+		}
+		char[] dst = new char[end - start];
+		getChars(start, end, dst, 0);
+		return new String(dst);
+	}
+
+	/**
+	 * Copies characters from this rope into the destination character array.
+	 *
+	 * @param srcBegin index of the first character in the rope to copy.
+	 * @param srcEnd   index after the last character in the rope to copy.
+	 * @param dst      the destination array.
+	 * @param dstBegin the start offset in the destination array.
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (srcBegin < srcEnd) {
+			getChars(root, 0, srcBegin, srcEnd, dst, dstBegin);
+		}
+	}
+
+	private static void getChars(Node node, int nodeStart, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (node instanceof Leaf) {
+			String chars = ((Leaf) node).chars;
+			int from = Math.max(srcBegin, nodeStart) - nodeStart;
+			int to = Math.min(srcEnd, nodeStart + node.length) - nodeStart;
+			chars.getChars(from, to, dst, dstBegin + (nodeStart + from - srcBegin));
+			return;
+		}
+		Concat concat = (Concat) node;
+		int middle = nodeStart + concat.left.length;
+		if (srcBegin < middle) {
+			getChars(concat.left, nodeStart, srcBegin, srcEnd, dst, dstBegin);
+		}
+		if (srcEnd > middle) {
+			getChars(concat.right, middle, srcBegin, srcEnd, dst, dstBegin);
+		}
+	}
+
+	@Override
+	public String toString() {
+		String text = this.text;
+		if (text == null) {
+			char[] dst = new char[length()];
+			getChars(0, dst.length, dst, 0);
+			text = new String(dst);
+			this.text = text;
+		}
+		return text;
+	}
+
+	/**
+	 * Returns the depth of the tree (used for tests).
+	 *
+	 * @return the depth of the tree.
+	 */
+	int getDepth() {
+		return root.height;
+	}
+
+	// ------------------------ Tree
+
+	private static abstract class Node {
+
+		final int length;
+
+		final int height;
+
+		Node(int length, int height) {
+			this.length = length;
+			this.height = height;
+		}
+	}
+
+	private static class Leaf extends Node {
+
+		final String chars;
+
+		Leaf(String chars) {
+			super(chars.length(), 0);
+			this.chars = chars;
+		}
+	}
+
+	private static class Concat extends Node {
+
+		final Node left;
+
+		final Node right;
+
+		Concat(Node left, Node right) {
+			super(left.length + right.length, Math.max(left.height, right.height) + 1);
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	private static class LeafCursor {
+
+		final Leaf leaf;
+
+		final int start;
+
+		LeafCursor(Leaf leaf, int start) {
+			this.leaf = leaf;
+			this.start = start;
+		}
+	}
+
+	/**
+	 * Build a balanced tree for the given text region.
+	 */
+	private static Node build(CharSequence text, int start, int end) {
+		int length = end - start;
+		if (length <= MAX_LEAF_LENGTH) {
+			return new Leaf(text.subSequence(start, end).toString());
+		}
+		int middle = start + length / 2;
+		return new Concat(build(text, start, middle), build(text, middle, end));
+	}
+
+	/**
+	 * Returns the part of the given node before (if left is true) or after (if
+	 * left is false) the given offset.
+	 */
+	private static Node split(Node node, int offset, boolean left) {
+		if (offset <= 0) {
+			return left ? EMPTY.root : node;
+		}
+		if (offset >= node.length) {
+			return left ? node : EMPTY.root;
+		}
+		if (node instanceof Leaf) {
+			String chars = ((Leaf) node).chars;
+			return new Leaf(left ? chars.substring(0, offset) : chars.substring(offset));
+		}
+		Concat concat = (Concat) node;
+		int leftLength = concat.left.length;
+		if (offset < leftLength) {
+			return left ? split(concat.left, offset, true)
+					: join(split(concat.left, offset, false), concat.right);
+		}
+		if (offset > leftLength) {
+			return left ? join(concat.left, split(concat.right, offset - leftLength, true))
+					: split(concat.right, offset - leftLength, false);
+		}
+		return left ? concat.left : concat.right;
+	}
+
+	/**
+	 * Join the two given nodes by keeping the tree AVL balanced.
+	 */
+	private static Node join(Node left, Node right) {
+		if (left.length == 0) {
+			return right;
+		}
+		if (right.length == 0) {
+			return left;
+		}
+		if (left instanceof Leaf && right instanceof Leaf && left.length + right.length <= MAX_LEAF_LENGTH) {
+			// merge small leaves to avoid fragmentation when user types character by
+			// character.
+			return new Leaf(((Leaf) left).chars + ((Leaf) right).chars);
+		}
+		if (left.height > right.height + 1) {
+			Concat l = (Concat) left;
+			return balance(l.left, join(l.right, right));
+		}
+		if (right.height > left.height + 1) {
+			Concat r = (Concat) right;
+			return balance(join(left, r.left), r.right);
+		}
+		return new Concat(left, right);
+	}
+
+	/**
+	 * Create a concat node for the given children and apply AVL rotations if
+	 * needed.
+	 */
+	private static Node balance(Node left, Node right) {
+		if (Math.abs(left.height - right.height) > 2) {
+			// merge of small leaves has decreased the height of one side, a single
+			// rotation is not enough.
+			return join(left, right);
+		}
+		if (left.height > right.height + 1) {
+			Concat l = (Concat) left;
+			if (l.left.height >= l.right.height) {
+				return new Concat(l.left, new Concat(l.right, right));
+			}
+			Concat lr = (Concat) l.right;
+			return new Concat(new Concat(l.left, lr.left), new Concat(lr.right, right));
+		}
+		if (right.height > left.height + 1) {
+			Concat r = (Concat) right;
+			if (r.right.height >= r.left.height) {
+				return new Concat(new Concat(left, r.left), r.right);
+			}
+			Concat rl = (Concat) r.left;
+			return new Concat(new Concat(left, rl.left), new Concat(rl.right, r.right));
+		}
+		return new Concat(left, right);
+	}
+}
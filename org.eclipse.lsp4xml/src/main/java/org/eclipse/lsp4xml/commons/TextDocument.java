@@ -10,6 +10,7 @@
  */
 package org.eclipse.lsp4xml.commons;
 
+import java.io.Reader;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -28,10 +29,10 @@ public class TextDocument extends TextDocumentItem {
 
 	private static String DEFAULT_DELIMTER = System.lineSeparator();
 
-	private ListLineTracker lineTracker;
+	private volatile ListLineTracker lineTracker;
 
-	// Buffer of the text document used only in incremental mode.
-	private StringBuilder buffer;
+	// Rope of the text document used only in incremental mode.
+	private Rope rope;
 
 	public TextDocument(TextDocumentItem document) {
 		this(document.getText(), document.getUri());
@@ -44,25 +45,118 @@ public class TextDocument extends TextDocumentItem {
 		super.setText(text);
 	}
 
+	/**
+	 * Copy constructor which shares the (immutable) text and the line tracker of
+	 * the given document. A shared line tracker is never modified: the first
+	 * change of the copy creates its own line tracker.
+	 * 
+	 * @param document the document to copy.
+	 */
+	private TextDocument(TextDocument document) {
+		super.setUri(document.getUri());
+		super.setVersion(document.getVersion());
+		super.setLanguageId(document.getLanguageId());
+		super.setText(document.getFlatText());
+		this.rope = document.rope;
+		this.lineTracker = document.lineTracker;
+	}
+
+	/**
+	 * Returns a copy of this document. The copy can be updated without changing
+	 * the content, the version and the line index of this document.
+	 * 
+	 * @return a copy of this document.
+	 */
+	public TextDocument copy() {
+		return new TextDocument(this);
+	}
+
 	public void setIncremental(boolean incremental) {
 		if (incremental) {
-			buffer = new StringBuilder(getText());
+			rope = Rope.of(getText());
 		} else {
-			buffer = null;
+			// flush the rope content before leaving the incremental mode
+			getText();
+			rope = null;
 		}
 	}
 
 	@Override
 	public void setText(String text) {
 		super.setText(text);
+		if (rope != null) {
+			rope = Rope.of(text);
+		}
 		lineTracker = null;
 	}
 
+	/**
+	 * Returns the text of the document.
+	 * 
+	 * <p>
+	 * In incremental mode, the flat {@link String} is created on demand from the
+	 * rope and cached until the next update. Components which only need to read
+	 * the text (scanner, parser, validators) should use
+	 * {@link #getTextSequence()} instead.
+	 * </p>
+	 */
+	@Override
+	public String getText() {
+		String text = super.getText();
+		if (text == null && rope != null) {
+			text = rope.toString();
+			super.setText(text);
+		}
+		return text;
+	}
+
+	/**
+	 * Returns the text of the document as {@link CharSequence} view. In
+	 * incremental mode, this view is the rope of the document and no flat
+	 * {@link String} is created.
+	 * 
+	 * @return the text of the document as {@link CharSequence} view.
+	 */
+	public CharSequence getTextSequence() {
+		String text = super.getText();
+		if (text == null && rope != null) {
+			return rope;
+		}
+		return text;
+	}
+
+	/**
+	 * Returns a reader on the text of the document which reads the
+	 * {@link #getTextSequence()} view without copying it.
+	 * 
+	 * @return a reader on the text of the document.
+	 */
+	public Reader getTextReader() {
+		return new CharSequenceReader(getTextSequence());
+	}
+
+	private String getFlatText() {
+		return super.getText();
+	}
+
 	public Position positionAt(int position) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		return lineTracker.getPositionAt(position);
 	}
 
+	/**
+	 * Returns the positions of the given offsets. The offsets should be sorted to
+	 * compute all positions in one pass over the line index.
+	 * 
+	 * @param offsets the offsets (sorted).
+	 * @return the positions of the given offsets.
+	 * @throws BadLocationException if an offset is out of bounds.
+	 */
+	public Position[] positionsAt(int... offsets) throws BadLocationException {
+		ListLineTracker lineTracker = getLineTracker();
+		return lineTracker.getPositionsAt(offsets);
+	}
+
 	public int offsetAt(Position position) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		return lineTracker.getOffsetAt(position);
@@ -71,8 +165,7 @@ public class TextDocument extends TextDocumentItem {
 	public String lineText(int lineNumber) throws BadLocationException {
 		ListLineTracker lineTracker = getLineTracker();
 		Line line = lineTracker.getLineInformation(lineNumber);
-		String text = super.getText();
-		return text.substring(line.offset, line.offset + line.length);
+		return getTextSequence().subSequence(line.offset, line.offset + line.length).toString();
 	}
 
 	public String lineDelimiter(int lineNumber) throws BadLocationException {
@@ -94,8 +187,7 @@ public class TextDocument extends TextDocumentItem {
 			Position pos = positionAt(textOffset);
 			ListLineTracker lineTracker = getLineTracker();
 			Line line = lineTracker.getLineInformation(pos.getLine());
-			String text = super.getText();
-			String lineText = text.substring(line.offset, textOffset);
+			String lineText = getTextSequence().subSequence(line.offset, textOffset).toString();
 			int position = lineText.length();
 			Matcher m = wordDefinition.matcher(lineText);
 			int currentPosition = 0;
@@ -117,13 +209,28 @@ public class TextDocument extends TextDocumentItem {
 	}
 
 	private ListLineTracker getLineTracker() {
+		ListLineTracker lineTracker = this.lineTracker;
 		if (lineTracker == null) {
 			lineTracker = new ListLineTracker();
-			lineTracker.set(super.getText());
+			lineTracker.set(getTextSequence());
+			this.lineTracker = lineTracker;
 		}
 		return lineTracker;
 	}
 
+	/**
+	 * Release the line index which will be computed again on the next access.
+	 * 
+	 * @return true if the line index was computed and false otherwise.
+	 */
+	boolean releaseLineTracker() {
+		if (lineTracker == null) {
+			return false;
+		}
+		lineTracker = null;
+		return true;
+	}
+
 	/**
 	 * Update text of the document by using the changes and according the
 	 * incremental support.
@@ -137,24 +244,36 @@ public class TextDocument extends TextDocumentItem {
 		}
 		if (isIncremental()) {
 			try {
-				synchronized (buffer) {
+				synchronized (this) {
+					Rope rope = this.rope;
+					// the line tracker which has been created by this update and which can be
+					// modified (the other line trackers can be shared with other snapshots)
+					ListLineTracker ownLineTracker = null;
 					for (TextDocumentContentChangeEvent changeEvent : changes) {
-
 						Range range = changeEvent.getRange();
-						int length = 0;
-
-						if (range != null) {
-							length = changeEvent.getRangeLength().intValue();
-						} else {
+						String text = changeEvent.getText();
+						if (range == null) {
 							// range is optional and if not given, the whole file content is replaced
-							length = getText().length();
-							range = new Range(positionAt(0), positionAt(length));
+							rope = Rope.of(text);
+							updateRope(rope);
+							lineTracker = null;
+						} else {
+							ListLineTracker lineTracker = getLineTracker();
+							int startOffset = lineTracker.getOffsetAt(range.getStart());
+							int endOffset = lineTracker.getOffsetAt(range.getEnd());
+							rope = rope.replace(startOffset, endOffset, text);
+							updateRope(rope);
+							// shift only the lines after the change instead of rebuilding the whole
+							// line structure
+							if (lineTracker == ownLineTracker) {
+								lineTracker.replace(rope, startOffset, endOffset - startOffset, text.length());
+							} else {
+								ownLineTracker = lineTracker.copyAndReplace(rope, startOffset,
+										endOffset - startOffset, text.length());
+								this.lineTracker = ownLineTracker;
+							}
 						}
-						String text = changeEvent.getText();
-						int startOffset = offsetAt(range.getStart());
-						buffer.replace(startOffset, startOffset + length, text);
 					}
-					setText(buffer.toString());
 				}
 			} catch (BadLocationException e) {
 				// Should never occurs.
@@ -170,8 +289,19 @@ public class TextDocument extends TextDocumentItem {
 		}
 	}
 
+	/**
+	 * Update the rope of the document and invalidate the flat text which will be
+	 * recreated on demand.
+	 * 
+	 * @param rope the new rope.
+	 */
+	private void updateRope(Rope rope) {
+		this.rope = rope;
+		super.setText(null);
+	}
+
 	public boolean isIncremental() {
-		return buffer != null;
+		return rope != null;
 	}
 
 }
@@ -10,10 +10,13 @@
  */
 package org.eclipse.lsp4xml.commons;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
@@ -22,16 +25,56 @@ import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentItem;
 
 /**
- * A manager for simple text documents
+ * A manager for simple text documents.
+ * 
+ * <p>
+ * The managed documents are snapshots: a {@link TextDocument} published by
+ * this manager is never modified. A change creates a new snapshot (with the
+ * new version, text and line index) which replaces the old one in a concurrent
+ * map, so readers (completion, validation, etc) never lock and a long
+ * validation keeps working on its own snapshot while the user continues to
+ * type.
+ * </p>
+ * 
+ * <p>
+ * A document which is not accessed since a given time can be compressed with
+ * {@link #compressIdleDocuments(long)}: only a compressed form of its text is
+ * kept and the document is decompressed transparently on the next access.
+ * </p>
  */
 public class TextDocuments implements ITextDocumentFactory {
 
+	private static final Logger LOGGER = Logger.getLogger(TextDocuments.class.getName());
+
 	private boolean incremental;
 
-	private final Map<String, TextDocument> documents;
+	private final Map<String, DocumentEntry> documents;
+
+	/**
+	 * A managed document: the text document or its compressed form when the
+	 * document is dormant.
+	 */
+	private static class DocumentEntry {
+
+		final TextDocument document;
+
+		final CompressedTextDocument compressedDocument;
+
+		volatile long lastAccessTime;
+
+		DocumentEntry(TextDocument document) {
+			this(document, null);
+		}
+
+		DocumentEntry(TextDocument document, CompressedTextDocument compressedDocument) {
+			this.document = document;
+			this.compressedDocument = compressedDocument;
+			this.lastAccessTime = System.currentTimeMillis();
+		}
+	}
 
 	public TextDocuments() {
-		documents = new HashMap<>();
+		documents = new ConcurrentHashMap<>();
 	}
 
 	/**
@@ -41,7 +84,15 @@ public class TextDocuments implements ITextDocumentFactory {
 	 */
 	public void setIncremental(boolean incremental) {
 		this.incremental = incremental;
-		documents.values().forEach(document -> document.setIncremental(incremental));
+		documents.replaceAll((uri, entry) -> {
+			if (entry.document == null) {
+				// the incremental mode will be set when the document will be decompressed
+				return entry;
+			}
+			TextDocument newDocument = entry.document.copy();
+			newDocument.setIncremental(incremental);
+			return new DocumentEntry(newDocument);
+		});
 	}
 
 	/**
@@ -63,12 +114,25 @@ public class TextDocuments implements ITextDocumentFactory {
 	 * @return the text document or `undefined`.
 	 */
 	public TextDocument get(String uri) {
-		return documents.get(uri);
+		DocumentEntry entry = documents.get(uri);
+		if (entry == null) {
+			return null;
+		}
+		TextDocument document = entry.document;
+		if (document != null) {
+			entry.lastAccessTime = System.currentTimeMillis();
+			return document;
+		}
+		// the document is dormant, decompress it
+		entry = documents.computeIfPresent(uri, (u, current) -> current.document == null
+				? new DocumentEntry(current.compressedDocument.decompress(this))
+				: current);
+		return entry != null ? entry.document : null;
 	}
 
 	public void onDidOpenTextDocument(DidOpenTextDocumentParams params) {
 		TextDocumentItem document = params.getTextDocument();
-		documents.put(document.getUri(), createDocument(document));
+		documents.put(document.getUri(), new DocumentEntry(createDocument(document)));
 	}
 
 	@Override
@@ -80,11 +144,14 @@ public class TextDocuments implements ITextDocumentFactory {
 
 	public void onDidChangeTextDocument(DidChangeTextDocumentParams params) {
 		List<TextDocumentContentChangeEvent> changes = params.getContentChanges();
-		TextDocument document = get(params.getTextDocument().getUri());
-		if (document != null) {
-			document.setVersion(params.getTextDocument().getVersion());
-			document.update(changes);
-		}
+		documents.computeIfPresent(params.getTextDocument().getUri(), (uri, entry) -> {
+			// update a copy of the document to keep the current snapshot unchanged
+			TextDocument newDocument = entry.document != null ? entry.document.copy()
+					: entry.compressedDocument.decompress(this);
+			newDocument.setVersion(params.getTextDocument().getVersion());
+			newDocument.update(changes);
+			return new DocumentEntry(newDocument);
+		});
 	}
 
 	public void onDidCloseTextDocument(DidCloseTextDocumentParams params) {
@@ -97,6 +164,72 @@ public class TextDocuments implements ITextDocumentFactory {
 	 * @return the all opened documents.
 	 */
 	public Collection<TextDocument> all() {
-		return documents.values();
+		return all(true);
+	}
+
+	/**
+	 * Returns the opened documents.
+	 * 
+	 * @param includeDormant true if the dormant documents must be decompressed
+	 *                       and returned and false if they must be ignored.
+	 * @return the opened documents.
+	 */
+	public Collection<TextDocument> all(boolean includeDormant) {
+		List<TextDocument> all = new ArrayList<>(documents.size());
+		documents.values().forEach(entry -> {
+			if (entry.document != null) {
+				all.add(entry.document);
+			} else if (includeDormant) {
+				// dormant documents are decompressed but they stay dormant
+				all.add(entry.compressedDocument.decompress(this));
+			}
+		});
+		return all;
+	}
+
+	/**
+	 * Release the line index of the documents which are not compressed. The line
+	 * index is computed again on the next access.
+	 * 
+	 * @return the number of released line indexes.
+	 */
+	public int releaseLineTrackers() {
+		int released = 0;
+		for (DocumentEntry entry : documents.values()) {
+			if (entry.document != null && entry.document.releaseLineTracker()) {
+				released++;
+			}
+		}
+		return released;
+	}
+
+	/**
+	 * Compress the documents which are not accessed since the given time: only
+	 * the compressed text of those documents is kept (the line index, the rope,
+	 * etc are dropped) until the next access.
+	 * 
+	 * @param idleTimeInMillis the idle time in milliseconds.
+	 * @return the URIs of the compressed documents.
+	 */
+	public Collection<String> compressIdleDocuments(long idleTimeInMillis) {
+		long limit = System.currentTimeMillis() - idleTimeInMillis;
+		List<String> compressedURIs = new ArrayList<>();
+		documents.forEach((uri, entry) -> {
+			if (entry.document != null && entry.lastAccessTime < limit) {
+				DocumentEntry compressedEntry = documents.computeIfPresent(uri,
+						(u, current) -> current == entry && current.lastAccessTime < limit
+								? new DocumentEntry(null, CompressedTextDocument.compress(current.document))
+								: current);
+				if (compressedEntry != null && compressedEntry.document == null) {
+					compressedURIs.add(uri);
+					if (LOGGER.isLoggable(Level.FINE)) {
+						LOGGER.fine("Compress dormant document '" + uri + "' ("
+								+ entry.document.getTextSequence().length() + " characters to "
+								+ compressedEntry.compressedDocument.getCompressedSize() + " bytes)");
+					}
+				}
+			}
+		});
+		return compressedURIs;
 	}
 }
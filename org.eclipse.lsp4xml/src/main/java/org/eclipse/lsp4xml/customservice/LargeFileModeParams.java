@@ -0,0 +1,57 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.customservice;
+
+/**
+ * Parameters of the 'xml/largeFileMode' notification: when a document is
+ * processed in the large file mode, the validation is done on save only, the
+ * symbols are limited in depth and the completion items don't have the
+ * documentation of the grammar.
+ *
+ */
+public class LargeFileModeParams {
+
+	private String uri;
+
+	private boolean largeFile;
+
+	public LargeFileModeParams() {
+	}
+
+	public LargeFileModeParams(String uri, boolean largeFile) {
+		this.uri = uri;
+		this.largeFile = largeFile;
+	}
+
+	public String getUri() {
+		return uri;
+	}
+
+	public void setUri(String uri) {
+		this.uri = uri;
+	}
+
+	/**
+	 * Returns true if the document is processed in the large file mode and false
+	 * otherwise.
+	 * 
+	 * @return true if the document is processed in the large file mode and false
+	 *         otherwise.
+	 */
+	public boolean isLargeFile() {
+		return largeFile;
+	}
+
+	public void setLargeFile(boolean largeFile) {
+		this.largeFile = largeFile;
+	}
+
+}
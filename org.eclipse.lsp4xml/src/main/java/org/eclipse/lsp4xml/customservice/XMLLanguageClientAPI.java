@@ -0,0 +1,33 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.customservice;
+
+import org.eclipse.lsp4j.jsonrpc.services.JsonNotification;
+import org.eclipse.lsp4j.jsonrpc.services.JsonSegment;
+import org.eclipse.lsp4j.services.LanguageClient;
+
+/**
+ * XML custom notifications sent to the client (the client side of
+ * {@link XMLCustomService}).
+ *
+ */
+@JsonSegment("xml")
+public interface XMLLanguageClientAPI extends LanguageClient {
+
+	/**
+	 * Notifies the client that a document is processed (or not anymore) in the
+	 * large file mode.
+	 * 
+	 * @param params the large file mode of the document.
+	 */
+	@JsonNotification
+	void largeFileMode(LargeFileModeParams params);
+}
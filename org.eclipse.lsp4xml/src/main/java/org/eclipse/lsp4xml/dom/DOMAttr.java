@@ -21,14 +21,26 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 
 	private final String name;
 
-	private final DOMNode nodeAttrName;
+	// the name and the value nodes are created from their offsets the first time
+	// they are accessed
+	private int nameStart;
 
-	private DOMNode nodeAttrValue;
+	private int nameEnd;
+
+	private int valueStart = -1;
+
+	private int valueEnd = -1;
+
+	private volatile DOMNode nodeAttrName;
+
+	private volatile DOMNode nodeAttrValue;
 
 	private String quotelessValue;//Value without quotes
 
 	private String originalValue;//Exact value from document
 
+	private boolean valueInText; // the value is decoded from the text of nodeAttrValue on first access
+
 	private final DOMNode ownerElement;
 
 	private boolean hasDelimiter; // has '='
@@ -64,7 +76,8 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 	public DOMAttr(String name, int start, int end, DOMNode ownerElement) {
 		super(-1, -1, ownerElement.getOwnerDocument());
 		this.name = name;
-		this.nodeAttrName = start != -1 ? new AttrNameOrValue(start, end, this) : null;
+		this.nameStart = start;
+		this.nameEnd = start != -1 ? end : -1;
 		this.ownerElement = ownerElement;
 	}
 
@@ -114,7 +127,15 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 	 */
 	@Override
 	public String getValue() {
-		return quotelessValue;
+		String value = quotelessValue;
+		if (value == null) {
+			String originalValue = getOriginalValue();
+			if (originalValue != null) {
+				value = convertToQuotelessValue(originalValue);
+				quotelessValue = value;
+			}
+		}
+		return value;
 	}
 
 	/*
@@ -158,7 +179,50 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 	}
 
 	public DOMNode getNodeAttrName() {
-		return nodeAttrName;
+		DOMNode node = nodeAttrName;
+		if (node == null && nameStart != -1) {
+			synchronized (this) {
+				node = nodeAttrName;
+				if (node == null) {
+					node = new AttrNameOrValue(nameStart, nameEnd, this);
+					nodeAttrName = node;
+				}
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the end offset of the attribute name and -1 if the attribute is not
+	 * in the text.
+	 * 
+	 * @return the end offset of the attribute name and -1 if the attribute is not
+	 *         in the text.
+	 */
+	public int getNameEnd() {
+		return nameEnd;
+	}
+
+	/**
+	 * Returns the start offset of the attribute value (with quotations) and -1 if
+	 * there is no value node.
+	 * 
+	 * @return the start offset of the attribute value (with quotations) and -1 if
+	 *         there is no value node.
+	 */
+	public int getValueStart() {
+		return valueStart;
+	}
+
+	/**
+	 * Returns the end offset of the attribute value (with quotations) and -1 if
+	 * there is no value node.
+	 * 
+	 * @return the end offset of the attribute value (with quotations) and -1 if
+	 *         there is no value node.
+	 */
+	public int getValueEnd() {
+		return valueEnd;
 	}
 
 	public void setDelimiter(boolean hasDelimiter) {
@@ -176,13 +240,56 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 	 * @return attribute value with quotations if it had them.
 	 */
 	public String getOriginalValue() {
-		return originalValue;
+		String value = originalValue;
+		if (value == null && valueInText) {
+			// the decoded value is an immutable String, so it can be cached without
+			// synchronization: at worst, several threads decode the same value. The
+			// offsets are read with the text they are relative to.
+			synchronized (getNodeOwner()) {
+				value = ownerElement.getDocumentText().subSequence(valueStart, valueEnd).toString();
+			}
+			originalValue = value;
+		}
+		return value;
 	}
 
 	public void setValue(String value, int start, int end) {
+		this.valueInText = false;
 		this.originalValue = value;
 		this.quotelessValue = convertToQuotelessValue(value);
-		this.nodeAttrValue = start != -1 ? new AttrNameOrValue(start, end, this) : null;
+		setValueOffsets(start, end);
+	}
+
+	/**
+	 * Set the value of the attribute with the region [start, end[ of the text of
+	 * the document. The original and the quoteless values are decoded from the
+	 * text the first time they are accessed.
+	 * 
+	 * @param start the start offset of the value (with quotations).
+	 * @param end   the end offset of the value (with quotations).
+	 */
+	public void setValue(int start, int end) {
+		this.valueInText = true;
+		this.originalValue = null;
+		this.quotelessValue = null;
+		setValueOffsets(start, end);
+	}
+
+	private void setValueOffsets(int start, int end) {
+		this.valueStart = start;
+		this.valueEnd = start != -1 ? end : -1;
+		this.nodeAttrValue = null;
+	}
+
+	/**
+	 * Returns true if the value of the attribute is the text of its value node
+	 * and false otherwise.
+	 * 
+	 * @return true if the value of the attribute is the text of its value node
+	 *         and false otherwise.
+	 */
+	boolean isValueInText() {
+		return valueInText;
 	}
 
 	/**
@@ -227,10 +334,22 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 	}
 
 	public DOMNode getNodeAttrValue() {
-		return nodeAttrValue;
+		DOMNode node = nodeAttrValue;
+		if (node == null && valueStart != -1) {
+			synchronized (this) {
+				node = nodeAttrValue;
+				if (node == null) {
+					node = new AttrNameOrValue(valueStart, valueEnd, this);
+					nodeAttrValue = node;
+				}
+			}
+		}
+		return node;
 	}
 
 	public void setNodeAttrValue(DOMNode nodeAttrValue) {
+		this.valueStart = nodeAttrValue != null ? nodeAttrValue.start : -1;
+		this.valueEnd = nodeAttrValue != null ? nodeAttrValue.end : -1;
 		this.nodeAttrValue = nodeAttrValue;
 	}
 
@@ -238,14 +357,29 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 		return DOMNode.isIncluded(getStart(), getEnd(), offset);
 	}
 
+	@Override
+	synchronized void shift(int delta) {
+		// the name and the value nodes are created with this lock
+		nameStart = shift(nameStart, delta);
+		nameEnd = shift(nameEnd, delta);
+		valueStart = shift(valueStart, delta);
+		valueEnd = shift(valueEnd, delta);
+		if (nodeAttrName != null) {
+			nodeAttrName.shift(delta);
+		}
+		if (nodeAttrValue != null) {
+			nodeAttrValue.shift(delta);
+		}
+	}
+
 	@Override
 	public int getStart() {
-		return nodeAttrName.start;
+		return nameStart;
 	}
 
 	@Override
 	public int getEnd() {
-		return nodeAttrValue != null ? nodeAttrValue.end : nodeAttrName.end;
+		return valueStart != -1 ? valueEnd : nameEnd;
 	}
 
 	@Override
@@ -253,6 +387,7 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
+		String quotelessValue = getValue();
 		result = prime * result + ((quotelessValue == null) ? 0 : quotelessValue.hashCode());
 		return result;
 	}
@@ -271,10 +406,11 @@ public class DOMAttr extends DOMNode implements org.w3c.dom.Attr {
 				return false;
 		} else if (!name.equals(other.name))
 			return false;
+		String quotelessValue = getValue();
 		if (quotelessValue == null) {
-			if (other.quotelessValue != null)
+			if (other.getValue() != null)
 				return false;
-		} else if (!quotelessValue.equals(other.quotelessValue))
+		} else if (!quotelessValue.equals(other.getValue()))
 			return false;
 		return true;
 	}
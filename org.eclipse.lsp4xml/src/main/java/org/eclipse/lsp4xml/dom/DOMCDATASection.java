@@ -25,6 +25,13 @@ public class DOMCDATASection extends DOMText implements CDATASection {
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		startContent = shift(startContent, delta);
+		endContent = shift(endContent, delta);
+	}
+
 	@Override
 	public int getStartContent() {
 		return startContent;
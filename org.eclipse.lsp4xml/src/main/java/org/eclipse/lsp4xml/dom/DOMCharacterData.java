@@ -127,8 +127,13 @@ public abstract class DOMCharacterData extends DOMNode implements org.w3c.dom.Ch
 	 */
 	@Override
 	public String getData() {
+		String data = this.data;
 		if (data == null) {
-			data = getOwnerDocument().getText().substring(getStartContent(), getEndContent());
+			// the offsets are read with the text they are relative to
+			synchronized (getNodeOwner()) {
+				data = getDocumentText().subSequence(getStartContent(), getEndContent()).toString();
+			}
+			this.data = data;
 		}
 		return data;
 	}
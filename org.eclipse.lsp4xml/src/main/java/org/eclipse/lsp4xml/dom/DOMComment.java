@@ -26,6 +26,13 @@ public class DOMComment extends DOMCharacterData implements org.w3c.dom.Comment
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		startContent = shift(startContent, delta);
+		endContent = shift(endContent, delta);
+	}
+
 	public boolean isCommentSameLineEndTag() {
 		return commentSameLineEndTag;
 	}
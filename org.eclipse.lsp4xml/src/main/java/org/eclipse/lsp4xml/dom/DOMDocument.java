@@ -10,6 +10,7 @@
  */
 package org.eclipse.lsp4xml.dom;
 
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
@@ -18,13 +19,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.parser.Constants;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.ScannerCheckpoint;
+import org.eclipse.lsp4xml.dom.parser.ScannerCheckpoints;
+import org.eclipse.lsp4xml.dom.parser.SymbolTable;
+import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
 import org.eclipse.lsp4xml.utils.DOMUtils;
 import org.eclipse.lsp4xml.utils.StringUtils;
@@ -44,6 +50,27 @@ import org.w3c.dom.NodeList;
  */
 public class DOMDocument extends DOMNode implements Document {
 
+	/**
+	 * Number of node lookups after which the offset index of the nodes is
+	 * created.
+	 */
+	private static final int INDEX_LOOKUP_THRESHOLD = 16;
+
+	/**
+	 * The owner of the nodes of the versions of a document which are parsed
+	 * incrementally: a node moved from a version of the document to the next one
+	 * (see {@link DOMParser#parseIncremental}) is owned by the next version
+	 * without being updated.
+	 */
+	static final class NodeOwner {
+
+		volatile DOMDocument document;
+
+		NodeOwner(DOMDocument document) {
+			this.document = document;
+		}
+	}
+
 	private SchemaLocation schemaLocation;
 	private NoNamespaceSchemaLocation noNamespaceSchemaLocation;
 	private boolean referencedExternalGrammarInitialized;
@@ -55,11 +82,38 @@ public class DOMDocument extends DOMNode implements Document {
 	private Map<String, String> externalSchemaLocation;
 	private String schemaInstancePrefix;
 	private boolean hasExternalGrammar;
+	private ScannerCheckpoints scannerCheckpoints;
+	private SymbolTable symbolTable;
+	private DOMNodeTable nodeTable;
+	private volatile DOMNodeIndex nodeIndex;
+	private int lookupCount;
+	private int nodeCount = -1;
+
+	final NodeOwner nodeOwner;
+	// true when the nodes are reserved by the incremental parse of the next version
+	private final AtomicBoolean nodesReserved = new AtomicBoolean();
 
 	public DOMDocument(TextDocument textDocument, URIResolverExtensionManager resolverExtensionManager) {
-		super(0, textDocument.getText().length(), null);
+		this(textDocument, resolverExtensionManager, null);
+	}
+
+	/**
+	 * Creates the DOM document of the given text document which shares the owner
+	 * of its nodes with the given previous version of the document, whose
+	 * unchanged nodes are moved to this document once it is parsed (see
+	 * {@link #adoptNodes()}).
+	 * 
+	 * @param textDocument             the text document.
+	 * @param resolverExtensionManager the URI resolver extension manager.
+	 * @param previous                 the DOM document of the previous version and
+	 *                                 null otherwise.
+	 */
+	DOMDocument(TextDocument textDocument, URIResolverExtensionManager resolverExtensionManager,
+			DOMDocument previous) {
+		super(0, textDocument.getTextSequence().length(), null);
 		this.textDocument = textDocument;
 		this.resolverExtensionManager = resolverExtensionManager;
+		this.nodeOwner = previous != null ? previous.nodeOwner : new NodeOwner(this);
 		resetGrammar();
 	}
 
@@ -72,6 +126,10 @@ public class DOMDocument extends DOMNode implements Document {
 		return textDocument.positionAt(position);
 	}
 
+	public Position[] positionsAt(int... offsets) throws BadLocationException {
+		return textDocument.positionsAt(offsets);
+	}
+
 	public int offsetAt(Position position) throws BadLocationException {
 		return textDocument.offsetAt(position);
 	}
@@ -118,10 +176,257 @@ public class DOMDocument extends DOMNode implements Document {
 		return textDocument.getText();
 	}
 
+	/**
+	 * Returns the text content of the XML document as {@link CharSequence} view.
+	 * 
+	 * @return the text content of the XML document as {@link CharSequence} view.
+	 */
+	public CharSequence getTextSequence() {
+		return textDocument.getTextSequence();
+	}
+
+	/**
+	 * Returns a reader on the text content of the XML document which doesn't copy
+	 * the text.
+	 * 
+	 * @return a reader on the text content of the XML document.
+	 */
+	public Reader getTextReader() {
+		return textDocument.getTextReader();
+	}
+
 	public TextDocument getTextDocument() {
 		return textDocument;
 	}
 
+	/**
+	 * Returns the scanner checkpoints recorded while parsing the document and
+	 * null otherwise.
+	 * 
+	 * @return the scanner checkpoints recorded while parsing the document and
+	 *         null otherwise.
+	 */
+	public ScannerCheckpoints getScannerCheckpoints() {
+		return scannerCheckpoints;
+	}
+
+	void setScannerCheckpoints(ScannerCheckpoints scannerCheckpoints) {
+		this.scannerCheckpoints = scannerCheckpoints;
+	}
+
+	/**
+	 * Returns the symbol table which shares the tag and attribute names of the
+	 * document.
+	 * 
+	 * @return the symbol table which shares the tag and attribute names of the
+	 *         document.
+	 */
+	public SymbolTable getSymbolTable() {
+		if (symbolTable == null) {
+			symbolTable = new SymbolTable();
+		}
+		return symbolTable;
+	}
+
+	/**
+	 * Creates the symbol table of this document which looks up the symbols of the
+	 * given DOM document (a previous version of this document), which is not
+	 * modified. The parser releases the previous table once the document is
+	 * parsed.
+	 * 
+	 * @param previous the DOM document of a previous version of this document.
+	 */
+	void reuseSymbolTable(DOMDocument previous) {
+		SymbolTable previousSymbolTable = previous.symbolTable;
+		if (symbolTable == null && previousSymbolTable != null) {
+			symbolTable = new SymbolTable(previousSymbolTable);
+		}
+	}
+
+	/**
+	 * Reserves the nodes of this document for the incremental parse of the next
+	 * version of the document, which moves them instead of copying them. The
+	 * nodes can be reserved by one parse only.
+	 * 
+	 * @return true if the nodes are reserved and false if they are already
+	 *         reserved.
+	 */
+	boolean reserveNodes() {
+		return nodesReserved.compareAndSet(false, true);
+	}
+
+	/**
+	 * Releases the nodes reserved by an incremental parse which has failed.
+	 */
+	void releaseNodes() {
+		nodesReserved.set(false);
+	}
+
+	/**
+	 * Makes this document the owner of the nodes shared with the previous version
+	 * of the document given to the constructor: the previous DOM document must no
+	 * longer be used.
+	 */
+	void adoptNodes() {
+		nodeOwner.document = this;
+	}
+
+	@Override
+	Object getNodeOwner() {
+		return nodeOwner;
+	}
+
+	/**
+	 * Returns true if the node count of the document has been computed and false
+	 * otherwise.
+	 * 
+	 * @return true if the node count of the document has been computed and false
+	 *         otherwise.
+	 */
+	boolean isNodeCountComputed() {
+		return nodeCount != -1;
+	}
+
+	void setNodeCount(int nodeCount) {
+		this.nodeCount = nodeCount;
+	}
+
+	/**
+	 * Stores the nodes of the document in a compact node table to reduce the
+	 * memory used by a large document. The nodes are created again (and kept)
+	 * the first time they are accessed with the {@link DOMNode} API.
+	 * 
+	 * <p>
+	 * The document must be compacted before it is shared: the nodes accessed
+	 * before the compaction are not the nodes of the compact document.
+	 * </p>
+	 */
+	public void compact() {
+		// the nodes of a compact document are not moved by the incremental parser
+		if (nodeTable == null && !isDTD() && reserveNodes()) {
+			nodeTable = DOMNodeTable.compact(this);
+			// the names of the nodes are shared by the node table
+			symbolTable = null;
+			// the index references the nodes which are replaced by the node table
+			nodeIndex = null;
+		}
+	}
+
+	/**
+	 * Returns true if the nodes of the document are stored in a compact node
+	 * table and false otherwise.
+	 * 
+	 * @return true if the nodes of the document are stored in a compact node
+	 *         table and false otherwise.
+	 */
+	public boolean isCompact() {
+		return nodeTable != null;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the compact node table of the
+	 * document and -1 if the document is not compact.
+	 * 
+	 * @return the estimated size in bytes of the compact node table of the
+	 *         document and -1 if the document is not compact.
+	 */
+	public long getCompactSize() {
+		return nodeTable != null ? nodeTable.getEstimatedSize() : -1;
+	}
+
+	/**
+	 * Returns the number of nodes of the document (the document, its descendants
+	 * and their attributes). The count is computed once.
+	 * 
+	 * @return the number of nodes of the document.
+	 */
+	public int getNodeCount() {
+		int count = nodeCount;
+		if (count == -1) {
+			// the nodes of a compact document are not created to be counted
+			count = nodeTable != null ? nodeTable.getNodeCount() + nodeTable.getAttributeCount()
+					: DOMUtils.getNodeCount(this);
+			nodeCount = count;
+		}
+		return count;
+	}
+
+	@Override
+	public DOMNode findNodeAt(int offset) {
+		DOMNodeIndex index = getNodeIndex();
+		return index != null ? index.findNodeAt(this, offset) : super.findNodeAt(offset);
+	}
+
+	@Override
+	public DOMNode findNodeBefore(int offset) {
+		DOMNodeIndex index = getNodeIndex();
+		return index != null ? index.findNodeBefore(this, offset) : super.findNodeBefore(offset);
+	}
+
+	@Override
+	public DOMAttr findAttrAt(int offset) {
+		DOMNodeIndex index = getNodeIndex();
+		return index != null ? index.findAttrAt(offset) : super.findAttrAt(offset);
+	}
+
+	/**
+	 * Returns the offset index of the nodes of the document and null if the
+	 * lookups must walk the DOM tree.
+	 * 
+	 * <p>
+	 * The index costs a traversal of the whole document, so it is created only
+	 * when the document is used for several lookups (ex: the validation which
+	 * reports a lot of errors). It is not created for a compact document: it would
+	 * create all the nodes which are stored in the node table.
+	 * </p>
+	 * 
+	 * @return the offset index of the nodes of the document and null if the
+	 *         lookups must walk the DOM tree.
+	 */
+	private DOMNodeIndex getNodeIndex() {
+		if (nodeTable != null) {
+			return null;
+		}
+		DOMNodeIndex index = nodeIndex;
+		if (index == null) {
+			if (++lookupCount < INDEX_LOOKUP_THRESHOLD) {
+				return null;
+			}
+			synchronized (this) {
+				index = nodeIndex;
+				if (index == null) {
+					index = DOMNodeIndex.create(this);
+					nodeIndex = index;
+				}
+			}
+		}
+		return index != DOMNodeIndex.UNSORTED ? index : null;
+	}
+
+	/**
+	 * Returns a scanner of the text of the document which is used to find the
+	 * token at the given offset. The scan starts at the given start offset or,
+	 * when the last scanner checkpoint recorded before the given offset is after
+	 * the start offset, at this checkpoint. So the scanner must be used only when
+	 * the tokens before the given offset are ignored.
+	 * 
+	 * @param startOffset the start offset of the scan.
+	 * @param isDTD       true if the start offset is inside DTD content and false
+	 *                    otherwise.
+	 * @param offset      the offset of the searched token.
+	 * @return a scanner of the text of the document.
+	 */
+	public Scanner createScanner(int startOffset, boolean isDTD, int offset) {
+		ScannerCheckpoint checkpoint = scannerCheckpoints != null
+				&& scannerCheckpoints.getVersion() == textDocument.getVersion()
+						? scannerCheckpoints.findBefore(offset)
+						: null;
+		if (checkpoint != null && checkpoint.getOffset() > startOffset) {
+			return XMLScanner.createScanner(getTextSequence(), checkpoint);
+		}
+		return XMLScanner.createScanner(getTextSequence(), startOffset, isDTD);
+	}
+
 	/**
 	 * Returns true if the document is bound to a grammar and false otherwise.
 	 * 
@@ -259,7 +564,7 @@ public class DOMDocument extends DOMNode implements Document {
 	}
 
 	private SchemaLocation createSchemaLocation(DOMNode root, String schemaInstancePrefix) {
-		String value = root.getAttribute(getPrefixedName(schemaInstancePrefix, "schemaLocation"));
+		String value = root.getAttribute(getPrefixOrNull(schemaInstancePrefix), "schemaLocation");
 		if (value == null) {
 			return null;
 		}
@@ -267,7 +572,7 @@ public class DOMDocument extends DOMNode implements Document {
 	}
 
 	private NoNamespaceSchemaLocation createNoNamespaceSchemaLocation(DOMNode root, String schemaInstancePrefix) {
-		DOMAttr attr = root.getAttributeNode(getPrefixedName(schemaInstancePrefix, "noNamespaceSchemaLocation"));
+		DOMAttr attr = root.getAttributeNode(getPrefixOrNull(schemaInstancePrefix), "noNamespaceSchemaLocation");
 		if (attr == null || attr.getValue() == null) {
 			return null;
 		}
@@ -351,8 +656,8 @@ public class DOMDocument extends DOMNode implements Document {
 		return name;
 	}
 
-	private static String getPrefixedName(String prefix, String localName) {
-		return prefix != null && prefix.length() > 0 ? prefix + ":" + localName : localName; //$NON-NLS-1$
+	private static String getPrefixOrNull(String prefix) {
+		return prefix != null && prefix.length() > 0 ? prefix : null;
 	}
 
 	public DOMElement createElement(int start, int end) {
@@ -820,8 +1125,7 @@ public class DOMDocument extends DOMNode implements Document {
 		if (docType == null || elementName == null) {
 			return Collections.emptyList();
 		}
-		return docType.getChildren().stream().filter(DOMNode::isDTDAttListDecl)
-				.filter(n -> elementName.equals(((DTDAttlistDecl) n).getElementName())).collect(Collectors.toList());
+		return Collections.unmodifiableCollection(docType.findAttlistDecls(elementName));
 	}
 
 	/**
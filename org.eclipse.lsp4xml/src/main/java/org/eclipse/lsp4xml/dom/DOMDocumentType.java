@@ -10,6 +10,13 @@
  */
 package org.eclipse.lsp4xml.dom;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 import org.w3c.dom.NamedNodeMap;
 
 /**
@@ -31,6 +38,47 @@ public class DOMDocumentType extends DTDDeclNode implements org.w3c.dom.Document
 	private String content; // |<!DOCTYPE ... >|
 	//private String unrecognizedParameters;
 
+	// indexes of the DTD declarations by name, created the first time a
+	// declaration is searched
+	private volatile DTDDeclarations declarations;
+
+	/**
+	 * Indexes of the DTD declarations of a DOCTYPE (or of a DTD file) by name.
+	 */
+	private static class DTDDeclarations {
+
+		final Map<String, List<DTDElementDecl>> elementDecls = new HashMap<>();
+		final Map<String, List<DTDAttlistDecl>> attlistDecls = new HashMap<>();
+		final Map<String, List<DTDEntityDecl>> entityDecls = new HashMap<>();
+		final Map<String, List<DTDNotationDecl>> notationDecls = new HashMap<>();
+
+		DTDDeclarations(List<DOMNode> children) {
+			for (DOMNode node : children) {
+				if (node.isDTDElementDecl()) {
+					add(elementDecls, (DTDElementDecl) node, DTDElementDecl::getName);
+				} else if (node.isDTDAttListDecl()) {
+					add(attlistDecls, (DTDAttlistDecl) node, DTDAttlistDecl::getElementName);
+				} else if (node.isDTDEntityDecl()) {
+					add(entityDecls, (DTDEntityDecl) node, DTDEntityDecl::getNodeName);
+				} else if (node.isDTDNotationDecl()) {
+					add(notationDecls, (DTDNotationDecl) node, DTDNotationDecl::getName);
+				}
+			}
+		}
+
+		private static <T extends DOMNode> void add(Map<String, List<T>> decls, T decl, Function<T, String> name) {
+			String key = name.apply(decl);
+			if (key != null) {
+				decls.computeIfAbsent(key, k -> new ArrayList<>(1)).add(decl);
+			}
+		}
+
+		static <T extends DOMNode> List<T> find(Map<String, List<T>> decls, String name) {
+			List<T> found = name != null ? decls.get(name) : null;
+			return found != null ? Collections.unmodifiableList(found) : Collections.emptyList();
+		}
+	}
+
 	public DOMDocumentType(int start, int end, DOMDocument ownerDocument) {
 		super(start, end, ownerDocument);
 	}
@@ -210,4 +258,61 @@ public class DOMDocumentType extends DTDDeclNode implements org.w3c.dom.Document
 		return getContent().substring(start - getStart(), end - getStart());
 	}
 
+	/**
+	 * Returns the DTD element declarations (<!ELEMENT) with the given name in
+	 * the document order and empty otherwise.
+	 * 
+	 * @param name the element name.
+	 * @return the DTD element declarations with the given name and empty
+	 *         otherwise.
+	 */
+	public List<DTDElementDecl> findElementDecls(String name) {
+		return DTDDeclarations.find(getDeclarations().elementDecls, name);
+	}
+
+	/**
+	 * Returns the DTD attribute lists (<!ATTLIST) of the given element name in
+	 * the document order and empty otherwise.
+	 * 
+	 * @param elementName the element name.
+	 * @return the DTD attribute lists of the given element name and empty
+	 *         otherwise.
+	 */
+	public List<DTDAttlistDecl> findAttlistDecls(String elementName) {
+		return DTDDeclarations.find(getDeclarations().attlistDecls, elementName);
+	}
+
+	/**
+	 * Returns the DTD entity declarations (<!ENTITY) with the given name in the
+	 * document order and empty otherwise.
+	 * 
+	 * @param name the entity name.
+	 * @return the DTD entity declarations with the given name and empty
+	 *         otherwise.
+	 */
+	public List<DTDEntityDecl> findEntityDecls(String name) {
+		return DTDDeclarations.find(getDeclarations().entityDecls, name);
+	}
+
+	/**
+	 * Returns the DTD notation declarations (<!NOTATION) with the given name in
+	 * the document order and empty otherwise.
+	 * 
+	 * @param name the notation name.
+	 * @return the DTD notation declarations with the given name and empty
+	 *         otherwise.
+	 */
+	public List<DTDNotationDecl> findNotationDecls(String name) {
+		return DTDDeclarations.find(getDeclarations().notationDecls, name);
+	}
+
+	private DTDDeclarations getDeclarations() {
+		DTDDeclarations declarations = this.declarations;
+		if (declarations == null) {
+			declarations = new DTDDeclarations(getChildren());
+			this.declarations = declarations;
+		}
+		return declarations;
+	}
+
 }
@@ -28,8 +28,17 @@ public class DOMElement extends DOMNode implements org.w3c.dom.Element {
 	private static final String XMLNS_ATTR = "xmlns";
 	private static final String XMLNS_NO_DEFAULT_ATTR = "xmlns:";
 
+	// marker of a resolved namespace URI which is null
+	private static final String NO_NAMESPACE_URI = new String();
+
 	String tag;
 	boolean selfClosed;
+
+	// namespace bindings of the element and the nearest namespace URI of the
+	// element or its ancestors (see getNamespaceURI()), resolved the first time
+	// they are used
+	private NamespaceScope namespaceScope;
+	private String nearestNamespaceURI;
 	
 	//DomElement.start == startTagOpenOffset
 	Integer startTagOpenOffset; // |<root>
@@ -43,6 +52,15 @@ public class DOMElement extends DOMNode implements org.w3c.dom.Element {
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		startTagOpenOffset = shift(startTagOpenOffset, delta);
+		startTagCloseOffset = shift(startTagCloseOffset, delta);
+		endTagOpenOffset = shift(endTagOpenOffset, delta);
+		endTagCloseOffset = shift(endTagCloseOffset, delta);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -118,28 +136,68 @@ public class DOMElement extends DOMNode implements org.w3c.dom.Element {
 	@Override
 	public String getNamespaceURI() {
 		String prefix = getPrefix();
-		boolean hasPrefix = !StringUtils.isEmpty(prefix);
+		if (StringUtils.isEmpty(prefix)) {
+			// xmlns attribute of the element or namespace of the nearest ancestor
+			return getNearestNamespaceURI();
+		}
+		return getPrefixedNamespaceURI(prefix);
+	}
+
+	/**
+	 * Returns the namespace URI of the given prefix declared with the
+	 * 'xmlns:prefix' attribute of the element or of the nearest ancestor which
+	 * declares it.
+	 */
+	private String getPrefixedNamespaceURI(String prefix) {
 		// Try to get xmlns attribute in the element
-		String rootElementNamespaceDeclarationName = (hasPrefix) ? XMLNS_NO_DEFAULT_ATTR + prefix // $NON-NLS-1$
-				: XMLNS_ATTR; // $NON-NLS-1$
-		String rootElementNamespace = this.getAttribute(rootElementNamespaceDeclarationName);
-		if (!StringUtils.isEmpty(rootElementNamespace)) {
-			return rootElementNamespace;
+		String namespaceURI = this.getAttribute(XMLNS_ATTR, prefix);
+		if (!StringUtils.isEmpty(namespaceURI)) {
+			return namespaceURI;
 		}
 		// try to get the namespace in the parent element
-		DOMNode parent = getParentNode();
-		while (parent != null) {
-			if (parent.getNodeType() == DOMNode.ELEMENT_NODE) {
-				DOMElement parentElement = ((DOMElement) parent);
-				String namespaceURI = hasPrefix ? parentElement.getAttribute(XMLNS_NO_DEFAULT_ATTR + prefix)
-						: parentElement.getNamespaceURI();
-				if (namespaceURI != null) {
-					return namespaceURI;
+		DOMElement parentElement = getParentElement();
+		return parentElement != null ? parentElement.getNamespaceScope().getNamespaceURI(prefix) : null;
+	}
+
+	/**
+	 * Returns the namespace URI of the element if it is not null and the nearest
+	 * namespace URI of the parent element otherwise.
+	 */
+	private String getNearestNamespaceURI() {
+		String namespaceURI = nearestNamespaceURI;
+		if (namespaceURI == null) {
+			String prefix = getPrefix();
+			if (StringUtils.isEmpty(prefix)) {
+				namespaceURI = this.getAttribute(XMLNS_ATTR);
+				if (StringUtils.isEmpty(namespaceURI)) {
+					namespaceURI = null;
 				}
+			} else {
+				namespaceURI = getPrefixedNamespaceURI(prefix);
 			}
-			parent = parent.getParentNode();
+			if (namespaceURI == null) {
+				DOMElement parentElement = getParentElement();
+				namespaceURI = parentElement != null ? parentElement.getNearestNamespaceURI() : null;
+			}
+			nearestNamespaceURI = namespaceURI != null ? namespaceURI : NO_NAMESPACE_URI;
+			return namespaceURI;
 		}
-		return null;
+		return namespaceURI != NO_NAMESPACE_URI ? namespaceURI : null;
+	}
+
+	/**
+	 * Returns the namespace bindings which are visible in the element.
+	 * 
+	 * @return the namespace bindings which are visible in the element.
+	 */
+	NamespaceScope getNamespaceScope() {
+		NamespaceScope scope = namespaceScope;
+		if (scope == null) {
+			DOMElement parentElement = getParentElement();
+			scope = (parentElement != null ? parentElement.getNamespaceScope() : NamespaceScope.EMPTY).declare(this);
+			namespaceScope = scope;
+		}
+		return scope;
 	}
 
 	public Collection<String> getAllPrefixes() {
@@ -173,45 +231,9 @@ public class DOMElement extends DOMNode implements org.w3c.dom.Element {
 		if (namespaceURI == null) {
 			return null;
 		}
-		if (hasAttributes()) {
-			for (DOMAttr attr : getAttributeNodes()) {
-				String attributeName = attr.getName();
-				if (isXmlns(attributeName)) {
-					String namespace = attr.getValue();
-					if (namespace != null && namespace.equals(namespaceURI)) {
-						if (isDefaultXmlns(attributeName)) {
-							// xmlns="http://"
-							return "";
-						}
-						// xmlns:xxx="http://"
-						return extractPrefixFromXmlns(attributeName);
-					}
-				}
-			}
-		}
-		// try to get the prefix in the parent element
-		DOMNode parent = getParentNode();
-		while (parent != null) {
-			if (parent.getNodeType() == DOMNode.ELEMENT_NODE) {
-				DOMElement parentElement = ((DOMElement) parent);
-				String prefix = parentElement.getPrefix(namespaceURI);
-				if (prefix != null) {
-					return prefix;
-				}
-			}
-			parent = parent.getParentNode();
-		}
-		return null;
-	}
-
-	/**
-	 * Returns true if attribute name is a xmlns attribute and false otherwise.
-	 * 
-	 * @param attributeName
-	 * @return true if attribute name is a xmlns attribute and false otherwise.
-	 */
-	private static boolean isXmlns(String attributeName) {
-		return attributeName.startsWith(XMLNS_ATTR);
+		// xmlns="http://" or xmlns:xxx="http://" of the element or of the nearest
+		// ancestor
+		return getNamespaceScope().getPrefix(namespaceURI);
 	}
 
 	/**
@@ -242,7 +264,7 @@ public class DOMElement extends DOMNode implements org.w3c.dom.Element {
 		if (prefix == null || prefix.isEmpty()) {
 			return getNamespaceURI();
 		}
-		return getAttribute(XMLNS_NO_DEFAULT_ATTR + prefix);
+		return getAttribute(XMLNS_ATTR, prefix);
 	}
 
 	public boolean isDocumentElement() {
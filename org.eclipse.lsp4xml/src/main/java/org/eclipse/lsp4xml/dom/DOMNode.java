@@ -10,10 +10,11 @@
  */
 package org.eclipse.lsp4xml.dom;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Function;
+import java.util.RandomAccess;
 
 import org.w3c.dom.DOMException;
 import org.w3c.dom.NamedNodeMap;
@@ -52,20 +53,111 @@ public abstract class DOMNode implements Node {
 	 */
 	public static final short DTD_DECL_NODE = 105;
 
+	/**
+	 * Number of attributes of a node above which the attributes are found with a
+	 * hash index.
+	 */
+	private static final int NAMED_NODE_INDEX_THRESHOLD = 8;
+
 	boolean closed = false;
 
 	private XMLNamedNodeMap<DOMAttr> attributeNodes;
 	private XMLNodeList<DOMNode> children;
 
-	final int start; // |<root> </root>
+	// table which stores the children and the attributes of a node of a compact
+	// document until they are created (see DOMNodeTable)
+	private volatile DOMNodeTable nodeTable;
+	private int nodeIndex;
+
+	// offset delta which is not applied yet to the children: the node has been
+	// moved to the next version of the document by the incremental parser and its
+	// children are shifted the first time they are accessed
+	private volatile int childrenDelta;
+
+	int start; // |<root> </root>
 	int end; // <root> </root>|
 
 	DOMNode parent;
-	private final DOMDocument ownerDocument;
+	private final DOMDocument.NodeOwner owner;
+
+	/**
+	 * List of nodes stored in an array. The array grows by one slot for the first
+	 * nodes, so the array of a node with a few children (ex: an element with a
+	 * text) has the exact size instead of the default capacity of an
+	 * {@link java.util.ArrayList}, and a list created with a known number of
+	 * nodes has the exact size.
+	 */
+	static class NodeArrayList<T extends DOMNode> extends AbstractList<T> implements RandomAccess {
+
+		private static final DOMNode[] EMPTY = new DOMNode[0];
 
-	class XMLNodeList<T extends DOMNode> extends ArrayList<T> implements NodeList {
+		// number of nodes below which the array grows by one slot
+		private static final int EXACT_GROWTH_THRESHOLD = 4;
 
-		private static final long serialVersionUID = 1L;
+		private DOMNode[] nodes;
+		private int size;
+
+		NodeArrayList(int capacity) {
+			this.nodes = capacity > 0 ? new DOMNode[capacity] : EMPTY;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T get(int index) {
+			checkIndex(index, size);
+			return (T) nodes[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T set(int index, T node) {
+			checkIndex(index, size);
+			T old = (T) nodes[index];
+			nodes[index] = node;
+			modCount++;
+			return old;
+		}
+
+		@Override
+		public void add(int index, T node) {
+			checkIndex(index, size + 1);
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size < EXACT_GROWTH_THRESHOLD ? size + 1 : size + (size >> 1));
+			}
+			System.arraycopy(nodes, index, nodes, index + 1, size - index);
+			nodes[index] = node;
+			size++;
+			modCount++;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T remove(int index) {
+			checkIndex(index, size);
+			T old = (T) nodes[index];
+			System.arraycopy(nodes, index + 1, nodes, index, size - index - 1);
+			nodes[--size] = null;
+			modCount++;
+			return old;
+		}
+
+		private static void checkIndex(int index, int size) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+	}
+
+	static class XMLNodeList<T extends DOMNode> extends NodeArrayList<T> implements NodeList {
+
+		XMLNodeList(int capacity) {
+			super(capacity);
+		}
 
 		@Override
 		public int getLength() {
@@ -79,9 +171,14 @@ public abstract class DOMNode implements Node {
 
 	}
 
-	class XMLNamedNodeMap<T extends DOMNode> extends ArrayList<T> implements NamedNodeMap {
+	static class XMLNamedNodeMap<T extends DOMNode> extends NodeArrayList<T> implements NamedNodeMap {
 
-		private static final long serialVersionUID = 1L;
+		// hash index of the nodes by name, created for a map with a lot of nodes
+		private volatile NamedNodeIndex<T> index;
+
+		XMLNamedNodeMap(int capacity) {
+			super(capacity);
+		}
 
 		@Override
 		public int getLength() {
@@ -90,8 +187,30 @@ public abstract class DOMNode implements Node {
 
 		@Override
 		public T getNamedItem(String name) {
-			for (T node : this) {
-				if (name.equals(node.getNodeName())) {
+			return getNamedItem(null, name);
+		}
+
+		/**
+		 * Returns the first node with the name 'prefix:suffix' (or 'suffix' when
+		 * there is no prefix) and null otherwise.
+		 * 
+		 * @param prefix the prefix and null if there is no prefix.
+		 * @param suffix the local name.
+		 * @return the first node with the name 'prefix:suffix' (or 'suffix' when
+		 *         there is no prefix) and null otherwise.
+		 */
+		public T getNamedItem(String prefix, String suffix) {
+			if (size() > NAMED_NODE_INDEX_THRESHOLD) {
+				NamedNodeIndex<T> index = this.index;
+				if (index == null || index.getModCount() != modCount) {
+					index = new NamedNodeIndex<>(this, modCount);
+					this.index = index;
+				}
+				return index.get(prefix, suffix);
+			}
+			for (int i = 0; i < size(); i++) {
+				T node = get(i);
+				if (isName(node.getNodeName(), prefix, suffix)) {
 					return node;
 				}
 			}
@@ -133,12 +252,12 @@ public abstract class DOMNode implements Node {
 	public DOMNode(int start, int end, DOMDocument ownerDocument) {
 		this.start = start;
 		this.end = end;
-		this.ownerDocument = ownerDocument;
+		this.owner = ownerDocument != null ? ownerDocument.nodeOwner : null;
 		this.closed = false;
 	}
 
 	public DOMDocument getOwnerDocument() {
-		return ownerDocument;
+		return owner != null ? owner.document : null;
 	}
 
 	@Override
@@ -159,6 +278,7 @@ public abstract class DOMNode implements Node {
 		result.append(getNodeName());
 		result.append(", closed: ");
 		result.append(closed);
+		XMLNodeList<DOMNode> children = children();
 		if (children != null && children.size() > 0) {
 			result.append(", \n");
 			for (int i = 0; i < indent + 1; i++) {
@@ -194,7 +314,7 @@ public abstract class DOMNode implements Node {
 	 */
 	public DOMNode findNodeBefore(int offset) {
 		List<DOMNode> children = getChildren();
-		int idx = findFirst(children, c -> offset <= c.start) - 1;
+		int idx = findChildBefore(children, offset);
 		if (idx >= 0) {
 			DOMNode child = children.get(idx);
 			if (offset > child.start) {
@@ -213,7 +333,7 @@ public abstract class DOMNode implements Node {
 
 	public DOMNode findNodeAt(int offset) {
 		List<DOMNode> children = getChildren();
-		int idx = findFirst(children, c -> offset <= c.start) - 1;
+		int idx = findChildBefore(children, offset);
 		if (idx >= 0) {
 			DOMNode child = children.get(idx);
 			if (isIncluded(child, offset)) {
@@ -258,27 +378,22 @@ public abstract class DOMNode implements Node {
 	}
 
 	/**
-	 * Takes a sorted array and a function p. The array is sorted in such a way that
-	 * all elements where p(x) is false are located before all elements where p(x)
-	 * is true.
+	 * Takes a list of children sorted by start offset.
 	 * 
-	 * @returns the least x for which p(x) is true or array.length if no element
-	 *          full fills the given function.
+	 * @returns the index of the last child which starts before the given offset
+	 *          or -1 if no child starts before the offset.
 	 */
-	private static <T> int findFirst(List<T> array, Function<T, Boolean> p) {
-		int low = 0, high = array.size();
-		if (high == 0) {
-			return 0; // no children
-		}
+	private static int findChildBefore(List<DOMNode> children, int offset) {
+		int low = 0, high = children.size();
 		while (low < high) {
-			int mid = (int) Math.floor((low + high) / 2);
-			if (p.apply(array.get(mid))) {
+			int mid = (low + high) >>> 1;
+			if (offset <= children.get(mid).start) {
 				high = mid;
 			} else {
 				low = mid + 1;
 			}
 		}
-		return low;
+		return low - 1;
 	}
 
 	public DOMAttr getAttributeNode(String name) {
@@ -291,26 +406,46 @@ public abstract class DOMNode implements Node {
 	 * If there is no namespace, set prefix to null.
 	 */
 	public DOMAttr getAttributeNode(String prefix, String suffix) {
-		StringBuilder sb = new StringBuilder();
-		if(prefix != null) {
-			sb.append(prefix);
-			sb.append(":");
-		}
-		sb.append(suffix);
-		String name = sb.toString();
-		if (!hasAttributes()) {
+		XMLNamedNodeMap<DOMAttr> attributeNodes = attributes();
+		if (attributeNodes == null) {
 			return null;
 		}
-		for (DOMAttr attr : attributeNodes) {
-			if (name.equals(attr.getName())) {
-				return attr;
-			}
+		return attributeNodes.getNamedItem(prefix, suffix);
+	}
+
+	/**
+	 * Returns true if the given name is equal to 'prefix:suffix' (or to 'suffix'
+	 * when there is no prefix) without creating the qualified name. The names of
+	 * a parsed document are shared by its symbol table, so the comparison with a
+	 * name of the same document is an identity check.
+	 */
+	static boolean isName(String name, String prefix, String suffix) {
+		if (name == null || suffix == null) {
+			return false;
 		}
-		return null;
+		if (prefix == null) {
+			return name.equals(suffix);
+		}
+		int prefixLength = prefix.length();
+		return name.length() == prefixLength + 1 + suffix.length() && name.startsWith(prefix)
+				&& name.charAt(prefixLength) == ':' && name.endsWith(suffix);
 	}
 
 	public String getAttribute(String name) {
-		DOMAttr attr = getAttributeNode(name);
+		return getAttribute(null, name);
+	}
+
+	/**
+	 * Returns the value without quotes of the attribute 'prefix:suffix' (or
+	 * 'suffix' when the prefix is null) and null otherwise.
+	 * 
+	 * @param prefix the prefix and null if there is no prefix.
+	 * @param suffix the local name.
+	 * @return the value without quotes of the attribute 'prefix:suffix' (or
+	 *         'suffix' when the prefix is null) and null otherwise.
+	 */
+	public String getAttribute(String prefix, String suffix) {
+		DOMAttr attr = getAttributeNode(prefix, suffix);
 		String value = attr != null ? attr.getValue() : null;
 		if (value == null) {
 			return null;
@@ -340,6 +475,7 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public boolean hasAttributes() {
+		XMLNamedNodeMap<DOMAttr> attributeNodes = attributes();
 		return attributeNodes != null && attributeNodes.size() != 0;
 	}
 
@@ -353,14 +489,12 @@ public abstract class DOMNode implements Node {
 	}
 
 	public void setAttributeNode(DOMAttr attr) {
-		if (attributeNodes == null) {
-			attributeNodes = new XMLNamedNodeMap<DOMAttr>();
-		}
-		attributeNodes.add(attr);
+		attributes();
+		addAttributeNode(attr);
 	}
 
 	public List<DOMAttr> getAttributeNodes() {
-		return attributeNodes;
+		return attributes();
 	}
 
 	/**
@@ -369,6 +503,7 @@ public abstract class DOMNode implements Node {
 	 * @return the node children.
 	 */
 	public List<DOMNode> getChildren() {
+		XMLNodeList<DOMNode> children = children();
 		if (children == null) {
 			return Collections.emptyList();
 		}
@@ -381,11 +516,186 @@ public abstract class DOMNode implements Node {
 	 * @param child the node child to add.
 	 */
 	public void addChild(DOMNode child) {
+		children();
+		addChildNode(child);
+	}
+
+	/**
+	 * Creates the lists of the attributes and the children of this node with the
+	 * given number of nodes (used when the number of nodes is known before they
+	 * are added).
+	 * 
+	 * @param attributeCount the number of attributes.
+	 * @param childCount     the number of children.
+	 */
+	void initContent(int attributeCount, int childCount) {
+		if (attributeNodes == null && attributeCount > 0) {
+			attributeNodes = new XMLNamedNodeMap<DOMAttr>(attributeCount);
+		}
+		if (children == null && childCount > 0) {
+			children = new XMLNodeList<DOMNode>(childCount);
+		}
+	}
+
+	/**
+	 * Stores the children and the attributes of this node in the given compact
+	 * node table: they will be created the first time they are accessed.
+	 * 
+	 * @param nodeTable the compact node table.
+	 * @param nodeIndex the index of this node in the table.
+	 */
+	void setNodeTable(DOMNodeTable nodeTable, int nodeIndex) {
+		this.children = null;
+		this.attributeNodes = null;
+		this.nodeIndex = nodeIndex;
+		this.nodeTable = nodeTable;
+	}
+
+	/**
+	 * Add the given child without creating the content stored in a compact node
+	 * table (used while this content is created).
+	 * 
+	 * @param child the node child to add.
+	 */
+	void addChildNode(DOMNode child) {
 		child.parent = this;
 		if (children == null) {
-			children = new XMLNodeList<DOMNode>();
+			children = new XMLNodeList<DOMNode>(1);
+		}
+		children.add(child);
+	}
+
+	/**
+	 * Add the given attribute without creating the content stored in a compact
+	 * node table (used while this content is created).
+	 * 
+	 * @param attr the attribute to add.
+	 */
+	void addAttributeNode(DOMAttr attr) {
+		if (attributeNodes == null) {
+			attributeNodes = new XMLNamedNodeMap<DOMAttr>(1);
+		}
+		attributeNodes.add(attr);
+	}
+
+	private XMLNodeList<DOMNode> children() {
+		createTableContent();
+		applyChildrenDelta();
+		return children;
+	}
+
+	private XMLNamedNodeMap<DOMAttr> attributes() {
+		createTableContent();
+		return attributeNodes;
+	}
+
+	/**
+	 * Creates the children and the attributes of this node which are stored in
+	 * a compact node table. The DOM document can be used by several threads: the
+	 * table is released (with a volatile write) once the content is created, so
+	 * a thread which doesn't see the table sees the created content.
+	 */
+	private void createTableContent() {
+		if (nodeTable == null) {
+			return;
+		}
+		synchronized (this) {
+			DOMNodeTable table = nodeTable;
+			if (table != null) {
+				table.createContent(this, nodeIndex);
+				nodeTable = null;
+			}
+		}
+	}
+
+	/**
+	 * Shifts the offsets of the children of this node with the pending offset
+	 * delta. The children are shifted with the lock of this node and the delta is
+	 * reset (with a volatile write) once they are shifted, so a thread which sees
+	 * no delta sees the shifted children.
+	 */
+	private void applyChildrenDelta() {
+		if (childrenDelta == 0) {
+			return;
+		}
+		synchronized (this) {
+			int delta = childrenDelta;
+			if (delta != 0) {
+				for (DOMNode child : children) {
+					child.shift(delta);
+				}
+				childrenDelta = 0;
+			}
+		}
+	}
+
+	/**
+	 * Shifts the offsets of this node and of its attributes with the given delta
+	 * (used when the node is moved to the next version of the document by the
+	 * incremental parser). The children are shifted the first time they are
+	 * accessed.
+	 * 
+	 * @param delta the offset delta.
+	 */
+	void shift(int delta) {
+		start += delta;
+		end += delta;
+		if (attributeNodes != null) {
+			for (DOMAttr attr : attributeNodes) {
+				attr.shift(delta);
+			}
+		}
+		if (children != null) {
+			synchronized (this) {
+				childrenDelta += delta;
+			}
+		}
+	}
+
+	/**
+	 * Returns the given offset shifted with the given delta and the offset if it
+	 * is not set (-1 or 0 when the token of the offset has not been parsed).
+	 */
+	static int shift(int offset, int delta) {
+		return offset > 0 ? offset + delta : offset;
+	}
+
+	static Integer shift(Integer offset, int delta) {
+		return offset != null ? shift(offset.intValue(), delta) : null;
+	}
+
+	/**
+	 * Returns the text of the document which contains this node. The offset
+	 * deltas which are pending in the ancestors are applied, so the offsets of
+	 * this node are relative to the returned text. The caller must hold the lock
+	 * of {@link #getNodeOwner()} while the offsets are read: the incremental
+	 * parser moves the nodes to the next version of the document with this lock.
+	 * 
+	 * @return the text of the document which contains this node.
+	 */
+	CharSequence getDocumentText() {
+		return applyPendingDeltas().getTextSequence();
+	}
+
+	private DOMDocument applyPendingDeltas() {
+		DOMNode parent = this.parent;
+		if (parent == null) {
+			return this instanceof DOMDocument ? (DOMDocument) this : getOwnerDocument();
 		}
-		getChildren().add(child);
+		DOMDocument document = parent.applyPendingDeltas();
+		parent.applyChildrenDelta();
+		return document;
+	}
+
+	/**
+	 * Returns the object shared by the versions of the document which own this
+	 * node (see {@link #getDocumentText()}).
+	 * 
+	 * @return the object shared by the versions of the document which own this
+	 *         node.
+	 */
+	Object getNodeOwner() {
+		return owner != null ? owner : this;
 	}
 
 	/**
@@ -414,7 +724,7 @@ public abstract class DOMNode implements Node {
 	}
 
 	public String getNodeAsString() {
-		return ownerDocument.getText().substring(start, end);
+		return getOwnerDocument().getText().substring(start, end);
 	}
 
 	public boolean isComment() {
@@ -510,7 +820,8 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public DOMNode getFirstChild() {
-		return this.children != null && children.size() > 0 ? this.children.get(0) : null;
+		XMLNodeList<DOMNode> children = children();
+		return children != null && children.size() > 0 ? children.get(0) : null;
 	}
 
 	/*
@@ -520,7 +831,8 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public DOMNode getLastChild() {
-		return this.children != null && this.children.size() > 0 ? this.children.get(this.children.size() - 1) : null;
+		XMLNodeList<DOMNode> children = children();
+		return children != null && children.size() > 0 ? children.get(children.size() - 1) : null;
 	}
 
 	/*
@@ -530,7 +842,7 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public NamedNodeMap getAttributes() {
-		return attributeNodes;
+		return attributes();
 	}
 
 	/*
@@ -540,7 +852,7 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public NodeList getChildNodes() {
-		return children;
+		return children();
 	}
 
 	/*
@@ -662,6 +974,7 @@ public abstract class DOMNode implements Node {
 	 */
 	@Override
 	public boolean hasChildNodes() {
+		XMLNodeList<DOMNode> children = children();
 		return children != null && !children.isEmpty();
 	}
 
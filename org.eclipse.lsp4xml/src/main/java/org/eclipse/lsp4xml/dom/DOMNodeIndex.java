@@ -0,0 +1,233 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.List;
+
+/**
+ * Offset index of the nodes and the attributes of a DOM document.
+ *
+ * <p>
+ * The nodes are flattened in document order (a node before its children) in
+ * arrays of start offsets, end offsets and parent indexes, so the node at an
+ * offset is found with one binary search on the start offsets and a walk to the
+ * parents, instead of a binary search of the children of each ancestor. The
+ * attributes of a node are stored after the attributes of the previous nodes,
+ * so they are found with a binary search in the range of the node.
+ * </p>
+ *
+ * <p>
+ * The index gives the same results than {@link DOMNode#findNodeAt(int)},
+ * {@link DOMNode#findNodeBefore(int)} and {@link DOMNode#findAttrAt(int)}. It
+ * is a snapshot of the document: it must be created when the document is not
+ * modified anymore.
+ * </p>
+ *
+ */
+final class DOMNodeIndex {
+
+	private static final int NONE = -1;
+
+	/**
+	 * Index which is returned when the start offsets of the nodes are not sorted
+	 * (ex: nodes created with the API), so the index cannot be used.
+	 */
+	static final DOMNodeIndex UNSORTED = new DOMNodeIndex(0, 0);
+
+	private final DOMNode[] nodes;
+	private final int[] starts;
+	private final int[] ends;
+	private final int[] parents;
+	// true if the last child of the node ends at the end of the node
+	private final boolean[] lastChildAtEnds;
+	// index of the first attribute of each node (and the attribute count at the
+	// end)
+	private final int[] firstAttributes;
+
+	private final DOMAttr[] attributes;
+	private final int[] attributeStarts;
+	private final int[] attributeEnds;
+
+	private int nodeCount;
+	private int attributeCount;
+
+	private DOMNodeIndex(int nodeCount, int attributeCount) {
+		this.nodes = new DOMNode[nodeCount];
+		this.starts = new int[nodeCount];
+		this.ends = new int[nodeCount];
+		this.parents = new int[nodeCount];
+		this.lastChildAtEnds = new boolean[nodeCount];
+		this.firstAttributes = new int[nodeCount + 1];
+		this.attributes = new DOMAttr[attributeCount];
+		this.attributeStarts = new int[attributeCount];
+		this.attributeEnds = new int[attributeCount];
+	}
+
+	/**
+	 * Creates the offset index of the descendants of the given root node.
+	 *
+	 * @param root the root node (the DOM document).
+	 * @return the offset index of the descendants of the given root node or
+	 *         {@link #UNSORTED} if the nodes are not sorted by offset.
+	 */
+	static DOMNodeIndex create(DOMNode root) {
+		int[] counts = new int[2];
+		count(root, counts);
+		DOMNodeIndex index = new DOMNodeIndex(counts[0], counts[1]);
+		for (DOMNode child : root.getChildren()) {
+			if (!index.add(child, NONE)) {
+				return UNSORTED;
+			}
+		}
+		index.firstAttributes[index.nodeCount] = index.attributeCount;
+		return index;
+	}
+
+	private static void count(DOMNode node, int[] counts) {
+		for (DOMNode child : node.getChildren()) {
+			counts[0]++;
+			if (child.hasAttributes()) {
+				counts[1] += child.getAttributeNodes().size();
+			}
+			count(child, counts);
+		}
+	}
+
+	private boolean add(DOMNode node, int parent) {
+		int index = nodeCount++;
+		int start = node.getStart();
+		if (index > 0 && start < starts[index - 1]) {
+			return false;
+		}
+		nodes[index] = node;
+		starts[index] = start;
+		ends[index] = node.getEnd();
+		parents[index] = parent;
+		DOMNode lastChild = node.getLastChild();
+		lastChildAtEnds[index] = lastChild != null && lastChild.getEnd() == node.getEnd();
+		firstAttributes[index] = attributeCount;
+		if (node.hasAttributes()) {
+			for (DOMAttr attr : node.getAttributeNodes()) {
+				int attrStart = attr.getStart();
+				if (attributeCount > firstAttributes[index] && attrStart <= attributeStarts[attributeCount - 1]) {
+					return false;
+				}
+				attributes[attributeCount] = attr;
+				attributeStarts[attributeCount] = attrStart;
+				attributeEnds[attributeCount] = attr.getEnd();
+				attributeCount++;
+			}
+		}
+		List<DOMNode> children = node.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			if (!add(children.get(i), index)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the node at the given offset and the root node if no node includes
+	 * the offset.
+	 *
+	 * @param root   the root node.
+	 * @param offset the offset.
+	 * @return the node at the given offset and the root node if no node includes
+	 *         the offset.
+	 * @see DOMNode#findNodeAt(int)
+	 */
+	DOMNode findNodeAt(DOMNode root, int offset) {
+		int index = findNodeIndexAt(offset);
+		return index != NONE ? nodes[index] : root;
+	}
+
+	/**
+	 * Returns the node before the given offset and the root node if there is no
+	 * node before the offset.
+	 *
+	 * @param root   the root node.
+	 * @param offset the offset.
+	 * @return the node before the given offset and the root node if there is no
+	 *         node before the offset.
+	 * @see DOMNode#findNodeBefore(int)
+	 */
+	DOMNode findNodeBefore(DOMNode root, int offset) {
+		// the search goes down the ancestors of the last node which starts before
+		// the offset and stops at the first node which ends before the offset
+		int found = findLastBefore(starts, 0, nodeCount, offset);
+		for (int i = found; i != NONE; i = parents[i]) {
+			if (offset >= ends[i] && !lastChildAtEnds[i]) {
+				found = i;
+			}
+		}
+		return found != NONE ? nodes[found] : root;
+	}
+
+	/**
+	 * Returns the attribute at the given offset and null otherwise.
+	 *
+	 * @param offset the offset.
+	 * @return the attribute at the given offset and null otherwise.
+	 * @see DOMNode#findAttrAt(int)
+	 */
+	DOMAttr findAttrAt(int offset) {
+		int index = findNodeIndexAt(offset);
+		if (index == NONE) {
+			return null;
+		}
+		int attr = findLastBefore(attributeStarts, firstAttributes[index], firstAttributes[index + 1], offset);
+		if (attr != NONE && DOMNode.isIncluded(attributeStarts[attr], attributeEnds[attr], offset)) {
+			return attributes[attr];
+		}
+		return null;
+	}
+
+	private int findNodeIndexAt(int offset) {
+		// the search goes down the ancestors of the last node which starts before
+		// the offset and stops at the parent of the first node which doesn't
+		// include the offset
+		int last = findLastBefore(starts, 0, nodeCount, offset);
+		int found = last;
+		for (int i = last; i != NONE; i = parents[i]) {
+			if (!DOMNode.isIncluded(starts[i], ends[i], offset)) {
+				found = parents[i];
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the index of the last start offset in [from, to[ which is before
+	 * the given offset and -1 otherwise.
+	 */
+	private static int findLastBefore(int[] starts, int from, int to, int offset) {
+		int low = from, high = to;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (offset <= starts[mid]) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low > from ? low - 1 : NONE;
+	}
+
+	/**
+	 * Returns the number of nodes of the index.
+	 *
+	 * @return the number of nodes of the index.
+	 */
+	int getNodeCount() {
+		return nodeCount;
+	}
+}
@@ -0,0 +1,485 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact representation of the nodes of a large DOM document.
+ *
+ * <p>
+ * The nodes are stored in parallel arrays (start, end, first child, next
+ * sibling, name, ...) and the attributes in a packed table, instead of one
+ * object per node and per attribute. The {@link DOMNode} instances of the
+ * children (and attributes) of a node are created the first time they are
+ * accessed: the language features which use the {@link DOMNode} API work with
+ * a compact document and only create the nodes that they visit.
+ * </p>
+ *
+ * <p>
+ * The nodes which cannot be stored in the arrays (the DOCTYPE with the DTD
+ * declarations, a node with an attribute created by the API, etc) are kept as
+ * objects.
+ * </p>
+ *
+ */
+final class DOMNodeTable {
+
+	private static final int NONE = -1;
+
+	// Node kinds
+	private static final byte DOCUMENT = 0;
+	private static final byte ELEMENT = 1;
+	private static final byte TEXT = 2;
+	private static final byte CDATA = 3;
+	private static final byte PROCESSING_INSTRUCTION = 4;
+	private static final byte COMMENT = 5;
+	private static final byte OBJECT = 6;
+
+	// Node flags
+	private static final byte CLOSED = 1;
+	private static final byte SELF_CLOSED = 1 << 1;
+	private static final byte WHITESPACE = 1 << 2;
+	private static final byte COMMENT_SAME_LINE_END_TAG = 1 << 3;
+	private static final byte PROLOG = 1 << 4;
+	private static final byte PROCESSING_INSTRUCTION_TARGET = 1 << 5;
+	private static final byte START_TAG_CLOSE = 1 << 6;
+
+	// Offsets of a node:
+	// - element: start tag open, start tag close, end tag open, end tag close
+	// - comment, CDATA: start content, end content
+	// - processing instruction: start content, end content, end tag open
+	private static final int NODE_OFFSETS = 4;
+
+	// Fields of an attribute: name, name start, name end, value start, value
+	// end, flags
+	private static final int ATTRIBUTE_FIELDS = 6;
+
+	// Attribute flags
+	private static final int HAS_DELIMITER = 1;
+	private static final int HAS_VALUE_NODE = 1 << 1;
+	private static final int HAS_VALUE = 1 << 2;
+
+	private final DOMDocument document;
+
+	private int nodeCount;
+	private int[] starts;
+	private int[] ends;
+	private int[] firstChildren;
+	private int[] nextSiblings;
+	private int[] names; // index in 'symbols' and in 'objects' for an object
+	private byte[] kinds;
+	private byte[] flags;
+	private int[] offsets;
+	private int[] firstAttributes;
+	private int[] attributeCounts;
+
+	private int attributeCount;
+	private int[] attributes;
+
+	private String[] symbols;
+	private final List<DOMNode> objects;
+
+	private Map<String, Integer> symbolIds;
+
+	private DOMNodeTable(DOMDocument document) {
+		this.document = document;
+		this.objects = new ArrayList<>();
+		this.symbolIds = new HashMap<>();
+		int capacity = 16;
+		this.starts = new int[capacity];
+		this.ends = new int[capacity];
+		this.firstChildren = new int[capacity];
+		this.nextSiblings = new int[capacity];
+		this.names = new int[capacity];
+		this.kinds = new byte[capacity];
+		this.flags = new byte[capacity];
+		this.offsets = new int[capacity * NODE_OFFSETS];
+		this.firstAttributes = new int[capacity];
+		this.attributeCounts = new int[capacity];
+		this.attributes = new int[capacity * ATTRIBUTE_FIELDS];
+	}
+
+	/**
+	 * Stores the nodes of the given DOM document in a compact node table. The
+	 * children of the document are created again from the table the first time
+	 * they are accessed.
+	 *
+	 * @param document the DOM document to compact.
+	 * @return the compact node table.
+	 */
+	static DOMNodeTable compact(DOMDocument document) {
+		DOMNodeTable table = new DOMNodeTable(document);
+		int index = table.addNode(document);
+		table.trim();
+		document.setNodeTable(table, index);
+		return table;
+	}
+
+	/**
+	 * Returns the number of nodes stored in the table.
+	 *
+	 * @return the number of nodes stored in the table.
+	 */
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the number of attributes stored in the table.
+	 *
+	 * @return the number of attributes stored in the table.
+	 */
+	int getAttributeCount() {
+		return attributeCount;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the table.
+	 *
+	 * @return the estimated size in bytes of the table.
+	 */
+	long getEstimatedSize() {
+		return (long) nodeCount * (4 * (7 + NODE_OFFSETS) + 2)
+				+ (long) attributeCount * 4 * ATTRIBUTE_FIELDS + (long) symbols.length * 48 + objects.size() * 100L;
+	}
+
+	private int addNode(DOMNode node) {
+		int index = nodeCount++;
+		ensureNodeCapacity(nodeCount);
+		starts[index] = node.start;
+		ends[index] = node.end;
+		firstChildren[index] = NONE;
+		nextSiblings[index] = NONE;
+		firstAttributes[index] = attributeCount;
+		Arrays.fill(offsets, index * NODE_OFFSETS, (index + 1) * NODE_OFFSETS, NONE);
+		byte kind = getKind(node);
+		kinds[index] = kind;
+		if (kind == OBJECT) {
+			names[index] = objects.size();
+			objects.add(node);
+			return index;
+		}
+
+		byte nodeFlags = node.closed ? CLOSED : 0;
+		int offset = index * NODE_OFFSETS;
+		switch (kind) {
+		case ELEMENT: {
+			DOMElement element = (DOMElement) node;
+			names[index] = getSymbolId(element.tag);
+			if (element.selfClosed) {
+				nodeFlags |= SELF_CLOSED;
+			}
+			offsets[offset] = toOffset(element.startTagOpenOffset);
+			offsets[offset + 1] = toOffset(element.startTagCloseOffset);
+			offsets[offset + 2] = toOffset(element.endTagOpenOffset);
+			offsets[offset + 3] = toOffset(element.endTagCloseOffset);
+			break;
+		}
+		case TEXT:
+			if (((DOMText) node).isWhitespace()) {
+				nodeFlags |= WHITESPACE;
+			}
+			break;
+		case CDATA: {
+			DOMCDATASection cdata = (DOMCDATASection) node;
+			offsets[offset] = cdata.startContent;
+			offsets[offset + 1] = cdata.endContent;
+			break;
+		}
+		case PROCESSING_INSTRUCTION: {
+			DOMProcessingInstruction processingInstruction = (DOMProcessingInstruction) node;
+			names[index] = getSymbolId(processingInstruction.target);
+			if (processingInstruction.prolog) {
+				nodeFlags |= PROLOG;
+			}
+			if (processingInstruction.processingInstruction) {
+				nodeFlags |= PROCESSING_INSTRUCTION_TARGET;
+			}
+			if (processingInstruction.startTagClose) {
+				nodeFlags |= START_TAG_CLOSE;
+			}
+			offsets[offset] = processingInstruction.startContent;
+			offsets[offset + 1] = processingInstruction.endContent;
+			offsets[offset + 2] = toOffset(processingInstruction.endTagOpenOffset);
+			break;
+		}
+		case COMMENT: {
+			DOMComment comment = (DOMComment) node;
+			if (comment.commentSameLineEndTag) {
+				nodeFlags |= COMMENT_SAME_LINE_END_TAG;
+			}
+			offsets[offset] = comment.startContent;
+			offsets[offset + 1] = comment.endContent;
+			break;
+		}
+		}
+		flags[index] = nodeFlags;
+
+		if (node.hasAttributes()) {
+			for (DOMAttr attr : node.getAttributeNodes()) {
+				addAttribute(attr);
+			}
+		}
+		attributeCounts[index] = attributeCount - firstAttributes[index];
+
+		int previous = NONE;
+		for (DOMNode child : node.getChildren()) {
+			int childIndex = addNode(child);
+			if (previous == NONE) {
+				firstChildren[index] = childIndex;
+			} else {
+				nextSiblings[previous] = childIndex;
+			}
+			previous = childIndex;
+		}
+		return index;
+	}
+
+	private void addAttribute(DOMAttr attr) {
+		int index = attributeCount++;
+		if (attributes.length < attributeCount * ATTRIBUTE_FIELDS) {
+			attributes = Arrays.copyOf(attributes, attributes.length * 2);
+		}
+		int field = index * ATTRIBUTE_FIELDS;
+		int valueStart = attr.getValueStart();
+		attributes[field] = getSymbolId(attr.getName());
+		attributes[field + 1] = attr.getStart();
+		attributes[field + 2] = attr.getNameEnd();
+		attributes[field + 3] = valueStart != -1 ? valueStart : NONE;
+		attributes[field + 4] = valueStart != -1 ? attr.getValueEnd() : NONE;
+		int attributeFlags = attr.hasDelimiter() ? HAS_DELIMITER : 0;
+		if (valueStart != -1) {
+			attributeFlags |= HAS_VALUE_NODE;
+		}
+		if (attr.isValueInText() || attr.getOriginalValue() != null) {
+			attributeFlags |= HAS_VALUE;
+		}
+		attributes[field + 5] = attributeFlags;
+	}
+
+	private byte getKind(DOMNode node) {
+		if (node == document) {
+			return DOCUMENT;
+		}
+		byte kind;
+		Class<?> nodeClass = node.getClass();
+		if (nodeClass == DOMElement.class) {
+			kind = ELEMENT;
+		} else if (nodeClass == DOMText.class) {
+			kind = TEXT;
+		} else if (nodeClass == DOMCDATASection.class) {
+			kind = CDATA;
+		} else if (nodeClass == DOMProcessingInstruction.class) {
+			kind = PROCESSING_INSTRUCTION;
+		} else if (nodeClass == DOMComment.class) {
+			kind = COMMENT;
+		} else {
+			return OBJECT;
+		}
+		if (node.hasAttributes()) {
+			CharSequence text = document.getTextSequence();
+			for (DOMAttr attr : node.getAttributeNodes()) {
+				if (!isParsed(attr, text)) {
+					return OBJECT;
+				}
+			}
+		}
+		return kind;
+	}
+
+	/**
+	 * Returns true if the given attribute is the parsed attribute of the text,
+	 * which can be created again from the offsets of its name and its value.
+	 */
+	private static boolean isParsed(DOMAttr attr, CharSequence text) {
+		if (attr.getClass() != DOMAttr.class || attr.getName() == null || attr.getStart() == -1) {
+			return false;
+		}
+		if (attr.isValueInText()) {
+			return true;
+		}
+		String value = attr.getOriginalValue();
+		if (value == null) {
+			return true;
+		}
+		int valueStart = attr.getValueStart();
+		if (valueStart == -1 || attr.getValueEnd() - valueStart != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) != text.charAt(valueStart + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int getSymbolId(String symbol) {
+		if (symbol == null) {
+			return NONE;
+		}
+		Integer id = symbolIds.get(symbol);
+		if (id == null) {
+			id = symbolIds.size();
+			symbolIds.put(symbol, id);
+		}
+		return id;
+	}
+
+	private static int toOffset(Integer offset) {
+		return offset != null ? offset : NONE;
+	}
+
+	private static Integer fromOffset(int offset) {
+		return offset != NONE ? offset : null;
+	}
+
+	private void ensureNodeCapacity(int capacity) {
+		if (starts.length < capacity) {
+			int newCapacity = Math.max(capacity, starts.length * 2);
+			resize(newCapacity);
+		}
+	}
+
+	private void resize(int capacity) {
+		starts = Arrays.copyOf(starts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+		firstChildren = Arrays.copyOf(firstChildren, capacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+		names = Arrays.copyOf(names, capacity);
+		kinds = Arrays.copyOf(kinds, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		offsets = Arrays.copyOf(offsets, capacity * NODE_OFFSETS);
+		firstAttributes = Arrays.copyOf(firstAttributes, capacity);
+		attributeCounts = Arrays.copyOf(attributeCounts, capacity);
+	}
+
+	private void trim() {
+		resize(nodeCount);
+		attributes = Arrays.copyOf(attributes, attributeCount * ATTRIBUTE_FIELDS);
+		symbols = new String[symbolIds.size()];
+		for (Map.Entry<String, Integer> entry : symbolIds.entrySet()) {
+			symbols[entry.getValue()] = entry.getKey();
+		}
+		symbolIds = null;
+	}
+
+	/**
+	 * Creates the attributes and the children of the given node.
+	 *
+	 * @param node  the node which has been stored in the table.
+	 * @param index the index of the node in the table.
+	 */
+	void createContent(DOMNode node, int index) {
+		int firstAttribute = firstAttributes[index];
+		int lastAttribute = firstAttribute + attributeCounts[index];
+		int childCount = 0;
+		for (int child = firstChildren[index]; child != NONE; child = nextSiblings[child]) {
+			childCount++;
+		}
+		// the lists of the node are created with their exact size
+		node.initContent(attributeCounts[index], childCount);
+		for (int i = firstAttribute; i < lastAttribute; i++) {
+			node.addAttributeNode(createAttribute(node, i));
+		}
+		for (int child = firstChildren[index]; child != NONE; child = nextSiblings[child]) {
+			node.addChildNode(createNode(child));
+		}
+	}
+
+	private DOMNode createNode(int index) {
+		int start = starts[index];
+		int end = ends[index];
+		int offset = index * NODE_OFFSETS;
+		byte nodeFlags = flags[index];
+		DOMNode node;
+		switch (kinds[index]) {
+		case ELEMENT: {
+			DOMElement element = document.createElement(start, end);
+			element.tag = getSymbol(names[index]);
+			element.selfClosed = (nodeFlags & SELF_CLOSED) != 0;
+			element.startTagOpenOffset = fromOffset(offsets[offset]);
+			element.startTagCloseOffset = fromOffset(offsets[offset + 1]);
+			element.endTagOpenOffset = fromOffset(offsets[offset + 2]);
+			element.endTagCloseOffset = fromOffset(offsets[offset + 3]);
+			node = element;
+			break;
+		}
+		case TEXT: {
+			DOMText text = document.createText(start, end);
+			text.setWhitespace((nodeFlags & WHITESPACE) != 0);
+			node = text;
+			break;
+		}
+		case CDATA: {
+			DOMCDATASection cdata = document.createCDataSection(start, end);
+			cdata.startContent = offsets[offset];
+			cdata.endContent = offsets[offset + 1];
+			node = cdata;
+			break;
+		}
+		case PROCESSING_INSTRUCTION: {
+			DOMProcessingInstruction processingInstruction = document.createProcessingInstruction(start, end);
+			processingInstruction.target = getSymbol(names[index]);
+			processingInstruction.prolog = (nodeFlags & PROLOG) != 0;
+			processingInstruction.processingInstruction = (nodeFlags & PROCESSING_INSTRUCTION_TARGET) != 0;
+			processingInstruction.startTagClose = (nodeFlags & START_TAG_CLOSE) != 0;
+			processingInstruction.startContent = offsets[offset];
+			processingInstruction.endContent = offsets[offset + 1];
+			processingInstruction.endTagOpenOffset = fromOffset(offsets[offset + 2]);
+			node = processingInstruction;
+			break;
+		}
+		case COMMENT: {
+			DOMComment comment = document.createComment(start, end);
+			comment.commentSameLineEndTag = (nodeFlags & COMMENT_SAME_LINE_END_TAG) != 0;
+			comment.startContent = offsets[offset];
+			comment.endContent = offsets[offset + 1];
+			node = comment;
+			break;
+		}
+		default:
+			return objects.get(names[index]);
+		}
+		node.closed = (nodeFlags & CLOSED) != 0;
+		if (firstChildren[index] != NONE || attributeCounts[index] != 0) {
+			node.setNodeTable(this, index);
+		}
+		return node;
+	}
+
+	private DOMAttr createAttribute(DOMNode ownerElement, int index) {
+		int field = index * ATTRIBUTE_FIELDS;
+		DOMAttr attr = new DOMAttr(getSymbol(attributes[field]), attributes[field + 1], attributes[field + 2],
+				ownerElement);
+		int attributeFlags = attributes[field + 5];
+		if ((attributeFlags & HAS_VALUE_NODE) != 0) {
+			int valueStart = attributes[field + 3];
+			int valueEnd = attributes[field + 4];
+			if ((attributeFlags & HAS_VALUE) != 0) {
+				attr.setValue(valueStart, valueEnd);
+			} else {
+				attr.setValue(null, valueStart, valueEnd);
+			}
+		}
+		attr.setDelimiter((attributeFlags & HAS_DELIMITER) != 0);
+		return attr;
+	}
+
+	private String getSymbol(int id) {
+		return id != NONE ? symbols[id] : null;
+	}
+}
@@ -10,17 +10,29 @@
  */
 package org.eclipse.lsp4xml.dom;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
 import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.ScannerCheckpoints;
+import org.eclipse.lsp4xml.dom.parser.ScannerState;
+import org.eclipse.lsp4xml.dom.parser.SymbolTable;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
 import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.uriresolver.URIResolverExtensionManager;
 import org.eclipse.lsp4xml.utils.DOMUtils;
-import org.eclipse.lsp4xml.utils.StringUtils;
 
 /**
  * Tolerant XML parser.
@@ -32,6 +44,9 @@ public class DOMParser {
 
 	private static final DOMParser INSTANCE = new DOMParser();
 
+	// Minimum number of characters of a chunk parsed in parallel
+	private static final int MIN_CHUNK_LENGTH = 1024 * 1024;
+
 	public static DOMParser getInstance() {
 		return INSTANCE;
 	}
@@ -45,11 +60,37 @@ public class DOMParser {
 	}
 
 	public DOMDocument parse(TextDocument document, URIResolverExtensionManager resolverExtensionManager) {
+		return parse(document, resolverExtensionManager, null);
+	}
+
+	/**
+	 * Parse the given text document.
+	 * 
+	 * @param document                 the text document to parse.
+	 * @param resolverExtensionManager the URI resolver extension manager.
+	 * @param monitor                  the cancel checker used to stop the parse
+	 *                                 and null otherwise.
+	 * @return the parsed DOM document.
+	 * @throws CancellationException when the parse is canceled.
+	 */
+	public DOMDocument parse(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			CancelChecker monitor) {
+		return parse(document, resolverExtensionManager, null, monitor);
+	}
+
+	private DOMDocument parse(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			DOMDocument previous, CancelChecker monitor) {
 		boolean isDTD = DOMUtils.isDTD(document.getUri());
-		boolean inDTDInternalSubset = false;
-		String text = document.getText();
-		Scanner scanner = XMLScanner.createScanner(text, 0, isDTD);
+		CharSequence text = document.getTextSequence();
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(document.getVersion());
+		Scanner scanner = XMLScanner.createScanner(text, 0,
+				isDTD ? ScannerState.DTDWithinContent : ScannerState.WithinContent, isDTD, checkpoints);
 		DOMDocument xmlDocument = new DOMDocument(document, resolverExtensionManager);
+		xmlDocument.setScannerCheckpoints(checkpoints);
+		if (previous != null) {
+			// the names of the previous version are not created again
+			xmlDocument.reuseSymbolTable(previous);
+		}
 
 		DOMNode curr = isDTD ? new DOMDocumentType(0, text.length(), xmlDocument) : xmlDocument;
 		if (isDTD) {
@@ -59,7 +100,519 @@ public class DOMParser {
 			// nothing should affect it's closed status
 			curr.closed = true; 
 		}
-		DOMNode lastClosed = curr;
+		curr = parse(scanner, xmlDocument, xmlDocument.getSymbolTable(), curr, curr, null, monitor);
+		while (curr.parent != null ) {
+			curr.end = text.length();
+			curr = curr.parent;
+		}
+		xmlDocument.getSymbolTable().releasePrevious();
+		return xmlDocument;
+	}
+
+	/**
+	 * Parse the given text document by reusing the DOM document of a previous
+	 * version of the same document.
+	 * 
+	 * <p>
+	 * Only the content of the smallest element which contains the changed text
+	 * is parsed again. The ancestors of this element are copied and the other
+	 * nodes are moved from the previous DOM document, which must no longer be
+	 * used: the offsets of a moved node after the change are shifted the first
+	 * time the node is accessed, so the cost of the parse depends on the size of
+	 * the edited element and not on the size of the document. The document is
+	 * fully parsed when the change is not inside the content of a closed
+	 * element, when the document contains a DOCTYPE, when the previous DOM
+	 * document is compact (see {@link DOMDocument#compact()}), when it is the
+	 * DOM document of a newer version or when its nodes are moved by an other
+	 * parse, or when the new content changes the structure of the elements around
+	 * it (ex: an end tag of a parent element is typed). In both cases, the names
+	 * of the previous DOM document are reused by the symbol table of the new DOM
+	 * document.
+	 * </p>
+	 * 
+	 * @param previous                 the DOM document of a previous version of
+	 *                                 the text document and null otherwise.
+	 * @param document                 the text document to parse.
+	 * @param resolverExtensionManager the URI resolver extension manager.
+	 * @param monitor                  the cancel checker used to stop the parse
+	 *                                 and null otherwise.
+	 * @return the parsed DOM document.
+	 * @throws CancellationException when the parse is canceled.
+	 */
+	public DOMDocument parseIncremental(DOMDocument previous, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, CancelChecker monitor) {
+		if (previous != null && !previous.isCompact() && !DOMUtils.isDTD(document.getUri())) {
+			DOMDocument xmlDocument = reparse(previous, document, resolverExtensionManager, monitor);
+			if (xmlDocument != null) {
+				return xmlDocument;
+			}
+		}
+		return parse(document, resolverExtensionManager, previous, monitor);
+	}
+
+	/**
+	 * Parse the given text document by splitting the content of the document
+	 * element in chunks which are parsed in parallel.
+	 * 
+	 * <p>
+	 * A pre-scan of the text finds the start tags of direct children of the
+	 * document element which split its content in chunks. The text before the
+	 * first chunk is parsed first, then the chunks are parsed concurrently in the
+	 * common fork-join pool, each one with its own scanner started in the
+	 * {@link ScannerState#WithinContent} state, and the parsed nodes are added to
+	 * the document element. The document is parsed serially when it cannot be
+	 * split (DTD file, DTD declarations in the document element, etc) or when a
+	 * chunk cannot be parsed alone (ex: an unclosed element or a comment which
+	 * crosses the boundary of the chunk).
+	 * </p>
+	 * 
+	 * @param document                 the text document to parse.
+	 * @param resolverExtensionManager the URI resolver extension manager.
+	 * @param monitor                  the cancel checker used to stop the parse
+	 *                                 and null otherwise.
+	 * @return the parsed DOM document.
+	 * @throws CancellationException when the parse is canceled.
+	 */
+	public DOMDocument parseParallel(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			CancelChecker monitor) {
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		if (parallelism < 2) {
+			return parse(document, resolverExtensionManager, monitor);
+		}
+		int chunkLength = Math.max(MIN_CHUNK_LENGTH, document.getTextSequence().length() / (parallelism * 4));
+		return parseParallel(document, resolverExtensionManager, monitor, chunkLength);
+	}
+
+	/**
+	 * Parse the given text document by splitting the content of the document
+	 * element in chunks of at least the given length which are parsed in
+	 * parallel.
+	 * 
+	 * @see #parseParallel(TextDocument, URIResolverExtensionManager,
+	 *      CancelChecker)
+	 */
+	DOMDocument parseParallel(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			CancelChecker monitor, int chunkLength) {
+		if (!DOMUtils.isDTD(document.getUri())) {
+			int[] splitOffsets = findSplitOffsets(document.getTextSequence(), chunkLength);
+			if (splitOffsets != null) {
+				DOMDocument xmlDocument = parseChunks(document, resolverExtensionManager, splitOffsets, monitor);
+				if (xmlDocument != null) {
+					return xmlDocument;
+				}
+			}
+		}
+		return parse(document, resolverExtensionManager, monitor);
+	}
+
+	/**
+	 * Parse the given text document in parallel with the chunks which start at
+	 * the given offsets.
+	 * 
+	 * @return the parsed DOM document and null if a chunk cannot be parsed alone.
+	 */
+	private DOMDocument parseChunks(TextDocument document, URIResolverExtensionManager resolverExtensionManager,
+			int[] splitOffsets, CancelChecker monitor) {
+		CharSequence text = document.getTextSequence();
+		DOMDocument xmlDocument = new DOMDocument(document, resolverExtensionManager);
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(document.getVersion());
+		xmlDocument.setScannerCheckpoints(checkpoints);
+
+		// The chunks share their names, so a name found in several chunks is created
+		// once
+		ConcurrentMap<String, String> sharedSymbols = new ConcurrentHashMap<>();
+
+		// Parse the text before the first chunk, which must end in the content of
+		// the document element
+		Scanner scanner = XMLScanner.createScanner(new TextPrefix(text, splitOffsets[0]), 0,
+				ScannerState.WithinContent, false, checkpoints);
+		SymbolTable prefixSymbols = new SymbolTable(sharedSymbols);
+		DOMNode curr = parse(scanner, xmlDocument, prefixSymbols, xmlDocument, xmlDocument, null, monitor);
+		if (scanner.getScannerState() != ScannerState.WithinContent || !curr.isElement()
+				|| curr.parent != xmlDocument || curr.closed) {
+			return null;
+		}
+		DOMElement root = (DOMElement) curr;
+
+		// Parse the chunks in detached elements. The last chunk ends the document
+		// element: its detached element has the document as parent (without being
+		// one of its children) to parse the end tag of the document element and the
+		// nodes after it like the serial parse.
+		int count = splitOffsets.length;
+		DOMElement[] chunkRoots = new DOMElement[count];
+		ScannerCheckpoints[] chunkCheckpoints = new ScannerCheckpoints[count];
+		SymbolTable[] chunkSymbols = new SymbolTable[count];
+		List<Callable<DOMNode>> tasks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			boolean last = i == count - 1;
+			int start = splitOffsets[i];
+			int end = last ? text.length() : splitOffsets[i + 1];
+			DOMElement chunkRoot = xmlDocument.createElement(root.start, end);
+			chunkRoot.tag = root.tag;
+			if (last) {
+				chunkRoot.parent = xmlDocument;
+			}
+			ScannerCheckpoints chunkCheckpoint = new ScannerCheckpoints(document.getVersion());
+			chunkRoots[i] = chunkRoot;
+			chunkCheckpoints[i] = chunkCheckpoint;
+			SymbolTable symbols = new SymbolTable(sharedSymbols);
+			chunkSymbols[i] = symbols;
+			tasks.add(() -> {
+				Scanner chunkScanner = XMLScanner.createScanner(last ? text : new TextPrefix(text, end), start,
+						ScannerState.WithinContent, false, chunkCheckpoint);
+				DOMNode chunkCurr = parse(chunkScanner, xmlDocument, symbols, chunkRoot, null,
+						last ? null : chunkRoot, monitor);
+				if (!last && (chunkCurr != chunkRoot || chunkScanner.getScannerState() != ScannerState.WithinContent)) {
+					// the chunk doesn't end in the content of the document element
+					return null;
+				}
+				return chunkCurr;
+			});
+		}
+		DOMNode lastCurr = null;
+		try {
+			for (Future<DOMNode> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				lastCurr = result.get();
+				if (lastCurr == null) {
+					return null;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		while (lastCurr.parent != null) {
+			lastCurr.end = text.length();
+			lastCurr = lastCurr.parent;
+		}
+
+		// Add the nodes of the chunks to the document element. The comments parsed
+		// before the first node closed in a chunk are updated with the last node
+		// closed before the chunk.
+		SymbolTable symbols = xmlDocument.getSymbolTable();
+		symbols.addSymbols(prefixSymbols);
+		DOMNode lastClosed = findLastClosedIn(xmlDocument);
+		if (lastClosed == null) {
+			lastClosed = xmlDocument;
+		}
+		for (int i = 0; i < count; i++) {
+			DOMElement chunkRoot = chunkRoots[i];
+			List<DOMNode> nodes = chunkRoot.getChildren();
+			if (i == count - 1) {
+				List<DOMNode> roots = xmlDocument.getChildren();
+				nodes = new ArrayList<>(roots.subList(roots.indexOf(root), roots.size()));
+				nodes.set(0, chunkRoot);
+			}
+			lastClosed = updateChunkComments(document, nodes, lastClosed);
+			for (DOMNode child : chunkRoot.getChildren()) {
+				root.addChild(child);
+			}
+			checkpoints.addAll(chunkCheckpoints[i]);
+			symbols.addSymbols(chunkSymbols[i]);
+		}
+		DOMElement lastChunkRoot = chunkRoots[count - 1];
+		root.end = lastChunkRoot.end;
+		root.closed = lastChunkRoot.closed;
+		root.endTagOpenOffset = lastChunkRoot.endTagOpenOffset;
+		root.endTagCloseOffset = lastChunkRoot.endTagCloseOffset;
+		return xmlDocument;
+	}
+
+	/**
+	 * Returns the offsets of the start tags of direct children of the document
+	 * element which split the given text in chunks of at least the given length
+	 * and null if the text cannot be split.
+	 * 
+	 * <p>
+	 * The pre-scan skips the comments, CDATA sections and processing
+	 * instructions, so a chunk starts outside of them. The text cannot be split
+	 * when the document element contains DTD declarations.
+	 * </p>
+	 */
+	static int[] findSplitOffsets(CharSequence text, int chunkLength) {
+		int length = text.length();
+		List<Integer> offsets = new ArrayList<>();
+		int nextOffset = 0;
+		int depth = 0;
+		int i = indexOf(text, "<", 0);
+		while (i != -1 && i + 1 < length) {
+			char c = text.charAt(i + 1);
+			if (c == '!') {
+				if (startsWith(text, i, "<!--")) {
+					i = indexOf(text, "-->", i + 4);
+				} else if (startsWith(text, i, "<![CDATA[")) {
+					i = indexOf(text, "]]>", i + 9);
+				} else if (depth == 0) {
+					// DOCTYPE with an optional internal subset
+					int subset = indexOf(text, "[", i);
+					int end = indexOf(text, ">", i);
+					i = subset != -1 && subset < end ? indexOf(text, "]", subset) : end;
+				} else {
+					// DTD declarations are not parsed in the document element
+					return null;
+				}
+			} else if (c == '?') {
+				i = indexOf(text, "?>", i + 2);
+			} else if (c == '/') {
+				depth--;
+				if (depth <= 0) {
+					// the document element ends in the last chunk
+					break;
+				}
+				i = indexOf(text, ">", i + 2);
+			} else if (isNameStart(c)) {
+				if (depth == 1 && i >= nextOffset) {
+					offsets.add(i);
+					nextOffset = i + chunkLength;
+				}
+				// skip the attributes
+				char quote = 0;
+				int j = i + 2;
+				for (; j < length; j++) {
+					char ch = text.charAt(j);
+					if (quote != 0) {
+						if (ch == quote) {
+							quote = 0;
+						}
+					} else if (ch == '"' || ch == '\'') {
+						quote = ch;
+					} else if (ch == '>') {
+						break;
+					}
+				}
+				if (j == length) {
+					break;
+				}
+				if (text.charAt(j - 1) != '/') {
+					depth++;
+				}
+				i = j;
+			}
+			if (i == -1) {
+				break;
+			}
+			i = indexOf(text, "<", i + 1);
+		}
+		if (offsets.size() < 2) {
+			// at least two chunks must be parsed in parallel
+			return null;
+		}
+		int[] splitOffsets = new int[offsets.size()];
+		for (int j = 0; j < splitOffsets.length; j++) {
+			splitOffsets[j] = offsets.get(j);
+		}
+		return splitOffsets;
+	}
+
+	private static boolean isNameStart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == ':';
+	}
+
+	private static boolean startsWith(CharSequence text, int offset, String prefix) {
+		if (offset + prefix.length() > text.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (text.charAt(offset + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(CharSequence text, String str, int fromIndex) {
+		if (text instanceof String) {
+			return ((String) text).indexOf(str, fromIndex);
+		}
+		int max = text.length() - str.length();
+		for (int i = fromIndex; i <= max; i++) {
+			if (startsWith(text, i, str)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Updates the comments of a chunk which have been parsed before the first
+	 * node closed in the chunk (because the last node closed before the chunk was
+	 * not known yet) and returns the last node closed in the chunk or the given
+	 * last closed node.
+	 */
+	private static DOMNode updateChunkComments(TextDocument document, List<DOMNode> nodes, DOMNode lastClosed) {
+		List<DOMComment> comments = new ArrayList<>();
+		int firstClosedEnd = collectComments(nodes, comments, Integer.MAX_VALUE);
+		for (DOMComment comment : comments) {
+			if (comment.start < firstClosedEnd) {
+				comment.commentSameLineEndTag = isCommentSameLineEndTag(document, lastClosed, comment);
+			}
+		}
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			DOMNode closed = findLastClosedIn(nodes.get(i));
+			if (closed != null) {
+				return closed;
+			}
+		}
+		return lastClosed;
+	}
+
+	/**
+	 * Collects in document order the comments of the given nodes which start
+	 * before the end of the first closed node and returns this end.
+	 */
+	private static int collectComments(List<DOMNode> nodes, List<DOMComment> comments, int firstClosedEnd) {
+		for (DOMNode node : nodes) {
+			if (node.start >= firstClosedEnd) {
+				break;
+			}
+			if (node.isComment()) {
+				comments.add((DOMComment) node);
+			}
+			firstClosedEnd = collectComments(node.getChildren(), comments, firstClosedEnd);
+			if (isClosedWithTag(node)) {
+				firstClosedEnd = Math.min(firstClosedEnd, node.end);
+			}
+		}
+		return firstClosedEnd;
+	}
+
+	private DOMDocument reparse(DOMDocument previous, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, CancelChecker monitor) {
+		if (document.getVersion() < previous.getTextDocument().getVersion() || !previous.reserveNodes()) {
+			// the nodes of a newer version are not moved to an older one, and the nodes
+			// are moved by one parse only
+			return null;
+		}
+		DOMDocument xmlDocument = null;
+		try {
+			xmlDocument = reparseEditedElement(previous, document, resolverExtensionManager, monitor);
+			return xmlDocument;
+		} finally {
+			if (xmlDocument == null) {
+				// the previous DOM document has not been modified
+				previous.releaseNodes();
+			}
+		}
+	}
+
+	private DOMDocument reparseEditedElement(DOMDocument previous, TextDocument document,
+			URIResolverExtensionManager resolverExtensionManager, CancelChecker monitor) {
+		// Compute the changed region with the common prefix and suffix of the texts
+		CharSequence oldText = previous.getTextSequence();
+		CharSequence newText = document.getTextSequence();
+		int oldLength = oldText.length();
+		int newLength = newText.length();
+		int minLength = Math.min(oldLength, newLength);
+		int changeStart = 0;
+		while (changeStart < minLength && oldText.charAt(changeStart) == newText.charAt(changeStart)) {
+			changeStart++;
+		}
+		int suffixLength = 0;
+		while (suffixLength < minLength - changeStart
+				&& oldText.charAt(oldLength - suffixLength - 1) == newText.charAt(newLength - suffixLength - 1)) {
+			suffixLength++;
+		}
+		int changeEnd = oldLength - suffixLength;
+		int delta = newLength - oldLength;
+
+		DOMElement edited = findEditedElement(previous, changeStart, changeEnd);
+		if (edited == null) {
+			return null;
+		}
+		int contentStart = edited.startTagCloseOffset + 1;
+		int contentEnd = edited.endTagOpenOffset;
+		int newContentEnd = contentEnd + delta;
+
+		// Parse the new content of the edited element in a detached element
+		DOMDocument xmlDocument = new DOMDocument(document, resolverExtensionManager, previous);
+		xmlDocument.reuseSymbolTable(previous);
+		DOMElement fragmentRoot = xmlDocument.createElement(edited.start, newContentEnd);
+		fragmentRoot.tag = xmlDocument.getSymbolTable().addSymbol(edited.tag);
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(document.getVersion());
+		Scanner scanner = XMLScanner.createScanner(new TextPrefix(newText, newContentEnd), contentStart,
+				ScannerState.WithinContent, false, checkpoints);
+		DOMNode curr = parse(scanner, xmlDocument, xmlDocument.getSymbolTable(), fragmentRoot, findLastClosed(edited),
+				fragmentRoot, monitor);
+		if (curr == null || scanner.getScannerState() != ScannerState.WithinContent) {
+			return null;
+		}
+		// The end tag of the edited element ends the unclosed elements of the fragment
+		String closeTag = edited.tag.toLowerCase();
+		while (curr != fragmentRoot) {
+			if (curr.isElement() && ((DOMElement) curr).isSameTag(closeTag)) {
+				// the end tag closes an element of the fragment
+				return null;
+			}
+			curr.end = newContentEnd;
+			curr = curr.parent;
+		}
+
+		if (!canMoveSiblings(edited, contentStart, contentEnd)) {
+			return null;
+		}
+		int nodeCount = -1;
+		if (previous.isNodeCountComputed()) {
+			// the children of the edited element are replaced with the parsed nodes
+			int attributeCount = edited.hasAttributes() ? edited.getAttributeNodes().size() : 0;
+			nodeCount = previous.getNodeCount() - DOMUtils.getNodeCount(edited) + attributeCount
+					+ DOMUtils.getNodeCount(fragmentRoot);
+		}
+
+		// Copy the ancestors of the edited element and move the other nodes (the
+		// offsets are read with the lock of the node owner, see
+		// DOMNode#getDocumentText())
+		xmlDocument.end = shift(previous.end, contentEnd, delta);
+		boolean moved;
+		synchronized (previous.getNodeOwner()) {
+			moved = moveChildren(previous, xmlDocument, xmlDocument, edited, fragmentRoot, contentEnd, delta);
+			xmlDocument.adoptNodes();
+		}
+		if (moved) {
+			// keep the names of the moved nodes
+			xmlDocument.getSymbolTable().addSymbols(previous.getSymbolTable());
+		}
+		xmlDocument.getSymbolTable().releasePrevious();
+		if (nodeCount != -1) {
+			xmlDocument.setNodeCount(nodeCount);
+		}
+		ScannerCheckpoints previousCheckpoints = previous.getScannerCheckpoints();
+		if (previousCheckpoints != null) {
+			xmlDocument.setScannerCheckpoints(previousCheckpoints.update(document.getVersion(), contentStart,
+					contentEnd, delta, checkpoints));
+		}
+		return xmlDocument;
+	}
+
+	/**
+	 * Parse the tokens of the given scanner.
+	 * 
+	 * @param scanner      the scanner.
+	 * @param xmlDocument  the DOM document which owns the created nodes.
+	 * @param symbols      the symbol table which shares the names of the nodes.
+	 * @param curr         the node which receives the first created nodes.
+	 * @param lastClosed   the last node closed before the first token and null
+	 *                     if it is not known yet (the comments before the first
+	 *                     closed node must be updated by the caller).
+	 * @param fragmentRoot the detached element which contains the parsed
+	 *                     fragment and null when the whole document is parsed.
+	 * @param monitor      the cancel checker and null otherwise.
+	 * @return the current node after the last token or null if the fragment
+	 *         cannot be parsed alone.
+	 */
+	private DOMNode parse(Scanner scanner, DOMDocument xmlDocument, SymbolTable symbols, DOMNode curr,
+			DOMNode lastClosed, DOMElement fragmentRoot, CancelChecker monitor) {
+		TextDocument document = xmlDocument.getTextDocument();
+		CharSequence text = document.getTextSequence();
+		boolean inDTDInternalSubset = false;
 		DOMAttr attr = null;
 		int endTagOpenOffset = -1;
 		String pendingAttribute = null;
@@ -67,6 +620,13 @@ public class DOMParser {
 		boolean isInitialDeclaration = true; // A declaration can have multiple internal declarations
 		TokenType token = scanner.scan();
 		while (token != TokenType.EOS) {
+			if (monitor != null) {
+				monitor.checkCanceled();
+			}
+			if (fragmentRoot != null && isDTDToken(token)) {
+				// the DTD declarations are not parsed incrementally
+				return null;
+			}
 			if(tempWhitespaceContent != null && token != TokenType.EndTagOpen) {
 				tempWhitespaceContent = null;
 			}
@@ -95,7 +655,7 @@ public class DOMParser {
 
 			case StartTag: {
 				DOMElement element = (DOMElement) curr;
-				element.tag = scanner.getTokenText();
+				element.tag = symbols.addSymbol(text, scanner.getTokenOffset(), scanner.getTokenEnd());
 				curr.end = scanner.getTokenEnd();
 				break;
 			}
@@ -135,16 +695,20 @@ public class DOMParser {
 
 			case EndTag:
 				// end tag (ex: </root>)
-				String closeTag = scanner.getTokenText().toLowerCase();
 				DOMNode current = curr;
 
 				/**
 				eg: <a><b><c></d> will set a,b,c end position to the start of |</d>
 				*/
-				while (!(curr.isElement() && ((DOMElement) curr).isSameTag(closeTag)) && curr.parent != null) {
+				while (!(curr.isElement() && scanner.isTokenTextEqualsIgnoreCase(((DOMElement) curr).tag))
+						&& curr.parent != null) {
 					curr.end = endTagOpenOffset;
 					curr = curr.parent;
 				}
+				if (curr == fragmentRoot) {
+					// the end tag closes the edited element or one of its ancestors
+					return null;
+				}
 				if (curr != xmlDocument) {
 					curr.closed = true;
 					if (curr.isElement()) {
@@ -158,7 +722,7 @@ public class DOMParser {
 					// end tag (no start tag).
 					DOMElement element = xmlDocument.createElement(scanner.getTokenOffset() - 2, scanner.getTokenEnd());
 					element.endTagOpenOffset = endTagOpenOffset;
-					element.tag = closeTag;
+					element.tag = symbols.addSymbol(scanner.getTokenText().toLowerCase());
 					current.addChild(element);
 					curr = element;
 				}
@@ -190,7 +754,7 @@ public class DOMParser {
 				break;
 
 			case AttributeName: {
-				pendingAttribute = scanner.getTokenText();
+				pendingAttribute = symbols.addSymbol(text, scanner.getTokenOffset(), scanner.getTokenEnd());
 				attr = new DOMAttr(pendingAttribute, scanner.getTokenOffset(),
 						scanner.getTokenOffset() + pendingAttribute.length(), curr);
 				curr.setAttributeNode(attr);
@@ -208,9 +772,9 @@ public class DOMParser {
 			}
 
 			case AttributeValue: {
-				String value = scanner.getTokenText();
 				if (curr.hasAttributes() && attr != null) {
-					attr.setValue(value, scanner.getTokenOffset(), scanner.getTokenOffset() + value.length());
+					// the value is decoded from the text on first access
+					attr.setValue(scanner.getTokenOffset(), scanner.getTokenEnd());
 				}
 				pendingAttribute = null;
 				attr = null;
@@ -250,14 +814,16 @@ public class DOMParser {
 
 			case PIName: {
 				DOMProcessingInstruction processingInstruction = ((DOMProcessingInstruction) curr);
-				processingInstruction.target = scanner.getTokenText();
+				processingInstruction.target = symbols.addSymbol(text, scanner.getTokenOffset(),
+						scanner.getTokenEnd());
 				processingInstruction.processingInstruction = true;
 				break;
 			}
 
 			case PrologName: {
 				DOMProcessingInstruction processingInstruction = ((DOMProcessingInstruction) curr);
-				processingInstruction.target = scanner.getTokenText();
+				processingInstruction.target = symbols.addSymbol(text, scanner.getTokenOffset(),
+						scanner.getTokenEnd());
 				processingInstruction.prolog = true;
 				break;
 			}
@@ -291,14 +857,8 @@ public class DOMParser {
 				DOMComment comment = xmlDocument.createComment(scanner.getTokenOffset(), text.length());
 				curr.addChild(comment);
 				curr = comment;
-				try {
-					int endLine = document.positionAt(lastClosed.end).getLine();
-					int startLine = document.positionAt(curr.start).getLine();
-					if (endLine == startLine && lastClosed.end <= curr.start) {
-						comment.commentSameLineEndTag = true;
-					}
-				} catch (BadLocationException e) {
-					LOGGER.log(Level.SEVERE, "XMLParser StartCommentTag bad offset in document", e);
+				if (lastClosed != null) {
+					comment.commentSameLineEndTag = isCommentSameLineEndTag(document, lastClosed, comment);
 				}
 				break;
 			}
@@ -318,9 +878,6 @@ public class DOMParser {
 			}
 
 			case Content: {
-				// FIXME: don't use getTokenText (substring) to know if the content is only
-				// spaces or line feed (scanner should know that). 
-
 				if (curr instanceof DTDDeclNode) {
 					curr.end = scanner.getTokenOffset() - 1;
 					while(!curr.isDoctype()) {
@@ -332,8 +889,7 @@ public class DOMParser {
 				DOMText textNode = xmlDocument.createText(start, end);
 				textNode.closed = true;
 
-				String content = scanner.getTokenText();
-				if(StringUtils.isWhitespace(content)) {
+				if (scanner.isTokenTextWhitespace()) {
 					if(curr.hasChildNodes()) {
 						break;
 					}
@@ -621,15 +1177,268 @@ public class DOMParser {
 			}
 			token = scanner.scan();
 		}
-		while (curr.parent != null ) {
-			curr.end = text.length();
-			curr = curr.parent;
+		if (fragmentRoot != null && tempWhitespaceContent != null) {
+			// the fragment is followed by the end tag of the edited element
+			curr.addChild(tempWhitespaceContent);
 		}
-		return xmlDocument;
+		return curr;
 	}
 
 	private static boolean isEmptyElement(String tag) {
 		return false;
 	}
 
+	/**
+	 * Returns true if the given comment starts on the line where the given last
+	 * closed node ends and false otherwise.
+	 */
+	private static boolean isCommentSameLineEndTag(TextDocument document, DOMNode lastClosed, DOMComment comment) {
+		try {
+			int endLine = document.positionAt(lastClosed.end).getLine();
+			int startLine = document.positionAt(comment.start).getLine();
+			return endLine == startLine && lastClosed.end <= comment.start;
+		} catch (BadLocationException e) {
+			LOGGER.log(Level.SEVERE, "XMLParser StartCommentTag bad offset in document", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the smallest element whose content contains the changed region and
+	 * null otherwise.
+	 */
+	private static DOMElement findEditedElement(DOMNode node, int changeStart, int changeEnd) {
+		DOMElement edited = null;
+		boolean found = true;
+		while (found) {
+			found = false;
+			for (DOMNode child : node.getChildren()) {
+				if (child.start > changeStart) {
+					break;
+				}
+				if (child.isElement() && isContentIncluded((DOMElement) child, changeStart, changeEnd)) {
+					edited = (DOMElement) child;
+					node = child;
+					found = true;
+					break;
+				}
+			}
+		}
+		return edited;
+	}
+
+	private static boolean isContentIncluded(DOMElement element, int changeStart, int changeEnd) {
+		return element.closed && !element.selfClosed && element.tag != null && element.startTagCloseOffset != null
+				&& element.endTagOpenOffset != null && element.endTagCloseOffset != null
+				&& element.startTagCloseOffset + 1 <= changeStart && changeEnd <= element.endTagOpenOffset;
+	}
+
+	/**
+	 * Returns the last node closed with an end tag or a self-closed tag before the
+	 * content of the given element.
+	 */
+	private static DOMNode findLastClosed(DOMNode node) {
+		while (node.parent != null) {
+			List<DOMNode> siblings = node.parent.getChildren();
+			for (int i = siblings.indexOf(node) - 1; i >= 0; i--) {
+				DOMNode lastClosed = findLastClosedIn(siblings.get(i));
+				if (lastClosed != null) {
+					return lastClosed;
+				}
+			}
+			node = node.parent;
+		}
+		return node;
+	}
+
+	private static DOMNode findLastClosedIn(DOMNode node) {
+		if (isClosedWithTag(node)) {
+			return node;
+		}
+		List<DOMNode> children = node.getChildren();
+		for (int i = children.size() - 1; i >= 0; i--) {
+			DOMNode lastClosed = findLastClosedIn(children.get(i));
+			if (lastClosed != null) {
+				return lastClosed;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isClosedWithTag(DOMNode node) {
+		return node.isElement() && (((DOMElement) node).selfClosed || ((DOMElement) node).endTagCloseOffset != null);
+	}
+
+	/**
+	 * Returns true if the siblings of the edited element and of its ancestors can
+	 * be moved to the new DOM document and false otherwise. The DTD nodes are not
+	 * moved and a moved node must be before or after the content of the edited
+	 * element.
+	 */
+	private static boolean canMoveSiblings(DOMElement edited, int contentStart, int contentEnd) {
+		for (DOMNode node = edited; node.parent != null; node = node.parent) {
+			for (DOMNode sibling : node.parent.getChildren()) {
+				if (sibling != node && (!isMovable(sibling)
+						|| (sibling.start < contentEnd && sibling.end > contentStart))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isMovable(DOMNode node) {
+		switch (node.getNodeType()) {
+		case DOMNode.ELEMENT_NODE:
+		case DOMNode.TEXT_NODE:
+		case DOMNode.CDATA_SECTION_NODE:
+		case DOMNode.COMMENT_NODE:
+		case DOMNode.PROCESSING_INSTRUCTION_NODE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the children of the given node to the given target node. The ancestors
+	 * of the edited element are copied, the children of the edited element are
+	 * replaced with the children of the parsed fragment and the other nodes are
+	 * moved: the offsets of a moved node after the given offset are shifted and
+	 * the offsets of its children are shifted the first time they are accessed.
+	 * 
+	 * @return true if nodes have been moved and false otherwise.
+	 */
+	private static boolean moveChildren(DOMNode node, DOMNode target, DOMDocument ownerDocument, DOMElement edited,
+			DOMElement fragmentRoot, int offset, int delta) {
+		List<DOMNode> children = (node == edited ? fragmentRoot : node).getChildren();
+		// the children of the copy are stored in an array of the exact size
+		target.initContent(0, children.size());
+		if (node == edited) {
+			for (DOMNode child : children) {
+				target.addChild(child);
+			}
+			return false;
+		}
+		DOMNode ancestor = edited;
+		while (ancestor.parent != node) {
+			ancestor = ancestor.parent;
+		}
+		boolean moved = false;
+		for (DOMNode child : children) {
+			if (child == ancestor) {
+				DOMElement copy = copyElement((DOMElement) child, ownerDocument, offset, delta);
+				moved |= moveChildren(child, copy, ownerDocument, edited, fragmentRoot, offset, delta);
+				target.addChild(copy);
+			} else {
+				if (child.start >= offset && delta != 0) {
+					child.shift(delta);
+				}
+				target.addChild(child);
+				moved = true;
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * Returns a copy (without the children) of the given element, which is an
+	 * ancestor of the edited element or the edited element, with the offsets
+	 * after the given offset shifted.
+	 */
+	private static DOMElement copyElement(DOMElement element, DOMDocument ownerDocument, int offset, int delta) {
+		DOMElement copy = ownerDocument.createElement(shift(element.start, offset, delta),
+				shift(element.end, offset, delta));
+		copy.tag = element.tag != null ? ownerDocument.getSymbolTable().addSymbol(element.tag) : null;
+		copy.selfClosed = element.selfClosed;
+		copy.startTagOpenOffset = shift(element.startTagOpenOffset, offset, delta);
+		copy.startTagCloseOffset = shift(element.startTagCloseOffset, offset, delta);
+		copy.endTagOpenOffset = shift(element.endTagOpenOffset, offset, delta);
+		copy.endTagCloseOffset = shift(element.endTagCloseOffset, offset, delta);
+		copy.closed = element.closed;
+		if (element.hasAttributes()) {
+			copy.initContent(element.getAttributeNodes().size(), 0);
+			for (DOMAttr attr : element.getAttributeNodes()) {
+				copy.setAttributeNode(copyAttr(attr, copy, ownerDocument, offset, delta));
+			}
+		}
+		return copy;
+	}
+
+	private static DOMAttr copyAttr(DOMAttr attr, DOMNode ownerElement, DOMDocument ownerDocument, int offset,
+			int delta) {
+		// the offsets are copied without creating the name and the value nodes
+		String name = ownerDocument.getSymbolTable().addSymbol(attr.getName());
+		int nameStart = attr.getStart();
+		DOMAttr copy = nameStart != -1
+				? new DOMAttr(name, shift(nameStart, offset, delta), shift(attr.getNameEnd(), offset, delta),
+						ownerElement)
+				: new DOMAttr(name, ownerElement);
+		int valueStart = attr.getValueStart();
+		int valueEnd = attr.getValueEnd();
+		if (valueStart != -1 && attr.isValueInText()) {
+			// the copied value is outside the changed text
+			copy.setValue(shift(valueStart, offset, delta), shift(valueEnd, offset, delta));
+		} else if (valueStart != -1) {
+			copy.setValue(attr.getOriginalValue(), shift(valueStart, offset, delta), shift(valueEnd, offset, delta));
+		} else if (attr.getOriginalValue() != null) {
+			copy.setValue(attr.getOriginalValue(), -1, -1);
+		}
+		copy.setDelimiter(attr.hasDelimiter());
+		return copy;
+	}
+
+	private static int shift(int offset, int from, int delta) {
+		return offset >= from ? offset + delta : offset;
+	}
+
+	private static Integer shift(Integer offset, int from, int delta) {
+		return offset != null ? shift(offset.intValue(), from, delta) : null;
+	}
+
+	private static boolean isDTDToken(TokenType token) {
+		return token.name().startsWith("DTD");
+	}
+
+	/**
+	 * Prefix of a text used to stop the scanner at the end of a fragment without
+	 * copying the text.
+	 */
+	private static class TextPrefix implements CharSequence {
+
+		private final CharSequence text;
+		private final int length;
+
+		public TextPrefix(CharSequence text, int length) {
+			this.text = text;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index >= length) {
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+			}
+			return text.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (end > length) {
+				throw new IndexOutOfBoundsException("end: " + end + ", length: " + length);
+			}
+			return text.subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return text.subSequence(0, length).toString();
+		}
+	}
+
 }
@@ -30,6 +30,14 @@ public class DOMProcessingInstruction extends DOMCharacterData implements org.w3
 		super(start, end, ownerDocument);
 	}
 
+	@Override
+	void shift(int delta) {
+		super.shift(delta);
+		startContent = shift(startContent, delta);
+		endContent = shift(endContent, delta);
+		endTagOpenOffset = shift(endTagOpenOffset, delta);
+	}
+
 	public boolean isProlog() {
 		return prolog;
 	}
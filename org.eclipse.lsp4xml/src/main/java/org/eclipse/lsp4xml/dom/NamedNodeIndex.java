@@ -0,0 +1,105 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.List;
+
+/**
+ * Hash index of a list of nodes by name (ex: the attributes of an element).
+ *
+ * <p>
+ * The index is an open-addressing hash table of the nodes. The hash of a name
+ * is the same than {@link String#hashCode()}, so a qualified name 'prefix:name'
+ * is found from the prefix and the local name without creating the qualified
+ * name. When several nodes have the same name, the first one is indexed.
+ * </p>
+ *
+ * <p>
+ * The index is a snapshot of the list: it stores the modification count of
+ * the list to know if it must be created again.
+ * </p>
+ *
+ * @param <T> the node type.
+ */
+final class NamedNodeIndex<T extends DOMNode> {
+
+	private final DOMNode[] nodes;
+	private final int[] hashes;
+	private final int modCount;
+
+	NamedNodeIndex(List<T> nodes, int modCount) {
+		int capacity = Integer.highestOneBit(Math.max(nodes.size(), 1) * 2) * 2;
+		this.nodes = new DOMNode[capacity];
+		this.hashes = new int[capacity];
+		this.modCount = modCount;
+		int mask = capacity - 1;
+		for (T node : nodes) {
+			String name = node.getNodeName();
+			if (name == null) {
+				continue;
+			}
+			int hash = name.hashCode();
+			int index = (hash ^ (hash >>> 16)) & mask;
+			DOMNode existing;
+			while ((existing = this.nodes[index]) != null && !existing.getNodeName().equals(name)) {
+				index = (index + 1) & mask;
+			}
+			if (existing == null) {
+				this.nodes[index] = node;
+				hashes[index] = hash;
+			}
+		}
+	}
+
+	/**
+	 * Returns the modification count of the list when the index was created.
+	 *
+	 * @return the modification count of the list when the index was created.
+	 */
+	int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Returns the first node with the name 'prefix:suffix' (or 'suffix' when
+	 * the prefix is null) and null otherwise.
+	 *
+	 * @param prefix the prefix and null if there is no prefix.
+	 * @param suffix the local name.
+	 * @return the first node with the name 'prefix:suffix' (or 'suffix' when the
+	 *         prefix is null) and null otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	T get(String prefix, String suffix) {
+		if (suffix == null) {
+			return null;
+		}
+		int hash;
+		if (prefix == null) {
+			hash = suffix.hashCode();
+		} else {
+			hash = 31 * prefix.hashCode() + ':';
+			for (int i = 0; i < suffix.length(); i++) {
+				hash = 31 * hash + suffix.charAt(i);
+			}
+		}
+		int mask = nodes.length - 1;
+		int index = (hash ^ (hash >>> 16)) & mask;
+		DOMNode node;
+		while ((node = nodes[index]) != null) {
+			if (hashes[index] == hash && DOMNode.isName(node.getNodeName(), prefix, suffix)) {
+				return (T) node;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Namespace bindings which are visible in an element: the namespace URI of
+ * each prefix and the prefix of each namespace URI, declared with the xmlns
+ * attributes of the element and of its ancestors.
+ *
+ * <p>
+ * A scope is immutable and inherits the bindings of the scope of the parent
+ * element: an element which doesn't declare namespaces shares the scope of its
+ * parent, so the scopes of a document cost a map per element with xmlns
+ * attributes and a lookup is one map access instead of a walk of the ancestors
+ * which scans their attributes.
+ * </p>
+ *
+ */
+final class NamespaceScope {
+
+	static final NamespaceScope EMPTY = new NamespaceScope(Collections.emptyMap(), Collections.emptyMap());
+
+	private static final String XMLNS_ATTR = "xmlns";
+	private static final String XMLNS_NO_DEFAULT_ATTR = "xmlns:";
+
+	// prefix -> namespace URI of the nearest 'xmlns:prefix' attribute
+	private final Map<String, String> namespaceURIs;
+	// namespace URI -> prefix of the nearest xmlns attribute
+	private final Map<String, String> prefixes;
+
+	private NamespaceScope(Map<String, String> namespaceURIs, Map<String, String> prefixes) {
+		this.namespaceURIs = namespaceURIs;
+		this.prefixes = prefixes;
+	}
+
+	/**
+	 * Returns the scope of the given element which is a child of an element with
+	 * this scope.
+	 *
+	 * @param element the element.
+	 * @return the scope of the given element and this scope if the element
+	 *         doesn't declare namespaces.
+	 */
+	NamespaceScope declare(DOMElement element) {
+		if (!element.hasAttributes()) {
+			return this;
+		}
+		Map<String, String> namespaceURIs = null;
+		Map<String, String> prefixes = null;
+		Map<String, String> declaredPrefixes = null;
+		for (DOMAttr attr : element.getAttributeNodes()) {
+			String name = attr.getName();
+			if (name == null || !name.startsWith(XMLNS_ATTR)) {
+				continue;
+			}
+			if (name.startsWith(XMLNS_NO_DEFAULT_ATTR)) {
+				String namespaceURI = element.getAttribute(name);
+				if (namespaceURI != null) {
+					if (namespaceURIs == null) {
+						namespaceURIs = new HashMap<>(this.namespaceURIs);
+					}
+					namespaceURIs.put(name.substring(XMLNS_NO_DEFAULT_ATTR.length()), namespaceURI);
+				}
+			}
+			String namespaceURI = attr.getValue();
+			if (namespaceURI != null) {
+				// the first attribute of the element which declares the namespace wins
+				if (declaredPrefixes == null) {
+					declaredPrefixes = new HashMap<>();
+				}
+				if (!declaredPrefixes.containsKey(namespaceURI)) {
+					String prefix = name.equals(XMLNS_ATTR) ? "" : name.substring(XMLNS_NO_DEFAULT_ATTR.length());
+					declaredPrefixes.put(namespaceURI, prefix);
+				}
+			}
+		}
+		if (declaredPrefixes != null) {
+			prefixes = new HashMap<>(this.prefixes);
+			prefixes.putAll(declaredPrefixes);
+		}
+		if (namespaceURIs == null && prefixes == null) {
+			return this;
+		}
+		return new NamespaceScope(namespaceURIs != null ? namespaceURIs : this.namespaceURIs,
+				prefixes != null ? prefixes : this.prefixes);
+	}
+
+	/**
+	 * Returns the namespace URI of the nearest 'xmlns:prefix' attribute and null
+	 * otherwise.
+	 *
+	 * @param prefix the prefix.
+	 * @return the namespace URI of the nearest 'xmlns:prefix' attribute and null
+	 *         otherwise.
+	 */
+	String getNamespaceURI(String prefix) {
+		return namespaceURIs.get(prefix);
+	}
+
+	/**
+	 * Returns the prefix of the nearest xmlns attribute which declares the given
+	 * namespace URI ("" for the default namespace) and null otherwise.
+	 *
+	 * @param namespaceURI the namespace URI.
+	 * @return the prefix of the nearest xmlns attribute which declares the given
+	 *         namespace URI and null otherwise.
+	 */
+	String getPrefix(String namespaceURI) {
+		return prefixes.get(namespaceURI);
+	}
+}
@@ -10,53 +10,98 @@
  */
 package org.eclipse.lsp4xml.dom.parser;
 
-import static org.eclipse.lsp4xml.dom.parser.Constants._CAR;
 import static org.eclipse.lsp4xml.dom.parser.Constants._CSB;
 import static org.eclipse.lsp4xml.dom.parser.Constants._LAN;
-import static org.eclipse.lsp4xml.dom.parser.Constants._LFD;
-import static org.eclipse.lsp4xml.dom.parser.Constants._NWL;
 import static org.eclipse.lsp4xml.dom.parser.Constants._OSB;
 import static org.eclipse.lsp4xml.dom.parser.Constants._RAN;
-import static org.eclipse.lsp4xml.dom.parser.Constants._TAB;
-import static org.eclipse.lsp4xml.dom.parser.Constants._WSP;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.lsp4xml.utils.StringUtils;
+
 /**
  * Multi line stream.
  *
+ * <p>
+ * The stream reads the source by blocks of {@link #BUFFER_SIZE} characters
+ * copied in a <code>char[]</code> (without copying the whole source) and uses
+ * static lookup tables to classify the ASCII characters, so long runs of text,
+ * comment or CDATA content are skipped with a simple loop over the buffer.
+ * Names, attribute values and URLs are matched with hand-written matchers
+ * instead of regular expressions.
+ * </p>
+ *
  */
 public class MultiLineStream {
 
-	private static final Predicate<Integer> WHITESPACE_PREDICATE = ch -> {
-		return ch == _WSP || ch == _TAB || ch == _NWL || ch == _LFD || ch == _CAR;
-	};
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	// Classes of the characters [0, 0xA0[
+	private static final int WHITESPACE = 1; // ' ', \t, \n, \f, \r
+	private static final int NAME_START = 1 << 1; // [_:\w]
+	private static final int NAME_PART = 1 << 2; // [_:\w-.\d]
+	private static final int NOT_ATTRIBUTE_NAME = 1 << 3; // [\s"'<>/=\x00-\x0F\x7F\x80-\x9F]
+	private static final int DOCTYPE_KIND_END = 1 << 4; // [\s<>"']
+
+	private static final byte[] CHAR_CLASSES = new byte[0xA0];
+
+	static {
+		setClass(" \t\n\f\r", WHITESPACE);
+		setClass(" \t\n\u000B\f\r", NOT_ATTRIBUTE_NAME | DOCTYPE_KIND_END);
+		for (int c = 'a'; c <= 'z'; c++) {
+			CHAR_CLASSES[c] |= NAME_START | NAME_PART;
+			CHAR_CLASSES[Character.toUpperCase(c)] |= NAME_START | NAME_PART;
+		}
+		for (int c = '0'; c <= '9'; c++) {
+			CHAR_CLASSES[c] |= NAME_START | NAME_PART;
+		}
+		setClass("_:", NAME_START | NAME_PART);
+		setClass("-.", NAME_PART);
+		setClass("\"'<>/=", NOT_ATTRIBUTE_NAME);
+		for (int c = 0x00; c <= 0x0F; c++) {
+			CHAR_CLASSES[c] |= NOT_ATTRIBUTE_NAME;
+		}
+		for (int c = 0x7F; c <= 0x9F; c++) {
+			CHAR_CLASSES[c] |= NOT_ATTRIBUTE_NAME;
+		}
+		setClass("<>\"'", DOCTYPE_KIND_END);
+	}
+
+	private static void setClass(String chars, int charClass) {
+		for (int i = 0; i < chars.length(); i++) {
+			CHAR_CLASSES[chars.charAt(i)] |= charClass;
+		}
+	}
 
-	private static final Predicate<Integer> CHARACTER_PREDICATE = ch -> {
-		return ch != _WSP && ch != _TAB && ch != _NWL && ch != _LFD && ch != _CAR;
-	};
+	private static boolean is(int ch, int charClass) {
+		return ch >= 0 && ch < CHAR_CLASSES.length && (CHAR_CLASSES[ch] & charClass) != 0;
+	}
 
-	private final String source;
+	private final CharSequence source;
 	private final int len;
 	private int position;
-	private final Map<Pattern, Matcher> regexpCache;
+	private Map<Pattern, Matcher> regexpCache;
 
-	public MultiLineStream(String source, int position) {
+	// Window [bufferStart, bufferStart + bufferLength[ of the source
+	private final char[] buffer;
+	private int bufferStart;
+	private int bufferLength;
+
+	public MultiLineStream(CharSequence source, int position) {
 		this.source = source;
 		this.len = source.length();
 		this.position = position;
-		this.regexpCache = new HashMap<>();
+		this.buffer = new char[Math.min(len, BUFFER_SIZE)];
 	}
 
 	public boolean eos() {
 		return this.len <= this.position;
 	}
 
-	public String getSource() {
+	public CharSequence getSource() {
 		return this.source;
 	}
 
@@ -80,12 +125,6 @@ public class MultiLineStream {
 		this.position = len;
 	}
 
-	/*
-	 * public int nextChar() { // return this.source.codePointAt(this.position++) ||
-	 * 0; int next = this.source.codePointAt(this.position++); return next >= 0 ?
-	 * next : 0; }
-	 */
-
 	public int peekChar() {
 		return peekChar(0);
 	}
@@ -100,7 +139,7 @@ public class MultiLineStream {
 		if (pos >= len) {
 			return -1;
 		}
-		return this.source.codePointAt(pos);
+		return charAt(pos);
 	}
 
 	/**
@@ -112,7 +151,30 @@ public class MultiLineStream {
 		if (offset >= len || offset < 0) {
 			return -1;
 		}
-		return this.source.codePointAt(offset);
+		return charAt(offset);
+	}
+
+	/**
+	 * Returns the char at the given offset of the source (which must be in [0,
+	 * len[) read from the buffer.
+	 */
+	private char charAt(int offset) {
+		int index = offset - bufferStart;
+		if (index < 0 || index >= bufferLength) {
+			fillBuffer(offset);
+			index = offset - bufferStart;
+		}
+		return buffer[index];
+	}
+
+	/**
+	 * Fills the buffer with the block of the source which contains the given
+	 * offset.
+	 */
+	private void fillBuffer(int offset) {
+		bufferStart = offset - offset % BUFFER_SIZE;
+		bufferLength = Math.min(len - bufferStart, BUFFER_SIZE);
+		StringUtils.getChars(source, bufferStart, bufferStart + bufferLength, buffer, 0);
 	}
 
 	public boolean advanceIfChar(int ch) {
@@ -129,7 +191,7 @@ public class MultiLineStream {
 			return false;
 		}
 		for (i = 0; i < ch.length; i++) {
-			if (peekChar(i) != ch[i]) {
+			if (charAt(this.position + i) != ch[i]) {
 				return false;
 			}
 		}
@@ -177,18 +239,137 @@ public class MultiLineStream {
 		return "";
 	}
 
+	/**
+	 * Advances the stream over an element name (same syntax than
+	 * {@link Constants#ELEMENT_NAME_REGEX}).
+	 *
+	 * @return the number of characters of the element name and 0 if there is no
+	 *         element name at the current position.
+	 */
+	public int advanceIfElementName() {
+		if (!is(peekChar(), NAME_START)) {
+			return 0;
+		}
+		int posNow = this.position;
+		this.position++;
+		while (this.position < this.len && is(charAt(this.position), NAME_PART)) {
+			this.position++;
+		}
+		return this.position - posNow;
+	}
+
+	/**
+	 * Advances the stream over an attribute name (same syntax than
+	 * {@link Constants#ATTRIBUTE_NAME_REGEX}).
+	 *
+	 * @return the number of characters of the attribute name and 0 if there is
+	 *         no attribute name at the current position.
+	 */
+	public int advanceIfAttributeName() {
+		int posNow = this.position;
+		while (this.position < this.len && !is(charAt(this.position), NOT_ATTRIBUTE_NAME)) {
+			this.position++;
+		}
+		return this.position - posNow;
+	}
+
+	/**
+	 * Advances the stream over a quoted attribute value. The closing quote is
+	 * optional, in this case the value ends at the end of the stream.
+	 *
+	 * @return the number of characters of the attribute value (with quotes) and 0
+	 *         if there is no attribute value at the current position.
+	 */
+	public int advanceIfAttributeValue() {
+		int quote = peekChar();
+		if (!StringUtils.isQuote((char) quote)) {
+			return 0;
+		}
+		int posNow = this.position;
+		int end = indexOf(quote, this.position + 1);
+		this.position = end != -1 ? end + 1 : this.len;
+		return this.position - posNow;
+	}
+
+	/**
+	 * Advances the stream over a quoted URL (same syntax than
+	 * {@link Constants#URL_VALUE_REGEX}).
+	 *
+	 * @return the number of characters of the URL (with quotes) and 0 if there is
+	 *         no URL at the current position.
+	 */
+	public int advanceIfURLValue() {
+		if (!StringUtils.isQuote((char) peekChar())) {
+			return 0;
+		}
+		int lastSingleQuote = -1;
+		int end = -1;
+		for (int pos = this.position + 1; pos < this.len; pos++) {
+			char c = charAt(pos);
+			if (c == '\'') {
+				lastSingleQuote = pos;
+			} else if (c == '"') {
+				end = pos;
+				break;
+			} else if (c == '<' || c == '>') {
+				break;
+			}
+		}
+		if (end == -1) {
+			// the URL must end with the last single quote before '<', '>' or the end
+			// of the stream
+			end = lastSingleQuote;
+			if (end == -1) {
+				return 0;
+			}
+		}
+		int posNow = this.position;
+		this.position = end + 1;
+		return this.position - posNow;
+	}
+
+	/**
+	 * Advances the stream over 'PUBLIC' or 'SYSTEM' if they are followed by a
+	 * whitespace, '<', '>' or a quote (same syntax than the first group of
+	 * {@link Constants#DOCTYPE_KIND_OPTIONS}).
+	 *
+	 * @return "PUBLIC" or "SYSTEM" or "" otherwise
+	 */
+	public String advanceIfDoctypeKind() {
+		if (this.position + 6 < this.len && is(charAt(this.position + 6), DOCTYPE_KIND_END)) {
+			if (regionMatches("PUBLIC")) {
+				this.position += 6;
+				return "PUBLIC";
+			}
+			if (regionMatches("SYSTEM")) {
+				this.position += 6;
+				return "SYSTEM";
+			}
+		}
+		return "";
+	}
+
+	private boolean regionMatches(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (charAt(this.position + i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Advances stream.position no matter what until it hits ch or eof(this.len)
-	 * 
+	 *
 	 * @return boolean: was the char found
 	 */
 	public boolean advanceUntilChar(int ch) {
-		while (this.position < this.len) {
-			if (peekChar() == ch) {
-				return true;
-			}
-			this.advance(1);
+		int index = indexOf(ch, this.position);
+		if (index != -1) {
+			this.position = index;
+			return true;
 		}
+		this.position = Math.max(this.position, this.len);
 		return false;
 	}
 
@@ -197,12 +378,12 @@ public class MultiLineStream {
 	 */
 	public boolean advanceUntilAnyOfChars(int... ch) {
 		while (this.position < this.len) {
+			char c = charAt(this.position);
 			for (int i = 0; i < ch.length; i++) {
-				if (peekChar() == ch[i]) {
+				if (c == ch[i]) {
 					return true;
 				}
 			}
-
 			this.advance(1);
 		}
 		return false;
@@ -212,26 +393,26 @@ public class MultiLineStream {
 	 * Will advance the stream position until ch or '<'
 	 */
 	public boolean advanceUntilCharOrNewTag(int ch) {
-		while (this.position < this.len) {
-			if (peekChar() == ch || peekChar() == _LAN) {
-				return true;
-			}
-			this.advance(1);
+		int index = indexOf(ch, _LAN, this.position);
+		if (index != -1) {
+			this.position = index;
+			return true;
 		}
+		this.position = Math.max(this.position, this.len);
 		return false;
 	}
 
 	/**
 	 * Will advance the stream position until 'closingBracket' or using a stack
 	 * to consider possible open/closed bracket pairs in between.
-	 * 
+	 *
 	 * 'closingBracket' should be the closing bracket eg: > | ]
 	 */
 	public boolean advanceUntilCharUsingStack(int closingBracket) {
 
 		int openingBracket;
 		if(closingBracket == _RAN) { // >
-			openingBracket = _LAN;// <			
+			openingBracket = _LAN;// <
 		}
 		else if(closingBracket == _CSB) { // ]
 			openingBracket = _OSB; // [
@@ -241,10 +422,16 @@ public class MultiLineStream {
 		}
 		int stack = 0;
 		while (this.position < this.len) {
-			if(peekChar() == openingBracket) {
+			int index = indexOf(openingBracket, closingBracket, this.position);
+			if (index == -1) {
+				this.goToEnd();
+				return false;
+			}
+			this.position = index;
+			if(charAt(index) == openingBracket) {
 				stack ++;
 			}
-			else if(peekChar() == closingBracket) {
+			else {
 				if(stack == 0) {
 					return true;
 				}
@@ -256,14 +443,17 @@ public class MultiLineStream {
 	}
 
 	public boolean advanceUntilChars(int... ch) {
-		while (this.position + ch.length <= this.len) {
-			int i = 0;
-			for (; i < ch.length && peekChar(i) == ch[i]; i++) {
+		int index = this.position;
+		while (index + ch.length <= this.len) {
+			index = indexOf(ch[0], index);
+			if (index == -1 || index + ch.length > this.len) {
+				break;
 			}
-			if (i == ch.length) {
+			if (matchesAt(index, ch)) {
+				this.position = index;
 				return true;
 			}
-			this.advance(1);
+			index++;
 		}
 		this.goToEnd();
 		return false;
@@ -274,50 +464,143 @@ public class MultiLineStream {
 	 * if next char is '<' to check which case was hit
 	 */
 	public boolean advanceUntilCharsOrNewTag(int... ch) {
-		while (this.position + ch.length <= this.len) {
-			int i = 0;
-			if (peekChar(0) == _LAN) { // <
-				return true;
-			}
-			for (; i < ch.length && peekChar(i) == ch[i]; i++) {
+		int index = this.position;
+		while (index + ch.length <= this.len) {
+			index = indexOf(_LAN, ch[0], index);
+			if (index == -1 || index + ch.length > this.len) {
+				break;
 			}
-			if (i == ch.length) {
+			if (charAt(index) == _LAN || matchesAt(index, ch)) { // <
+				this.position = index;
 				return true;
 			}
-			this.advance(1);
+			index++;
 		}
 		this.goToEnd();
 		return false;
 	}
 
+	private boolean matchesAt(int offset, int[] ch) {
+		for (int i = 1; i < ch.length; i++) {
+			if (charAt(offset + i) != ch[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of the given char from the given
+	 * offset and -1 otherwise.
+	 */
+	private int indexOf(int ch, int fromOffset) {
+		int offset = fromOffset;
+		while (offset < this.len) {
+			charAt(offset); // fill the buffer
+			char[] buffer = this.buffer;
+			for (int i = offset - bufferStart; i < bufferLength; i++) {
+				if (buffer[i] == ch) {
+					return bufferStart + i;
+				}
+			}
+			offset = bufferStart + bufferLength;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of one of the two given chars
+	 * from the given offset and -1 otherwise.
+	 */
+	private int indexOf(int ch1, int ch2, int fromOffset) {
+		int offset = fromOffset;
+		while (offset < this.len) {
+			charAt(offset); // fill the buffer
+			char[] buffer = this.buffer;
+			for (int i = offset - bufferStart; i < bufferLength; i++) {
+				char c = buffer[i];
+				if (c == ch1 || c == ch2) {
+					return bufferStart + i;
+				}
+			}
+			offset = bufferStart + bufferLength;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if the region [start, end[ of the source is equal to the given
+	 * text and false otherwise.
+	 *
+	 * @param start      the start offset (inclusive).
+	 * @param end        the end offset (exclusive).
+	 * @param text       the text to compare.
+	 * @param ignoreCase true if case must be ignored and false otherwise.
+	 * @return true if the region [start, end[ of the source is equal to the given
+	 *         text and false otherwise.
+	 */
+	public boolean regionEquals(int start, int end, String text, boolean ignoreCase) {
+		if (text == null || end - start != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c1 = charAt(start + i);
+			char c2 = text.charAt(i);
+			if (c1 != c2 && !(ignoreCase && (Character.toUpperCase(c1) == Character.toUpperCase(c2)
+					|| Character.toLowerCase(c1) == Character.toLowerCase(c2)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the region [start, end[ of the source contains only
+	 * whitespaces and false otherwise.
+	 *
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @return true if the region [start, end[ of the source contains only
+	 *         whitespaces and false otherwise.
+	 */
+	public boolean isWhitespace(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!Character.isWhitespace(charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public boolean skipWhitespace() {
-		int n = this.advanceWhileChar(WHITESPACE_PREDICATE);
-		return n > 0;
+		int posNow = this.position;
+		while (this.position < this.len && is(charAt(this.position), WHITESPACE)) {
+			this.position++;
+		}
+		return this.position > posNow;
 	}
 
 	/**
 	 * Advances until it reaches a whitespace character
 	 */
 	public boolean readNextWord() {
-		int n = this.advanceWhileChar(CHARACTER_PREDICATE);
-		return n > 0;
-	}
-
-	public int advanceWhileChar(Predicate<Integer> condition) {
 		int posNow = this.position;
-		while (this.position < this.len && condition.test(peekChar())) {
+		while (this.position < this.len && !is(charAt(this.position), WHITESPACE)) {
 			this.position++;
 		}
-		return this.position - posNow;
+		return this.position > posNow;
 	}
 
 	/**
 	 * Returns the cached matcher from the given regex.
-	 * 
+	 *
 	 * @param regex the regex pattern.
 	 * @return the cached matcher from the given regex.
 	 */
 	private Matcher getCachedMatcher(Pattern regex) {
+		if (regexpCache == null) {
+			regexpCache = new HashMap<>();
+		}
 		Matcher matcher = regexpCache.get(regex);
 		if (matcher == null) {
 			matcher = regex.matcher(source);
@@ -330,9 +613,9 @@ public class MultiLineStream {
 
 	public int getLastNonWhitespaceOffset() {
 		int posNow = this.position;
-		while (posNow > 0 && WHITESPACE_PREDICATE.test(peekCharAtOffset(posNow - 1))) {
+		while (posNow > 0 && is(peekCharAtOffset(posNow - 1), WHITESPACE)) {
 			posNow--;
 		}
 		return posNow;
 	}
-}
\ No newline at end of file
+}
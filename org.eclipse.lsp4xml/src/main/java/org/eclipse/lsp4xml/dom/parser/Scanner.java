@@ -36,6 +36,44 @@ public interface Scanner {
 
 	String getTokenText();
 
+	/**
+	 * Returns the text of the current token as a view of the scanned text (without
+	 * copying it). The returned sequence is reused and updated by the next call
+	 * of {@link #scan()}, so it must not be stored.
+	 * 
+	 * @return the text of the current token as a view of the scanned text.
+	 */
+	CharSequence getTokenTextSequence();
+
+	/**
+	 * Returns true if the text of the current token is equal to the given text
+	 * and false otherwise.
+	 * 
+	 * @param text the text to compare.
+	 * @return true if the text of the current token is equal to the given text
+	 *         and false otherwise.
+	 */
+	boolean isTokenTextEquals(String text);
+
+	/**
+	 * Returns true if the text of the current token is equal to the given text,
+	 * ignoring case considerations, and false otherwise.
+	 * 
+	 * @param text the text to compare.
+	 * @return true if the text of the current token is equal to the given text,
+	 *         ignoring case considerations, and false otherwise.
+	 */
+	boolean isTokenTextEqualsIgnoreCase(String text);
+
+	/**
+	 * Returns true if the text of the current token contains only whitespaces and
+	 * false otherwise.
+	 * 
+	 * @return true if the text of the current token contains only whitespaces and
+	 *         false otherwise.
+	 */
+	boolean isTokenTextWhitespace();
+
 	String getTokenError();
 
 	ScannerState getScannerState();
@@ -0,0 +1,93 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+/**
+ * State of the {@link XMLScanner} between two tokens, used to resume a scan
+ * without scanning again the text before the checkpoint.
+ *
+ */
+public class ScannerCheckpoint {
+
+	private final int offset;
+	private final ScannerState state;
+	private final boolean insideDTDContent;
+	private final boolean declCompleted;
+	private final boolean initialAttlistDeclCompleted;
+	private final int nbBraceOpened;
+	private final boolean dtdFile;
+
+	ScannerCheckpoint(int offset, ScannerState state, boolean insideDTDContent, boolean declCompleted,
+			boolean initialAttlistDeclCompleted, int nbBraceOpened, boolean dtdFile) {
+		this.offset = offset;
+		this.state = state;
+		this.insideDTDContent = insideDTDContent;
+		this.declCompleted = declCompleted;
+		this.initialAttlistDeclCompleted = initialAttlistDeclCompleted;
+		this.nbBraceOpened = nbBraceOpened;
+		this.dtdFile = dtdFile;
+	}
+
+	/**
+	 * Returns the offset where the scan can be resumed.
+	 *
+	 * @return the offset where the scan can be resumed.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the scanner state at the offset of the checkpoint.
+	 *
+	 * @return the scanner state at the offset of the checkpoint.
+	 */
+	public ScannerState getState() {
+		return state;
+	}
+
+	boolean isInsideDTDContent() {
+		return insideDTDContent;
+	}
+
+	boolean isDeclCompleted() {
+		return declCompleted;
+	}
+
+	boolean isInitialAttlistDeclCompleted() {
+		return initialAttlistDeclCompleted;
+	}
+
+	int getNbBraceOpened() {
+		return nbBraceOpened;
+	}
+
+	boolean isDTDFile() {
+		return dtdFile;
+	}
+
+	/**
+	 * Returns the same checkpoint moved by the given delta.
+	 *
+	 * @param delta the number of characters to add to the offset.
+	 * @return the same checkpoint moved by the given delta.
+	 */
+	ScannerCheckpoint shift(int delta) {
+		return delta == 0 ? this
+				: new ScannerCheckpoint(offset + delta, state, insideDTDContent, declCompleted,
+						initialAttlistDeclCompleted, nbBraceOpened, dtdFile);
+	}
+
+	@Override
+	public String toString() {
+		return offset + ": " + state;
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checkpoints recorded by the {@link XMLScanner} every <code>interval</code>
+ * characters while it scans a given version of a document.
+ *
+ * <p>
+ * A consumer which needs only the tokens around an offset can resume the scan
+ * from the last checkpoint before this offset (see
+ * {@link XMLScanner#createScanner(CharSequence, ScannerCheckpoint)}) instead of
+ * scanning the whole text before it.
+ * </p>
+ *
+ */
+public class ScannerCheckpoints {
+
+	/**
+	 * Default number of characters between two checkpoints.
+	 */
+	public static final int DEFAULT_INTERVAL = 16 * 1024;
+
+	private final int version;
+	private final int interval;
+	private final List<ScannerCheckpoint> checkpoints;
+
+	public ScannerCheckpoints(int version) {
+		this(version, DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Checkpoints constructor.
+	 *
+	 * @param version  the version of the scanned document.
+	 * @param interval the number of characters between two checkpoints.
+	 */
+	public ScannerCheckpoints(int version, int interval) {
+		this.version = version;
+		this.interval = interval;
+		this.checkpoints = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the version of the scanned document.
+	 *
+	 * @return the version of the scanned document.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of characters between two checkpoints.
+	 *
+	 * @return the number of characters between two checkpoints.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Returns the checkpoints sorted by offset.
+	 *
+	 * @return the checkpoints sorted by offset.
+	 */
+	public List<ScannerCheckpoint> getCheckpoints() {
+		return Collections.unmodifiableList(checkpoints);
+	}
+
+	void add(ScannerCheckpoint checkpoint) {
+		checkpoints.add(checkpoint);
+	}
+
+	/**
+	 * Adds the checkpoints recorded by the scan of the text which follows the
+	 * text scanned with these checkpoints.
+	 *
+	 * @param following the checkpoints of the scan of the following text.
+	 */
+	public void addAll(ScannerCheckpoints following) {
+		for (ScannerCheckpoint checkpoint : following.checkpoints) {
+			if (checkpoints.isEmpty() || checkpoints.get(checkpoints.size() - 1).getOffset() < checkpoint.getOffset()) {
+				checkpoints.add(checkpoint);
+			}
+		}
+	}
+
+	/**
+	 * Returns the last checkpoint strictly before the given offset and null
+	 * otherwise.
+	 *
+	 * @param offset the offset.
+	 * @return the last checkpoint strictly before the given offset and null
+	 *         otherwise.
+	 */
+	public ScannerCheckpoint findBefore(int offset) {
+		int low = 0;
+		int high = checkpoints.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (checkpoints.get(mid).getOffset() < offset) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return high >= 0 ? checkpoints.get(high) : null;
+	}
+
+	/**
+	 * Returns the checkpoints of a new version of the document where the text
+	 * between <code>start</code> and <code>end</code> has been scanned again with
+	 * the given checkpoints.
+	 *
+	 * @param version   the new version of the document.
+	 * @param start     the start offset of the scanned again text.
+	 * @param end       the end offset of the scanned again text in this version
+	 *                  of the document.
+	 * @param delta     the length difference between the new and this version
+	 *                  of the document.
+	 * @param rescanned the checkpoints recorded while scanning again the text.
+	 * @return the checkpoints of the new version of the document.
+	 */
+	public ScannerCheckpoints update(int version, int start, int end, int delta, ScannerCheckpoints rescanned) {
+		ScannerCheckpoints updated = new ScannerCheckpoints(version, interval);
+		for (ScannerCheckpoint checkpoint : checkpoints) {
+			if (checkpoint.getOffset() <= start) {
+				updated.add(checkpoint);
+			}
+		}
+		for (ScannerCheckpoint checkpoint : rescanned.checkpoints) {
+			if (checkpoint.getOffset() > start && checkpoint.getOffset() < end + delta) {
+				updated.add(checkpoint);
+			}
+		}
+		for (ScannerCheckpoint checkpoint : checkpoints) {
+			if (checkpoint.getOffset() >= end) {
+				updated.add(checkpoint.shift(delta));
+			}
+		}
+		return updated;
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Symbol table used to share one {@link String} instance for the names (tag
+ * names, attribute names, etc) which are repeated in a document.
+ *
+ * <p>
+ * The table is an open-addressing hash table which looks up a symbol from a
+ * region of a text, so a {@link String} is created only the first time a name
+ * is found. The hash of a symbol is the same than {@link String#hashCode()}.
+ * </p>
+ *
+ * <p>
+ * The table is not thread-safe: it is filled by the parser which creates the
+ * DOM document. The tables of the chunks of a document parsed in parallel share
+ * their symbols with a thread-safe map.
+ * </p>
+ *
+ */
+public class SymbolTable {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private String[] symbols;
+	private int[] hashes;
+	private int size;
+
+	private final ConcurrentMap<String, String> sharedSymbols;
+
+	private SymbolTable previous;
+
+	public SymbolTable() {
+		this((ConcurrentMap<String, String>) null);
+	}
+
+	/**
+	 * Creates a symbol table which shares its symbols with the other tables
+	 * created with the given map (ex: the tables of the chunks of a document
+	 * parsed in parallel), so a name found by several tables is the same
+	 * {@link String} instance.
+	 *
+	 * @param sharedSymbols the thread-safe map of the shared symbols.
+	 */
+	public SymbolTable(ConcurrentMap<String, String> sharedSymbols) {
+		this.symbols = new String[INITIAL_CAPACITY];
+		this.hashes = new int[INITIAL_CAPACITY];
+		this.sharedSymbols = sharedSymbols;
+	}
+
+	/**
+	 * Creates an empty symbol table which looks up the symbols it doesn't contain
+	 * in the given table (ex: the table of a previous version of a document), so
+	 * the names which are already known are not created again. Only the symbols
+	 * which are added to this table are kept: the names which are no longer used
+	 * are not copied from a version to the next one.
+	 *
+	 * @param previous the previous symbol table, which is not modified and is
+	 *                 looked up until {@link #releasePrevious()} is called.
+	 */
+	public SymbolTable(SymbolTable previous) {
+		this((ConcurrentMap<String, String>) null);
+		this.previous = previous;
+	}
+
+	/**
+	 * Stops looking up the symbols of the previous table given to the
+	 * constructor, so this table doesn't keep it in memory.
+	 */
+	public void releasePrevious() {
+		previous = null;
+	}
+
+	/**
+	 * Adds the symbols of the given table (ex: the table of a chunk of a document
+	 * parsed in parallel).
+	 *
+	 * @param table the symbol table to add, which is not modified.
+	 */
+	public void addSymbols(SymbolTable table) {
+		for (String symbol : table.symbols) {
+			if (symbol != null) {
+				addSymbol(symbol);
+			}
+		}
+	}
+
+	/**
+	 * Returns the symbol of the region [start, end[ of the given text and adds it
+	 * if it doesn't exist.
+	 *
+	 * @param text  the text.
+	 * @param start the start offset (inclusive).
+	 * @param end   the end offset (exclusive).
+	 * @return the symbol of the region [start, end[ of the given text.
+	 */
+	public String addSymbol(CharSequence text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return addSymbol(text, start, end, hash, null);
+	}
+
+	/**
+	 * Returns the symbol equal to the given name and adds it if it doesn't exist.
+	 *
+	 * @param name the name.
+	 * @return the symbol equal to the given name.
+	 */
+	public String addSymbol(String name) {
+		return addSymbol(name, 0, name.length(), name.hashCode(), name);
+	}
+
+	private String addSymbol(CharSequence text, int start, int end, int hash, String name) {
+		int mask = symbols.length - 1;
+		int index = (hash ^ (hash >>> 16)) & mask;
+		String symbol;
+		while ((symbol = symbols[index]) != null) {
+			if (hashes[index] == hash && regionEquals(symbol, text, start, end)) {
+				return symbol;
+			}
+			index = (index + 1) & mask;
+		}
+		symbol = previous != null ? previous.findSymbol(text, start, end, hash) : null;
+		if (symbol == null) {
+			symbol = name != null ? name : text.subSequence(start, end).toString();
+		}
+		if (sharedSymbols != null) {
+			String sharedSymbol = sharedSymbols.putIfAbsent(symbol, symbol);
+			if (sharedSymbol != null) {
+				symbol = sharedSymbol;
+			}
+		}
+		symbols[index] = symbol;
+		hashes[index] = hash;
+		if (++size * 2 > symbols.length) {
+			rehash();
+		}
+		return symbol;
+	}
+
+	private String findSymbol(CharSequence text, int start, int end, int hash) {
+		int mask = symbols.length - 1;
+		int index = (hash ^ (hash >>> 16)) & mask;
+		String symbol;
+		while ((symbol = symbols[index]) != null) {
+			if (hashes[index] == hash && regionEquals(symbol, text, start, end)) {
+				return symbol;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	private static boolean regionEquals(String symbol, CharSequence text, int start, int end) {
+		if (symbol.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < symbol.length(); i++) {
+			if (symbol.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		String[] oldSymbols = symbols;
+		int[] oldHashes = hashes;
+		symbols = new String[oldSymbols.length * 2];
+		hashes = new int[oldSymbols.length * 2];
+		int mask = symbols.length - 1;
+		for (int i = 0; i < oldSymbols.length; i++) {
+			if (oldSymbols[i] != null) {
+				int hash = oldHashes[i];
+				int index = (hash ^ (hash >>> 16)) & mask;
+				while (symbols[index] != null) {
+					index = (index + 1) & mask;
+				}
+				symbols[index] = oldSymbols[i];
+				hashes[index] = hash;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 *
+	 * @return the number of symbols.
+	 */
+	public int size() {
+		return size;
+	}
+}
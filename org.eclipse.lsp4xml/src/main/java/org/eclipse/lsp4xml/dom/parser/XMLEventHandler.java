@@ -0,0 +1,42 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+/**
+ * Handler of the events of a {@link XMLEventReader} (see
+ * {@link XMLEventReader#accept(XMLEventHandler)}). The information of an event
+ * (name, offsets, attributes, text) is given by the reader, which is valid until
+ * the method returns.
+ *
+ */
+public interface XMLEventHandler {
+
+	default void startElement(XMLEventReader reader) {
+	}
+
+	default void endElement(XMLEventReader reader) {
+	}
+
+	default void text(XMLEventReader reader) {
+	}
+
+	default void cdata(XMLEventReader reader) {
+	}
+
+	default void comment(XMLEventReader reader) {
+	}
+
+	default void processingInstruction(XMLEventReader reader) {
+	}
+
+	default void endDocument(XMLEventReader reader) {
+	}
+}
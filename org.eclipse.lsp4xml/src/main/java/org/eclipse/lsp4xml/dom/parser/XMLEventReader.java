@@ -0,0 +1,621 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.Arrays;
+
+import org.eclipse.lsp4xml.commons.CharSequenceWindow;
+
+/**
+ * Streaming reader of the XML events (start element with its attributes, end
+ * element, text, CDATA, comment, processing instruction) of a text, driven by
+ * a {@link Scanner}.
+ *
+ * <p>
+ * The reader doesn't create DOM nodes: the elements which are open are kept in
+ * a stack of offsets and the names, the attributes and the texts are given as
+ * offsets (the {@link String} of a name is created only when
+ * {@link #getName()} is called), so it can read a text which is too large to
+ * build a DOM document. The end tags are matched with the open elements like
+ * the DOM parser does: an end tag closes the nearest open element with the
+ * same name (ignoring the case) and ends the unclosed elements opened after
+ * it. Each {@link XMLEventType#START_ELEMENT} event has its
+ * {@link XMLEventType#END_ELEMENT} event.
+ * </p>
+ *
+ * <p>
+ * Unlike the DOM parser, which creates an element without start tag for an
+ * end tag which matches no open element (ex: &lt;/b&gt; in
+ * &lt;a&gt;&lt;/b&gt;&lt;/a&gt;), the reader ignores this end tag and reports
+ * no event for it.
+ * </p>
+ *
+ * <p>
+ * The reader can be used as a pull reader with {@link #next()} or as a push
+ * reader with {@link #accept(XMLEventHandler)}. It is not thread-safe and the
+ * DTD declarations are ignored.
+ * </p>
+ *
+ */
+public class XMLEventReader {
+
+	private static final int NONE = -1;
+
+	// the construct (tokens of a start tag, a comment, etc) being read
+	private static final int NO_CONSTRUCT = 0;
+	private static final int START_TAG = 1;
+	private static final int END_TAG = 2;
+	private static final int COMMENT = 3;
+	private static final int CDATA = 4;
+	private static final int PROCESSING_INSTRUCTION = 5;
+
+	// fields of an attribute: name start and end, value start and end
+	private static final int ATTRIBUTE_FIELDS = 4;
+
+	private final CharSequence text;
+	private final Scanner scanner;
+	private final CharSequenceWindow window = new CharSequenceWindow();
+
+	private XMLEventType eventType;
+	// token scanned which belongs to the next event
+	private TokenType pendingToken;
+
+	private int construct = NO_CONSTRUCT;
+	private int constructStart;
+	private int constructEnd;
+	private int nameStart = NONE;
+	private int nameEnd = NONE;
+	private int textStart = NONE;
+	private int textEnd = NONE;
+	private int[] attributes = new int[4 * ATTRIBUTE_FIELDS];
+	private int attributeCount;
+
+	// current event
+	private int start = NONE;
+	private int end = NONE;
+	private int elementStart = NONE;
+	private boolean closed;
+	private boolean selfClosed;
+	private String name;
+
+	// open elements: offset of the start tag, start and end of the name
+	private int[] elements = new int[16 * 3];
+	private int depth;
+
+	// end elements to report: the last one is closed by the end tag (or '/>')
+	// when closing is true, the others are not closed
+	private int endCount;
+	private boolean closing;
+	private boolean closingSelf;
+	private int closingStart;
+	private int closingEnd;
+
+	public XMLEventReader(CharSequence text) {
+		this(text, XMLScanner.createScanner(text));
+	}
+
+	/**
+	 * Creates a reader of the tokens of the given scanner of the given text.
+	 * 
+	 * @param text    the scanned text.
+	 * @param scanner the scanner.
+	 */
+	public XMLEventReader(CharSequence text, Scanner scanner) {
+		this.text = text;
+		this.scanner = scanner;
+	}
+
+	/**
+	 * Reads the next event and returns its type. The information of the previous
+	 * event is not available anymore.
+	 * 
+	 * @return the type of the next event and {@link XMLEventType#END_DOCUMENT}
+	 *         when the text is read.
+	 */
+	public XMLEventType next() {
+		name = null;
+		while (true) {
+			if (endCount > 0) {
+				return endElement();
+			}
+			if (eventType == XMLEventType.END_DOCUMENT) {
+				return eventType;
+			}
+			TokenType token = pendingToken != null ? pendingToken : scanner.scan();
+			pendingToken = null;
+			if (construct != NO_CONSTRUCT && !isPartOf(token, construct)) {
+				// the token ends the construct and will be read after its event
+				pendingToken = token;
+				XMLEventType event = endConstruct();
+				if (event != null) {
+					return event;
+				}
+				continue;
+			}
+			int offset = scanner.getTokenOffset();
+			int tokenEnd = scanner.getTokenEnd();
+			switch (token) {
+			case StartTagOpen:
+				beginConstruct(START_TAG, offset, tokenEnd);
+				break;
+			case StartTag:
+			case EndTag:
+			case PIName:
+			case PrologName:
+				nameStart = offset;
+				nameEnd = tokenEnd;
+				constructEnd = tokenEnd;
+				break;
+			case AttributeName: {
+				if (attributes.length < (attributeCount + 1) * ATTRIBUTE_FIELDS) {
+					attributes = Arrays.copyOf(attributes, attributes.length * 2);
+				}
+				int field = attributeCount++ * ATTRIBUTE_FIELDS;
+				attributes[field] = offset;
+				attributes[field + 1] = tokenEnd;
+				attributes[field + 2] = NONE;
+				attributes[field + 3] = NONE;
+				constructEnd = tokenEnd;
+				break;
+			}
+			case AttributeValue: {
+				if (attributeCount > 0) {
+					int field = (attributeCount - 1) * ATTRIBUTE_FIELDS;
+					attributes[field + 2] = offset;
+					attributes[field + 3] = tokenEnd;
+				}
+				constructEnd = tokenEnd;
+				break;
+			}
+			case DelimiterAssign:
+				if (construct != NO_CONSTRUCT) {
+					constructEnd = tokenEnd;
+				}
+				break;
+			case Whitespace:
+				// a construct without its close token (ex: '</a' without '>') ends
+				// before the whitespaces like in the DOM
+				break;
+			case StartTagClose:
+			case EndTagClose:
+			case EndCommentTag:
+			case CDATATagClose:
+			case PIEnd:
+			case PrologEnd:
+				if (construct != NO_CONSTRUCT) {
+					constructEnd = tokenEnd;
+					XMLEventType event = endConstruct();
+					if (event != null) {
+						return event;
+					}
+				}
+				break;
+			case StartTagSelfClose:
+				if (construct == START_TAG) {
+					constructEnd = tokenEnd;
+					XMLEventType event = endConstruct();
+					// the element is ended after its start event
+					endElements(1, true, true, offset, tokenEnd);
+					return event;
+				}
+				break;
+			case EndTagOpen:
+				beginConstruct(END_TAG, offset, tokenEnd);
+				break;
+			case StartCommentTag:
+				beginConstruct(COMMENT, offset, tokenEnd);
+				break;
+			case CDATATagOpen:
+				beginConstruct(CDATA, offset, tokenEnd);
+				break;
+			case StartPrologOrPI:
+				beginConstruct(PROCESSING_INSTRUCTION, offset, tokenEnd);
+				break;
+			case Comment:
+			case CDATAContent:
+			case PIContent:
+				textStart = offset;
+				textEnd = tokenEnd;
+				constructEnd = tokenEnd;
+				break;
+			case Content:
+				setEvent(XMLEventType.TEXT, offset, tokenEnd);
+				textStart = offset;
+				textEnd = tokenEnd;
+				return eventType;
+			case EOS:
+				// the open elements are not closed
+				if (depth > 0) {
+					endElements(depth, false, false, offset, offset);
+					return endElement();
+				}
+				setEvent(XMLEventType.END_DOCUMENT, offset, offset);
+				return eventType;
+			default:
+				// DTD and unknown tokens
+			}
+		}
+	}
+
+	/**
+	 * Reads all the events and gives them to the given handler.
+	 * 
+	 * @param handler the event handler.
+	 */
+	public void accept(XMLEventHandler handler) {
+		XMLEventType event = next();
+		while (true) {
+			switch (event) {
+			case START_ELEMENT:
+				handler.startElement(this);
+				break;
+			case END_ELEMENT:
+				handler.endElement(this);
+				break;
+			case TEXT:
+				handler.text(this);
+				break;
+			case CDATA:
+				handler.cdata(this);
+				break;
+			case COMMENT:
+				handler.comment(this);
+				break;
+			case PROCESSING_INSTRUCTION:
+				handler.processingInstruction(this);
+				break;
+			case END_DOCUMENT:
+				handler.endDocument(this);
+				return;
+			}
+			event = next();
+		}
+	}
+
+	private static boolean isPartOf(TokenType token, int construct) {
+		switch (construct) {
+		case START_TAG:
+			return token == TokenType.StartTag || token == TokenType.AttributeName
+					|| token == TokenType.DelimiterAssign || token == TokenType.AttributeValue
+					|| token == TokenType.Whitespace || token == TokenType.StartTagClose
+					|| token == TokenType.StartTagSelfClose;
+		case END_TAG:
+			return token == TokenType.EndTag || token == TokenType.Whitespace || token == TokenType.EndTagClose;
+		case COMMENT:
+			return token == TokenType.Comment || token == TokenType.EndCommentTag;
+		case CDATA:
+			return token == TokenType.CDATAContent || token == TokenType.CDATATagClose;
+		case PROCESSING_INSTRUCTION:
+			return token == TokenType.PIName || token == TokenType.PrologName || token == TokenType.PIContent
+					|| token == TokenType.AttributeName || token == TokenType.DelimiterAssign
+					|| token == TokenType.AttributeValue || token == TokenType.Whitespace
+					|| token == TokenType.PIEnd || token == TokenType.PrologEnd;
+		default:
+			return false;
+		}
+	}
+
+	private void beginConstruct(int construct, int start, int end) {
+		this.construct = construct;
+		this.constructStart = start;
+		this.constructEnd = end;
+		this.nameStart = NONE;
+		this.nameEnd = NONE;
+		this.textStart = NONE;
+		this.textEnd = NONE;
+		this.attributeCount = 0;
+	}
+
+	/**
+	 * Ends the current construct and returns its event and null if it has no
+	 * event (ex: an end tag which matches no open element).
+	 */
+	private XMLEventType endConstruct() {
+		int construct = this.construct;
+		this.construct = NO_CONSTRUCT;
+		switch (construct) {
+		case START_TAG:
+			if (elements.length < (depth + 1) * 3) {
+				elements = Arrays.copyOf(elements, elements.length * 2);
+			}
+			elements[depth * 3] = constructStart;
+			elements[depth * 3 + 1] = nameStart;
+			elements[depth * 3 + 2] = nameEnd;
+			depth++;
+			setEvent(XMLEventType.START_ELEMENT, constructStart, constructEnd);
+			elementStart = constructStart;
+			return eventType;
+		case END_TAG:
+			if (nameStart != NONE) {
+				for (int i = depth - 1; i >= 0; i--) {
+					if (isName(elements[i * 3 + 1], elements[i * 3 + 2], nameStart, nameEnd)) {
+						endElements(depth - i, true, false, constructStart, constructEnd);
+						return endElement();
+					}
+				}
+			}
+			return null;
+		case COMMENT:
+			return setEvent(XMLEventType.COMMENT, constructStart, constructEnd);
+		case CDATA:
+			return setEvent(XMLEventType.CDATA, constructStart, constructEnd);
+		case PROCESSING_INSTRUCTION:
+			return setEvent(XMLEventType.PROCESSING_INSTRUCTION, constructStart, constructEnd);
+		default:
+			return null;
+		}
+	}
+
+	private XMLEventType setEvent(XMLEventType eventType, int start, int end) {
+		this.eventType = eventType;
+		this.start = start;
+		this.end = end;
+		this.elementStart = NONE;
+		this.closed = false;
+		this.selfClosed = false;
+		return eventType;
+	}
+
+	private void endElements(int count, boolean closing, boolean closingSelf, int start, int end) {
+		this.endCount = count;
+		this.closing = closing;
+		this.closingSelf = closingSelf;
+		this.closingStart = start;
+		this.closingEnd = end;
+	}
+
+	private XMLEventType endElement() {
+		depth--;
+		endCount--;
+		boolean closed = endCount == 0 && closing;
+		// an unclosed element ends where the end tag of its parent starts
+		setEvent(XMLEventType.END_ELEMENT, closingStart, closed ? closingEnd : closingStart);
+		this.closed = closed;
+		this.selfClosed = closed && closingSelf;
+		this.elementStart = elements[depth * 3];
+		this.nameStart = elements[depth * 3 + 1];
+		this.nameEnd = elements[depth * 3 + 2];
+		this.attributeCount = 0;
+		this.textStart = NONE;
+		this.textEnd = NONE;
+		return eventType;
+	}
+
+	private boolean isName(int start, int end, int otherStart, int otherEnd) {
+		if (start == NONE || end - start != otherEnd - otherStart) {
+			return false;
+		}
+		// the names are compared ignoring the case like the DOM parser
+		for (int i = 0; i < end - start; i++) {
+			char c1 = text.charAt(start + i);
+			char c2 = text.charAt(otherStart + i);
+			if (c1 != c2 && Character.toUpperCase(c1) != Character.toUpperCase(c2)
+					&& Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the type of the current event and null if {@link #next()} has not
+	 * been called.
+	 * 
+	 * @return the type of the current event and null if {@link #next()} has not
+	 *         been called.
+	 */
+	public XMLEventType getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Returns the start offset of the current event (ex: the offset of '&lt;' of
+	 * a start tag, of '&lt;/' of an end tag, of '/&gt;' of a self-closed
+	 * element).
+	 * 
+	 * @return the start offset of the current event.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the end offset of the current event.
+	 * 
+	 * @return the end offset of the current event.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns the offset of '&lt;' of the start tag of the element of a start or
+	 * an end element event and -1 otherwise.
+	 * 
+	 * @return the offset of '&lt;' of the start tag of the element of a start or
+	 *         an end element event and -1 otherwise.
+	 */
+	public int getElementStart() {
+		return elementStart;
+	}
+
+	/**
+	 * Returns the number of open elements (the element of a start element event
+	 * is open, the element of an end element event is not open anymore).
+	 * 
+	 * @return the number of open elements.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns the name of the element of a start or an end element event, the
+	 * target of a processing instruction and null otherwise.
+	 * 
+	 * @return the name of the element of a start or an end element event, the
+	 *         target of a processing instruction and null otherwise.
+	 */
+	public String getName() {
+		if (name == null && hasName()) {
+			name = text.subSequence(nameStart, nameEnd).toString();
+		}
+		return name;
+	}
+
+	/**
+	 * Returns the start offset of the name of the current event and -1 if it has
+	 * no name.
+	 * 
+	 * @return the start offset of the name of the current event and -1 if it has
+	 *         no name.
+	 */
+	public int getNameStart() {
+		return hasName() ? nameStart : NONE;
+	}
+
+	/**
+	 * Returns the end offset of the name of the current event and -1 if it has
+	 * no name.
+	 * 
+	 * @return the end offset of the name of the current event and -1 if it has
+	 *         no name.
+	 */
+	public int getNameEnd() {
+		return hasName() ? nameEnd : NONE;
+	}
+
+	private boolean hasName() {
+		return nameStart != NONE && (eventType == XMLEventType.START_ELEMENT
+				|| eventType == XMLEventType.END_ELEMENT || eventType == XMLEventType.PROCESSING_INSTRUCTION);
+	}
+
+	/**
+	 * Returns true if the element of an end element event is closed with an end
+	 * tag or '/&gt;' and false if it is not closed (ex: &lt;a&gt; in
+	 * &lt;root&gt;&lt;a&gt;&lt;/root&gt;).
+	 * 
+	 * @return true if the element of an end element event is closed and false
+	 *         otherwise.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns true if the element of an end element event is closed with '/&gt;'
+	 * and false otherwise.
+	 * 
+	 * @return true if the element of an end element event is closed with '/&gt;'
+	 *         and false otherwise.
+	 */
+	public boolean isSelfClosed() {
+		return selfClosed;
+	}
+
+	/**
+	 * Returns the text of a text event, the content of a CDATA, a comment or a
+	 * processing instruction event and null otherwise. The returned sequence is a
+	 * view of the text which is reused by the next event, so it must not be
+	 * stored.
+	 * 
+	 * @return the text of a text event, the content of a CDATA, a comment or a
+	 *         processing instruction event and null otherwise.
+	 */
+	public CharSequence getText() {
+		if (textStart == NONE || eventType == XMLEventType.START_ELEMENT
+				|| eventType == XMLEventType.END_ELEMENT) {
+			return null;
+		}
+		return window.setRegion(text, textStart, textEnd);
+	}
+
+	/**
+	 * Returns the number of attributes of a start element or a processing
+	 * instruction event.
+	 * 
+	 * @return the number of attributes of a start element or a processing
+	 *         instruction event.
+	 */
+	public int getAttributeCount() {
+		return eventType == XMLEventType.START_ELEMENT || eventType == XMLEventType.PROCESSING_INSTRUCTION
+				? attributeCount
+				: 0;
+	}
+
+	/**
+	 * Returns the name of the attribute at the given index.
+	 * 
+	 * @param index the attribute index.
+	 * @return the name of the attribute at the given index.
+	 */
+	public String getAttributeName(int index) {
+		int field = getAttributeField(index);
+		return text.subSequence(attributes[field], attributes[field + 1]).toString();
+	}
+
+	/**
+	 * Returns the value (without quotations) of the attribute at the given index
+	 * and null if it has no value.
+	 * 
+	 * @param index the attribute index.
+	 * @return the value (without quotations) of the attribute at the given index
+	 *         and null if it has no value.
+	 */
+	public String getAttributeValue(int index) {
+		int field = getAttributeField(index);
+		int valueStart = attributes[field + 2];
+		int valueEnd = attributes[field + 3];
+		if (valueStart == NONE) {
+			return null;
+		}
+		if (valueEnd > valueStart && isQuote(text.charAt(valueStart))) {
+			valueStart++;
+		}
+		if (valueEnd > valueStart && isQuote(text.charAt(valueEnd - 1))) {
+			valueEnd--;
+		}
+		return text.subSequence(valueStart, valueEnd).toString();
+	}
+
+	/**
+	 * Returns the start offset of the name of the attribute at the given index.
+	 * 
+	 * @param index the attribute index.
+	 * @return the start offset of the name of the attribute at the given index.
+	 */
+	public int getAttributeStart(int index) {
+		return attributes[getAttributeField(index)];
+	}
+
+	/**
+	 * Returns the end offset of the attribute at the given index (the end of its
+	 * value, or of its name when it has no value).
+	 * 
+	 * @param index the attribute index.
+	 * @return the end offset of the attribute at the given index.
+	 */
+	public int getAttributeEnd(int index) {
+		int field = getAttributeField(index);
+		return attributes[field + 3] != NONE ? attributes[field + 3] : attributes[field + 1];
+	}
+
+	private static boolean isQuote(char c) {
+		return c == '"' || c == '\'';
+	}
+
+	private int getAttributeField(int index) {
+		if (index < 0 || index >= getAttributeCount()) {
+			throw new IndexOutOfBoundsException("index: " + index + ", count: " + getAttributeCount());
+		}
+		return index * ATTRIBUTE_FIELDS;
+	}
+}
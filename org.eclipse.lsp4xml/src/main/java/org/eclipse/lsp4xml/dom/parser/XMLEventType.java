@@ -0,0 +1,54 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+/**
+ * Type of the events of a {@link XMLEventReader}.
+ *
+ */
+public enum XMLEventType {
+
+	/**
+	 * A start tag (ex: &lt;root attr="value"&gt;).
+	 */
+	START_ELEMENT,
+
+	/**
+	 * The end of an element: an end tag, '/&gt;' of a self-closed element or the
+	 * end of an unclosed element.
+	 */
+	END_ELEMENT,
+
+	/**
+	 * A text content.
+	 */
+	TEXT,
+
+	/**
+	 * A CDATA section.
+	 */
+	CDATA,
+
+	/**
+	 * A comment.
+	 */
+	COMMENT,
+
+	/**
+	 * A processing instruction or the prolog (ex: &lt;?xml version="1.0"?&gt;).
+	 */
+	PROCESSING_INSTRUCTION,
+
+	/**
+	 * The end of the document.
+	 */
+	END_DOCUMENT;
+}
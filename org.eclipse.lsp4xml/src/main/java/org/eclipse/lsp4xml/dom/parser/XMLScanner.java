@@ -12,6 +12,7 @@ package org.eclipse.lsp4xml.dom.parser;
 
 import static org.eclipse.lsp4xml.dom.parser.Constants.*;
 
+import org.eclipse.lsp4xml.commons.CharSequenceWindow;
 import org.eclipse.lsp4xml.dom.DOMDocumentType.DocumentTypeKind;;
 
 /**
@@ -27,11 +28,7 @@ public class XMLScanner implements Scanner {
 	String tokenError;
 
 	
-	String lastTag;
-	String lastAttributeName;
-	String lastTypeValue;
 	String lastDoctypeKind;
-	String url;
 	boolean isInsideDTDContent = false; // Either internal dtd in xml file OR external dtd in dtd file
 	boolean isDeclCompleted = false; // If any type of DTD declaration was supplied with all the required properties
 	TokenType tempToken;
@@ -49,25 +46,66 @@ public class XMLScanner implements Scanner {
 	boolean isInitialAttlistDeclCompleted = false; 
 	private int nbBraceOpened;
 
-	public XMLScanner(String input, int initialOffset, ScannerState initialState, boolean isDTDFile) {
+	private final ScannerCheckpoints checkpoints;
+	private int nextCheckpointOffset;
+
+	private CharSequenceWindow tokenText;
+
+	public XMLScanner(CharSequence input, int initialOffset, ScannerState initialState, boolean isDTDFile) {
+		this(input, initialOffset, initialState, isDTDFile, null);
+	}
+
+	/**
+	 * XML scanner constructor.
+	 * 
+	 * @param input         the text to scan.
+	 * @param initialOffset the offset where the scan starts.
+	 * @param initialState  the scanner state at the initial offset.
+	 * @param isDTDFile     true if the text is a DTD file and false otherwise.
+	 * @param checkpoints   the checkpoints to fill while scanning and null
+	 *                      otherwise.
+	 */
+	public XMLScanner(CharSequence input, int initialOffset, ScannerState initialState, boolean isDTDFile,
+			ScannerCheckpoints checkpoints) {
 		stream = new MultiLineStream(input, initialOffset);
 		state = initialState;
 		tokenOffset = 0;
 		isInsideDTDContent = ScannerState.DTDWithinContent.equals(initialState);
 		tokenType = TokenType.Unknown;
 		this.isDTDFile = isDTDFile;
+		this.checkpoints = checkpoints;
+		this.nextCheckpointOffset = checkpoints != null ? initialOffset + checkpoints.getInterval() : -1;
+	}
+
+	/**
+	 * XML scanner constructor which resumes a scan from the given checkpoint.
+	 * 
+	 * @param input      the text to scan.
+	 * @param checkpoint the checkpoint recorded by a previous scan of the same
+	 *                   text.
+	 */
+	public XMLScanner(CharSequence input, ScannerCheckpoint checkpoint) {
+		this(input, checkpoint.getOffset(), checkpoint.getState(), checkpoint.isDTDFile());
+		isInsideDTDContent = checkpoint.isInsideDTDContent();
+		isDeclCompleted = checkpoint.isDeclCompleted();
+		isInitialAttlistDeclCompleted = checkpoint.isInitialAttlistDeclCompleted();
+		nbBraceOpened = checkpoint.getNbBraceOpened();
 	}
 
-	String nextElementName() {
-		return stream.advanceIfRegExp(ELEMENT_NAME_REGEX).toLowerCase();
+	boolean nextElementName() {
+		return stream.advanceIfElementName() > 0;
 	}
 
-	String nextAttributeName() {
-		return stream.advanceIfRegExp(ATTRIBUTE_NAME_REGEX).toLowerCase();
+	boolean nextAttributeName() {
+		return stream.advanceIfAttributeName() > 0;
 	}
 
-	String doctypeName() {
-		return stream.advanceIfRegExp(ELEMENT_NAME_REGEX).toLowerCase();
+	boolean doctypeName() {
+		return stream.advanceIfElementName() > 0;
+	}
+
+	boolean nextURLValue() {
+		return stream.advanceIfURLValue() > 0;
 	}
 
 	/**
@@ -76,7 +114,33 @@ public class XMLScanner implements Scanner {
 	 * @return "PUBLIC" or "SYSTEM" or "" otherwise
 	 */
 	String doctypeKind() {
-		return stream.advanceIfRegExpGroup1(DOCTYPE_KIND_OPTIONS);
+		return stream.advanceIfDoctypeKind();
+	}
+
+	/**
+	 * Returns true if the text from the given offset is a prolog name (same
+	 * syntax than {@link Constants#PROLOG_NAME_OPTIONS}) and false otherwise.
+	 */
+	private boolean isPrologName(int offset) {
+		return stream.regionEquals(offset, stream.pos(), "xml", false)
+				|| stream.regionEquals(offset, stream.pos(), "xml-stylesheet", false);
+	}
+
+	/**
+	 * Returns true if the text from the given offset is a processing instruction
+	 * name (same syntax than {@link Constants#PI_TAG_NAME}) and false otherwise.
+	 */
+	private boolean isPITagName(int offset) {
+		if (offset == stream.pos()) {
+			return false;
+		}
+		for (int i = offset; i < stream.pos(); i++) {
+			int c = stream.peekCharAtOffset(i);
+			if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	TokenType finishToken(int offset, TokenType type) {
@@ -99,7 +163,12 @@ public class XMLScanner implements Scanner {
 			log("Scanner.scan has not advanced at offset " + offset + ", state before: " + oldState + " after: "
 					+ state);
 			stream.advance(1);
-			return finishToken(offset, TokenType.Unknown);
+			token = finishToken(offset, TokenType.Unknown);
+		}
+		if (checkpoints != null && token != TokenType.EOS && stream.pos() >= nextCheckpointOffset) {
+			checkpoints.add(new ScannerCheckpoint(stream.pos(), state, isInsideDTDContent, isDeclCompleted,
+					isInitialAttlistDeclCompleted, nbBraceOpened, isDTDFile));
+			nextCheckpointOffset = stream.pos() + checkpoints.getInterval();
 		}
 		return token;
 	}
@@ -130,12 +199,11 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.PIEnd);
 			}
 			if (stream.advanceUntilAnyOfChars(_NWL, _CAR, _WSP, _QMA, _RAN) || stream.eos()) { // \n or \r or ' ' or '?'
-				String name = getTokenTextFromOffset(offset);
-				if (PROLOG_NAME_OPTIONS.matcher(name).matches()) { // name eg: xml
+				if (isPrologName(offset)) { // name eg: xml
 					state = ScannerState.WithinTag;
 					return finishToken(offset, TokenType.PrologName);
 				}
-				if (PI_TAG_NAME.matcher(name).matches()) { // {name} eg: m2e
+				if (isPITagName(offset)) { // {name} eg: m2e
 					state = ScannerState.WithinPI;
 					return finishToken(offset, TokenType.PIName);
 				}
@@ -159,7 +227,7 @@ public class XMLScanner implements Scanner {
 				if (stream.peekChar() == _LAN) {
 					state = ScannerState.WithinContent;
 				}
-				if (getTokenTextFromOffset(offset).length() == 0) {
+				if (stream.pos() == offset) {
 					return finishToken(offset, TokenType.PIEnd);
 				}
 			}
@@ -206,8 +274,7 @@ public class XMLScanner implements Scanner {
 			return finishToken(offset, TokenType.CDATAContent);
 
 		case AfterOpeningEndTag:
-			String tagName = nextElementName();
-			if (tagName.length() > 0) {
+			if (nextElementName()) {
 				state = ScannerState.WithinEndTag;
 				return finishToken(offset, TokenType.EndTag);
 			}
@@ -239,10 +306,7 @@ public class XMLScanner implements Scanner {
 			return finishToken(offset, TokenType.Whitespace);
 
 		case AfterOpeningStartTag:
-			lastTag = nextElementName();
-			lastTypeValue = null;
-			lastAttributeName = null;
-			if (lastTag.length() > 0) {
+			if (nextElementName()) {
 				state = ScannerState.WithinTag;
 				return finishToken(offset, TokenType.StartTag);
 			}
@@ -268,8 +332,7 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.PrologEnd);
 			}
 			
-				lastAttributeName = nextAttributeName();
-				if (lastAttributeName.length() > 0) {
+				if (nextAttributeName()) {
 					state = ScannerState.AfterAttributeName;
 					return finishToken(offset, TokenType.AttributeName);
 				}
@@ -307,11 +370,7 @@ public class XMLScanner implements Scanner {
 			if (stream.skipWhitespace()) {
 				return finishToken(offset, TokenType.Whitespace);
 			}
-			String attributeValue = stream.advanceIfRegExp(ATTRIBUTE_VALUE_REGEX);
-			if (attributeValue.length() > 0) {
-				if ("type".equals(lastAttributeName)) {
-					lastTypeValue = attributeValue;
-				}
+			if (stream.advanceIfAttributeValue() > 0) {
 				state = ScannerState.WithinTag;
 				return finishToken(offset, TokenType.AttributeValue);
 			}
@@ -353,8 +412,7 @@ public class XMLScanner implements Scanner {
 
 			
 			if (isDeclCompleted == false) {
-				String doctypeName = doctypeName();
-				if(!doctypeName.equals("")) {
+				if (doctypeName()) {
 					state = ScannerState.DTDAfterDoctypeName;
 					return finishToken(offset, TokenType.DTDDoctypeName);
 				}
@@ -386,8 +444,7 @@ public class XMLScanner implements Scanner {
 			if (stream.skipWhitespace()) {
 				return finishToken(offset, TokenType.Whitespace);
 			}
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX);
-			if (!url.equals("")) {
+			if (nextURLValue()) {
 				state = ScannerState.DTDAfterDoctypePublicId;
 				return finishToken(offset, TokenType.DTDDoctypePublicId);
 			}
@@ -401,8 +458,7 @@ public class XMLScanner implements Scanner {
 			}
 
 			state = ScannerState.DTDWithinDoctype;
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX);
-			if (!url.equals("")) {
+			if (nextURLValue()) {
 				return finishToken(offset, TokenType.DTDDoctypeSystemId);
 			}
 
@@ -415,8 +471,7 @@ public class XMLScanner implements Scanner {
 			}
 
 			state = ScannerState.DTDWithinDoctype;
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX); // scan the System Identifier URL
-			if (!url.equals("")) {
+			if (nextURLValue()) { // scan the System Identifier URL
 				return finishToken(offset, TokenType.DTDDoctypeSystemId);
 			}
 
@@ -529,7 +584,7 @@ public class XMLScanner implements Scanner {
 				return internalScan();
 			}
 
-			if (!stream.advanceIfRegExp(Constants.ELEMENT_NAME_REGEX).equals("")) {
+			if (nextElementName()) {
 				state = ScannerState.DTDElementAfterName;
 				return finishToken(offset, TokenType.DTDElementDeclName);
 			}
@@ -610,7 +665,7 @@ public class XMLScanner implements Scanner {
 				return internalScan();
 			}
 
-			if (isInitialAttlistDeclCompleted == false && !stream.advanceIfRegExp(Constants.ELEMENT_NAME_REGEX).equals("")) {
+			if (isInitialAttlistDeclCompleted == false && nextElementName()) {
 				state = ScannerState.DTDAfterAttlistElementName;
 				return finishToken(offset, TokenType.DTDAttlistElementName);
 			}
@@ -623,7 +678,7 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.Whitespace);
 			}
 
-			if (!stream.advanceIfRegExp(Constants.ATTRIBUTE_NAME_REGEX).equals("")) {
+			if (stream.advanceIfAttributeName() > 0) {
 				state = ScannerState.DTDAfterAttlistAttributeName;
 				return finishToken(offset, TokenType.DTDAttlistAttributeName);
 			}
@@ -689,7 +744,7 @@ public class XMLScanner implements Scanner {
 				return internalScan();
 			}
 
-			if (!stream.advanceIfRegExp(Constants.ELEMENT_NAME_REGEX).equals("")) {
+			if (nextElementName()) {
 				state = ScannerState.DTDAfterEntityName;
 				return finishToken(offset, TokenType.DTDEntityName);
 			}
@@ -734,7 +789,7 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.Whitespace);
 			}
 
-			if (!stream.advanceIfRegExp(URL_VALUE_REGEX).equals("")) {
+			if (nextURLValue()) {
 				state = ScannerState.DTDAfterEntitySYSTEM;
 				return finishToken(offset, TokenType.DTDEntityPublicId);
 			}
@@ -752,7 +807,7 @@ public class XMLScanner implements Scanner {
 				return finishToken(offset, TokenType.Whitespace);
 			}
 
-			if (!stream.advanceIfRegExp(URL_VALUE_REGEX).equals("")) {
+			if (nextURLValue()) {
 				isDeclCompleted = true;
 				state = ScannerState.DTDWithinEntity;
 				return finishToken(offset, TokenType.DTDEntitySystemId);
@@ -781,7 +836,7 @@ public class XMLScanner implements Scanner {
 				return internalScan();
 			}
 
-			if (!stream.advanceIfRegExp(ELEMENT_NAME_REGEX).equals("")) {
+			if (nextElementName()) {
 				state = ScannerState.DTDAfterNotationName;
 				return finishToken(offset, TokenType.DTDNotationName);
 			}
@@ -810,8 +865,7 @@ public class XMLScanner implements Scanner {
 			if (stream.skipWhitespace()) {
 				return finishToken(offset, TokenType.Whitespace);
 			}
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX);
-			if (!url.equals("")) {
+			if (nextURLValue()) {
 				isDeclCompleted = true;
 				state = ScannerState.DTDAfterNotationPublicId;
 				return finishToken(offset, TokenType.DTDNotationPublicId);
@@ -826,8 +880,7 @@ public class XMLScanner implements Scanner {
 			}
 
 			state = ScannerState.DTDWithinNotation;
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX);
-			if (!url.equals("")) {
+			if (nextURLValue()) {
 				isDeclCompleted = true;
 				state = ScannerState.DTDAfterNotationName;
 				return finishToken(offset, TokenType.DTDNotationSystemId);
@@ -841,8 +894,7 @@ public class XMLScanner implements Scanner {
 			}
 
 			state = ScannerState.DTDAfterNotationName;
-			url = stream.advanceIfRegExp(URL_VALUE_REGEX); // scan the System Identifier URL
-			if (!url.equals("")) {
+			if (nextURLValue()) { // scan the System Identifier URL
 				isDeclCompleted = true;
 				return finishToken(offset, TokenType.DTDNotationSystemId);
 			}
@@ -899,7 +951,30 @@ public class XMLScanner implements Scanner {
 
 	@Override
 	public String getTokenText() {
-		return stream.getSource().substring(tokenOffset, stream.pos());
+		return stream.getSource().subSequence(tokenOffset, stream.pos()).toString();
+	}
+
+	@Override
+	public CharSequence getTokenTextSequence() {
+		if (tokenText == null) {
+			tokenText = new CharSequenceWindow();
+		}
+		return tokenText.setRegion(stream.getSource(), tokenOffset, stream.pos());
+	}
+
+	@Override
+	public boolean isTokenTextEquals(String text) {
+		return stream.regionEquals(tokenOffset, stream.pos(), text, false);
+	}
+
+	@Override
+	public boolean isTokenTextEqualsIgnoreCase(String text) {
+		return stream.regionEquals(tokenOffset, stream.pos(), text, true);
+	}
+
+	@Override
+	public boolean isTokenTextWhitespace() {
+		return stream.isWhitespace(tokenOffset, stream.pos());
 	}
 
 	@Override
@@ -913,32 +988,51 @@ public class XMLScanner implements Scanner {
 	}
 
 	public String getTokenTextFromOffset(int offset) {
-		return stream.getSource().substring(offset, stream.pos());
+		return stream.getSource().subSequence(offset, stream.pos()).toString();
 	}
 
-	public static Scanner createScanner(String input) {
+	public static Scanner createScanner(CharSequence input) {
 		return createScanner(input, false);
 	}
 
-	public static Scanner createScanner(String input, boolean isDTD) {
+	public static Scanner createScanner(CharSequence input, boolean isDTD) {
 		return createScanner(input, 0, isDTD);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset) {
+	public static Scanner createScanner(CharSequence input, int initialOffset) {
 		return createScanner(input, initialOffset, false);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset, boolean isDTDFile) {
+	public static Scanner createScanner(CharSequence input, int initialOffset, boolean isDTDFile) {
 		return createScanner(input, initialOffset,
 				isDTDFile ? ScannerState.DTDWithinContent : ScannerState.WithinContent, isDTDFile);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset, ScannerState initialState) {
+	public static Scanner createScanner(CharSequence input, int initialOffset, ScannerState initialState) {
 		return new XMLScanner(input, initialOffset, initialState, false);
 	}
 
-	public static Scanner createScanner(String input, int initialOffset, ScannerState initialState, boolean isDTDFile) {
+	public static Scanner createScanner(CharSequence input, int initialOffset, ScannerState initialState, boolean isDTDFile) {
 		return new XMLScanner(input, initialOffset, initialState, isDTDFile);
 	}
 
+	public static Scanner createScanner(CharSequence input, int initialOffset, ScannerState initialState,
+			boolean isDTDFile, ScannerCheckpoints checkpoints) {
+		return new XMLScanner(input, initialOffset, initialState, isDTDFile, checkpoints);
+	}
+
+	/**
+	 * Returns a scanner which resumes a scan of the given text from the given
+	 * checkpoint.
+	 * 
+	 * @param input      the text to scan.
+	 * @param checkpoint the checkpoint recorded by a previous scan of the same
+	 *                   text.
+	 * @return a scanner which resumes a scan of the given text from the given
+	 *         checkpoint.
+	 */
+	public static Scanner createScanner(CharSequence input, ScannerCheckpoint checkpoint) {
+		return new XMLScanner(input, checkpoint);
+	}
+
 }
@@ -1,6 +1,8 @@
 package org.eclipse.lsp4xml.extensions.contentmodel;
 
 import org.eclipse.lsp4j.InitializeParams;
+import org.eclipse.lsp4xml.commons.IMemoryReclaimer;
+import org.eclipse.lsp4xml.commons.MemoryGovernor;
 import org.eclipse.lsp4xml.dom.DOMDocument;
 import org.eclipse.lsp4xml.extensions.contentmodel.model.ContentModelManager;
 import org.eclipse.lsp4xml.extensions.contentmodel.participants.ContentModelCodeActionParticipant;
@@ -28,6 +30,9 @@ import org.eclipse.lsp4xml.utils.DOMUtils;
  */
 public class ContentModelPlugin implements IXMLExtension {
 
+	// time after which a XML Schema, DTD which is not used can be released
+	private static final long UNUSED_CM_DOCUMENT_TIME = 60 * 1000;
+
 	private final ICompletionParticipant completionParticipant;
 
 	private final IHoverParticipant hoverParticipant;
@@ -41,6 +46,8 @@ public class ContentModelPlugin implements IXMLExtension {
 	ContentModelManager contentModelManager;
 
 	private ContentModelSettings cmSettings;
+
+	private final IMemoryReclaimer cmDocumentsReclaimer;
 	
 	public ContentModelPlugin() {
 		completionParticipant = new ContentModelCompletionParticipant();
@@ -48,6 +55,7 @@ public class ContentModelPlugin implements IXMLExtension {
 		diagnosticsParticipant = new ContentModelDiagnosticsParticipant(this);
 		codeActionParticipant = new ContentModelCodeActionParticipant();
 		documentLinkParticipant = new ContentModelDocumentLinkParticipant();
+		cmDocumentsReclaimer = () -> contentModelManager.evictUnusedCMDocuments(UNUSED_CM_DOCUMENT_TIME);
 	}
 
 	@Override
@@ -119,6 +127,13 @@ public class ContentModelPlugin implements IXMLExtension {
 		URIResolverExtensionManager resolverManager = registry.getComponent(URIResolverExtensionManager.class);
 		contentModelManager = new ContentModelManager(resolverManager);
 		registry.registerComponent(contentModelManager);
+		MemoryGovernor memoryGovernor = registry.getComponent(MemoryGovernor.class);
+		if (memoryGovernor != null) {
+			// release the XML Schema, DTD which are not used when the heap is under
+			// pressure
+			memoryGovernor.register("unused XML Schema/DTD", MemoryGovernor.CONTENT_MODELS_PRIORITY,
+					cmDocumentsReclaimer);
+		}
 		if (params != null) {
 			contentModelManager.setRootURI(params.getRootUri());
 		}
@@ -131,6 +146,10 @@ public class ContentModelPlugin implements IXMLExtension {
 
 	@Override
 	public void stop(XMLExtensionsRegistry registry) {
+		MemoryGovernor memoryGovernor = registry.getComponent(MemoryGovernor.class);
+		if (memoryGovernor != null) {
+			memoryGovernor.unregister(cmDocumentsReclaimer);
+		}
 		registry.unregisterCompletionParticipant(completionParticipant);
 		registry.unregisterHoverParticipant(hoverParticipant);
 		registry.unregisterDiagnosticsParticipant(diagnosticsParticipant);
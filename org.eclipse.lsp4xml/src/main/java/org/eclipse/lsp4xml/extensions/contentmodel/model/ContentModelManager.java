@@ -11,10 +11,9 @@
 package org.eclipse.lsp4xml.extensions.contentmodel.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.lsp4xml.dom.DOMDocument;
 import org.eclipse.lsp4xml.dom.DOMElement;
@@ -31,7 +30,7 @@ import org.eclipse.lsp4xml.utils.URIUtils;
  */
 public class ContentModelManager {
 
-	private final Map<String, CMDocument> cmDocumentCache;
+	private final Map<String, CMDocumentEntry> cmDocumentCache;
 
 	private final URIResolverExtensionManager resolverManager;
 	private final List<ContentModelProvider> modelProviders;
@@ -40,10 +39,25 @@ public class ContentModelManager {
 	private final XMLCatalogResolverExtension catalogResolverExtension;
 	private final XMLFileAssociationResolverExtension fileAssociationResolver;
 
+	/**
+	 * A cached content model document with its last access time.
+	 */
+	private static class CMDocumentEntry {
+
+		final CMDocument cmDocument;
+
+		volatile long lastAccessTime;
+
+		CMDocumentEntry(CMDocument cmDocument) {
+			this.cmDocument = cmDocument;
+			this.lastAccessTime = System.currentTimeMillis();
+		}
+	}
+
 	public ContentModelManager(URIResolverExtensionManager resolverManager) {
 		this.resolverManager = resolverManager;
 		modelProviders = new ArrayList<>();
-		cmDocumentCache = Collections.synchronizedMap(new HashMap<>());
+		cmDocumentCache = new ConcurrentHashMap<>();
 		fileAssociationResolver = new XMLFileAssociationResolverExtension();
 		resolverManager.registerResolver(fileAssociationResolver);
 		catalogResolverExtension = new XMLCatalogResolverExtension();
@@ -111,17 +125,40 @@ public class ContentModelManager {
 		CMDocument cmDocument = null;
 		boolean isCacheable = isCacheable(key);
 		if (isCacheable) {
-			cmDocument = cmDocumentCache.get(key);
+			CMDocumentEntry entry = cmDocumentCache.get(key);
+			if (entry != null) {
+				entry.lastAccessTime = System.currentTimeMillis();
+				cmDocument = entry.cmDocument;
+			}
 		}
 		if (cmDocument == null) {
 			cmDocument = modelProvider.createCMDocument(key);
 			if (isCacheable && cmDocument != null) {
-				cmDocumentCache.put(key, cmDocument);
+				cmDocumentCache.put(key, new CMDocumentEntry(cmDocument));
 			}
 		}
 		return cmDocument;
 	}
 
+	/**
+	 * Evict the cached content model documents (XML Schema, DTD) which are not
+	 * used since the given time. They are loaded again on the next use.
+	 * 
+	 * @param idleTimeInMillis the idle time in milliseconds.
+	 * @return the number of evicted content model documents.
+	 */
+	public int evictUnusedCMDocuments(long idleTimeInMillis) {
+		long limit = System.currentTimeMillis() - idleTimeInMillis;
+		int evicted = 0;
+		for (Map.Entry<String, CMDocumentEntry> entry : cmDocumentCache.entrySet()) {
+			CMDocumentEntry cmDocumentEntry = entry.getValue();
+			if (cmDocumentEntry.lastAccessTime <= limit && cmDocumentCache.remove(entry.getKey(), cmDocumentEntry)) {
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
 	public CMElementDeclaration findInternalCMElement(DOMElement element) throws Exception {
 		return findInternalCMElement(element, element.getNamespaceURI());
 	}
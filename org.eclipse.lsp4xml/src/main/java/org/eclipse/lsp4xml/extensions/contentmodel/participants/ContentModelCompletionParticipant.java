@@ -108,13 +108,14 @@ public class ContentModelCompletionParticipant extends CompletionParticipantAdap
 													String p, boolean forceUseOfPrefix, ICompletionRequest request, ICompletionResponse response)
 			throws BadLocationException {
 		XMLGenerator generator = request.getXMLGenerator();
+		boolean grammarDocumentation = request.getCompletionSettings().isGrammarDocumentation();
 		for (CMElementDeclaration child : cmElements) {
 			String prefix = forceUseOfPrefix ? p : (element != null ? element.getPrefix(child.getNamespace()) : null);
 			String label = child.getName(prefix);
 			CompletionItem item = new CompletionItem(label);
 			item.setFilterText(request.getFilterForStartTagName(label));
 			item.setKind(CompletionItemKind.Property);
-			String documentation = child.getDocumentation();
+			String documentation = grammarDocumentation ? child.getDocumentation() : null;
 			if (documentation != null) {
 				item.setDetail(documentation);
 			}
@@ -140,12 +141,13 @@ public class ContentModelCompletionParticipant extends CompletionParticipantAdap
 			ContentModelManager contentModelManager = request.getComponent(ContentModelManager.class);
 			// Completion on attribute based on external grammar
 			CMElementDeclaration cmElement = contentModelManager.findCMElement(parentElement);
+			boolean grammarDocumentation = request.getCompletionSettings().isGrammarDocumentation();
 			fillAttributesWithCMAttributeDeclarations(parentElement, fullRange, cmElement, canSupportSnippet,
-					generateValue, response, settings);
+					generateValue, grammarDocumentation, response, settings);
 			// Completion on attribute based on internal grammar
 			cmElement = contentModelManager.findInternalCMElement(parentElement);
 			fillAttributesWithCMAttributeDeclarations(parentElement, fullRange, cmElement, canSupportSnippet,
-					generateValue, response, settings);
+					generateValue, grammarDocumentation, response, settings);
 		} catch (CacheResourceDownloadingException e) {
 			// XML Schema, DTD is loading, ignore this error
 		}
@@ -153,7 +155,7 @@ public class ContentModelCompletionParticipant extends CompletionParticipantAdap
 
 	private void fillAttributesWithCMAttributeDeclarations(DOMElement parentElement, Range fullRange,
 			CMElementDeclaration cmElement, boolean canSupportSnippet, boolean generateValue,
-			ICompletionResponse response, SharedSettings settings) {
+			boolean grammarDocumentation, ICompletionResponse response, SharedSettings settings) {
 		if (cmElement == null) {
 			return;
 		}
@@ -166,7 +168,7 @@ public class ContentModelCompletionParticipant extends CompletionParticipantAdap
 			if (!parentElement.hasAttribute(attrName)) {
 				CompletionItem item = new AttributeCompletionItem(attrName, canSupportSnippet, fullRange, generateValue,
 						cmAttribute.getDefaultValue(), cmAttribute.getEnumerationValues(), settings);
-				String documentation = cmAttribute.getDocumentation();
+				String documentation = grammarDocumentation ? cmAttribute.getDocumentation() : null;
 				if (documentation != null) {
 					item.setDetail(documentation);
 				}
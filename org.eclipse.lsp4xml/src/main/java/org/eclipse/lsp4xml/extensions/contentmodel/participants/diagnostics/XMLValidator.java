@@ -10,9 +10,7 @@
  */
 package org.eclipse.lsp4xml.extensions.contentmodel.participants.diagnostics;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
@@ -96,10 +94,9 @@ public class XMLValidator {
 			reader.setFeature("http://xml.org/sax/features/validation", hasGrammar); //$NON-NLS-1$
 
 			// Parse XML
-			String content = document.getText();
 			String uri = document.getDocumentURI();
 			InputSource inputSource = new InputSource();
-			inputSource.setByteStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+			inputSource.setCharacterStream(document.getTextReader());
 			inputSource.setSystemId(uri);
 			reader.parse(inputSource);
 
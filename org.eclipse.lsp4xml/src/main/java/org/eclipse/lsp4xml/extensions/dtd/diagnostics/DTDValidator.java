@@ -10,9 +10,7 @@
  */
 package org.eclipse.lsp4xml.extensions.dtd.diagnostics;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
 import java.util.List;
 
 import org.apache.xerces.impl.dtd.XMLDTDLoader;
@@ -40,10 +38,9 @@ public class DTDValidator {
 				loader.setEntityResolver(entityResolver);
 			}
 
-			String content = document.getText();
 			String uri = document.getDocumentURI();
-			InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
-			XMLInputSource source = new XMLInputSource(null, uri, uri, inputStream, null);
+			Reader reader = document.getTextReader();
+			XMLInputSource source = new XMLInputSource(null, uri, uri, reader, null);
 			loader.loadGrammar(source);
 		} catch (Exception e) {
 
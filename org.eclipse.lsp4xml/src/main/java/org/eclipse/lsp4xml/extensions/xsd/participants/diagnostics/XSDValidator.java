@@ -10,9 +10,7 @@
  */
 package org.eclipse.lsp4xml.extensions.xsd.participants.diagnostics;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -85,10 +83,9 @@ public class XSDValidator {
 			}
 
 			try {
-				String content = document.getText();
 				String uri = document.getDocumentURI();
-				InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
-				XMLInputSource is = new XMLInputSource(null, uri, uri, inputStream, null);
+				Reader reader = document.getTextReader();
+				XMLInputSource is = new XMLInputSource(null, uri, uri, reader, null);
 				grammarPreparser.getLoader(XMLGrammarDescription.XML_SCHEMA);
 				grammarPreparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA, is);
 			} catch (Exception e) {
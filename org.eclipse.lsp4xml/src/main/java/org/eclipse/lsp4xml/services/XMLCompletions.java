@@ -84,7 +84,7 @@ class XMLCompletions {
 		}
 
 		Scanner scanner = XMLScanner.createScanner(text, node.getStart(), isInsideDTDContent(node, xmlDocument));
-		String currentTag = "";
+		boolean hasCurrentTag = false;
 		completionRequest.setCurrentAttributeName(null);
 		TokenType token = scanner.scan();
 		while (token != TokenType.EOS && scanner.getTokenOffset() <= offset) {
@@ -102,7 +102,7 @@ class XMLCompletions {
 							completionResponse);
 					return completionResponse;
 				}
-				currentTag = scanner.getTokenText();
+				hasCurrentTag = scanner.getTokenLength() > 0;
 				break;
 			case AttributeName:
 				if (scanner.getTokenOffset() <= offset && offset <= scanner.getTokenEnd()) {
@@ -180,7 +180,7 @@ class XMLCompletions {
 				break;
 			case StartTagClose:
 				if (offset <= scanner.getTokenEnd()) {
-					if (currentTag != null && currentTag.length() > 0) {
+					if (hasCurrentTag) {
 						collectInsideContent(completionRequest, completionResponse);
 						return completionResponse;
 					}
@@ -188,7 +188,7 @@ class XMLCompletions {
 				break;
 			case StartTagSelfClose:
 				if (offset <= scanner.getTokenEnd()) {
-					if (currentTag != null && currentTag.length() > 0) {
+					if (hasCurrentTag) {
 						collectInsideContent(completionRequest, completionResponse);
 						return completionResponse;
 					}
@@ -196,7 +196,7 @@ class XMLCompletions {
 				break;
 			case EndTagClose:
 				if (offset <= scanner.getTokenEnd()) {
-					if (currentTag != null && currentTag.length() > 0) {
+					if (hasCurrentTag) {
 						collectInsideContent(completionRequest, completionResponse);
 						return completionResponse;
 					}
@@ -428,7 +428,7 @@ class XMLCompletions {
 	}
 
 	private boolean isAttributeValue(DOMDocument xmlDocument, DOMNode node, int offset) {
-		Scanner scanner = XMLScanner.createScanner(xmlDocument.getText(), node.getStart(), isInsideDTDContent(node, xmlDocument));
+		Scanner scanner = xmlDocument.createScanner(node.getStart(), isInsideDTDContent(node, xmlDocument), offset);
 		TokenType token = scanner.scan();
 		while (token != TokenType.EOS && scanner.getTokenOffset() <= offset) {
 			if (token == AttributeValue) {
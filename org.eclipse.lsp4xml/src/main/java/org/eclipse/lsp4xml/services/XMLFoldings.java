@@ -11,6 +11,7 @@
 package org.eclipse.lsp4xml.services;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -25,11 +26,11 @@ import java.util.regex.Pattern;
 import org.eclipse.lsp4j.FoldingRange;
 import org.eclipse.lsp4j.FoldingRangeCapabilities;
 import org.eclipse.lsp4j.FoldingRangeKind;
+import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4xml.commons.BadLocationException;
 import org.eclipse.lsp4xml.commons.TextDocument;
-import org.eclipse.lsp4xml.dom.parser.Scanner;
-import org.eclipse.lsp4xml.dom.parser.TokenType;
-import org.eclipse.lsp4xml.dom.parser.XMLScanner;
+import org.eclipse.lsp4xml.dom.parser.XMLEventReader;
+import org.eclipse.lsp4xml.dom.parser.XMLEventType;
 import org.eclipse.lsp4xml.services.extensions.XMLExtensionsRegistry;
 
 /**
@@ -50,70 +51,65 @@ class XMLFoldings {
 
 		public final int startLine;
 
-		public final String tagName;
+		// depth of the element and REGION for a #region comment
+		public final int depth;
 
-		public TagInfo(int startLine, String tagName) {
+		public TagInfo(int startLine, int depth) {
 			this.startLine = startLine;
-			this.tagName = tagName;
+			this.depth = depth;
 		}
 	}
 
+	private static final int REGION = -1;
+
 	public List<FoldingRange> getFoldingRanges(TextDocument document, FoldingRangeCapabilities context) {		
-		Scanner scanner = XMLScanner.createScanner(document.getText());
-		TokenType token = scanner.scan();
 		List<FoldingRange> ranges = new ArrayList<>();
 
 		List<TagInfo> stack = new ArrayList<>();
-		String lastTagName = null;
 		int prevStart = -1;
 
 		try {
-			while (token != TokenType.EOS) {
-				switch (token) {
-				case StartTag: {
-					String tagName = scanner.getTokenText();
-					int startLine = document.positionAt(scanner.getTokenOffset()).getLine();
-					stack.add(new TagInfo(startLine, tagName));
-					lastTagName = tagName;
-					break;
-				}
-				case EndTag: {
-					lastTagName = scanner.getTokenText();
+			// Collect the events used by the foldings with their start and end offsets
+			// to compute all lines in one pass over the line index.
+			FoldingEvents events = readEvents(document);
+			Position[] positions = document.positionsAt(events.getOffsets());
+			for (int index = 0; index < events.size(); index++) {
+				XMLEventType event = events.getType(index);
+				switch (event) {
+				case START_ELEMENT: {
+					int startLine = positions[index * 2].getLine();
+					stack.add(new TagInfo(startLine, events.getDepth(index)));
 					break;
 				}
-				case StartTagClose:
-					if (lastTagName != null /* || !isEmptyElement(lastTagName) */) {
-						break;
-					}
-					// fallthrough
-				case EndTagClose:
-				case StartTagSelfClose: {
+				case END_ELEMENT: {
+					// the element is not in the stack when a #endregion comment has ended it
 					int i = stack.size() - 1;
-					while (i >= 0 && !stack.get(i).tagName.equals(lastTagName)) {
+					while (i >= 0 && stack.get(i).depth != events.getDepth(index)) {
 						i--;
 					}
 					if (i >= 0) {
 						TagInfo stackElement = stack.get(i);
 						stack = stack.subList(0, i); // stack.length = i;
-						int line = document.positionAt(scanner.getTokenOffset()).getLine();
-						int startLine = stackElement.startLine;
-						int endLine = line - 1;
-						if (endLine > startLine && prevStart != startLine) {
-							prevStart = addRange(new FoldingRange(startLine, endLine), ranges);
+						if (events.isClosed(index)) {
+							int line = positions[index * 2].getLine();
+							int startLine = stackElement.startLine;
+							int endLine = line - 1;
+							if (endLine > startLine && prevStart != startLine) {
+								prevStart = addRange(new FoldingRange(startLine, endLine), ranges);
+							}
 						}
 					}
 					break;
 				}
-				case Comment: {
-					int startLine = document.positionAt(scanner.getTokenOffset()).getLine();
-					String text = scanner.getTokenText();
-					Matcher m = REGION_PATTERN.matcher(text);
-					if (m.find()) {
-						if ("#region".equals(m.group().trim())) { // start pattern match
-							stack.add(new TagInfo(startLine, "")); // empty tagName marks region
+				case COMMENT: {
+					int startLine = positions[index * 2].getLine();
+					String region = events.getText(index);
+					if (region != null) {
+						if ("#region".equals(region.trim())) { // start pattern match
+							stack.add(new TagInfo(startLine, REGION));
 						} else {
 							int i = stack.size() - 1;
-							while (i >= 0 && stack.get(i).tagName != null && !stack.get(i).tagName.isEmpty()) {
+							while (i >= 0 && stack.get(i).depth != REGION) {
 								i--;
 							}
 							if (i >= 0) {
@@ -129,8 +125,7 @@ class XMLFoldings {
 							}
 						}
 					} else {
-						int endLine = document.positionAt(scanner.getTokenOffset() + scanner.getTokenLength())
-								.getLine();
+						int endLine = positions[index * 2 + 1].getLine();
 						if (startLine < endLine) {
 							FoldingRange range = new FoldingRange(startLine, endLine);
 							range.setKind(FoldingRangeKind.Comment);
@@ -141,7 +136,6 @@ class XMLFoldings {
 				}
 				default:
 				}
-				token = scanner.scan();
 			}
 
 			int rangeLimit = context != null && context.getRangeLimit() != null ? context.getRangeLimit()
@@ -159,6 +153,93 @@ class XMLFoldings {
 		return ranges;
 	}
 
+	private static FoldingEvents readEvents(TextDocument document) {
+		// the event reader matches the start and end tags without creating a DOM
+		XMLEventReader reader = new XMLEventReader(document.getTextSequence());
+		FoldingEvents events = new FoldingEvents();
+		Matcher regionMatcher = REGION_PATTERN.matcher("");
+		XMLEventType event = reader.next();
+		while (event != XMLEventType.END_DOCUMENT) {
+			switch (event) {
+			case START_ELEMENT:
+				events.add(event, null, reader.getDepth(), false, reader.getStart(), reader.getStart());
+				break;
+			case END_ELEMENT: {
+				// the line of the end of the end tag (or of '/>') ends the folding
+				int offset = reader.isClosed() ? reader.getEnd() : reader.getStart();
+				events.add(event, null, reader.getDepth() + 1, reader.isClosed(), offset, offset);
+				break;
+			}
+			case COMMENT: {
+				// match the region pattern on a view of the comment to avoid copying its text
+				CharSequence comment = reader.getText();
+				String region = null;
+				if (comment != null) {
+					regionMatcher.reset(comment);
+					region = regionMatcher.find() ? regionMatcher.group() : null;
+				}
+				events.add(event, region, 0, false, reader.getStart(), reader.getEnd());
+				break;
+			}
+			default:
+			}
+			event = reader.next();
+		}
+		return events;
+	}
+
+	/**
+	 * Events used to compute the foldings with their start and end offsets (sorted
+	 * by the reader).
+	 */
+	private static class FoldingEvents {
+
+		private final List<XMLEventType> types = new ArrayList<>();
+		private final List<String> texts = new ArrayList<>();
+		private int[] depths = new int[32];
+		private boolean[] closed = new boolean[32];
+		private int[] offsets = new int[64];
+
+		public void add(XMLEventType type, String text, int depth, boolean closed, int startOffset, int endOffset) {
+			int index = types.size();
+			if (index * 2 + 1 >= offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				depths = Arrays.copyOf(depths, depths.length * 2);
+				this.closed = Arrays.copyOf(this.closed, this.closed.length * 2);
+			}
+			offsets[index * 2] = startOffset;
+			offsets[index * 2 + 1] = endOffset;
+			depths[index] = depth;
+			this.closed[index] = closed;
+			types.add(type);
+			texts.add(text);
+		}
+
+		public int size() {
+			return types.size();
+		}
+
+		public XMLEventType getType(int index) {
+			return types.get(index);
+		}
+
+		public String getText(int index) {
+			return texts.get(index);
+		}
+
+		public int getDepth(int index) {
+			return depths[index];
+		}
+
+		public boolean isClosed(int index) {
+			return closed[index];
+		}
+
+		public int[] getOffsets() {
+			return Arrays.copyOf(offsets, types.size() * 2);
+		}
+	}
+
 	private static int addRange(FoldingRange range, List<FoldingRange> ranges) {
 		ranges.add(range);
 		return range.getStartLine();
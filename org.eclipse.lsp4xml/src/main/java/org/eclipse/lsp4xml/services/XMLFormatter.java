@@ -61,7 +61,7 @@ class XMLFormatter {
 			int end = -1;
 			if (range == null) {
 				start = 0;
-				end = document.getText().length();
+				end = document.getTextSequence().length();
 			} else {
 				start = document.offsetAt(range.getStart());
 				end = document.offsetAt(range.getEnd());
@@ -71,8 +71,11 @@ class XMLFormatter {
 
 			// Parse the content to format to create an XML document with full data (CData,
 			// comments, etc)
-			String text = document.getText().substring(start, end);
-			DOMDocument doc = DOMParser.getInstance().parse(text, document.getUri(), null);
+			// the whole document is parsed directly from the text of the document,
+			// only the text of a range is copied.
+			DOMDocument doc = range == null ? DOMParser.getInstance().parse(document, null)
+					: DOMParser.getInstance().parse(document.getTextSequence().subSequence(start, end).toString(),
+							document.getUri(), null);
 
 			// Format the content
 			XMLBuilder xml = new XMLBuilder(formattingOptions, "", document.lineDelimiter(startPosition.getLine()));
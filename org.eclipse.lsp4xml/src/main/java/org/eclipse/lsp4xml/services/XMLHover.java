@@ -22,7 +22,6 @@ import org.eclipse.lsp4xml.dom.DOMElement;
 import org.eclipse.lsp4xml.dom.DOMNode;
 import org.eclipse.lsp4xml.dom.parser.Scanner;
 import org.eclipse.lsp4xml.dom.parser.TokenType;
-import org.eclipse.lsp4xml.dom.parser.XMLScanner;
 import org.eclipse.lsp4xml.services.extensions.IHoverParticipant;
 import org.eclipse.lsp4xml.services.extensions.XMLExtensionsRegistry;
 
@@ -101,7 +100,7 @@ class XMLHover {
 	}
 
 	private Range getTagNameRange(TokenType tokenType, int startOffset, int offset, DOMDocument document) {
-		Scanner scanner = XMLScanner.createScanner(document.getText(), startOffset);
+		Scanner scanner = document.createScanner(startOffset, false, offset);
 		TokenType token = scanner.scan();
 		while (token != TokenType.EOS
 				&& (scanner.getTokenEnd() < offset || scanner.getTokenEnd() == offset && token != tokenType)) {
@@ -97,10 +97,18 @@ public class XMLLanguageService extends XMLExtensionsRegistry {
 		return symbolsProvider.findSymbolInformations(xmlDocument);
 	}
 
+	public List<SymbolInformation> findSymbolInformations(DOMDocument xmlDocument, int maxDepth) {
+		return symbolsProvider.findSymbolInformations(xmlDocument, maxDepth);
+	}
+
 	public List<DocumentSymbol> findDocumentSymbols(DOMDocument xmlDocument) {
 		return symbolsProvider.findDocumentSymbols(xmlDocument);
 	}
 
+	public List<DocumentSymbol> findDocumentSymbols(DOMDocument xmlDocument, int maxDepth) {
+		return symbolsProvider.findDocumentSymbols(xmlDocument, maxDepth);
+	}
+
 	public CompletionList doComplete(DOMDocument xmlDocument, Position position, SharedSettings settings) {
 		return completions.doComplete(xmlDocument, position, settings);
 	}
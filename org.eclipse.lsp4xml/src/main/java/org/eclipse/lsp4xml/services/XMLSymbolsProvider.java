@@ -11,9 +11,12 @@
 package org.eclipse.lsp4xml.services;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +33,7 @@ import org.eclipse.lsp4xml.dom.DTDAttlistDecl;
 import org.eclipse.lsp4xml.dom.DTDElementDecl;
 import org.eclipse.lsp4xml.dom.DTDNotationDecl;
 import org.eclipse.lsp4xml.services.extensions.XMLExtensionsRegistry;
+import org.eclipse.lsp4xml.utils.XMLPositionUtility;
 import org.w3c.dom.DocumentType;
 import org.w3c.dom.Element;
 import org.w3c.dom.ProcessingInstruction;
@@ -48,47 +52,82 @@ class XMLSymbolsProvider {
 	}
 
 	public List<SymbolInformation> findSymbolInformations(DOMDocument xmlDocument) {
+		return findSymbolInformations(xmlDocument, -1);
+	}
+
+	/**
+	 * Returns the symbols of the given document until the given depth.
+	 * 
+	 * @param xmlDocument the DOM document.
+	 * @param maxDepth    the depth of the deepest symbols (1 for the symbols of
+	 *                    the document element) and -1 to have all the symbols.
+	 * @return the symbols of the given document until the given depth.
+	 */
+	public List<SymbolInformation> findSymbolInformations(DOMDocument xmlDocument, int maxDepth) {
 		List<SymbolInformation> symbols = new ArrayList<>();
 		boolean isDTD = xmlDocument.isDTD();
+		SymbolRanges ranges = new SymbolRanges();
 		xmlDocument.getRoots().forEach(node -> {
-			try {
-				findSymbolInformations(node, "", symbols, (node.isDoctype() && isDTD));
-			} catch (BadLocationException e) {
-				LOGGER.log(Level.SEVERE,
-						"XMLSymbolsProvider#findSymbolInformations was given a BadLocation by a 'node' variable", e);
-			}
+			findSymbolInformations(node, "", symbols, (node.isDoctype() && isDTD), ranges, maxDepth);
 		});
+		if (!ranges.resolve(xmlDocument)) {
+			// ignore the symbols with a bad location
+			symbols.removeIf(symbol -> !SymbolRanges.isResolved(symbol.getLocation().getRange()));
+		}
 		return symbols;
 	}
 
 	public List<DocumentSymbol> findDocumentSymbols(DOMDocument xmlDocument) {
+		return findDocumentSymbols(xmlDocument, -1);
+	}
+
+	/**
+	 * Returns the hierarchy of symbols of the given document until the given
+	 * depth.
+	 * 
+	 * @param xmlDocument the DOM document.
+	 * @param maxDepth    the depth of the deepest symbols (1 for the symbols of
+	 *                    the document element) and -1 to have all the symbols.
+	 * @return the hierarchy of symbols of the given document until the given
+	 *         depth.
+	 */
+	public List<DocumentSymbol> findDocumentSymbols(DOMDocument xmlDocument, int maxDepth) {
 		List<DocumentSymbol> symbols = new ArrayList<>();
 		boolean isDTD = xmlDocument.isDTD();
-		List<DOMNode> nodesToIgnore = new ArrayList<>();
+		Set<DOMNode> nodesToIgnore = new HashSet<>();
+		SymbolRanges ranges = new SymbolRanges();
 		xmlDocument.getRoots().forEach(node -> {
-			try {
-				if ((node.isDoctype() && isDTD)) {
-					nodesToIgnore.add(node);
-				}
-				findDocumentSymbols(node, symbols, nodesToIgnore);
-			} catch (BadLocationException e) {
-				LOGGER.log(Level.SEVERE,
-						"XMLSymbolsProvider#findDocumentSymbols was given a BadLocation by a 'node' variable", e);
+			if ((node.isDoctype() && isDTD)) {
+				nodesToIgnore.add(node);
 			}
+			findDocumentSymbols(node, symbols, nodesToIgnore, ranges, maxDepth);
 		});
+		if (!ranges.resolve(xmlDocument)) {
+			// ignore the symbols with a bad location (and their children)
+			removeUnresolvedSymbols(symbols);
+		}
 		return symbols;
 	}
 
-	private void findDocumentSymbols(DOMNode node, List<DocumentSymbol> symbols, List<DOMNode> nodesToIgnore)
-			throws BadLocationException {
-		if (!isNodeSymbol(node)) {
+	private static void removeUnresolvedSymbols(List<DocumentSymbol> symbols) {
+		symbols.removeIf(symbol -> !SymbolRanges.isResolved(symbol.getRange()));
+		for (DocumentSymbol symbol : symbols) {
+			removeUnresolvedSymbols(symbol.getChildren());
+		}
+	}
+
+	private void findDocumentSymbols(DOMNode node, List<DocumentSymbol> symbols, Set<DOMNode> nodesToIgnore,
+			SymbolRanges ranges, int remainingDepth) {
+		if (!isNodeSymbol(node) || remainingDepth == 0) {
 			return;
 		}
 		boolean hasChildNodes = node.hasChildNodes();
 		List<DocumentSymbol> children = symbols;
+		int childrenDepth = remainingDepth;
 		if (!nodesToIgnore.contains(node)) {
+			childrenDepth = remainingDepth - 1;
 			String name = nodeToName(node);
-			Range selectionRange = getSymbolRange(node);
+			Range selectionRange = ranges.add(node);
 			Range range = selectionRange;
 			children = hasChildNodes || node.isDTDElementDecl() ? new ArrayList<>() : Collections.emptyList();
 			DocumentSymbol symbol = new DocumentSymbol(name, getSymbolKind(node), range, selectionRange, null,
@@ -101,55 +140,118 @@ class XMLSymbolsProvider {
 				String elementName = elementDecl.getName();
 				Collection<DOMNode> attlistDecls = node.getOwnerDocument().findDTDAttrList(elementName);
 				for (DOMNode attrDecl : attlistDecls) {
-					findDocumentSymbols(attrDecl, children, nodesToIgnore);
+					findDocumentSymbols(attrDecl, children, nodesToIgnore, ranges, childrenDepth);
 					nodesToIgnore.add(attrDecl);
 				}
 			}
 		}
-		if (!hasChildNodes) {
+		if (!hasChildNodes || childrenDepth == 0) {
 			return;
 		}
 		final List<DocumentSymbol> childrenOfChild = children;
+		final int depth = childrenDepth;
 		node.getChildren().forEach(child -> {
-			try {
-				findDocumentSymbols(child, childrenOfChild, nodesToIgnore);
-			} catch (BadLocationException e) {
-				LOGGER.log(Level.SEVERE, "XMLSymbolsProvider was given a BadLocation by the provided 'node' variable",
-						e);
-			}
+			findDocumentSymbols(child, childrenOfChild, nodesToIgnore, ranges, depth);
 		});
 	}
 
 	private void findSymbolInformations(DOMNode node, String container, List<SymbolInformation> symbols,
-			boolean ignoreNode) throws BadLocationException {
-		if (!isNodeSymbol(node)) {
+			boolean ignoreNode, SymbolRanges ranges, int remainingDepth) {
+		if (!isNodeSymbol(node) || remainingDepth == 0) {
 			return;
 		}
 		String name = "";
+		int childrenDepth = remainingDepth;
 		if (!ignoreNode) {
+			childrenDepth = remainingDepth - 1;
 			name = nodeToName(node);
 			DOMDocument xmlDocument = node.getOwnerDocument();
-			Range range = getSymbolRange(node);
+			Range range = ranges.add(node);
 			Location location = new Location(xmlDocument.getDocumentURI(), range);
 			SymbolInformation symbol = new SymbolInformation(name, getSymbolKind(node), location, container);
 			symbols.add(symbol);
 		}
+		if (childrenDepth == 0) {
+			return;
+		}
 		final String containerName = name;
+		final int depth = childrenDepth;
 		node.getChildren().forEach(child -> {
+			findSymbolInformations(child, containerName, symbols, false, ranges, depth);
+		});
+	}
+
+	/**
+	 * Ranges of the symbols. The positions of the ranges are computed at the end
+	 * with {@link DOMDocument#positionsAt(int...)} to visit the line index once
+	 * instead of searching the line of each offset. When an offset is out of
+	 * bounds, the positions are computed one by one and the ranges with a bad
+	 * location are not resolved.
+	 */
+	private static class SymbolRanges {
+
+		private final List<Range> ranges = new ArrayList<>();
+		private int[] offsets = new int[32];
+
+		public Range add(DOMNode node) {
+			int index = ranges.size() * 2;
+			if (index + 1 >= offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			offsets[index] = node.getStart();
+			offsets[index + 1] = node.getEnd();
+			Range range = new Range();
+			ranges.add(range);
+			return range;
+		}
+
+		/**
+		 * Compute the positions of the ranges.
+		 * 
+		 * @param xmlDocument the DOM document.
+		 * @return true if all the ranges are resolved and false otherwise.
+		 */
+		public boolean resolve(DOMDocument xmlDocument) {
 			try {
-				findSymbolInformations(child, containerName, symbols, false);
+				Position[] positions = XMLPositionUtility.positionsAt(Arrays.copyOf(offsets, ranges.size() * 2),
+						xmlDocument);
+				for (int i = 0; i < ranges.size(); i++) {
+					Range range = ranges.get(i);
+					range.setStart(positions[i * 2]);
+					range.setEnd(positions[i * 2 + 1]);
+				}
+				return true;
 			} catch (BadLocationException e) {
 				LOGGER.log(Level.SEVERE, "XMLSymbolsProvider was given a BadLocation by the provided 'node' variable",
 						e);
 			}
-		});
-	}
+			// compute the positions one by one to ignore only the ranges with a bad
+			// location
+			for (int i = 0; i < ranges.size(); i++) {
+				try {
+					Position start = xmlDocument.positionAt(offsets[i * 2]);
+					Position end = xmlDocument.positionAt(offsets[i * 2 + 1]);
+					Range range = ranges.get(i);
+					range.setStart(start);
+					range.setEnd(end);
+				} catch (BadLocationException e) {
+					// the range stays unresolved
+				}
+			}
+			return false;
+		}
 
-	private static Range getSymbolRange(DOMNode node) throws BadLocationException {
-		DOMDocument xmlDocument = node.getOwnerDocument();
-		Position start = xmlDocument.positionAt(node.getStart());
-		Position end = xmlDocument.positionAt(node.getEnd());
-		return new Range(start, end);
+		/**
+		 * Returns true if the positions of the given range are computed and false
+		 * otherwise.
+		 * 
+		 * @param range the range.
+		 * @return true if the positions of the given range are computed and false
+		 *         otherwise.
+		 */
+		public static boolean isResolved(Range range) {
+			return range.getStart() != null;
+		}
 	}
 
 	private static SymbolKind getSymbolKind(DOMNode node) {
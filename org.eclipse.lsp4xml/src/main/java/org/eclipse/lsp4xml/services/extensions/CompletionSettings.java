@@ -22,6 +22,8 @@ public class CompletionSettings {
 
 	private boolean autoCloseTags;
 
+	private boolean grammarDocumentation = true;
+
 	public CompletionSettings(boolean autoCloseTags) {
 		this.autoCloseTags = autoCloseTags;
 	}
@@ -54,6 +56,28 @@ public class CompletionSettings {
 		return autoCloseTags;
 	}
 
+	/**
+	 * Set true if the completion items must have the documentation of the
+	 * grammar (XML Schema, DTD) declarations and false otherwise.
+	 * 
+	 * @param grammarDocumentation true if the completion items must have the
+	 *                             documentation of the grammar declarations.
+	 */
+	public void setGrammarDocumentation(boolean grammarDocumentation) {
+		this.grammarDocumentation = grammarDocumentation;
+	}
+
+	/**
+	 * Returns true if the completion items must have the documentation of the
+	 * grammar (XML Schema, DTD) declarations and false otherwise.
+	 * 
+	 * @return true if the completion items must have the documentation of the
+	 *         grammar declarations and false otherwise.
+	 */
+	public boolean isGrammarDocumentation() {
+		return grammarDocumentation;
+	}
+
 	/**
 	 * Returns <code>true</code> if the client support snippet and
 	 * <code>false</code> otherwise.
@@ -26,10 +26,27 @@ public class SharedSettings {
 	public final XMLValidationSettings validationSettings;
 
 	public SharedSettings() {
-		this.completionSettings = new CompletionSettings();
-		this.foldingSettings = new FoldingRangeCapabilities();
-		this.formattingSettings = new XMLFormattingOptions(true);
-		this.validationSettings = new XMLValidationSettings();
+		this(new CompletionSettings(), new FoldingRangeCapabilities(), new XMLFormattingOptions(true),
+				new XMLValidationSettings());
+	}
+
+	private SharedSettings(CompletionSettings completionSettings, FoldingRangeCapabilities foldingSettings,
+			XMLFormattingOptions formattingSettings, XMLValidationSettings validationSettings) {
+		this.completionSettings = completionSettings;
+		this.foldingSettings = foldingSettings;
+		this.formattingSettings = formattingSettings;
+		this.validationSettings = validationSettings;
+	}
+
+	/**
+	 * Returns settings which share the folding, formatting and validation
+	 * settings of these settings and which use the given completion settings.
+	 * 
+	 * @param completionSettings the completion settings.
+	 * @return settings which use the given completion settings.
+	 */
+	public SharedSettings withCompletionSettings(CompletionSettings completionSettings) {
+		return new SharedSettings(completionSettings, foldingSettings, formattingSettings, validationSettings);
 	}
 
 	public void setFormattingSettings(XMLFormattingOptions formattingOptions) {
@@ -0,0 +1,48 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * XML experimental compact DOM capabilities: when enabled, the nodes of a
+ * parsed document which has at least 'threshold' characters are stored in a
+ * compact node table.
+ *
+ */
+public class XMLCompactDOMCapabilities {
+
+	private Boolean enabled;
+
+	private Integer threshold;
+
+	public Boolean getEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(Boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the minimum number of characters of a document which is compacted
+	 * and null if the default threshold must be used.
+	 * 
+	 * @return the minimum number of characters of a document which is compacted
+	 *         and null if the default threshold must be used.
+	 */
+	public Integer getThreshold() {
+		return threshold;
+	}
+
+	public void setThreshold(Integer threshold) {
+		this.threshold = threshold;
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * XML settings of the cache of the parsed DOM documents.
+ *
+ */
+public class XMLDocumentCacheSettings {
+
+	private Integer maxEntries;
+
+	private Integer memoryBudget;
+
+	private Integer idleTimeout;
+
+	/**
+	 * Returns the max number of parsed DOM documents kept in the cache and null
+	 * otherwise.
+	 * 
+	 * @return the max number of parsed DOM documents kept in the cache and null
+	 *         otherwise.
+	 */
+	public Integer getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(Integer maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the memory budget (in MB) of the parsed DOM documents kept in the
+	 * cache and null otherwise.
+	 * 
+	 * @return the memory budget (in MB) of the parsed DOM documents kept in the
+	 *         cache and null otherwise.
+	 */
+	public Integer getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	public void setMemoryBudget(Integer memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Returns the time (in minutes) after which an open document which is not
+	 * accessed is compressed (0 to disable it) and null otherwise.
+	 * 
+	 * @return the time (in minutes) after which an open document which is not
+	 *         accessed is compressed (0 to disable it) and null otherwise.
+	 */
+	public Integer getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(Integer idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+}
@@ -18,6 +18,16 @@ public class XMLExperimentalCapabilities {
 
 	private XMLIncrementalSupportCapabilities incrementalSupport;
 
+	private XMLSpeculativeParseCapabilities speculativeParse;
+
+	private XMLIncrementalParseCapabilities incrementalParse;
+
+	private XMLCompactDOMCapabilities compactDOM;
+
+	private XMLParallelParseCapabilities parallelParse;
+
+	private XMLLargeFileCapabilities largeFile;
+
 	public void setIncrementalSupport(XMLIncrementalSupportCapabilities incrementalSupport) {
 		this.incrementalSupport = incrementalSupport;
 	}
@@ -25,4 +35,44 @@ public class XMLExperimentalCapabilities {
 	public XMLIncrementalSupportCapabilities getIncrementalSupport() {
 		return incrementalSupport;
 	}
+
+	public void setSpeculativeParse(XMLSpeculativeParseCapabilities speculativeParse) {
+		this.speculativeParse = speculativeParse;
+	}
+
+	public XMLSpeculativeParseCapabilities getSpeculativeParse() {
+		return speculativeParse;
+	}
+
+	public void setIncrementalParse(XMLIncrementalParseCapabilities incrementalParse) {
+		this.incrementalParse = incrementalParse;
+	}
+
+	public XMLIncrementalParseCapabilities getIncrementalParse() {
+		return incrementalParse;
+	}
+
+	public void setCompactDOM(XMLCompactDOMCapabilities compactDOM) {
+		this.compactDOM = compactDOM;
+	}
+
+	public XMLCompactDOMCapabilities getCompactDOM() {
+		return compactDOM;
+	}
+
+	public void setParallelParse(XMLParallelParseCapabilities parallelParse) {
+		this.parallelParse = parallelParse;
+	}
+
+	public XMLParallelParseCapabilities getParallelParse() {
+		return parallelParse;
+	}
+
+	public void setLargeFile(XMLLargeFileCapabilities largeFile) {
+		this.largeFile = largeFile;
+	}
+
+	public XMLLargeFileCapabilities getLargeFile() {
+		return largeFile;
+	}
 }
@@ -42,6 +42,8 @@ public class XMLGeneralClientSettings {
 
 	private CompletionSettings completion;
 
+	private XMLDocumentCacheSettings documentCache;
+
 	public void setLogs(LogsSettings logs) {
 		this.logs = logs;
 	}
@@ -78,6 +80,19 @@ public class XMLGeneralClientSettings {
 		return completion;
 	}
 
+	/**
+	 * Returns the settings of the cache of the parsed DOM documents.
+	 * 
+	 * @return the settings of the cache of the parsed DOM documents.
+	 */
+	public XMLDocumentCacheSettings getDocumentCache() {
+		return documentCache;
+	}
+
+	public void setDocumentCache(XMLDocumentCacheSettings documentCache) {
+		this.documentCache = documentCache;
+	}
+
 	public static XMLGeneralClientSettings getGeneralXMLSettings(Object initializationOptionsSettings) {
 		return JSONUtility.toModel(initializationOptionsSettings, XMLGeneralClientSettings.class);
 	}	
@@ -0,0 +1,83 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.settings;
+
+/**
+ * XML experimental large file capabilities: when enabled, a document which has
+ * at least 'threshold' characters or at least 'nodeCountThreshold' nodes is
+ * processed in a degraded mode (validation on save only, symbols until
+ * 'symbolsMaxDepth', no grammar documentation in the completion items).
+ *
+ */
+public class XMLLargeFileCapabilities {
+
+	private Boolean enabled;
+
+	private Integer threshold;
+
+	private Integer nodeCountThreshold;
+
+	private Integer symbolsMaxDepth;
+
+	public Boolean getEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(Boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the minimum number of characters of a large document and null if
+	 * the default threshold must be used.
+	 * 
+	 * @return the minimum number of characters of a large document and null if
+	 *         the default threshold must be used.
+	 */
+	public Integer getThreshold() {
+		return threshold;
+	}
+
+	public void setThreshold(Integer threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Returns the minimum number of nodes of a large document and null if the
+	 * default threshold must be used.
+	 * 
+	 * @return the minimum number of nodes of a large document and null if the
+	 *         default threshold must be used.
+	 */
+	public Integer getNodeCountThreshold() {
+		return nodeCountThreshold;
+	}
+
+	public void setNodeCountThreshold(Integer nodeCountThreshold) {
+		this.nodeCountThreshold = nodeCountThreshold;
+	}
+
+	/**
+	 * Returns the depth of the deepest symbols of a large document and null if
+	 * the default depth must be used.
+	 * 
+	 * @return the depth of the deepest symbols of a large document and null if
+	 *         the default depth must be used.
+	 */
+	public Integer getSymbolsMaxDepth() {
+		return symbolsMaxDepth;
+	}
+
+	public void setSymbolsMaxDepth(Integer symbolsMaxDepth) {
+		this.symbolsMaxDepth = symbolsMaxDepth;
+	}
+
+}
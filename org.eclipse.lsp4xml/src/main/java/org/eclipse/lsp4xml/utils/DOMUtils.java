@@ -1,7 +1,11 @@
 package org.eclipse.lsp4xml.utils;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 import org.eclipse.lsp4xml.dom.DOMDocument;
 import org.eclipse.lsp4xml.dom.DOMElement;
+import org.eclipse.lsp4xml.dom.DOMNode;
 
 /**
  * DOM Utilities.
@@ -83,4 +87,28 @@ public class DOMUtils {
 	public static boolean isDTD(String uri) {
 		return uri != null && uri.endsWith(DTD_EXTENSION);
 	}
+
+	/**
+	 * Returns the number of nodes (the given node, its descendants and their
+	 * attributes) of the given node.
+	 * 
+	 * @param node the root node
+	 * @return the number of nodes of the given node.
+	 */
+	public static int getNodeCount(DOMNode node) {
+		int count = 0;
+		Deque<DOMNode> nodes = new ArrayDeque<>();
+		nodes.push(node);
+		while (!nodes.isEmpty()) {
+			DOMNode current = nodes.pop();
+			count++;
+			if (current.hasAttributes()) {
+				count += current.getAttributeNodes().size();
+			}
+			for (DOMNode child : current.getChildren()) {
+				nodes.push(child);
+			}
+		}
+		return count;
+	}
 }
@@ -13,6 +13,8 @@ package org.eclipse.lsp4xml.utils;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.eclipse.lsp4xml.commons.Rope;
+
 /**
  * String utilities.
  *
@@ -176,6 +178,29 @@ public class StringUtils {
 		return value.substring(i, len);
 	}
 
+	/**
+	 * Copies the characters [srcBegin, srcEnd[ of the given text into the
+	 * destination array.
+	 * 
+	 * @param text     the text to copy.
+	 * @param srcBegin the start offset (inclusive) in the text.
+	 * @param srcEnd   the end offset (exclusive) in the text.
+	 * @param dst      the destination array.
+	 * @param dstBegin the start offset in the destination array.
+	 */
+	public static void getChars(CharSequence text, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+		if (text instanceof String) {
+			((String) text).getChars(srcBegin, srcEnd, dst, dstBegin);
+		} else if (text instanceof Rope) {
+			((Rope) text).getChars(srcBegin, srcEnd, dst, dstBegin);
+		} else if (text instanceof StringBuilder) {
+			((StringBuilder) text).getChars(srcBegin, srcEnd, dst, dstBegin);
+		} else {
+			for (int i = srcBegin; i < srcEnd; i++) {
+				dst[dstBegin++] = text.charAt(i);
+			}
+		}
+	}
 	
 
 }
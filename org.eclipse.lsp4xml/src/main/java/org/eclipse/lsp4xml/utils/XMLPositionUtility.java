@@ -11,6 +11,7 @@
 package org.eclipse.lsp4xml.utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.xerces.xni.XMLLocator;
@@ -364,12 +365,52 @@ public class XMLPositionUtility {
 
 	public static Range createRange(int startOffset, int endOffset, DOMDocument document) {
 		try {
+			if (startOffset <= endOffset) {
+				Position[] positions = document.positionsAt(startOffset, endOffset);
+				return new Range(positions[0], positions[1]);
+			}
 			return new Range(document.positionAt(startOffset), document.positionAt(endOffset));
 		} catch (BadLocationException e) {
 			return null;
 		}
 	}
 
+	/**
+	 * Returns the positions of the given offsets which can be unsorted. The offsets
+	 * are sorted to compute all positions in one pass over the line index.
+	 * 
+	 * @param offsets  the offsets.
+	 * @param document the DOM document.
+	 * @return the positions of the given offsets (in the same order than the
+	 *         offsets).
+	 * @throws BadLocationException if an offset is out of bounds.
+	 */
+	public static Position[] positionsAt(int[] offsets, DOMDocument document) throws BadLocationException {
+		boolean sorted = true;
+		for (int i = 1; i < offsets.length && sorted; i++) {
+			sorted = offsets[i - 1] <= offsets[i];
+		}
+		if (sorted) {
+			return document.positionsAt(offsets);
+		}
+		// sort the offsets and keep their index in the low bits
+		long[] keys = new long[offsets.length];
+		for (int i = 0; i < offsets.length; i++) {
+			keys[i] = ((long) offsets[i] << 32) | i;
+		}
+		Arrays.sort(keys);
+		int[] sortedOffsets = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			sortedOffsets[i] = (int) (keys[i] >> 32);
+		}
+		Position[] sortedPositions = document.positionsAt(sortedOffsets);
+		Position[] positions = new Position[offsets.length];
+		for (int i = 0; i < keys.length; i++) {
+			positions[(int) keys[i]] = sortedPositions[i];
+		}
+		return positions;
+	}
+
 	public static Range selectContent(int offset, DOMDocument document) {
 		DOMNode node = document.findNodeAt(offset);
 		if (node != null) {
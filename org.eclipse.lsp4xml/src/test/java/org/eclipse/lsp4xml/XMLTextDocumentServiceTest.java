@@ -0,0 +1,275 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.lsp4j.ClientCapabilities;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidCloseTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.DidSaveTextDocumentParams;
+import org.eclipse.lsp4j.InitializeParams;
+import org.eclipse.lsp4j.MessageActionItem;
+import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4xml.commons.LanguageModelCache;
+import org.eclipse.lsp4xml.commons.MemoryGovernor;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.customservice.LargeFileModeParams;
+import org.eclipse.lsp4xml.customservice.XMLLanguageClientAPI;
+import org.eclipse.lsp4xml.dom.DOMDocument;
+import org.eclipse.lsp4xml.settings.XMLLargeFileCapabilities;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * XML text document service tests.
+ *
+ */
+public class XMLTextDocumentServiceTest {
+
+	@Test
+	public void testWithoutServer() {
+		// the memory governor is not started without server
+		XMLTextDocumentService textDocumentService = new XMLTextDocumentService(null);
+		Assert.assertFalse(textDocumentService.getMemoryGovernor().isStarted());
+	}
+
+	@Test
+	public void testLargeFileModeWithoutClient() {
+		XMLLargeFileCapabilities largeFile = new XMLLargeFileCapabilities();
+		largeFile.setEnabled(true);
+		largeFile.setThreshold(0);
+
+		// the server is not connected to a client
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) new XMLLanguageServer()
+				.getTextDocumentService();
+		textDocumentService.updateLargeFileSettings(largeFile);
+		textDocumentService.didOpen(
+				new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a></a>")));
+		TextDocument document = textDocumentService.getDocument("a.xml");
+		Assert.assertNotNull(textDocumentService.getXMLDocument(document));
+		Assert.assertTrue(textDocumentService.isLargeFile(document));
+		textDocumentService.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier("a.xml")));
+		Assert.assertNull(textDocumentService.getDocument("a.xml"));
+	}
+
+	@Test
+	public void testMemoryGovernorLifecycle() {
+		XMLLanguageServer server = createServer();
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) server.getTextDocumentService();
+		MemoryGovernor memoryGovernor = textDocumentService.getMemoryGovernor();
+		Assert.assertFalse(memoryGovernor.isStarted());
+
+		InitializeParams params = new InitializeParams();
+		params.setCapabilities(new ClientCapabilities());
+		server.initialize(params);
+		Assert.assertTrue(memoryGovernor.isStarted());
+		Assert.assertSame(memoryGovernor, server.getXMLLanguageService().getComponent(MemoryGovernor.class));
+
+		server.shutdown();
+		Assert.assertFalse(memoryGovernor.isStarted());
+	}
+
+	@Test
+	public void testDormantDocumentNotRevalidated() throws InterruptedException {
+		XMLLanguageServer server = createServer();
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) server.getTextDocumentService();
+		textDocumentService.didOpen(
+				new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a></a>")));
+		textDocumentService.didOpen(
+				new DidOpenTextDocumentParams(new TextDocumentItem("b.xml", "xml", 1, "<b></b>")));
+		LanguageModelCache<DOMDocument> cache = textDocumentService.getXMLDocumentCache();
+		textDocumentService.getXMLDocument(textDocumentService.getDocument("a.xml"));
+
+		Thread.sleep(200);
+		// b.xml is accessed (with a large margin for a slow test machine)
+		textDocumentService.getXMLDocument(textDocumentService.getDocument("b.xml"));
+		textDocumentService.compressIdleDocuments(100);
+		Assert.assertNull(cache.getCachedLanguageModel("a.xml"));
+
+		// the revalidation of all documents doesn't parse the dormant document
+		List<String> collected = new ArrayList<>();
+		textDocumentService.new SaveContext("b.xml").collectDocumentToValidate(document -> {
+			collected.add(document.getDocumentURI());
+			return true;
+		});
+		Assert.assertEquals(Arrays.asList("b.xml"), collected);
+		Assert.assertNull(cache.getCachedLanguageModel("a.xml"));
+		Assert.assertNotNull(cache.getCachedLanguageModel("b.xml"));
+	}
+
+	@Test
+	public void testSpeculativeParseWithBusyDelayer() throws InterruptedException {
+		XMLLanguageServer server = createServer();
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) server.getTextDocumentService();
+		textDocumentService.setSpeculativeParse(true);
+		// a large file is not validated on change, so only the speculative parse
+		// parses the new version
+		XMLLargeFileCapabilities largeFile = new XMLLargeFileCapabilities();
+		largeFile.setEnabled(true);
+		largeFile.setThreshold(0);
+		textDocumentService.updateLargeFileSettings(largeFile);
+		textDocumentService.didOpen(
+				new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a></a>")));
+
+		// the threads of the delayer are busy (ex: with the memory governor)
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch busy = new CountDownLatch(2);
+		for (int i = 0; i < 2; i++) {
+			textDocumentService.delayer.execute(() -> {
+				busy.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		try {
+			Assert.assertTrue(busy.await(10, TimeUnit.SECONDS));
+			textDocumentService.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier("a.xml", 2),
+					Arrays.asList(new TextDocumentContentChangeEvent("<b></b>"))));
+
+			// the new version is parsed in background anyway
+			LanguageModelCache<DOMDocument> cache = textDocumentService.getXMLDocumentCache();
+			long timeout = System.currentTimeMillis() + 10000;
+			DOMDocument document = cache.getCachedLanguageModel("a.xml");
+			while ((document == null || document.getTextDocument().getVersion() != 2)
+					&& System.currentTimeMillis() < timeout) {
+				Thread.sleep(10);
+				document = cache.getCachedLanguageModel("a.xml");
+			}
+			Assert.assertNotNull(document);
+			Assert.assertEquals("b", document.getDocumentElement().getTagName());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testLargeFileModeByNodeCount() throws InterruptedException {
+		XMLLanguageServer server = createServer();
+		LanguageClientMock client = (LanguageClientMock) server.getLanguageClient();
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) server.getTextDocumentService();
+		XMLLargeFileCapabilities largeFile = new XMLLargeFileCapabilities();
+		largeFile.setEnabled(true);
+		largeFile.setThreshold(1000000);
+		largeFile.setNodeCountThreshold(3);
+		textDocumentService.updateLargeFileSettings(largeFile);
+
+		// the document is small, but the parse done for its validation on open finds
+		// that it has too many nodes: it switches in the large file mode and it is
+		// not validated
+		textDocumentService.didOpen(new DidOpenTextDocumentParams(
+				new TextDocumentItem("a.xml", "xml", 1, "<a><b/><c/><d/></a>")));
+		waitFor(() -> !client.largeFileModes.isEmpty());
+		Assert.assertEquals(1, client.largeFileModes.size());
+		Assert.assertEquals("a.xml", client.largeFileModes.get(0).getUri());
+		Assert.assertTrue(client.largeFileModes.get(0).isLargeFile());
+		Assert.assertTrue(textDocumentService.isLargeFile(textDocumentService.getDocument("a.xml")));
+		Thread.sleep(200);
+		Assert.assertTrue(client.diagnostics.isEmpty());
+
+		// a large file is not validated on change
+		textDocumentService.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier("a.xml", 2),
+				Arrays.asList(new TextDocumentContentChangeEvent("<a><b/><c/><d/><e/></a>"))));
+		Thread.sleep(1000);
+		Assert.assertTrue(client.diagnostics.isEmpty());
+
+		// a large file is validated on save
+		textDocumentService.didSave(new DidSaveTextDocumentParams(new TextDocumentIdentifier("a.xml")));
+		waitFor(() -> !client.diagnostics.isEmpty());
+		Assert.assertEquals("a.xml", client.diagnostics.get(0).getUri());
+		Assert.assertEquals(1, client.largeFileModes.size());
+	}
+
+	@Test
+	public void testLargeFileModeOfClosedDocument() {
+		XMLLanguageServer server = createServer();
+		XMLTextDocumentService textDocumentService = (XMLTextDocumentService) server.getTextDocumentService();
+		XMLLargeFileCapabilities largeFile = new XMLLargeFileCapabilities();
+		largeFile.setEnabled(true);
+		largeFile.setThreshold(1000000);
+		largeFile.setNodeCountThreshold(3);
+		textDocumentService.updateLargeFileSettings(largeFile);
+
+		textDocumentService.didOpen(new DidOpenTextDocumentParams(
+				new TextDocumentItem("a.xml", "xml", 1, "<a><b/><c/><d/></a>")));
+		TextDocument document = textDocumentService.getDocument("a.xml");
+		textDocumentService.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier("a.xml")));
+		// a parse which finishes after the close doesn't record the large file mode
+		textDocumentService.getXMLDocument(document);
+
+		textDocumentService.didOpen(new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a/>")));
+		Assert.assertFalse(textDocumentService.isLargeFile(textDocumentService.getDocument("a.xml")));
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+	private static XMLLanguageServer createServer() {
+		XMLLanguageServer server = new XMLLanguageServer();
+		server.setClient(new LanguageClientMock());
+		return server;
+	}
+
+	static class LanguageClientMock implements XMLLanguageClientAPI {
+
+		final List<PublishDiagnosticsParams> diagnostics = new CopyOnWriteArrayList<>();
+		final List<LargeFileModeParams> largeFileModes = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void telemetryEvent(Object object) {
+		}
+
+		@Override
+		public void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+			this.diagnostics.add(diagnostics);
+		}
+
+		@Override
+		public void largeFileMode(LargeFileModeParams params) {
+			largeFileModes.add(params);
+		}
+
+		@Override
+		public void showMessage(MessageParams messageParams) {
+		}
+
+		@Override
+		public CompletableFuture<MessageActionItem> showMessageRequest(ShowMessageRequestParams requestParams) {
+			return null;
+		}
+
+		@Override
+		public void logMessage(MessageParams message) {
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.CharStreams;
+
+/**
+ * CharSequenceReader tests
+ *
+ */
+public class CharSequenceReaderTest {
+
+	@Test
+	public void testReadString() throws IOException {
+		String text = Strings.repeat("<foo>bar</foo>\n", 1000);
+		Assert.assertEquals(text, CharStreams.toString(new CharSequenceReader(text)));
+	}
+
+	@Test
+	public void testReadRope() throws IOException {
+		String text = Strings.repeat("<foo>bar</foo>\n", 1000);
+		Rope rope = Rope.of(text).replace(10, 20, "<bar />");
+		Assert.assertEquals(rope.toString(), CharStreams.toString(new CharSequenceReader(rope)));
+	}
+
+	@Test
+	public void testReadOtherCharSequence() throws IOException {
+		CharSequence text = CharBuffer.wrap("<foo>bar</foo>");
+		Assert.assertEquals("<foo>bar</foo>", CharStreams.toString(new CharSequenceReader(text)));
+	}
+
+	@Test
+	public void testRegionMarkAndSkip() throws IOException {
+		Reader reader = new CharSequenceReader("<foo>bar</foo>", 5, 8);
+		Assert.assertEquals('b', reader.read());
+		reader.mark(10);
+		Assert.assertEquals(1, reader.skip(1));
+		Assert.assertEquals('r', reader.read());
+		Assert.assertEquals(-1, reader.read());
+		reader.reset();
+		Assert.assertEquals("ar", CharStreams.toString(reader));
+	}
+
+	@Test
+	public void testTextDocumentReader() throws IOException {
+		TextDocument document = new TextDocument("<a>\n</a>", "test.xml");
+		document.setIncremental(true);
+		Assert.assertEquals("<a>\n</a>", CharStreams.toString(document.getTextReader()));
+	}
+}
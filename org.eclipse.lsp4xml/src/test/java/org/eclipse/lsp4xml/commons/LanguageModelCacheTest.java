@@ -0,0 +1,234 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * LanguageModelCache tests
+ *
+ */
+public class LanguageModelCacheTest {
+
+	@Test
+	public void testMaxEntries() {
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(2, 60, documents, LanguageModelCacheTest::parse);
+
+		String a = cache.get(createDocument("a.xml", 1, "<a/>"));
+		Assert.assertSame(a, cache.get(createDocument("a.xml", 1, "<a/>")));
+		cache.get(createDocument("b.xml", 1, "<b/>"));
+		cache.get(createDocument("c.xml", 1, "<c/>"));
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(3, cache.getMissCount());
+		Assert.assertEquals(1, cache.getEvictionCount());
+
+		// a.xml is the least recently used document, it has been evicted
+		Assert.assertNotSame(a, cache.get(createDocument("a.xml", 1, "<a/>")));
+		Assert.assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void testNewVersion() {
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(2, 60, documents, LanguageModelCacheTest::parse);
+
+		Assert.assertEquals("<a/>", cache.get(createDocument("a.xml", 1, "<a/>")));
+		Assert.assertEquals("<b/>", cache.get(createDocument("a.xml", 2, "<b/>")));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testMemoryBudget() {
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, 100, documents,
+				(document, cancelChecker) -> parse(document),
+				(document, model) -> model.length());
+
+		cache.get(createDocument("a.xml", 1, "<a>" + new String(new char[40]) + "</a>"));
+		cache.get(createDocument("b.xml", 1, "<b>" + new String(new char[40]) + "</b>"));
+		Assert.assertEquals(2, cache.size());
+		cache.get(createDocument("c.xml", 1, "<c>" + new String(new char[40]) + "</c>"));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+
+		// reduce the budget
+		cache.setLimits(10, 50);
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(2, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testOverBudgetModel() {
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, 100, documents,
+				(document, cancelChecker) -> parse(document),
+				(document, model) -> model.length());
+
+		// a model heavier than the budget is kept and reused
+		String large = "<a>" + new String(new char[200]) + "</a>";
+		String a = cache.get(createDocument("a.xml", 1, large));
+		Assert.assertEquals(1, cache.size());
+		Assert.assertSame(a, cache.get(createDocument("a.xml", 1, large)));
+		Assert.assertSame(a, cache.getCachedLanguageModel("a.xml"));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+
+		// it is evicted by the next parsed model
+		cache.get(createDocument("b.xml", 1, "<b/>"));
+		Assert.assertNull(cache.getCachedLanguageModel("a.xml"));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testParallelParse() throws Exception {
+		CountDownLatch aParsing = new CountDownLatch(1);
+		CountDownLatch bParsed = new CountDownLatch(1);
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, documents, document -> {
+			if ("a.xml".equals(document.getUri())) {
+				aParsing.countDown();
+				try {
+					// a.xml parse waits for the b.xml parse
+					Assert.assertTrue(bParsed.await(10, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return parse(document);
+		});
+
+		CompletableFuture<String> a = CompletableFuture.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>")));
+		Assert.assertTrue(aParsing.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals("<b/>", cache.get(createDocument("b.xml", 1, "<b/>")));
+		bParsed.countDown();
+		Assert.assertEquals("<a/>", a.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testSharedParse() throws Exception {
+		CountDownLatch parsing = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+		AtomicInteger parseCount = new AtomicInteger();
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, documents, document -> {
+			parseCount.incrementAndGet();
+			parsing.countDown();
+			try {
+				Assert.assertTrue(waiting.await(10, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return parse(document);
+		});
+
+		CompletableFuture<String> first = CompletableFuture
+				.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>")));
+		Assert.assertTrue(parsing.await(10, TimeUnit.SECONDS));
+		CompletableFuture<String> second = CompletableFuture
+				.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>")));
+		Thread.sleep(100);
+		waiting.countDown();
+		Assert.assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1, parseCount.get());
+	}
+
+	@Test
+	public void testCanceledParse() throws Exception {
+		CountDownLatch parsing = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+		AtomicInteger parseCount = new AtomicInteger();
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, 0, documents, (document, cancelChecker) -> {
+			if (parseCount.incrementAndGet() == 1) {
+				parsing.countDown();
+				try {
+					Assert.assertTrue(waiting.await(10, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				cancelChecker.checkCanceled();
+			}
+			return parse(document);
+		}, (document, model) -> model.length());
+
+		AtomicBoolean canceled = new AtomicBoolean();
+		CompletableFuture<String> first = CompletableFuture
+				.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>"), () -> {
+					if (canceled.get()) {
+						throw new CancellationException();
+					}
+				}));
+		Assert.assertTrue(parsing.await(10, TimeUnit.SECONDS));
+		CompletableFuture<String> second = CompletableFuture
+				.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>")));
+		Thread.sleep(100);
+		canceled.set(true);
+		waiting.countDown();
+
+		try {
+			first.get(10, TimeUnit.SECONDS);
+			Assert.fail("The first parse should be canceled");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof CancellationException);
+		}
+		// the second request has parsed the document itself
+		Assert.assertEquals("<a/>", second.get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(2, parseCount.get());
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testDocumentRemovedDuringParse() throws Exception {
+		CountDownLatch parsing = new CountDownLatch(1);
+		CountDownLatch removed = new CountDownLatch(1);
+		TextDocuments documents = new TextDocuments();
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, documents, document -> {
+			parsing.countDown();
+			try {
+				Assert.assertTrue(removed.await(10, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return parse(document);
+		});
+
+		CompletableFuture<String> a = CompletableFuture.supplyAsync(() -> cache.get(createDocument("a.xml", 1, "<a/>")));
+		Assert.assertTrue(parsing.await(10, TimeUnit.SECONDS));
+		// the document is closed while it is parsed
+		cache.onDocumentRemoved("a.xml");
+		removed.countDown();
+		Assert.assertEquals("<a/>", a.get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(0, cache.size());
+		Assert.assertNull(cache.getCachedLanguageModel("a.xml"));
+	}
+
+	private static String parse(TextDocument document) {
+		return new String(document.getText());
+	}
+
+	private static TextDocumentItem createDocument(String uri, int version, String text) {
+		return new TextDocumentItem(uri, "xml", version, text);
+	}
+}
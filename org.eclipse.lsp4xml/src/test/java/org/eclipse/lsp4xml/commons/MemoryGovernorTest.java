@@ -0,0 +1,155 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Memory governor tests
+ *
+ */
+public class MemoryGovernorTest {
+
+	@Test
+	public void testReclaimInPriorityOrder() {
+		AtomicLong used = new AtomicLong(50);
+		MemoryGovernor governor = new MemoryGovernor(80, 100, used::get);
+		List<String> calls = new ArrayList<>();
+		governor.register("line indexes", MemoryGovernor.LINE_INDEXES_PRIORITY, () -> {
+			calls.add("line indexes");
+			return 3;
+		});
+		governor.register("cold DOM documents", MemoryGovernor.COLD_DOCUMENTS_PRIORITY, () -> {
+			calls.add("cold DOM documents");
+			return 2;
+		});
+
+		// no pressure
+		governor.checkMemory();
+		Assert.assertTrue(calls.isEmpty());
+		Assert.assertFalse(governor.getState().isUnderPressure());
+
+		// pressure: the reclaimers are called one by one
+		used.set(90);
+		governor.checkMemory();
+		Assert.assertEquals(Arrays.asList("cold DOM documents"), calls);
+		governor.checkMemory();
+		Assert.assertEquals(Arrays.asList("cold DOM documents", "line indexes"), calls);
+		Assert.assertTrue(governor.getState().isUnderPressure());
+		Assert.assertEquals(2, governor.getState().getPressureLevel());
+
+		// still pressure: all reclaimers are called
+		calls.clear();
+		governor.checkMemory();
+		Assert.assertEquals(Arrays.asList("cold DOM documents", "line indexes"), calls);
+		Assert.assertEquals(4, governor.getState().getReclaimedCounts().get("cold DOM documents").longValue());
+		Assert.assertEquals(6, governor.getState().getReclaimedCounts().get("line indexes").longValue());
+
+		// pressure released
+		used.set(50);
+		calls.clear();
+		governor.checkMemory();
+		Assert.assertTrue(calls.isEmpty());
+		Assert.assertEquals(0, governor.getState().getPressureLevel());
+	}
+
+	@Test
+	public void testRecovery() throws InterruptedException {
+		AtomicLong used = new AtomicLong(90);
+		MemoryGovernor governor = new MemoryGovernor(80, 100, used::get);
+		List<String> calls = new ArrayList<>();
+		governor.register("line indexes", MemoryGovernor.LINE_INDEXES_PRIORITY, () -> {
+			calls.add("line indexes");
+			return 1;
+		});
+		governor.register("cold DOM documents", MemoryGovernor.COLD_DOCUMENTS_PRIORITY, () -> {
+			calls.add("cold DOM documents");
+			return 1;
+		});
+		governor.setRecoveryCheckDelay(10);
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			governor.start(executor);
+			Assert.assertTrue(governor.isStarted());
+
+			// notifications while the heap is under pressure
+			governor.onThresholdExceeded();
+			governor.onThresholdExceeded();
+			waitFor(() -> governor.getState().getPressureLevel() == 2);
+			Assert.assertEquals(Arrays.asList("cold DOM documents", "line indexes"), calls);
+
+			// no notification is sent when the heap goes back below the threshold: the
+			// periodic check resets the pressure level
+			used.set(50);
+			waitFor(() -> governor.getState().getPressureLevel() == 0);
+
+			// a new pressure starts again with the cheapest reclaimer
+			used.set(90);
+			calls.clear();
+			governor.onThresholdExceeded();
+			waitFor(() -> governor.getState().getPressureLevel() == 1);
+			Assert.assertEquals(Arrays.asList("cold DOM documents"), calls);
+
+			governor.stop();
+			Assert.assertFalse(governor.isStarted());
+			governor.onThresholdExceeded();
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+			Assert.assertEquals(Arrays.asList("cold DOM documents"), calls);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			Assert.assertTrue("Timeout", System.currentTimeMillis() < end);
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testReleaseCaches() throws BadLocationException {
+		TextDocuments documents = new TextDocuments();
+		documents.onDidOpenTextDocument(
+				new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a>\n</a>")));
+		LanguageModelCache<String> cache = new LanguageModelCache<>(10, 60, documents,
+				document -> new String(document.getText()));
+		TextDocument document = documents.get("a.xml");
+		cache.get(document);
+
+		MemoryGovernor governor = new MemoryGovernor(80, 100, () -> 90);
+		governor.register("cold DOM documents", MemoryGovernor.COLD_DOCUMENTS_PRIORITY,
+				() -> cache.evictIdleModels(0));
+		governor.register("line indexes", MemoryGovernor.LINE_INDEXES_PRIORITY, documents::releaseLineTrackers);
+
+		governor.checkMemory();
+		Assert.assertEquals(0, cache.size());
+
+		document.lineText(0);
+		governor.checkMemory();
+		Assert.assertFalse(document.releaseLineTracker());
+		Assert.assertEquals(1, governor.getState().getReclaimedCounts().get("line indexes").longValue());
+	}
+}
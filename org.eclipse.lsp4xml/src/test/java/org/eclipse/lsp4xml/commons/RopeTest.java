@@ -0,0 +1,79 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.Collections;
+import java.util.Random;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+/**
+ * Rope tests
+ *
+ */
+public class RopeTest {
+
+	@Test
+	public void testReplace() {
+		Rope rope = Rope.of("abcdef");
+		Assert.assertEquals("abXYZef", rope.replace(2, 4, "XYZ").toString());
+		Assert.assertEquals("XYZabcdef", rope.replace(0, 0, "XYZ").toString());
+		Assert.assertEquals("abcdefXYZ", rope.replace(6, 6, "XYZ").toString());
+		Assert.assertEquals("af", rope.replace(1, 5, "").toString());
+		// original rope is not modified
+		Assert.assertEquals("abcdef", rope.toString());
+	}
+
+	@Test
+	public void testCharSequence() {
+		String text = Strings.repeat("<foo>bar</foo>\n", 500);
+		Rope rope = Rope.of(text);
+		Assert.assertEquals(text.length(), rope.length());
+		for (int i = 0; i < text.length(); i++) {
+			Assert.assertEquals(text.charAt(i), rope.charAt(i));
+		}
+		Assert.assertEquals(text.substring(1000, 3000), rope.subSequence(1000, 3000).toString());
+	}
+
+	@Test
+	public void testManyReplaceKeepBalanced() {
+		Random random = new Random(0);
+		StringBuilder expected = new StringBuilder(Strings.repeat("<a>b</a>", 2000));
+		Rope rope = Rope.of(expected);
+		for (int i = 0; i < 5000; i++) {
+			int start = random.nextInt(expected.length() + 1);
+			int end = Math.min(expected.length(), start + random.nextInt(10));
+			String text = i % 3 == 0 ? "" : "x" + i;
+			expected.replace(start, end, text);
+			rope = rope.replace(start, end, text);
+		}
+		Assert.assertEquals(expected.toString(), rope.toString());
+		Assert.assertTrue("Rope depth " + rope.getDepth(), rope.getDepth() < 30);
+	}
+
+	@Test
+	public void testIncrementalTextDocument() {
+		TextDocument document = new TextDocument("<a>\n</a>", "test.xml");
+		document.setIncremental(true);
+
+		TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+				new Range(new Position(1, 0), new Position(1, 0)), 0, "  <b />\n");
+		document.update(Collections.singletonList(change));
+		Assert.assertEquals("<a>\n  <b />\n</a>", document.getTextSequence().toString());
+		Assert.assertEquals("<a>\n  <b />\n</a>", document.getText());
+	}
+}
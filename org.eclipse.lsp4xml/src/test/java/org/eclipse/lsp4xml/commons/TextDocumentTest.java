@@ -10,7 +10,15 @@
  */
 package org.eclipse.lsp4xml.commons;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -132,4 +140,134 @@ public class TextDocumentTest {
 		Assert.assertNotNull(ex);
 	}
 
+	@Test
+	public void testIncrementalLineTracker() throws BadLocationException {
+		String[] inserts = { "", "a", "\n", "\r", "\r\n", "ab\ncd", "\n\r", "<foo>\r\n</foo>" };
+		Random random = new Random(0);
+		TextDocument document = new TextDocument("abc\r\ndef\rghi\n\njkl", null);
+		document.setIncremental(true);
+		for (int i = 0; i < 2000; i++) {
+			int length = document.getText().length();
+			int start = random.nextInt(length + 1);
+			int end = Math.min(length, start + random.nextInt(4));
+			String text = inserts[random.nextInt(inserts.length)];
+			Range range = new Range(document.positionAt(start), document.positionAt(end));
+			document.update(Collections.singletonList(new TextDocumentContentChangeEvent(range, end - start, text)));
+
+			// compare the incremental line tracker with a new one
+			TextDocument expected = new TextDocument(document.getText(), null);
+			for (int offset = 0; offset <= document.getText().length(); offset++) {
+				Position position = expected.positionAt(offset);
+				Assert.assertEquals(position, document.positionAt(offset));
+				if (!isInsideCRLF(document.getText(), offset)) {
+					Assert.assertEquals(offset, document.offsetAt(position));
+				}
+			}
+			int lines = expected.positionAt(document.getText().length()).getLine() + 1;
+			for (int line = 0; line < lines; line++) {
+				Assert.assertEquals(expected.lineText(line), document.lineText(line));
+				Assert.assertEquals(expected.lineDelimiter(line), document.lineDelimiter(line));
+			}
+		}
+	}
+
+	@Test
+	public void testSharedLineTracker() throws BadLocationException {
+		String[] inserts = { "", "a", "\n", "\r", "\r\n", "ab\ncd", "<foo>\r\n</foo>" };
+		Random random = new Random(0);
+		TextDocument document = new TextDocument("abc\r\ndef\rghi\n\njkl", null);
+		document.setIncremental(true);
+		document.positionAt(0);
+		List<TextDocument> snapshots = new ArrayList<>();
+		List<String> texts = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			snapshots.add(document);
+			texts.add(document.getText());
+			// the copy shares the line tracker of the snapshot and several changes are
+			// applied to the copy
+			document = document.copy();
+			List<TextDocumentContentChangeEvent> changes = new ArrayList<>();
+			String text = document.getText();
+			for (int j = 0; j < 3; j++) {
+				int start = random.nextInt(text.length() + 1);
+				int end = Math.min(text.length(), start + random.nextInt(4));
+				if (isInsideCRLF(text, start)) {
+					start--;
+				}
+				if (isInsideCRLF(text, end)) {
+					end++;
+				}
+				String insert = inserts[random.nextInt(inserts.length)];
+				TextDocument current = new TextDocument(text, null);
+				changes.add(new TextDocumentContentChangeEvent(
+						new Range(current.positionAt(start), current.positionAt(end)), end - start, insert));
+				text = text.substring(0, start) + insert + text.substring(end);
+			}
+			document.update(changes);
+			Assert.assertEquals(text, document.getText());
+		}
+		snapshots.add(document);
+		texts.add(document.getText());
+
+		// the line index of the snapshots has not been changed by the next versions
+		for (int i = 0; i < snapshots.size(); i++) {
+			TextDocument snapshot = snapshots.get(i);
+			TextDocument expected = new TextDocument(texts.get(i), null);
+			for (int offset = 0; offset <= expected.getText().length(); offset++) {
+				Assert.assertEquals(expected.positionAt(offset), snapshot.positionAt(offset));
+			}
+		}
+	}
+
+	@Test
+	public void testPositionsAt() throws BadLocationException {
+		Random random = new Random(0);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			text.append("<a>").append(i);
+			text.append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+			if (i % 7 == 0) {
+				// several empty lines
+				text.append("\n\n\n");
+			}
+		}
+		TextDocument document = new TextDocument(text.toString(), null);
+
+		// sorted offsets
+		int[] offsets = new int[300];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = random.nextInt(text.length() + 1);
+		}
+		offsets[0] = 0;
+		offsets[offsets.length - 1] = text.length();
+		Arrays.sort(offsets);
+		assertPositionsAt(document, offsets);
+
+		// unsorted offsets
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = random.nextInt(text.length() + 1);
+		}
+		assertPositionsAt(document, offsets);
+
+		BadLocationException ex = null;
+		try {
+			document.positionsAt(0, text.length() + 1);
+		} catch (BadLocationException e) {
+			ex = e;
+		}
+		Assert.assertNotNull(ex);
+	}
+
+	private static void assertPositionsAt(TextDocument document, int[] offsets) throws BadLocationException {
+		Position[] positions = document.positionsAt(offsets);
+		Assert.assertEquals(offsets.length, positions.length);
+		for (int i = 0; i < offsets.length; i++) {
+			Assert.assertEquals(document.positionAt(offsets[i]), positions[i]);
+		}
+	}
+
+	private static boolean isInsideCRLF(String text, int offset) {
+		return offset > 0 && offset < text.length() && text.charAt(offset - 1) == '\r' && text.charAt(offset) == '\n';
+	}
+
 }
@@ -0,0 +1,110 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.commons;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * TextDocuments tests
+ *
+ */
+public class TextDocumentsTest {
+
+	@Test
+	public void testSnapshot() throws BadLocationException {
+		testSnapshot(false);
+	}
+
+	@Test
+	public void testIncrementalSnapshot() throws BadLocationException {
+		testSnapshot(true);
+	}
+
+	@Test
+	public void testCompressIdleDocuments() throws Exception {
+		TextDocuments documents = new TextDocuments();
+		documents.setIncremental(true);
+		documents.onDidOpenTextDocument(
+				new DidOpenTextDocumentParams(new TextDocumentItem("a.xml", "xml", 1, "<a>\n\u00e9</a>")));
+		documents.onDidOpenTextDocument(
+				new DidOpenTextDocumentParams(new TextDocumentItem("b.xml", "xml", 3, "<b/>")));
+		TextDocument a = documents.get("a.xml");
+
+		Thread.sleep(10);
+		// b.xml is accessed
+		documents.get("b.xml");
+		Collection<String> compressed = documents.compressIdleDocuments(5);
+		Assert.assertEquals(Collections.singletonList("a.xml"), compressed);
+		Assert.assertEquals(2, documents.all().size());
+		Assert.assertEquals(Collections.singletonList("b.xml"),
+				documents.all(false).stream().map(TextDocument::getUri).collect(Collectors.toList()));
+
+		// a.xml is decompressed on access
+		TextDocument decompressed = documents.get("a.xml");
+		Assert.assertNotSame(a, decompressed);
+		Assert.assertEquals("<a>\n\u00e9</a>", decompressed.getText());
+		Assert.assertEquals(1, decompressed.getVersion());
+		Assert.assertEquals("xml", decompressed.getLanguageId());
+		Assert.assertTrue(decompressed.isIncremental());
+		Assert.assertEquals(new Position(1, 1), decompressed.positionAt(5));
+		Assert.assertSame(decompressed, documents.get("a.xml"));
+
+		// a change on a compressed document
+		Thread.sleep(10);
+		Assert.assertTrue(documents.compressIdleDocuments(5).contains("a.xml"));
+		documents.onDidChangeTextDocument(new DidChangeTextDocumentParams(
+				new VersionedTextDocumentIdentifier("a.xml", 2),
+				Collections.singletonList(new TextDocumentContentChangeEvent(
+						new Range(new Position(0, 3), new Position(0, 3)), 0, "<c/>"))));
+		Assert.assertEquals("<a><c/>\n\u00e9</a>", documents.get("a.xml").getText());
+		Assert.assertEquals(2, documents.get("a.xml").getVersion());
+	}
+
+	private static void testSnapshot(boolean incremental) throws BadLocationException {
+		TextDocuments documents = new TextDocuments();
+		documents.setIncremental(incremental);
+		documents.onDidOpenTextDocument(
+				new DidOpenTextDocumentParams(new TextDocumentItem("test.xml", "xml", 1, "<a>\n</a>")));
+
+		TextDocument snapshot = documents.get("test.xml");
+		Assert.assertEquals(new Position(1, 0), snapshot.positionAt(4));
+
+		TextDocumentContentChangeEvent change = incremental
+				? new TextDocumentContentChangeEvent(new Range(new Position(0, 3), new Position(0, 3)), 0, "\n<b/>")
+				: new TextDocumentContentChangeEvent("<a>\n<b/>\n</a>");
+		documents.onDidChangeTextDocument(new DidChangeTextDocumentParams(
+				new VersionedTextDocumentIdentifier("test.xml", 2), Collections.singletonList(change)));
+
+		// the old snapshot is not modified
+		Assert.assertEquals(1, snapshot.getVersion());
+		Assert.assertEquals("<a>\n</a>", snapshot.getText());
+		Assert.assertEquals(new Position(1, 0), snapshot.positionAt(4));
+
+		TextDocument document = documents.get("test.xml");
+		Assert.assertNotSame(snapshot, document);
+		Assert.assertEquals(2, document.getVersion());
+		Assert.assertEquals("<a>\n<b/>\n</a>", document.getText());
+		Assert.assertEquals(new Position(2, 0), document.positionAt(9));
+		Assert.assertEquals(incremental, document.isIncremental());
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * DOM attribute tests.
+ *
+ */
+public class DOMAttrTest {
+
+	@Test
+	public void testValueDecodedFromText() {
+		DOMElement root = parse("<root a=\"1\" b='2' c=\"3 d = e>").getDocumentElement();
+		assertAttr(root.getAttributeNode("a"), "\"1\"", "1", 8, 11);
+		assertAttr(root.getAttributeNode("b"), "'2'", "2", 14, 17);
+		assertAttr(root.getAttributeNode("c"), "\"3 d = e>", "3 d = e>", 20, 29);
+	}
+
+	@Test
+	public void testValueWithoutText() {
+		DOMElement root = parse("<root a= b />").getDocumentElement();
+		DOMAttr a = root.getAttributeNode("a");
+		Assert.assertTrue(a.hasDelimiter());
+		Assert.assertNull(a.getOriginalValue());
+		Assert.assertNull(a.getValue());
+		Assert.assertEquals(7, a.getNodeAttrValue().getStart());
+		DOMAttr b = root.getAttributeNode("b");
+		Assert.assertFalse(b.hasDelimiter());
+		Assert.assertNull(b.getValue());
+		Assert.assertNull(b.getNodeAttrValue());
+	}
+
+	@Test
+	public void testSetValue() {
+		DOMElement root = parse("<root a=\"1\" />").getDocumentElement();
+		DOMAttr a = root.getAttributeNode("a");
+		a.setValue("'2'");
+		Assert.assertEquals("'2'", a.getOriginalValue());
+		Assert.assertEquals("2", a.getValue());
+		Assert.assertNull(a.getNodeAttrValue());
+		a.setValue(8, 11);
+		assertAttr(a, "\"1\"", "1", 8, 11);
+	}
+
+	@Test
+	public void testLazyNameAndValueNodes() {
+		DOMElement root = parse("<root a=\"1\" b />").getDocumentElement();
+		DOMAttr a = root.getAttributeNode("a");
+		Assert.assertEquals(6, a.getStart());
+		Assert.assertEquals(7, a.getNameEnd());
+		Assert.assertEquals(8, a.getValueStart());
+		Assert.assertEquals(11, a.getValueEnd());
+		Assert.assertEquals(11, a.getEnd());
+		// the nodes are created on first access and then shared
+		Assert.assertSame(a.getNodeAttrName(), a.getNodeAttrName());
+		Assert.assertSame(a.getNodeAttrValue(), a.getNodeAttrValue());
+		Assert.assertEquals(6, a.getNodeAttrName().getStart());
+		Assert.assertEquals(7, a.getNodeAttrName().getEnd());
+		DOMAttr b = root.getAttributeNode("b");
+		Assert.assertEquals(-1, b.getValueStart());
+		Assert.assertEquals(13, b.getEnd());
+		Assert.assertNull(b.getNodeAttrValue());
+		Assert.assertNull(new DOMAttr("c", root).getNodeAttrName());
+	}
+
+	@Test
+	public void testNodeList() {
+		DOMElement root = parse("<root><a/></root>").getDocumentElement();
+		DOMNode text = root.getOwnerDocument().createText(0, 0);
+		for (int i = 0; i < 10; i++) {
+			root.addChild(root.getOwnerDocument().createElement(i, i));
+		}
+		root.getChildren().add(1, text);
+		Assert.assertEquals(12, root.getChildren().size());
+		Assert.assertSame(text, root.getChild(1));
+		Assert.assertEquals("a", root.getChild(0).getNodeName());
+		Assert.assertSame(text, root.getChildren().remove(1));
+		Assert.assertEquals(11, root.getChildNodes().getLength());
+		Assert.assertEquals(9, root.getLastChild().getStart());
+	}
+
+	@Test
+	public void testEquals() {
+		DOMElement root = parse("<root><a b=\"1\" /><a b='1' /><a b=\"2\" /></root>").getDocumentElement();
+		DOMAttr first = root.getChild(0).getAttributeNode("b");
+		DOMAttr second = root.getChild(1).getAttributeNode("b");
+		DOMAttr third = root.getChild(2).getAttributeNode("b");
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+		Assert.assertNotEquals(first, third);
+	}
+
+	private static void assertAttr(DOMAttr attr, String originalValue, String value, int start, int end) {
+		Assert.assertEquals(originalValue, attr.getOriginalValue());
+		Assert.assertSame(attr.getOriginalValue(), attr.getOriginalValue());
+		Assert.assertEquals(value, attr.getValue());
+		Assert.assertSame(attr.getValue(), attr.getValue());
+		Assert.assertEquals(start, attr.getNodeAttrValue().getStart());
+		Assert.assertEquals(end, attr.getNodeAttrValue().getEnd());
+	}
+
+	private static DOMDocument parse(String xml) {
+		return DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+}
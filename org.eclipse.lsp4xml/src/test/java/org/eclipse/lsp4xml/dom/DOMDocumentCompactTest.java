@@ -0,0 +1,159 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import static org.eclipse.lsp4xml.dom.DOMParserIncrementalTest.dump;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.Hover;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.services.XMLLanguageService;
+import org.eclipse.lsp4xml.settings.SharedSettings;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compact DOM document tests.
+ *
+ */
+public class DOMDocumentCompactTest {
+
+	@Test
+	public void testElements() {
+		assertCompact("<root><a b=\"c\" d='e'>text</a><b/><c></c></root>");
+		assertCompact("<root>\r\n  <a>\r\n    <b></b>\r\n  </a>\r\n</root>");
+		assertCompact("<root><a></root>");
+		assertCompact("<root></a></root>");
+		assertCompact("<a><b><c></d>");
+		assertCompact("<root><a b= c=\"d\" e>");
+	}
+
+	@Test
+	public void testCharacterData() {
+		assertCompact("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n<root><!-- comment --></root> <!-- same line -->");
+		assertCompact("<root><![CDATA[ <data> ]]><?pi content ?><![CDATA[ unclosed");
+		assertCompact("<root>  </root><?pi");
+	}
+
+	@Test
+	public void testDoctype() {
+		String xml = "<!DOCTYPE root [\r\n  <!ELEMENT root (#PCDATA)>\r\n  <!ATTLIST root a CDATA #IMPLIED>\r\n]>\r\n<root a=\"b\" />";
+		DOMDocument expected = parse(xml);
+		DOMDocument document = parse(xml);
+		DOMDocumentType doctype = document.getDoctype();
+		document.compact();
+		Assert.assertEquals(dump(expected), dump(document));
+		// the DOCTYPE is kept as object
+		Assert.assertSame(doctype, document.getDoctype());
+		Assert.assertSame(document, doctype.getParentNode());
+	}
+
+	@Test
+	public void testNodesCreatedOnce() {
+		DOMDocument document = parse("<root><a><b c=\"d\" /></a><a></a></root>");
+		document.compact();
+		Assert.assertTrue(document.isCompact());
+		Assert.assertTrue(document.getCompactSize() > 0);
+		DOMElement root = document.getDocumentElement();
+		Assert.assertSame(root, document.getDocumentElement());
+		DOMNode b = document.findNodeAt(13);
+		Assert.assertEquals("b", b.getNodeName());
+		Assert.assertSame(b, root.getFirstChild().getFirstChild());
+		Assert.assertSame(root, b.getParentElement().getParentElement());
+		Assert.assertSame(document.findAttrAt(13), b.getAttributeNode("c"));
+		Assert.assertEquals("d", ((DOMElement) b).getAttribute("c"));
+		Assert.assertSame(root.getLastChild(), root.getFirstChild().getNextSibling());
+	}
+
+	@Test
+	public void testIncrementalParse() {
+		DOMDocument previous = parse("<root><a>text</a></root>");
+		previous.compact();
+		TextDocument document = new TextDocument("<root><a>new text</a></root>", "test.xml");
+		DOMDocument xmlDocument = DOMParser.getInstance().parseIncremental(previous, document, null, null);
+		Assert.assertFalse(xmlDocument.isCompact());
+		Assert.assertEquals(dump(DOMParser.getInstance().parse(document, null)), dump(xmlDocument));
+	}
+
+	@Test
+	public void testLanguageFeatures() {
+		String xml = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\r\n" + //
+				"  <modelVersion>4.0.0</modelVersion>\r\n" + //
+				"  <build>\r\n" + //
+				"    <\r\n" + //
+				"  </build>\r\n" + //
+				"</project>";
+		XMLLanguageService languageService = new XMLLanguageService();
+		DOMDocument expected = parse(xml);
+		DOMDocument document = parse(xml);
+		document.compact();
+		for (Position position : new Position[] { new Position(3, 5), new Position(1, 5), new Position(0, 3) }) {
+			Assert.assertEquals(getLabels(languageService, expected, position),
+					getLabels(languageService, document, position));
+			Hover expectedHover = languageService.doHover(expected, position);
+			Hover hover = languageService.doHover(document, position);
+			Assert.assertEquals(expectedHover, hover);
+		}
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		StringBuilder xml = new StringBuilder("<root>");
+		for (int i = 0; i < 1000; i++) {
+			xml.append("<a b=\"").append(i).append("\"><c>text</c><!-- comment --></a>");
+		}
+		xml.append("</root>");
+		String expected = dump(parse(xml.toString()));
+		for (int i = 0; i < 10; i++) {
+			DOMDocument document = parse(xml.toString());
+			document.compact();
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Callable<String>> dumps = new ArrayList<>();
+				for (int j = 0; j < 4; j++) {
+					dumps.add(() -> dump(document));
+				}
+				for (Future<String> dump : executor.invokeAll(dumps)) {
+					Assert.assertEquals(expected, dump.get());
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	private static List<String> getLabels(XMLLanguageService languageService, DOMDocument document,
+			Position position) {
+		return languageService.doComplete(document, position, new SharedSettings()).getItems().stream()
+				.map(CompletionItem::getLabel).collect(Collectors.toList());
+	}
+
+	private static void assertCompact(String xml) {
+		DOMDocument expected = parse(xml);
+		DOMDocument document = parse(xml);
+		document.compact();
+		Assert.assertTrue(document.isCompact());
+		Assert.assertEquals("Compact document of '" + xml + "'", dump(expected), dump(document));
+	}
+
+	private static DOMDocument parse(String xml) {
+		return DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the offset index of the nodes of a DOM document.
+ *
+ */
+public class DOMNodeIndexTest {
+
+	@Test
+	public void testElements() {
+		assertIndex("<root><a>text</a><b c=\"d\" e='f'/><g h></g></root>");
+		assertIndex("<?xml version=\"1.0\"?>\r\n<root>\r\n  <a>\r\n    <b x=\"1\"/>\r\n  </a>\r\n</root>\r\n");
+		assertIndex("<root><!-- comment --><![CDATA[ <a> ]]><?pi ?><a/></root> <!-- after -->");
+	}
+
+	@Test
+	public void testUnclosed() {
+		assertIndex("<root><a><b c=\"d\"><e></root>");
+		assertIndex("<root><a></b></a><c d=</root>");
+		assertIndex("<root><a");
+		assertIndex("<root>  <");
+		assertIndex("");
+	}
+
+	@Test
+	public void testDTD() {
+		assertIndex("<!DOCTYPE root [\r\n<!ELEMENT root (a)>\r\n<!ATTLIST root b CDATA #IMPLIED>\r\n]>\r\n<root b='c'><a/></root>");
+	}
+
+	@Test
+	public void testDocumentLookups() {
+		String xml = "<root><a b=\"c\"/><d><e/></d></root>";
+		DOMDocument document = DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+		// the first lookups walk the DOM tree and the next ones use the index
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals("a", document.findNodeAt(9).getNodeName());
+			Assert.assertEquals("b", document.findAttrAt(10).getName());
+			Assert.assertEquals("e", document.findNodeBefore(25).getNodeName());
+			Assert.assertEquals("d", document.findNodeAt(17).getNodeName());
+			Assert.assertEquals("root", document.findNodeAt(30).getNodeName());
+		}
+	}
+
+	@Test
+	public void testUnsorted() {
+		DOMDocument document = new DOMDocument(new TextDocument("", "test.xml"), null);
+		DOMElement root = document.createElement(10, 20);
+		document.addChild(root);
+		document.addChild(document.createElement(0, 5));
+		Assert.assertSame(DOMNodeIndex.UNSORTED, DOMNodeIndex.create(document));
+	}
+
+	private static void assertIndex(String xml) {
+		DOMDocument document = parse(xml);
+		DOMNodeIndex index = DOMNodeIndex.create(document);
+		Assert.assertNotSame(DOMNodeIndex.UNSORTED, index);
+		for (int offset = 0; offset <= xml.length(); offset++) {
+			// the lookups of a new document walk the DOM tree
+			DOMDocument expected = parse(xml);
+			DOMNodeIndex expectedIndex = DOMNodeIndex.create(expected);
+			Assert.assertSame("findNodeAt(" + offset + ")", expected.findNodeAt(offset),
+					expectedIndex.findNodeAt(expected, offset));
+			Assert.assertSame("findNodeBefore(" + offset + ")", expected.findNodeBefore(offset),
+					expectedIndex.findNodeBefore(expected, offset));
+			Assert.assertSame("findAttrAt(" + offset + ")", expected.findAttrAt(offset),
+					expectedIndex.findAttrAt(offset));
+		}
+		Assert.assertTrue(index.getNodeCount() > 0 || xml.isEmpty());
+	}
+
+	private static DOMDocument parse(String xml) {
+		return DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+}
@@ -847,6 +847,34 @@ public class DOMParserForInternalDTDTest {
 		assertTrue(documentType.getChild(1) instanceof DTDNotationDecl);
 	}
 
+	@Test
+	public void testFindDecls() {
+		String dtd = "<!DOCTYPE note [\n" + //
+				"  <!ELEMENT note (to,from)>\n" + //
+				"  <!ATTLIST note version CDATA #REQUIRED>\n" + //
+				"  <!ELEMENT to (#PCDATA)>\n" + //
+				"  <!ATTLIST note lang CDATA #IMPLIED>\n" + //
+				"  <!ENTITY writer \"Writer\">\n" + //
+				"  <!NOTATION png SYSTEM \"image/png\">\n" + //
+				"]>\n" + //
+				"<note />";
+
+		DOMDocument actual = createDOMDocument(dtd);
+		DOMDocumentType documentType = actual.getDoctype();
+		Assert.assertEquals(1, documentType.findElementDecls("note").size());
+		Assert.assertSame(documentType.getChild(2), documentType.findElementDecls("to").get(0));
+		Assert.assertEquals(0, documentType.findElementDecls("from").size());
+		Assert.assertEquals(2, documentType.findAttlistDecls("note").size());
+		Assert.assertSame(documentType.getChild(1), documentType.findAttlistDecls("note").get(0));
+		Assert.assertSame(documentType.getChild(3), documentType.findAttlistDecls("note").get(1));
+		Assert.assertEquals(2, actual.findDTDAttrList("note").size());
+		Assert.assertEquals(0, actual.findDTDAttrList("to").size());
+		Assert.assertEquals(0, actual.findDTDAttrList(null).size());
+		Assert.assertSame(documentType.getChild(4), documentType.findEntityDecls("writer").get(0));
+		Assert.assertSame(documentType.getChild(5), documentType.findNotationDecls("png").get(0));
+		Assert.assertEquals(0, documentType.findNotationDecls(null).size());
+	}
+
 
 	private static DOMDocument createDOMDocument(String xml) {
 		return DOMParser.getInstance().parse(xml, "uri", null);
@@ -0,0 +1,370 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.parser.Scanner;
+import org.eclipse.lsp4xml.dom.parser.ScannerCheckpoint;
+import org.eclipse.lsp4xml.dom.parser.TokenType;
+import org.eclipse.lsp4xml.dom.parser.XMLScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Incremental XML parser tests: the DOM document parsed incrementally must be
+ * the same as the DOM document parsed from scratch.
+ *
+ */
+public class DOMParserIncrementalTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + //
+			"<!-- comment -->\n" + //
+			"<root xmlns=\"http://foo\">\n" + //
+			"  <a name=\"value\" attr='x'>text</a>\n" + //
+			"  <b>\n" + //
+			"    <c/>\n" + //
+			"    <d><![CDATA[ data ]]></d> <!-- comment -->\n" + //
+			"    <?pi content?>\n" + //
+			"  </b>\n" + //
+			"  <e>  </e>\n" + //
+			"</root>\n" + //
+			"<!-- end -->";
+
+	private static final String[] INSERTIONS = { "x", " ", "\n", "<", ">", "/", "\"", "'", "=", "<f>", "</f>", "<f/>",
+			"</b>", "</root>", "<b>", "<g attr=\"v\">", "<!--", "-->", "<!-- c -->", "<![CDATA[", "]]>", "<?pi ?>",
+			"<!DOCTYPE root>", "</", "</e>" };
+
+	@Test
+	public void testChangeText() {
+		assertIncrementalParse(XML, XML.replace(">text<", ">new text<"));
+	}
+
+	@Test
+	public void testAddElement() {
+		assertIncrementalParse(XML, XML.replace("<c/>", "<c/><f attr=\"v\"></f>"));
+	}
+
+	@Test
+	public void testRemoveElement() {
+		assertIncrementalParse(XML, XML.replace("<c/>", ""));
+	}
+
+	@Test
+	public void testUnclosedElement() {
+		assertIncrementalParse(XML, XML.replace("<c/>", "<c>"));
+		assertIncrementalParse(XML, XML.replace("<c/>", "<b>"));
+	}
+
+	@Test
+	public void testCloseParentElement() {
+		assertIncrementalParse(XML, XML.replace("<c/>", "</b>"));
+		assertIncrementalParse(XML, XML.replace("<c/>", "</root>"));
+	}
+
+	@Test
+	public void testUnclosedComment() {
+		assertIncrementalParse(XML, XML.replace("<c/>", "<!--"));
+	}
+
+	@Test
+	public void testChangeOutsideElements() {
+		assertIncrementalParse(XML, XML.replace("<!-- comment -->\n<root", "<!-- comment --><root"));
+		assertIncrementalParse(XML, XML.replace("<b>", "<b attr=\"v\">"));
+	}
+
+	@Test
+	public void testRandomChanges() {
+		Random random = new Random(0);
+		for (int i = 0; i < 200; i++) {
+			String text = XML;
+			DOMDocument previous = DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null);
+			for (int j = 0; j < 10; j++) {
+				String newText = randomChange(text, random);
+				if (!isParsable(newText)) {
+					continue;
+				}
+				previous = assertIncrementalParse(previous, newText);
+				text = newText;
+			}
+		}
+	}
+
+	@Test
+	public void testMoveUnchangedNodes() {
+		DOMDocument previous = DOMParser.getInstance().parse(new TextDocument(XML, "test.xml"), null);
+		DOMElement previousB = (DOMElement) previous.getDocumentElement().getChild(1);
+		DOMNode previousC = previousB.getChild(0);
+		int nodeCount = previous.getNodeCount();
+		String newText = XML.replace(">text<", ">new text<");
+		DOMDocument document = DOMParser.getInstance().parseIncremental(previous, new TextDocument(newText, "test.xml"),
+				null, null);
+		Assert.assertEquals(nodeCount, document.getNodeCount());
+
+		// the ancestors of the edited element are copied
+		DOMElement root = document.getDocumentElement();
+		Assert.assertNotSame(previous.getDocumentElement(), root);
+		Assert.assertSame(root, document.getChild(1).getNextSibling());
+		// the other nodes are moved, the children of a moved node are shifted when
+		// they are accessed
+		DOMElement b = (DOMElement) root.getChild(1);
+		Assert.assertSame(previousB, b);
+		Assert.assertSame(root, b.getParentNode());
+		Assert.assertEquals(newText.indexOf("<b>"), b.getStart());
+		Assert.assertEquals(XML.indexOf("<c/>"), previousC.start);
+		Assert.assertSame(previousC, b.getChild(0));
+		Assert.assertEquals(newText.indexOf("<c/>"), previousC.getStart());
+		Assert.assertSame(previous.getChild(0), document.getChild(0));
+		Assert.assertEquals(" data ", ((DOMCDATASection) b.getChild(1).getChild(0)).getData());
+		Assert.assertEquals("'x'", root.getChild(0).getAttributeNode("attr").getOriginalValue());
+		Assert.assertEquals(dump(DOMParser.getInstance().parse(new TextDocument(newText, "test.xml"), null)),
+				dump(document));
+		assertOwner(document, document);
+	}
+
+	@Test
+	public void testParseMovedDocument() {
+		DOMDocument previous = DOMParser.getInstance().parse(new TextDocument(XML, "test.xml"), null);
+		DOMParser.getInstance().parseIncremental(previous,
+				new TextDocument(XML.replace(">text<", ">new text<"), "test.xml"), null, null);
+		// the nodes of the previous document have been moved: it is fully parsed
+		String newText = XML.replace("<c/>", "<c/><f/>");
+		DOMDocument document = DOMParser.getInstance().parseIncremental(previous, new TextDocument(newText, "test.xml"),
+				null, null);
+		Assert.assertNotSame(previous.getDocumentElement().getChild(2), document.getDocumentElement().getChild(2));
+		Assert.assertEquals(dump(DOMParser.getInstance().parse(new TextDocument(newText, "test.xml"), null)),
+				dump(document));
+	}
+
+	@Test
+	public void testParseOlderVersion() {
+		TextDocument textDocument = new TextDocument(XML, "test.xml");
+		textDocument.setVersion(2);
+		DOMDocument previous = DOMParser.getInstance().parse(textDocument, null);
+		// the nodes of a newer version are not moved
+		String newText = XML.replace(">text<", ">new text<");
+		textDocument = new TextDocument(newText, "test.xml");
+		textDocument.setVersion(1);
+		DOMDocument document = DOMParser.getInstance().parseIncremental(previous, textDocument, null, null);
+		Assert.assertNotSame(previous.getDocumentElement().getChild(1), document.getDocumentElement().getChild(1));
+		Assert.assertSame(previous, previous.getDocumentElement().getOwnerDocument());
+		Assert.assertEquals(dump(DOMParser.getInstance().parse(new TextDocument(newText, "test.xml"), null)),
+				dump(document));
+	}
+
+	@Test
+	public void testRandomChangesWithPendingOffsets() {
+		// the documents are not accessed between the changes, so the offset deltas
+		// of several versions are pending
+		Random random = new Random(0);
+		for (int i = 0; i < 100; i++) {
+			String text = XML;
+			DOMDocument document = DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null);
+			document.getNodeCount();
+			for (int j = 0; j < 20; j++) {
+				String newText = randomChange(text, random);
+				if (!isParsable(newText)) {
+					continue;
+				}
+				document = DOMParser.getInstance().parseIncremental(document, new TextDocument(newText, "test.xml"),
+						null, null);
+				text = newText;
+			}
+			DOMDocument expected = DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null);
+			Assert.assertEquals("Incremental parse of '" + text + "'", dump(expected), dump(document));
+			Assert.assertEquals(expected.getNodeCount(), document.getNodeCount());
+		}
+	}
+
+	@Test
+	public void testReuseSymbols() {
+		DOMDocument previous = DOMParser.getInstance().parse(new TextDocument(XML, "test.xml"), null);
+		// the document is fully parsed and reuses the names of the previous version
+		DOMDocument document = DOMParser.getInstance().parseIncremental(previous,
+				new TextDocument(XML.replace("<b>", "<b other=\"v\">"), "test.xml"), null, null);
+		Assert.assertSame(previous.getDocumentElement().getTagName(), document.getDocumentElement().getTagName());
+		Assert.assertNotSame(previous.getSymbolTable(), document.getSymbolTable());
+		Assert.assertTrue(document.getSymbolTable().size() > previous.getSymbolTable().size());
+	}
+
+	@Test
+	public void testDeletedSymbolsNotKept() {
+		// the edited element is parsed again
+		DOMDocument document = DOMParser.getInstance().parse(new TextDocument("<root><a x=\"\"/><b/></root>", "test.xml"),
+				null);
+		String a = ((DOMElement) document.getDocumentElement().getChild(0)).getTagName();
+		for (int i = 0; i < 100; i++) {
+			document = DOMParser.getInstance().parseIncremental(document,
+					new TextDocument("<root><a x=\"\"/><b" + i + "/></root>", "test.xml"), null, null);
+			Assert.assertEquals("b" + i, ((DOMElement) document.getDocumentElement().getChild(1)).getTagName());
+		}
+		Assert.assertEquals(4, document.getSymbolTable().size());
+		// the names of the copied nodes are kept
+		Assert.assertSame(a, ((DOMElement) document.getDocumentElement().getChild(0)).getTagName());
+		Assert.assertSame(a, document.getSymbolTable().addSymbol("a"));
+		Assert.assertEquals(4, document.getSymbolTable().size());
+
+		// the whole document is parsed again
+		for (int i = 0; i < 100; i++) {
+			document = DOMParser.getInstance().parseIncremental(document,
+					new TextDocument("<root" + i + "><a x=\"\"/></root" + i + ">", "test.xml"), null, null);
+			Assert.assertEquals("root" + i, document.getDocumentElement().getTagName());
+		}
+		Assert.assertEquals(3, document.getSymbolTable().size());
+		Assert.assertSame(a, ((DOMElement) document.getDocumentElement().getChild(0)).getTagName());
+	}
+
+	@Test
+	public void testScannerCheckpoints() {
+		StringBuilder xml = new StringBuilder("<root>\n");
+		for (int i = 0; i < 3000; i++) {
+			xml.append("  <a name=\"value\">text</a>\n");
+		}
+		xml.append("</root>");
+		String text = xml.toString();
+		int offset = text.length() / 2;
+		String newText = text.substring(0, offset) + "<b><c attr=\"v\"/></b>" + text.substring(offset);
+
+		DOMDocument previous = DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null);
+		DOMDocument document = DOMParser.getInstance().parseIncremental(previous,
+				new TextDocument(newText, "test.xml"), null, null);
+		List<ScannerCheckpoint> checkpoints = document.getScannerCheckpoints().getCheckpoints();
+		Assert.assertTrue(checkpoints.size() > 2);
+		List<String> tokens = scan(XMLScanner.createScanner(newText), 0);
+		for (ScannerCheckpoint checkpoint : checkpoints) {
+			Assert.assertEquals("Resume from " + checkpoint, tokensFrom(tokens, checkpoint.getOffset(), 20),
+					scan(XMLScanner.createScanner(newText, checkpoint), 20));
+		}
+	}
+
+	private static List<String> scan(Scanner scanner, int max) {
+		List<String> tokens = new ArrayList<>();
+		TokenType token = scanner.scan();
+		while (token != TokenType.EOS && (max == 0 || tokens.size() < max)) {
+			tokens.add(scanner.getTokenOffset() + ":" + token);
+			token = scanner.scan();
+		}
+		return tokens;
+	}
+
+	private static List<String> tokensFrom(List<String> tokens, int offset, int max) {
+		List<String> result = new ArrayList<>();
+		for (String token : tokens) {
+			if (Integer.parseInt(token.substring(0, token.indexOf(':'))) >= offset && result.size() < max) {
+				result.add(token);
+			}
+		}
+		return result;
+	}
+
+	private static String randomChange(String text, Random random) {
+		int start = random.nextInt(text.length() + 1);
+		int end = Math.min(text.length(), start + (random.nextBoolean() ? 0 : random.nextInt(10)));
+		String insertion = random.nextInt(4) == 0 ? "" : INSERTIONS[random.nextInt(INSERTIONS.length)];
+		return text.substring(0, start) + insertion + text.substring(end);
+	}
+
+	private static boolean isParsable(String text) {
+		try {
+			DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null);
+			return true;
+		} catch (ClassCastException e) {
+			// the tolerant parser fails with some invalid documents (ex: '/>' at the
+			// end of the XML declaration)
+			return false;
+		}
+	}
+
+	private static void assertIncrementalParse(String text, String newText) {
+		assertIncrementalParse(DOMParser.getInstance().parse(new TextDocument(text, "test.xml"), null), newText);
+	}
+
+	private static DOMDocument assertIncrementalParse(DOMDocument previous, String newText) {
+		DOMDocument expected = DOMParser.getInstance().parse(new TextDocument(newText, "test.xml"), null);
+		DOMDocument actual = DOMParser.getInstance().parseIncremental(previous, new TextDocument(newText, "test.xml"),
+				null, null);
+		Assert.assertEquals("Incremental parse of '" + newText + "'", dump(expected), dump(actual));
+		assertOwner(actual, actual);
+		return actual;
+	}
+
+	private static void assertOwner(DOMNode node, DOMDocument document) {
+		Assert.assertSame(document, node.getOwnerDocument());
+		if (node.hasAttributes()) {
+			for (DOMAttr attr : node.getAttributeNodes()) {
+				Assert.assertSame(document, attr.getOwnerDocument());
+			}
+		}
+		for (DOMNode child : node.getChildren()) {
+			assertOwner(child, document);
+		}
+	}
+
+	static String dump(DOMNode node) {
+		StringBuilder dump = new StringBuilder();
+		dump(node, dump, 0);
+		return dump.toString();
+	}
+
+	private static void dump(DOMNode node, StringBuilder dump, int indent) {
+		for (int i = 0; i < indent; i++) {
+			dump.append("  ");
+		}
+		dump.append(node.getNodeType()).append(" [").append(node.getStart()).append(", ").append(node.getEnd())
+				.append("] closed=").append(node.closed).append(" parent=")
+				.append(node.parent != null ? node.parent.getStart() : -1);
+		if (node.isElement()) {
+			DOMElement element = (DOMElement) node;
+			dump.append(" tag=").append(element.tag).append(" selfClosed=").append(element.selfClosed)
+					.append(" offsets=").append(element.startTagOpenOffset).append(",")
+					.append(element.startTagCloseOffset).append(",").append(element.endTagOpenOffset).append(",")
+					.append(element.endTagCloseOffset);
+		} else if (node.isText()) {
+			dump.append(" whitespace=").append(((DOMText) node).isWhitespace());
+		} else if (node.isComment()) {
+			DOMComment comment = (DOMComment) node;
+			dump.append(" sameLine=").append(comment.commentSameLineEndTag).append(" content=")
+					.append(comment.startContent).append(",").append(comment.endContent);
+		} else if (node.isCDATA()) {
+			DOMCDATASection cdata = (DOMCDATASection) node;
+			dump.append(" content=").append(cdata.startContent).append(",").append(cdata.endContent);
+		} else if (node instanceof DOMProcessingInstruction) {
+			DOMProcessingInstruction processingInstruction = (DOMProcessingInstruction) node;
+			dump.append(" target=").append(processingInstruction.target).append(" prolog=")
+					.append(processingInstruction.prolog).append(" pi=")
+					.append(processingInstruction.processingInstruction).append(" startTagClose=")
+					.append(processingInstruction.startTagClose).append(" content=")
+					.append(processingInstruction.startContent).append(",").append(processingInstruction.endContent)
+					.append(" endTagOpen=").append(processingInstruction.endTagOpenOffset);
+		}
+		dump.append('\n');
+		if (node.hasAttributes()) {
+			for (DOMAttr attr : node.getAttributeNodes()) {
+				for (int i = 0; i <= indent; i++) {
+					dump.append("  ");
+				}
+				dump.append("@").append(attr.getName()).append(" [").append(attr.getStart()).append(", ")
+						.append(attr.getEnd()).append("] value=").append(attr.getOriginalValue()).append(" ");
+				DOMNode value = attr.getNodeAttrValue();
+				if (value != null) {
+					dump.append("[").append(value.getStart()).append(", ").append(value.getEnd()).append("]");
+				}
+				dump.append(" delimiter=").append(attr.hasDelimiter()).append('\n');
+			}
+		}
+		for (DOMNode child : node.getChildren()) {
+			dump(child, dump, indent + 1);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import static org.eclipse.lsp4xml.dom.DOMParserIncrementalTest.dump;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Parallel parse tests.
+ *
+ */
+public class DOMParserParallelTest {
+
+	@Test
+	public void testRecords() {
+		assertParallel("<root><a/><b c=\"d\">text</b><e></e></root>");
+		assertParallel("<?xml version=\"1.0\"?>\r\n<root>\r\n  <a>1</a>\r\n  <a>2</a>\r\n  <a>3</a>\r\n</root>\r\n");
+		assertParallel("<root>\r\n  <a/>  text  <b/>\r\n  <c/>\r\n</root><!-- after -->\r\n<?pi ?>");
+	}
+
+	@Test
+	public void testCommentsAtChunkStart() {
+		assertParallel("<root><a/><b><!-- same line --></b>\r\n<c><!-- other line --></c></root>");
+		assertParallel("<root>\r\n<a></a><b>\r\n<!-- c --></b><c><d/><!-- d --></c></root> <!-- e -->");
+	}
+
+	@Test
+	public void testUnclosedDocumentElement() {
+		assertParallel("<root><a/><b/><c>");
+		assertParallel("<root><a/><b/><c></c></d>");
+		assertParallel("<root><a/><b/></root");
+	}
+
+	@Test
+	public void testSkippedConstructs() {
+		assertParallel("<!DOCTYPE root [\r\n<!ELEMENT root ANY>\r\n]>\r\n<root><a/><b/></root>");
+		assertParallel("<root><a/><!-- <b> --><![CDATA[ <c> ]]><?pi <d> ?><e f=\"<g>\"/><h/></root>");
+	}
+
+	@Test
+	public void testFallback() {
+		// unclosed element which contains the other children
+		assertParallel("<root><a><b/><c/></root>", false);
+		// DTD declaration in the document element
+		Assert.assertNull(DOMParser.findSplitOffsets("<root><a/><!ELEMENT a ANY><b/></root>", 1));
+		// end tag which closes the document element before the last split: the
+		// remaining text is parsed with the last chunk
+		assertParallel("<root><a/><b></b></a><c/></root>", true);
+		// start tags in a comment or an attribute value are not split offsets
+		assertParallel("<root><a/><!-- <b> --> <c/></root>", true);
+		assertParallel("<root><a/><b x='><c/>'></b><c/></root>", true);
+	}
+
+	@Test
+	public void testLargeDocument() {
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<records>\n");
+		for (int i = 0; i < 2000; i++) {
+			xml.append("  <record id=\"").append(i).append("\">\n    <name>n").append(i)
+					.append("</name><!-- comment -->\n    <value><![CDATA[ ").append(i).append(" ]]></value>\n  </record>\n");
+		}
+		xml.append("</records>\n");
+		String text = xml.toString();
+		int[] splitOffsets = DOMParser.findSplitOffsets(text, 10000);
+		Assert.assertNotNull(splitOffsets);
+		Assert.assertTrue(splitOffsets.length > 10);
+		assertParallel(text, 10000);
+	}
+
+	@Test
+	public void testSharedSymbols() {
+		String xml = "<root><a b=\"1\"/><a b=\"2\"/><?c?><a b=\"3\"/><?c?></root>";
+		TextDocument document = new TextDocument(xml, "test.xml");
+		DOMDocument actual = DOMParser.getInstance().parseParallel(document, null, null, 1);
+		DOMElement root = actual.getDocumentElement();
+		DOMElement first = (DOMElement) root.getChild(0);
+		DOMElement last = (DOMElement) root.getChild(3);
+		Assert.assertEquals("a", first.getTagName());
+		Assert.assertSame(first.getTagName(), last.getTagName());
+		Assert.assertSame(first.getAttributeNodes().get(0).getName(), last.getAttributeNodes().get(0).getName());
+		Assert.assertSame(((DOMProcessingInstruction) root.getChild(2)).getTarget(),
+				((DOMProcessingInstruction) root.getChild(4)).getTarget());
+		// the names of the chunks are added to the symbol table of the document
+		Assert.assertSame(first.getTagName(), actual.getSymbolTable().addSymbol("a"));
+		Assert.assertSame(first.getAttributeNodes().get(0).getName(), actual.getSymbolTable().addSymbol("b"));
+	}
+
+	private static void assertParallel(String xml) {
+		assertParallel(xml, true);
+	}
+
+	private static void assertParallel(String xml, boolean split) {
+		Assert.assertEquals("Split of '" + xml + "'", split, DOMParser.findSplitOffsets(xml, 1) != null);
+		assertParallel(xml, 1);
+	}
+
+	private static void assertParallel(String xml, int chunkLength) {
+		TextDocument document = new TextDocument(xml, "test.xml");
+		DOMDocument expected = DOMParser.getInstance().parse(document, null);
+		DOMDocument actual = DOMParser.getInstance().parseParallel(document, null, null, chunkLength);
+		Assert.assertEquals("Parallel parse of '" + xml + "'", dump(expected), dump(actual));
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the lookup of the attributes of an element with a lot of
+ * attributes.
+ *
+ */
+public class NamedNodeIndexTest {
+
+	@Test
+	public void testAttributes() {
+		StringBuilder xml = new StringBuilder("<root xmlns:x=\"http://x\"");
+		for (int i = 0; i < 20; i++) {
+			xml.append(" a").append(i).append("=\"").append(i).append("\"");
+			xml.append(" x:a").append(i).append("=\"x").append(i).append("\"");
+		}
+		xml.append(" a0=\"duplicate\" />");
+		DOMElement root = parse(xml.toString()).getDocumentElement();
+		for (int i = 0; i < 20; i++) {
+			Assert.assertEquals(String.valueOf(i), root.getAttribute("a" + i));
+			Assert.assertEquals("x" + i, root.getAttribute("x:a" + i));
+			Assert.assertEquals("x" + i, root.getAttribute("x", "a" + i));
+			Assert.assertSame(root.getAttributeNode("x:a" + i), root.getAttributeNode("x", "a" + i));
+		}
+		Assert.assertEquals("http://x", root.getAttribute("xmlns", "x"));
+		Assert.assertEquals("http://x", root.getNamespaceURI("x"));
+		Assert.assertNull(root.getAttributeNode("a20"));
+		Assert.assertNull(root.getAttributeNode("y", "a0"));
+		Assert.assertNull(root.getAttributeNode("x", null));
+		Assert.assertTrue(root.hasAttribute("a19"));
+		Assert.assertFalse(root.hasAttribute("a"));
+		// the first attribute wins
+		Assert.assertEquals("0", root.getAttribute("a0"));
+
+		// the index is updated when an attribute is added
+		root.setAttribute("b", "c");
+		Assert.assertEquals("c", root.getAttribute("b"));
+		Assert.assertEquals("1", root.getAttribute("a1"));
+	}
+
+	private static DOMDocument parse(String xml) {
+		return DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the namespace URI and the prefix of DOM elements which are
+ * resolved with the namespace scopes.
+ *
+ */
+public class NamespaceScopeTest {
+
+	@Test
+	public void testNamespaceURI() {
+		DOMDocument document = parse("<beans xmlns=\"http://beans\" xmlns:p=\"http://p\" xmlns:c=\"http://c\">\r\n" + //
+				"  <bean>\r\n" + //
+				"    <p:property />\r\n" + //
+				"    <x:property xmlns:x=\"http://x\"><c:value/><x:value/></x:property>\r\n" + //
+				"    <y:property />\r\n" + //
+				"  </bean>\r\n" + //
+				"  <other xmlns=\"http://other\"><child/></other>\r\n" + //
+				"</beans>");
+		DOMElement beans = document.getDocumentElement();
+		DOMElement bean = (DOMElement) beans.getChild(0);
+		Assert.assertEquals("http://beans", beans.getNamespaceURI());
+		Assert.assertEquals("http://beans", bean.getNamespaceURI());
+		Assert.assertEquals("http://p", ((DOMElement) bean.getChild(0)).getNamespaceURI());
+		DOMElement xProperty = (DOMElement) bean.getChild(1);
+		Assert.assertEquals("http://x", xProperty.getNamespaceURI());
+		Assert.assertEquals("http://c", ((DOMElement) xProperty.getChild(0)).getNamespaceURI());
+		Assert.assertEquals("http://x", ((DOMElement) xProperty.getChild(1)).getNamespaceURI());
+		Assert.assertNull(((DOMElement) bean.getChild(2)).getNamespaceURI());
+		DOMElement other = (DOMElement) beans.getChild(1);
+		Assert.assertEquals("http://other", other.getNamespaceURI());
+		Assert.assertEquals("http://other", ((DOMElement) other.getChild(0)).getNamespaceURI());
+	}
+
+	@Test
+	public void testNamespaceURIOfPrefixedAncestor() {
+		// an element without prefix gets the namespace of the nearest ancestor which
+		// has a namespace
+		DOMDocument document = parse("<root xmlns=\"http://root\"><x:a><b/></x:a><y:a xmlns:y=\"http://y\"><b/></y:a></root>");
+		DOMElement root = document.getDocumentElement();
+		DOMElement xa = (DOMElement) root.getChild(0);
+		DOMElement ya = (DOMElement) root.getChild(1);
+		Assert.assertNull(xa.getNamespaceURI());
+		Assert.assertEquals("http://root", ((DOMElement) xa.getChild(0)).getNamespaceURI());
+		Assert.assertEquals("http://y", ((DOMElement) ya.getChild(0)).getNamespaceURI());
+	}
+
+	@Test
+	public void testEmptyNamespaceURI() {
+		DOMDocument document = parse("<x:root xmlns:x=\"http://x\"><x:a xmlns:x=\"\"><x:b/></x:a><c xmlns=\"\"/></x:root>");
+		DOMElement root = document.getDocumentElement();
+		DOMElement a = (DOMElement) root.getChild(0);
+		// the empty declaration of the element is ignored, but not the one of an
+		// ancestor
+		Assert.assertEquals("http://x", a.getNamespaceURI());
+		Assert.assertEquals("", ((DOMElement) a.getChild(0)).getNamespaceURI());
+		Assert.assertEquals("http://x", ((DOMElement) root.getChild(1)).getNamespaceURI());
+	}
+
+	@Test
+	public void testPrefix() {
+		DOMDocument document = parse("<root xmlns=\"http://root\" xmlns:a=\"http://a\" xmlns:b=\"http://a\">\r\n" + //
+				"  <child xmlns:c=\"http://c\" xmlns:d=\"http://root\"><leaf/></child>\r\n" + //
+				"</root>");
+		DOMElement root = document.getDocumentElement();
+		DOMElement child = (DOMElement) root.getChild(0);
+		DOMElement leaf = (DOMElement) child.getChild(0);
+		Assert.assertEquals("", root.getPrefix("http://root"));
+		Assert.assertEquals("a", root.getPrefix("http://a"));
+		Assert.assertNull(root.getPrefix("http://c"));
+		Assert.assertNull(root.getPrefix(null));
+		Assert.assertEquals("c", leaf.getPrefix("http://c"));
+		Assert.assertEquals("a", leaf.getPrefix("http://a"));
+		Assert.assertEquals("d", leaf.getPrefix("http://root"));
+		Assert.assertNull(leaf.getPrefix("http://unknown"));
+		Assert.assertSame(root.getNamespaceScope(), document.getDocumentElement().getNamespaceScope());
+		Assert.assertSame(child.getNamespaceScope(), leaf.getNamespaceScope());
+	}
+
+	private static DOMDocument parse(String xml) {
+		return DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import static org.eclipse.lsp4xml.dom.parser.Constants._CSB;
+import static org.eclipse.lsp4xml.dom.parser.Constants._MIN;
+import static org.eclipse.lsp4xml.dom.parser.Constants._QMA;
+import static org.eclipse.lsp4xml.dom.parser.Constants._RAN;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.lsp4xml.commons.Rope;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+/**
+ * Multi line stream tests.
+ *
+ */
+public class MultiLineStreamTest {
+
+	private static final String CHARS = "aZ09_:-.\u00E9 \t\r\n\u000B\"'<>/=?!\u0000\u0085 ";
+
+	@Test
+	public void testMatchersLikeRegExp() {
+		Random random = new Random(0);
+		for (int i = 0; i < 10000; i++) {
+			String text = randomText(random);
+			assertMatcher(text, Constants.ELEMENT_NAME_REGEX, s -> s.advanceIfElementName());
+			assertMatcher(text, Constants.ATTRIBUTE_NAME_REGEX, s -> s.advanceIfAttributeName());
+			assertMatcher(text, Constants.URL_VALUE_REGEX, s -> s.advanceIfURLValue());
+			MultiLineStream stream = new MultiLineStream(text, 0);
+			Matcher matcher = Constants.DOCTYPE_KIND_OPTIONS.matcher(text);
+			Assert.assertEquals(text, matcher.find() ? matcher.group(1) : "", stream.advanceIfDoctypeKind());
+		}
+		assertMatcher("PUBLIC \"a\"", Constants.DOCTYPE_KIND_OPTIONS, s -> s.advanceIfDoctypeKind().length());
+		assertMatcher("SYSTEM'a'", Constants.DOCTYPE_KIND_OPTIONS, s -> s.advanceIfDoctypeKind().length());
+	}
+
+	@Test
+	public void testAttributeValue() {
+		assertAttributeValue("\"value\" a=\"b\"", "\"value\"");
+		assertAttributeValue("'value' a='b'", "'value'");
+		assertAttributeValue("\"val'ue\"", "\"val'ue\"");
+		assertAttributeValue("\"value", "\"value");
+		// the value must start with a quote
+		assertAttributeValue("value'", "");
+	}
+
+	@Test
+	public void testAdvanceUntilCharsAcrossBuffers() {
+		String text = "<!--" + Strings.repeat("- -> ", 5000) + "-->" + Strings.repeat("x", 10000) + "<a";
+		for (CharSequence source : new CharSequence[] { text, Rope.of(text) }) {
+			MultiLineStream stream = new MultiLineStream(source, 4);
+			Assert.assertTrue(stream.advanceUntilChars(_MIN, _MIN, _RAN));
+			Assert.assertEquals(text.indexOf("-->"), stream.pos());
+			Assert.assertTrue(stream.advanceUntilCharsOrNewTag(_QMA, _RAN));
+			Assert.assertEquals(text.lastIndexOf('<'), stream.pos());
+			Assert.assertFalse(stream.advanceUntilChars(_CSB, _CSB, _RAN));
+			Assert.assertTrue(stream.eos());
+			Assert.assertEquals(text.length(), stream.getLastNonWhitespaceOffset());
+		}
+	}
+
+	@Test
+	public void testScanRope() {
+		StringBuilder xml = new StringBuilder("<root>\n");
+		for (int i = 0; i < 2000; i++) {
+			xml.append("  <a name=\"value\"><!-- comment --><![CDATA[ data ]]>text</a>\n");
+		}
+		xml.append("</root>");
+		String text = xml.toString();
+		Assert.assertEquals(scan(text), scan(Rope.of(text)));
+	}
+
+	private static List<String> scan(CharSequence text) {
+		Scanner scanner = XMLScanner.createScanner(text);
+		List<String> tokens = new ArrayList<>();
+		TokenType token = scanner.scan();
+		while (token != TokenType.EOS) {
+			tokens.add(scanner.getTokenOffset() + ":" + token + ":" + scanner.getTokenText());
+			token = scanner.scan();
+		}
+		return tokens;
+	}
+
+	private interface StreamMatcher {
+		int advance(MultiLineStream stream);
+	}
+
+	private static void assertMatcher(String text, Pattern regex, StreamMatcher matcher) {
+		MultiLineStream stream = new MultiLineStream(text, 0);
+		Matcher m = regex.matcher(text);
+		String expected = m.find() ? m.group(regex == Constants.DOCTYPE_KIND_OPTIONS ? 1 : 0) : "";
+		Assert.assertEquals("Match of '" + text + "' with " + regex, expected.length(), matcher.advance(stream));
+		Assert.assertEquals(expected.length(), stream.pos());
+	}
+
+	private static void assertAttributeValue(String text, String expected) {
+		MultiLineStream stream = new MultiLineStream(text, 0);
+		Assert.assertEquals(expected.length(), stream.advanceIfAttributeValue());
+		Assert.assertEquals(expected.length(), stream.pos());
+	}
+
+	private static String randomText(Random random) {
+		if (random.nextInt(10) == 0) {
+			return (random.nextBoolean() ? "PUBLIC" : "SYSTEM") + CHARS.charAt(random.nextInt(CHARS.length()));
+		}
+		StringBuilder text = new StringBuilder();
+		int length = random.nextInt(8);
+		for (int i = 0; i < length; i++) {
+			text.append(CHARS.charAt(random.nextInt(CHARS.length())));
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Scanner checkpoints tests.
+ *
+ */
+public class ScannerCheckpointsTest {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n" + //
+			"<!DOCTYPE root [\n" + //
+			"  <!ELEMENT root (a*)>\n" + //
+			"  <!ATTLIST a name CDATA #IMPLIED>\n" + //
+			"  <!ENTITY foo \"bar\">\n" + //
+			"]>\n" + //
+			"<root>\n" + //
+			"  <a name=\"value\">text</a>\n" + //
+			"  <!-- comment -->\n" + //
+			"  <b><![CDATA[ data ]]></b>\n" + //
+			"  <?pi content?>\n" + //
+			"  <c attr='value' />\n" + //
+			"</root>";
+
+	@Test
+	public void testResumeFromCheckpoints() {
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(1, 10);
+		List<String> tokens = scan(XMLScanner.createScanner(XML, 0, ScannerState.WithinContent, false, checkpoints));
+		Assert.assertFalse(checkpoints.getCheckpoints().isEmpty());
+		for (ScannerCheckpoint checkpoint : checkpoints.getCheckpoints()) {
+			List<String> resumedTokens = scan(XMLScanner.createScanner(XML, checkpoint));
+			Assert.assertEquals("Resume from " + checkpoint, tokensFrom(tokens, checkpoint.getOffset()),
+					resumedTokens);
+		}
+	}
+
+	@Test
+	public void testCheckpointsInterval() {
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(1, 50);
+		scan(XMLScanner.createScanner(XML, 0, ScannerState.WithinContent, false, checkpoints));
+		int previousOffset = 0;
+		for (ScannerCheckpoint checkpoint : checkpoints.getCheckpoints()) {
+			Assert.assertTrue(checkpoint.getOffset() - previousOffset >= 50);
+			previousOffset = checkpoint.getOffset();
+		}
+	}
+
+	@Test
+	public void testFindBefore() {
+		ScannerCheckpoints checkpoints = new ScannerCheckpoints(1, 10);
+		scan(XMLScanner.createScanner(XML, 0, ScannerState.WithinContent, false, checkpoints));
+		ScannerCheckpoint first = checkpoints.getCheckpoints().get(0);
+		ScannerCheckpoint second = checkpoints.getCheckpoints().get(1);
+		Assert.assertNull(checkpoints.findBefore(0));
+		Assert.assertNull(checkpoints.findBefore(first.getOffset()));
+		Assert.assertSame(first, checkpoints.findBefore(first.getOffset() + 1));
+		Assert.assertSame(first, checkpoints.findBefore(second.getOffset()));
+		Assert.assertSame(second, checkpoints.findBefore(second.getOffset() + 1));
+		List<ScannerCheckpoint> all = checkpoints.getCheckpoints();
+		Assert.assertSame(all.get(all.size() - 1), checkpoints.findBefore(XML.length() + 1));
+	}
+
+	private static List<String> scan(Scanner scanner) {
+		List<String> tokens = new ArrayList<>();
+		TokenType token = scanner.scan();
+		while (token != TokenType.EOS) {
+			tokens.add(scanner.getTokenOffset() + ":" + token + ":" + scanner.getTokenText());
+			token = scanner.scan();
+		}
+		return tokens;
+	}
+
+	private static List<String> tokensFrom(List<String> tokens, int offset) {
+		List<String> result = new ArrayList<>();
+		for (String token : tokens) {
+			if (Integer.parseInt(token.substring(0, token.indexOf(':'))) >= offset) {
+				result.add(token);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import org.eclipse.lsp4xml.commons.Rope;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.DOMDocument;
+import org.eclipse.lsp4xml.dom.DOMElement;
+import org.eclipse.lsp4xml.dom.DOMParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Symbol table tests.
+ *
+ */
+public class SymbolTableTest {
+
+	@Test
+	public void testAddSymbol() {
+		SymbolTable symbols = new SymbolTable();
+		String text = "<entry key='a'/><entry key='b'/>";
+		String entry = symbols.addSymbol(text, 1, 6);
+		Assert.assertEquals("entry", entry);
+		Assert.assertSame(entry, symbols.addSymbol(text, 17, 22));
+		Assert.assertSame(entry, symbols.addSymbol(Rope.of(text), 17, 22));
+		Assert.assertSame(entry, symbols.addSymbol(new String("entry")));
+		Assert.assertEquals("key", symbols.addSymbol(text, 7, 10));
+		Assert.assertEquals("", symbols.addSymbol(text, 0, 0));
+		Assert.assertEquals(3, symbols.size());
+	}
+
+	@Test
+	public void testRehash() {
+		SymbolTable symbols = new SymbolTable();
+		String[] names = new String[1000];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = symbols.addSymbol("name" + i);
+		}
+		Assert.assertEquals(names.length, symbols.size());
+		for (int i = 0; i < names.length; i++) {
+			String text = "<name" + i + ">";
+			Assert.assertSame(names[i], symbols.addSymbol(text, 1, text.length() - 1));
+		}
+		Assert.assertEquals(names.length, symbols.size());
+	}
+
+	@Test
+	public void testParserSharesNames() {
+		String xml = "<root><entry key=\"a\"/><entry key=\"b\"></entry><?pi ?><?pi ?></root>";
+		DOMDocument document = DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+		DOMElement root = document.getDocumentElement();
+		DOMElement first = (DOMElement) root.getChild(0);
+		DOMElement second = (DOMElement) root.getChild(1);
+		Assert.assertSame(first.getTagName(), second.getTagName());
+		Assert.assertSame(first.getAttributeNode("key").getName(), second.getAttributeNode("key").getName());
+		Assert.assertSame(root.getChild(2).getNodeName(), root.getChild(3).getNodeName());
+		Assert.assertSame(first.getTagName(), document.getSymbolTable().addSymbol("entry"));
+	}
+
+	@Test
+	public void testAttributeNodeWithPrefix() {
+		String xml = "<root xmlns:x=\"http://x\" x:a=\"1\" a=\"2\" />";
+		DOMDocument document = DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+		DOMElement root = document.getDocumentElement();
+		Assert.assertEquals("1", root.getAttributeNode("x", "a").getValue());
+		Assert.assertEquals("2", root.getAttributeNode(null, "a").getValue());
+		Assert.assertEquals("2", root.getAttributeNode("a").getValue());
+		Assert.assertNull(root.getAttributeNode("y", "a"));
+		Assert.assertNull(root.getAttributeNode("x", "b"));
+		Assert.assertNull(root.getAttributeNode("xmlns", "y"));
+	}
+}
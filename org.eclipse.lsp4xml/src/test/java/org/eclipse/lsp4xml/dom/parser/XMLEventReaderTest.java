@@ -0,0 +1,222 @@
+/**
+ *  Copyright (c) 2018 Angelo ZERR.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v2.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v20.html
+ *
+ *  Contributors:
+ *  Angelo Zerr <angelo.zerr@gmail.com> - initial API and implementation
+ */
+package org.eclipse.lsp4xml.dom.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.DOMDocument;
+import org.eclipse.lsp4xml.dom.DOMElement;
+import org.eclipse.lsp4xml.dom.DOMNode;
+import org.eclipse.lsp4xml.dom.DOMParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * XML event reader tests.
+ *
+ */
+public class XMLEventReaderTest {
+
+	@Test
+	public void testEvents() {
+		assertEvents("<?xml version=\"1.0\"?><root a='1' b><!-- c --><e/>text<![CDATA[d]]><?pi x?></root>", //
+				"PROCESSING_INSTRUCTION xml [0,21] version=1.0", //
+				"START_ELEMENT root [21,35] a=1 b=null", //
+				"COMMENT [35,45] ' c '", //
+				"START_ELEMENT e [45,49]", //
+				"END_ELEMENT e [47,49] self-closed", //
+				"TEXT [49,53] 'text'", //
+				"CDATA [53,66] 'd'", //
+				"PROCESSING_INSTRUCTION pi [66,74] 'x'", //
+				"END_ELEMENT root [74,81] closed");
+	}
+
+	@Test
+	public void testUnclosedElements() {
+		// an end tag ends the unclosed elements opened after its element
+		assertEvents("<a><b><c></a></x><d>", //
+				"START_ELEMENT a [0,3]", //
+				"START_ELEMENT b [3,6]", //
+				"START_ELEMENT c [6,9]", //
+				"END_ELEMENT c [9,9]", //
+				"END_ELEMENT b [9,9]", //
+				"END_ELEMENT a [9,13] closed", //
+				"START_ELEMENT d [17,20]", //
+				"END_ELEMENT d [20,20]");
+		assertClosedLikeDOM("<a><b><c></a></x><d>");
+	}
+
+	@Test
+	public void testMixedCaseEndTags() {
+		// the end tags are matched ignoring the case like in the DOM
+		String xml = "<Root><a><B></b></A><c></C></root>";
+		assertEvents(xml, //
+				"START_ELEMENT Root [0,6]", //
+				"START_ELEMENT a [6,9]", //
+				"START_ELEMENT B [9,12]", //
+				"END_ELEMENT B [12,16] closed", //
+				"END_ELEMENT a [16,20] closed", //
+				"START_ELEMENT c [20,23]", //
+				"END_ELEMENT c [23,27] closed", //
+				"END_ELEMENT Root [27,34] closed");
+		assertClosedLikeDOM(xml);
+	}
+
+	@Test
+	public void testOrphanEndTags() {
+		// the DOM creates an element without start tag for an orphan end tag, the
+		// reader ignores it
+		String xml = "<a></b><c></d></c></e></a></f>";
+		assertEvents(xml, //
+				"START_ELEMENT a [0,3]", //
+				"START_ELEMENT c [7,10]", //
+				"END_ELEMENT c [14,18] closed", //
+				"END_ELEMENT a [22,26] closed");
+		assertClosedLikeDOM(xml);
+		assertClosedLikeDOM("<a>\n<b>\n</c>\n</b>\n</a>");
+		assertClosedLikeDOM("<a><b></c></a></b>");
+	}
+
+	@Test
+	public void testUnclosedTags() {
+		assertEvents("<a><b attr='v' <c></b </a", //
+				"START_ELEMENT a [0,3]", //
+				"START_ELEMENT b [3,14] attr=v", //
+				"START_ELEMENT c [15,18]", //
+				"END_ELEMENT c [18,18]", //
+				"END_ELEMENT b [18,21] closed", //
+				"END_ELEMENT a [22,25] closed");
+	}
+
+	@Test
+	public void testElementStartAndDepth() {
+		XMLEventReader reader = new XMLEventReader("<a>\n  <b></b>\n</a>");
+		Assert.assertEquals(XMLEventType.START_ELEMENT, reader.next());
+		Assert.assertEquals(1, reader.getDepth());
+		Assert.assertEquals(XMLEventType.TEXT, reader.next());
+		Assert.assertEquals(XMLEventType.START_ELEMENT, reader.next());
+		Assert.assertEquals(2, reader.getDepth());
+		Assert.assertEquals(6, reader.getElementStart());
+		Assert.assertEquals(7, reader.getNameStart());
+		Assert.assertEquals(8, reader.getNameEnd());
+		Assert.assertEquals(XMLEventType.END_ELEMENT, reader.next());
+		Assert.assertEquals(1, reader.getDepth());
+		Assert.assertEquals(6, reader.getElementStart());
+		Assert.assertEquals("b", reader.getName());
+		Assert.assertEquals(XMLEventType.TEXT, reader.next());
+		Assert.assertEquals(XMLEventType.END_ELEMENT, reader.next());
+		Assert.assertEquals(0, reader.getDepth());
+		Assert.assertEquals(XMLEventType.END_DOCUMENT, reader.next());
+		Assert.assertEquals(XMLEventType.END_DOCUMENT, reader.next());
+	}
+
+	@Test
+	public void testHandler() {
+		StringBuilder xml = new StringBuilder("<root>");
+		for (int i = 0; i < 1000; i++) {
+			xml.append("<item id='").append(i).append("'><value>").append(i).append("</value></item>");
+		}
+		xml.append("</root>");
+		int[] counts = new int[3];
+		new XMLEventReader(xml).accept(new XMLEventHandler() {
+
+			@Override
+			public void startElement(XMLEventReader reader) {
+				counts[0]++;
+				counts[2] = Math.max(counts[2], reader.getDepth());
+			}
+
+			@Override
+			public void endElement(XMLEventReader reader) {
+				Assert.assertTrue(reader.isClosed());
+				counts[1]++;
+			}
+		});
+		Assert.assertEquals(2001, counts[0]);
+		Assert.assertEquals(2001, counts[1]);
+		Assert.assertEquals(3, counts[2]);
+	}
+
+	/**
+	 * Asserts that the elements with a start tag are closed by the reader like
+	 * in the DOM.
+	 */
+	private static void assertClosedLikeDOM(String xml) {
+		Map<Integer, Boolean> expected = new TreeMap<>();
+		DOMDocument document = DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+		collectClosed(document, expected);
+		Map<Integer, Boolean> actual = new TreeMap<>();
+		XMLEventReader reader = new XMLEventReader(xml);
+		XMLEventType event = reader.next();
+		while (event != XMLEventType.END_DOCUMENT) {
+			if (event == XMLEventType.END_ELEMENT) {
+				actual.put(reader.getElementStart(), reader.isClosed());
+			}
+			event = reader.next();
+		}
+		Assert.assertEquals("Closed elements of '" + xml + "'", expected, actual);
+	}
+
+	private static void collectClosed(DOMNode node, Map<Integer, Boolean> closed) {
+		for (DOMNode child : node.getChildren()) {
+			if (child.isElement() && ((DOMElement) child).hasStartTag()) {
+				closed.put(child.getStart(), child.isClosed());
+			}
+			collectClosed(child, closed);
+		}
+	}
+
+	private static void assertEvents(String xml, String... expected) {
+		List<String> events = new ArrayList<>();
+		XMLEventReader reader = new XMLEventReader(xml);
+		XMLEventType event = reader.next();
+		while (event != XMLEventType.END_DOCUMENT) {
+			StringBuilder dump = new StringBuilder(event.name());
+			if (reader.getName() != null) {
+				dump.append(' ').append(reader.getName());
+			}
+			dump.append(" [").append(reader.getStart()).append(',').append(reader.getEnd()).append(']');
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				dump.append(' ').append(reader.getAttributeName(i)).append('=').append(reader.getAttributeValue(i));
+			}
+			switch (event) {
+			case TEXT:
+			case CDATA:
+			case COMMENT:
+				dump.append(" '").append(reader.getText()).append('\'');
+				break;
+			case PROCESSING_INSTRUCTION:
+				// the content of a processing instruction with attributes (ex: the prolog) is
+				// dumped with the attributes
+				if (reader.getAttributeCount() == 0 && reader.getText() != null) {
+					dump.append(" '").append(reader.getText()).append('\'');
+				}
+				break;
+			default:
+				// the elements have no text
+				break;
+			}
+			if (reader.isSelfClosed()) {
+				dump.append(" self-closed");
+			} else if (reader.isClosed()) {
+				dump.append(" closed");
+			}
+			events.add(dump.toString());
+			event = reader.next();
+		}
+		Assert.assertEquals(Arrays.asList(expected), events);
+	}
+}
@@ -11,6 +11,9 @@
 package org.eclipse.lsp4xml.dom.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -831,6 +834,43 @@ public class XMLScannerTest {
 		assertOffsetAndToken(20, TokenType.EndTagClose);
 	}
 
+	@Test
+	public void testUnquotedAttributeValue() {
+		scanner = XMLScanner.createScanner("<a b=c>text's</a>");
+		assertOffsetAndToken(0, TokenType.StartTagOpen);
+		assertOffsetAndToken(1, TokenType.StartTag, "a");
+		assertOffsetAndToken(2, TokenType.Whitespace);
+		assertOffsetAndToken(3, TokenType.AttributeName, "b");
+		assertOffsetAndToken(4, TokenType.DelimiterAssign);
+		assertOffsetAndToken(5, TokenType.AttributeName, "c");
+		assertOffsetAndToken(6, TokenType.StartTagClose);
+		assertOffsetAndToken(7, TokenType.Content, "text's");
+	}
+
+	@Test
+	public void testTokenTextWithoutCopy() {
+		scanner = XMLScanner.createScanner("<Hello>  \n\t</hello>");
+		assertOffsetAndToken(0, TokenType.StartTagOpen);
+		assertOffsetAndToken(1, TokenType.StartTag);
+		assertTrue(scanner.isTokenTextEquals("Hello"));
+		assertFalse(scanner.isTokenTextEquals("hello"));
+		assertFalse(scanner.isTokenTextEquals("Hell"));
+		assertTrue(scanner.isTokenTextEqualsIgnoreCase("hello"));
+		assertFalse(scanner.isTokenTextEqualsIgnoreCase(null));
+		CharSequence tokenText = scanner.getTokenTextSequence();
+		assertEquals(5, tokenText.length());
+		assertEquals('e', tokenText.charAt(1));
+		assertEquals("ell", tokenText.subSequence(1, 4).toString());
+		assertEquals("Hello", tokenText.toString());
+		assertFalse(scanner.isTokenTextWhitespace());
+		assertOffsetAndToken(6, TokenType.StartTagClose);
+		assertOffsetAndToken(7, TokenType.Content);
+		assertTrue(scanner.isTokenTextWhitespace());
+		// the token text sequence is reused
+		assertSame(tokenText, scanner.getTokenTextSequence());
+		assertEquals("  \n\t", tokenText.toString());
+	}
+
   //----------Tools-------------------------------------------------------
 
 
@@ -5,10 +5,16 @@ import static org.eclipse.lsp4xml.XMLAssert.r;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.lsp4j.SymbolKind;
 import org.eclipse.lsp4xml.XMLAssert;
+import org.eclipse.lsp4xml.commons.TextDocument;
+import org.eclipse.lsp4xml.dom.DOMDocument;
+import org.eclipse.lsp4xml.dom.DOMParser;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -62,4 +68,43 @@ public class XMLDocumentSymbolsTest {
 				)), //
 				ds("Folks", SymbolKind.Field, r(10, 0, 12, 8), r(10, 0, 12, 8), null, Collections.emptyList()));
 	}
+
+	@Test
+	public void maxDepth() {
+		String xml = "<a>\r\n" + //
+				"  <b>\r\n" + //
+				"    <c><d/></c>\r\n" + //
+				"  </b>\r\n" + //
+				"</a>";
+		DOMDocument xmlDocument = DOMParser.getInstance().parse(new TextDocument(xml, "test.xml"), null);
+		XMLLanguageService xmlLanguageService = new XMLLanguageService();
+
+		List<DocumentSymbol> symbols = xmlLanguageService.findDocumentSymbols(xmlDocument, 2);
+		XMLAssert.assertDocumentSymbols(symbols, //
+				ds("a", SymbolKind.Field, r(0, 0, 4, 4), r(0, 0, 4, 4), null, Arrays.asList( //
+						ds("b", SymbolKind.Field, r(1, 2, 3, 6), r(1, 2, 3, 6), null, Collections.emptyList()))));
+		Assert.assertTrue(xmlLanguageService.findDocumentSymbols(xmlDocument, 0).isEmpty());
+
+		List<SymbolInformation> informations = xmlLanguageService.findSymbolInformations(xmlDocument, 3);
+		Assert.assertEquals(3, informations.size());
+		Assert.assertEquals(4, xmlLanguageService.findSymbolInformations(xmlDocument, -1).size());
+	}
+
+	@Test
+	public void badLocation() {
+		TextDocument document = new TextDocument("<a/><b/><c/>", "test.xml");
+		DOMDocument xmlDocument = DOMParser.getInstance().parse(document, null);
+		// the offsets of 'c' are out of the new text
+		document.setText("<a/><b/>");
+		XMLLanguageService xmlLanguageService = new XMLLanguageService();
+
+		// only the symbol with a bad location is ignored
+		List<DocumentSymbol> symbols = xmlLanguageService.findDocumentSymbols(xmlDocument);
+		XMLAssert.assertDocumentSymbols(symbols, //
+				ds("a", SymbolKind.Field, r(0, 0, 0, 4), r(0, 0, 0, 4), null, Collections.emptyList()), //
+				ds("b", SymbolKind.Field, r(0, 4, 0, 8), r(0, 4, 0, 8), null, Collections.emptyList()));
+		List<SymbolInformation> informations = xmlLanguageService.findSymbolInformations(xmlDocument);
+		Assert.assertEquals(2, informations.size());
+		Assert.assertEquals("b", informations.get(1).getName());
+	}
 }
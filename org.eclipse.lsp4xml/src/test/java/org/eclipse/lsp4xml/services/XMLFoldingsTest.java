@@ -154,6 +154,57 @@ public class XMLFoldingsTest {
 		assertRanges(input,  new ExpectedIndentRange[] {r(0, 1)});
 	}
 
+	@Test
+	public void	testFoldEndTagWithoutName()  {
+		String[] input = new String[] {
+			/*0*/"<a>",
+			/*1*/"<b>",
+			/*2*/"text",
+			/*3*/"</",
+			/*4*/"</a>",
+		};
+		// the end tag without name is ignored like in the DOM: 'b' is not closed
+		assertRanges(input,  new ExpectedIndentRange[] {r(0, 3)});
+	}
+
+	@Test
+	public void	testFoldEndTagWithoutClose()  {
+		String[] input = new String[] {
+			/*0*/"<a>",
+			/*1*/"<b>",
+			/*2*/"text",
+			/*3*/"</b>",
+			/*4*/"</a",
+		};
+		// the end tags without '>' close their element like in the DOM
+		assertRanges(input,  new ExpectedIndentRange[] {r(0, 3), r(1, 2)});
+
+		input = new String[] {
+			/*0*/"<a>",
+			/*1*/"<b>",
+			/*2*/"text",
+			/*3*/"</b",
+			/*4*/"</a>",
+		};
+		assertRanges(input,  new ExpectedIndentRange[] {r(0, 3), r(1, 2)});
+	}
+
+	@Test
+	public void	testFoldUnclosedInnerElements()  {
+		String[] input = new String[] {
+			/*0*/"<a>",
+			/*1*/"<b>",
+			/*2*/"<c>",
+			/*3*/"text",
+			/*4*/"</a>",
+			/*5*/"<d>",
+			/*6*/"text",
+			/*7*/"</d>",
+		};
+		// the end tag of 'a' ends 'b' and 'c' which are not closed
+		assertRanges(input,  new ExpectedIndentRange[] {r(0, 3), r(5, 6)});
+	}
+
 	@Test
 	public void	testFoldIntersectingRegion()  {
 		String[] input = new String[] {